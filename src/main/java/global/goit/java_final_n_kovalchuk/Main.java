@@ -2,24 +2,29 @@ package global.goit.java_final_n_kovalchuk;
 
 import global.goit.java_final_n_kovalchuk.cli.CommandLineArgs;
 import global.goit.java_final_n_kovalchuk.cli.CommandLineParser;
+import global.goit.java_final_n_kovalchuk.converter.ConversionOptions;
 import global.goit.java_final_n_kovalchuk.converter.SimpleFormatConverter;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.merge.InputPaths;
 import global.goit.java_final_n_kovalchuk.validator.FileValidator;
 
-import java.io.File;
+import java.util.List;
 
 /**
  * Main entry point for CLI File Converter application.
  * Supports conversion between JSON, XML and CSV file formats.
  *
  * Stage 3: Full conversion functionality implemented using SimpleFormatConverter.
+ * Status messages are printed to standard error, so "--output -" can stream data to standard output.
+ * Several inputs, given as repeated --input flags or glob patterns, are merged into one output.
  */
 public class Main {
 
     /**
      * Main method that parses command-line arguments and initiates file conversion.
      *
-     * @param args command-line arguments: --input <input-file> --output <output-file> [--csv-mapping]
+     * @param args command-line arguments: --input <input-file|pattern|-> [--input ...] --output <output-file|->
+     *             [--from <format>] [--to <format>] [--csv-mapping]
      */
     public static void main(String[] args) {
         try {
@@ -27,32 +32,41 @@ public class Main {
             CommandLineParser parser = new CommandLineParser();
             CommandLineArgs commandLineArgs = parser.parse(args);
 
-            String inputFile = commandLineArgs.getInputFile();
+            List<String> inputFiles = InputPaths.expand(commandLineArgs.getInputFiles());
+            String inputFile = inputFiles.get(0);
             String outputFile = commandLineArgs.getOutputFile();
             boolean csvMapping = commandLineArgs.isCsvMapping();
+            ConversionOptions options = commandLineArgs.getOptions();
 
-            // Validate input file
-            FileValidator.validateFile(inputFile);
+            // Validate input files
+            for (String file : inputFiles) {
+                if (!ConversionOptions.isStandardStream(file)) {
+                    FileValidator.validateFile(file, options.getInputFormat());
+                }
+            }
 
-            System.out.println("CLI File Converter - Stage 3");
-            System.out.println("==============================");
-            System.out.println("Input file: " + inputFile);
-            System.out.println("Output file: " + outputFile);
+            System.err.println("CLI File Converter - Stage 3");
+            System.err.println("==============================");
+            if (inputFiles.size() > 1) {
+                System.err.println("Input files: " + inputFiles.size() + " (" + inputFile + " .. "
+                        + inputFiles.get(inputFiles.size() - 1) + ")");
+            } else {
+                System.err.println("Input file: " + inputFile);
+            }
+            System.err.println("Output file: " + outputFile);
             if (csvMapping) {
-                System.out.println("CSV mapping: enabled (no headers)");
+                System.err.println("CSV mapping: enabled (no headers)");
             }
 
-            System.out.println();
+            System.err.println();
 
             // Create converter and perform conversion
             SimpleFormatConverter converter = new SimpleFormatConverter();
-            File input = new File(inputFile);
-            File output = new File(outputFile);
 
-            converter.convert(input, output, csvMapping);
+            converter.convert(inputFiles, outputFile, options);
 
-            System.out.println();
-            System.out.println("Conversion completed successfully!");
+            System.err.println();
+            System.err.println("Conversion completed successfully!");
 
         } catch (FileConversionException e) {
             // Print clear error message without stack trace
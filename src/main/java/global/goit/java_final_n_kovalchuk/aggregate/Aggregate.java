@@ -0,0 +1,201 @@
+package global.goit.java_final_n_kovalchuk.aggregate;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One aggregate of an --agg specification, such as {@code sum(amount)} or {@code count(*)}.
+ *
+ * Numbers and text holding a number are aggregated; null, missing and other values are skipped,
+ * so {@code count(field)} counts the numeric values of a field and {@code count(*)} counts records.
+ * An aggregate over no values is null, except for counts, which are 0. Integers, and text
+ * holding an integer, are aggregated exactly as long values; other numbers as doubles.
+ */
+public class Aggregate {
+
+    /**
+     * The aggregate functions.
+     */
+    public enum Function {
+        COUNT, SUM, MIN, MAX, AVG
+    }
+
+    private static final String ALL_RECORDS = "*";
+
+    private final Function function;
+    private final String field;
+
+    /**
+     * Constructs a new Aggregate.
+     *
+     * @param function the aggregate function
+     * @param field    the field to aggregate, or null for all records (count only)
+     */
+    public Aggregate(Function function, String field) {
+        this.function = function;
+        this.field = field;
+    }
+
+    /**
+     * Parses an --agg specification such as "sum(amount),count(*),avg(price)".
+     *
+     * @param specification comma-separated aggregates
+     * @return the aggregates in output order
+     * @throws InvalidInputException if an aggregate is malformed or a function is unknown
+     */
+    public static List<Aggregate> parseList(String specification) throws InvalidInputException {
+        List<Aggregate> aggregates = new ArrayList<>();
+        for (String part : specification.split(",", -1)) {
+            String text = part.trim();
+            int open = text.indexOf('(');
+            if (open <= 0 || !text.endsWith(")")) {
+                throw usageError(specification);
+            }
+
+            String name = text.substring(0, open).trim().toUpperCase(Locale.ROOT);
+            String field = text.substring(open + 1, text.length() - 1).trim();
+            Function function;
+            try {
+                function = Function.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidInputException(
+                    "Unknown aggregate function '" + text.substring(0, open).trim() + "' in '" + specification
+                        + "'. Use count, sum, min, max or avg"
+                );
+            }
+            if (field.isEmpty() || (ALL_RECORDS.equals(field) && function != Function.COUNT)) {
+                throw usageError(specification);
+            }
+            aggregates.add(new Aggregate(function, ALL_RECORDS.equals(field) ? null : field));
+        }
+        return Collections.unmodifiableList(aggregates);
+    }
+
+    /**
+     * Gets the aggregate function.
+     *
+     * @return the function
+     */
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * Gets the aggregated field.
+     *
+     * @return the field path, or null for count(*)
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Gets the name of the output column, for example "sum_amount" or "count".
+     *
+     * @return the column name
+     */
+    public String getOutputName() {
+        String name = function.name().toLowerCase(Locale.ROOT);
+        return field == null ? name : name + "_" + field;
+    }
+
+    /**
+     * Converts a field value to the number it is aggregated as.
+     *
+     * @param value the field value
+     * @return the number, or NaN if the value is null or not a number
+     */
+    static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value == null) {
+            return Double.NaN;
+        }
+
+        String text = value.toString().trim();
+        if (text.isEmpty() || !isNumberStart(text.charAt(0))) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Checks whether a field value is an integer that fits in a long, so that it is aggregated
+     * exactly by {@link #toLong(Object)} rather than as a double.
+     *
+     * @param value the field value
+     * @return true for integral numbers and text holding an integer in the long range
+     */
+    static boolean isInteger(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return true;
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).bitLength() < Long.SIZE;
+        }
+        if (value == null || value instanceof Number) {
+            return false;
+        }
+
+        String text = value.toString().trim();
+        int start = !text.isEmpty() && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (start == text.length() || text.length() > 20) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (text.length() - start < 19) {
+            return true;
+        }
+        try {
+            Long.parseLong(text);
+            return true;
+        } catch (NumberFormatException e) {
+            // More digits than a long holds
+            return false;
+        }
+    }
+
+    /**
+     * Converts a field value accepted by {@link #isInteger(Object)} to the long it is aggregated as.
+     *
+     * @param value the field value
+     * @return the integer
+     */
+    static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString().trim());
+    }
+
+    private static boolean isNumberStart(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    private static InvalidInputException usageError(String specification) {
+        return new InvalidInputException(
+            "Invalid aggregate specification: '" + specification
+                + "'. Usage: --agg <count(*)|count(field)|sum(field)|min(field)|max(field)|avg(field),...>"
+        );
+    }
+
+    @Override
+    public String toString() {
+        return function.name().toLowerCase(Locale.ROOT) + "(" + (field == null ? ALL_RECORDS : field) + ")";
+    }
+}
@@ -0,0 +1,383 @@
+package global.goit.java_final_n_kovalchuk.aggregate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Accumulators of all groups of one partial aggregation, in primitive arrays.
+ *
+ * Groups are numbered in order of insertion. An open-addressing table with linear probing
+ * maps a key hash to the group number; equal hashes are confirmed by comparing the key
+ * values as text, so "1" from CSV and 1 from JSON fall into the same group. Every aggregate
+ * has columns indexed by group number, so no accumulator objects are allocated per group: a
+ * {@code long} column of counts, a {@code long} column holding the sum, minimum or maximum
+ * of the integers, a {@code long} column counting the times that sum overflowed, and
+ * {@code double} columns holding the same for the other numbers.
+ *
+ * Integers are accumulated exactly, so 64-bit identifiers keep every digit and integer sums
+ * do not depend on how records were split between partial tables. Other numbers are summed
+ * with a compensation term, which keeps most of the rounding error out of the sum; their
+ * last digits may still differ with the number of threads.
+ *
+ * A table is used by one thread at a time.
+ */
+final class GroupTable {
+
+    private static final int INITIAL_GROUPS = 64;
+    private static final byte HAS_INTEGER = 1;
+    private static final byte HAS_FRACTION = 2;
+    private static final double MAX_EXACT_LONG = 1L << 53;
+
+    private final Aggregate.Function[] functions;
+    private final boolean[] countsRecords;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    private Object[][] keys;
+    private long[] hashes;
+    private long[] firstSeen;
+    private final long[][] counts;
+    private final byte[][] kinds;
+    private final long[][] integers;
+    private final long[][] carries;
+    private final double[][] values;
+    private final double[][] compensations;
+
+    /**
+     * Constructs a new empty GroupTable.
+     *
+     * @param aggregates the aggregates to accumulate, in column order
+     */
+    GroupTable(List<Aggregate> aggregates) {
+        functions = new Aggregate.Function[aggregates.size()];
+        countsRecords = new boolean[aggregates.size()];
+        for (int i = 0; i < functions.length; i++) {
+            functions[i] = aggregates.get(i).getFunction();
+            countsRecords[i] = aggregates.get(i).getField() == null;
+        }
+
+        slots = new int[INITIAL_GROUPS * 2];
+        mask = slots.length - 1;
+        keys = new Object[INITIAL_GROUPS][];
+        hashes = new long[INITIAL_GROUPS];
+        firstSeen = new long[INITIAL_GROUPS];
+        counts = new long[functions.length][INITIAL_GROUPS];
+        kinds = new byte[functions.length][INITIAL_GROUPS];
+        integers = new long[functions.length][INITIAL_GROUPS];
+        carries = new long[functions.length][INITIAL_GROUPS];
+        values = new double[functions.length][INITIAL_GROUPS];
+        compensations = new double[functions.length][INITIAL_GROUPS];
+    }
+
+    /**
+     * Adds one record to its group.
+     *
+     * @param key          the group key values
+     * @param hash         the hash of the key, from {@link #hash(Object[])}
+     * @param integral     for every aggregate, whether its field value is an integer
+     * @param integerParts the integer value of every aggregate's field where integral is set
+     * @param numbers      the value of every other aggregate's field, NaN if it is not a number
+     * @param sequence     the position of the record in the input
+     */
+    void add(Object[] key, long hash, boolean[] integral, long[] integerParts, double[] numbers, long sequence) {
+        int group = group(key, hash, sequence);
+        for (int i = 0; i < functions.length; i++) {
+            if (countsRecords[i]) {
+                counts[i][group]++;
+                continue;
+            }
+
+            if (integral[i]) {
+                addInteger(i, group, integerParts[i], 0);
+            } else if (!Double.isNaN(numbers[i])) {
+                addFraction(i, group, numbers[i], 0);
+            } else {
+                continue;
+            }
+            counts[i][group]++;
+        }
+    }
+
+    /**
+     * Adds the accumulators of another table into this one.
+     *
+     * @param other a table with the same aggregates
+     */
+    void merge(GroupTable other) {
+        for (int source = 0; source < other.size; source++) {
+            int group = group(other.keys[source], other.hashes[source], other.firstSeen[source]);
+            firstSeen[group] = Math.min(firstSeen[group], other.firstSeen[source]);
+            for (int i = 0; i < functions.length; i++) {
+                counts[i][group] += other.counts[i][source];
+                if ((other.kinds[i][source] & HAS_INTEGER) != 0) {
+                    addInteger(i, group, other.integers[i][source], other.carries[i][source]);
+                }
+                if ((other.kinds[i][source] & HAS_FRACTION) != 0) {
+                    addFraction(i, group, other.values[i][source], other.compensations[i][source]);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object[] key(int group) {
+        return keys[group];
+    }
+
+    long firstSeen(int group) {
+        return firstSeen[group];
+    }
+
+    /**
+     * Gets the result of an aggregate for a group.
+     *
+     * @param aggregate the aggregate column
+     * @param group     the group number
+     * @return the count as a Long; a sum, minimum or maximum as a Long, as a BigInteger for
+     *         sums beyond the long range, or as a Double; an average as a Double; null for an
+     *         aggregate over no values
+     */
+    Object result(int aggregate, int group) {
+        long count = counts[aggregate][group];
+        if (functions[aggregate] == Aggregate.Function.COUNT) {
+            return count;
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        boolean hasInteger = (kinds[aggregate][group] & HAS_INTEGER) != 0;
+        boolean hasFraction = (kinds[aggregate][group] & HAS_FRACTION) != 0;
+        long integer = integers[aggregate][group];
+        double number = values[aggregate][group];
+        switch (functions[aggregate]) {
+            case MIN:
+            case MAX:
+                if (!hasFraction) {
+                    return integer;
+                }
+                if (!hasInteger) {
+                    return toValue(number);
+                }
+                int order = compare(integer, number);
+                boolean integerWins = functions[aggregate] == Aggregate.Function.MIN ? order <= 0 : order >= 0;
+                return integerWins ? (Object) integer : toValue(number);
+            case AVG:
+                return sum(aggregate, group).doubleValue() / count;
+            default:
+                Number sum = sum(aggregate, group);
+                return sum instanceof Double ? toValue((Double) sum) : sum;
+        }
+    }
+
+    /**
+     * Hashes key values by their text.
+     *
+     * @param key the key values
+     * @return a well mixed 64-bit hash
+     */
+    static long hash(Object[] key) {
+        long hash = 1;
+        for (Object value : key) {
+            hash = hash * 31 + (value == null ? 0x9e3779b9L : value.toString().hashCode());
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Adds an integer, or the integers accumulated by another table, to a group.
+     *
+     * @param aggregate the aggregate column
+     * @param group     the group number
+     * @param integer   the integer, or the other table's sum, minimum or maximum of integers
+     * @param carry     the number of times the other table's sum overflowed, 0 for one integer
+     */
+    private void addInteger(int aggregate, int group, long integer, long carry) {
+        if ((kinds[aggregate][group] & HAS_INTEGER) == 0) {
+            kinds[aggregate][group] |= HAS_INTEGER;
+            integers[aggregate][group] = integer;
+            carries[aggregate][group] = carry;
+            return;
+        }
+
+        long current = integers[aggregate][group];
+        switch (functions[aggregate]) {
+            case MIN:
+                integers[aggregate][group] = Math.min(current, integer);
+                break;
+            case MAX:
+                integers[aggregate][group] = Math.max(current, integer);
+                break;
+            default:
+                long sum = current + integer;
+                // Overflowed if both operands have a sign different from the wrapped sum
+                if (((current ^ sum) & (integer ^ sum)) < 0) {
+                    carry += integer < 0 ? -1 : 1;
+                }
+                integers[aggregate][group] = sum;
+                carries[aggregate][group] += carry;
+        }
+    }
+
+    /**
+     * Adds a number that is not an integer, or the numbers accumulated by another table, to a group.
+     *
+     * @param aggregate    the aggregate column
+     * @param group        the group number
+     * @param number       the number, or the other table's sum, minimum or maximum of numbers
+     * @param compensation the other table's compensation term, 0 for one number
+     */
+    private void addFraction(int aggregate, int group, double number, double compensation) {
+        if ((kinds[aggregate][group] & HAS_FRACTION) == 0) {
+            kinds[aggregate][group] |= HAS_FRACTION;
+            values[aggregate][group] = number;
+            compensations[aggregate][group] = compensation;
+            return;
+        }
+
+        double current = values[aggregate][group];
+        switch (functions[aggregate]) {
+            case MIN:
+                values[aggregate][group] = Math.min(current, number);
+                break;
+            case MAX:
+                values[aggregate][group] = Math.max(current, number);
+                break;
+            default:
+                // Neumaier summation: keep the low-order bits lost by the addition
+                double sum = current + number;
+                double lost = Math.abs(current) >= Math.abs(number) ? (current - sum) + number : (number - sum) + current;
+                values[aggregate][group] = sum;
+                compensations[aggregate][group] += lost + compensation;
+        }
+    }
+
+    /**
+     * Gets the sum of a group, the wrapped integer sum plus 2^64 for every overflow: a Long or BigInteger if all values were integers, otherwise a Double.
+     */
+    private Number sum(int aggregate, int group) {
+        long carry = carries[aggregate][group];
+        Number integer = carry == 0
+            ? (Number) integers[aggregate][group]
+            : BigInteger.valueOf(carry).shiftLeft(Long.SIZE).add(BigInteger.valueOf(integers[aggregate][group]));
+        if ((kinds[aggregate][group] & HAS_FRACTION) == 0) {
+            return integer;
+        }
+
+        double number = values[aggregate][group];
+        if (Double.isFinite(number)) {
+            number += compensations[aggregate][group];
+        }
+        return (kinds[aggregate][group] & HAS_INTEGER) == 0 ? number : integer.doubleValue() + number;
+    }
+
+    /**
+     * Compares an integer with a double exactly.
+     */
+    private static int compare(long integer, double number) {
+        if (Double.isInfinite(number)) {
+            return number > 0 ? -1 : 1;
+        }
+        return BigDecimal.valueOf(integer).compareTo(new BigDecimal(number));
+    }
+
+    /**
+     * Converts a double result to the value written: integral values as Long, others as Double.
+     */
+    private static Object toValue(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < MAX_EXACT_LONG) {
+            return (long) number;
+        }
+        return number;
+    }
+
+    /**
+     * Finds the group of a key, adding an empty group if the key is new.
+     *
+     * @param key      the group key values
+     * @param hash     the hash of the key, from {@link #hash(Object[])}
+     * @param sequence the input position recorded as the first record of a new group
+     * @return the group number
+     */
+    int group(Object[] key, long hash, long sequence) {
+        int index = (int) hash & mask;
+        while (true) {
+            int slot = slots[index];
+            if (slot == 0) {
+                return insert(index, key, hash, sequence);
+            }
+            int group = slot - 1;
+            if (hashes[group] == hash && sameKey(keys[group], key)) {
+                return group;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int insert(int index, Object[] key, long hash, long sequence) {
+        if (size == keys.length) {
+            growColumns();
+        }
+        int group = size++;
+        keys[group] = key;
+        hashes[group] = hash;
+        firstSeen[group] = sequence;
+        slots[index] = group + 1;
+
+        if (size * 2L > slots.length) {
+            growSlots();
+        }
+        return group;
+    }
+
+    private void growColumns() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        firstSeen = Arrays.copyOf(firstSeen, capacity);
+        for (int i = 0; i < functions.length; i++) {
+            counts[i] = Arrays.copyOf(counts[i], capacity);
+            kinds[i] = Arrays.copyOf(kinds[i], capacity);
+            integers[i] = Arrays.copyOf(integers[i], capacity);
+            carries[i] = Arrays.copyOf(carries[i], capacity);
+            values[i] = Arrays.copyOf(values[i], capacity);
+            compensations[i] = Arrays.copyOf(compensations[i], capacity);
+        }
+    }
+
+    private void growSlots() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int group = 0; group < size; group++) {
+            int index = (int) hashes[group] & mask;
+            while (slots[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = group + 1;
+        }
+    }
+
+    private static boolean sameKey(Object[] left, Object[] right) {
+        for (int i = 0; i < left.length; i++) {
+            if (!Objects.equals(text(left[i]), text(right[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
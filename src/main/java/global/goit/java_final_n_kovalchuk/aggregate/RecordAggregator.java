@@ -0,0 +1,248 @@
+package global.goit.java_final_n_kovalchuk.aggregate;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Group-by aggregation of records, for --group-by and --agg.
+ *
+ * Records are collected into chunks of {@value #CHUNK_RECORDS}. With several threads every
+ * chunk is aggregated on a worker into one of the per-thread partial {@link GroupTable}s,
+ * with a bounded number of chunks in flight; with one thread chunks are aggregated on the
+ * caller's thread. When the input ends, the partial tables are merged into one and every
+ * group becomes a record of its key fields followed by its aggregates, in order of the
+ * group's first record in the input. Only the groups are kept, not the records, so the
+ * memory used grows with the number of distinct keys.
+ */
+public class RecordAggregator implements AutoCloseable {
+
+    /**
+     * Number of records aggregated by one task.
+     */
+    public static final int CHUNK_RECORDS = 4096;
+
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final List<String> groupBy;
+    private final List<Aggregate> aggregates;
+    private final int threads;
+    private final List<GroupTable> partials = new ArrayList<>();
+    private final BlockingQueue<GroupTable> idlePartials;
+    private final ExecutorService executor;
+    private final Deque<Future<?>> pending = new ArrayDeque<>();
+
+    private List<DataRecord> chunk = new ArrayList<>(CHUNK_RECORDS);
+    private long sequence;
+
+    /**
+     * Constructs a new RecordAggregator.
+     *
+     * @param groupBy    the fields that form the group key; empty for a single group over all records
+     * @param aggregates the aggregates to compute per group
+     * @param threads    the number of threads aggregating chunks
+     */
+    public RecordAggregator(List<String> groupBy, List<Aggregate> aggregates, int threads) {
+        this.groupBy = groupBy;
+        this.aggregates = aggregates;
+        this.threads = Math.max(1, threads);
+        this.idlePartials = new ArrayBlockingQueue<>(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            GroupTable partial = new GroupTable(aggregates);
+            partials.add(partial);
+            idlePartials.add(partial);
+        }
+        this.executor = this.threads == 1 ? null : Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a record to the aggregation.
+     *
+     * @param record the record to add
+     * @throws FileConversionException if aggregating an earlier chunk failed
+     */
+    public void add(DataRecord record) throws FileConversionException {
+        chunk.add(record);
+        if (chunk.size() == CHUNK_RECORDS) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Gets the number of records added.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return sequence + chunk.size();
+    }
+
+    /**
+     * Checks whether chunks are aggregated on worker threads rather than the calling thread.
+     *
+     * @return true with more than one thread
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Merges the partial aggregations and opens a reader over the groups. No records may be added afterwards.
+     *
+     * @return a reader returning one record per group, in order of first appearance
+     * @throws FileConversionException if aggregating a chunk failed
+     */
+    public RecordReader<DataRecord> openReader() throws FileConversionException {
+        if (!chunk.isEmpty()) {
+            submitChunk();
+        }
+        while (!pending.isEmpty()) {
+            await(pending.poll());
+        }
+
+        GroupTable merged = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            merged.merge(partials.get(i));
+        }
+
+        List<Integer> order = new ArrayList<>(merged.size());
+        for (int group = 0; group < merged.size(); group++) {
+            order.add(group);
+        }
+        order.sort(Comparator.comparingLong(merged::firstSeen));
+        if (order.isEmpty() && groupBy.isEmpty()) {
+            // A global aggregate has one result even for an empty input
+            Object[] noKey = new Object[0];
+            order.add(merged.group(noKey, GroupTable.hash(noKey), 0));
+        }
+        return new GroupReader(merged, order);
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        for (Future<?> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitChunk() throws FileConversionException {
+        List<DataRecord> records = chunk;
+        long start = sequence;
+        chunk = new ArrayList<>(CHUNK_RECORDS);
+        sequence += records.size();
+
+        if (executor == null) {
+            aggregate(partials.get(0), records, start);
+            return;
+        }
+
+        if (pending.size() >= threads * CHUNKS_IN_FLIGHT_PER_THREAD) {
+            await(pending.poll());
+        }
+        pending.add(executor.submit(() -> {
+            GroupTable partial = idlePartials.take();
+            try {
+                aggregate(partial, records, start);
+            } finally {
+                idlePartials.add(partial);
+            }
+            return null;
+        }));
+    }
+
+    private void aggregate(GroupTable partial, List<DataRecord> records, long start) {
+        boolean[] integral = new boolean[aggregates.size()];
+        long[] integers = new long[aggregates.size()];
+        double[] numbers = new double[aggregates.size()];
+        for (int r = 0; r < records.size(); r++) {
+            DataRecord record = records.get(r);
+            Object[] key = new Object[groupBy.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = record.getField(groupBy.get(i));
+            }
+            for (int i = 0; i < numbers.length; i++) {
+                String field = aggregates.get(i).getField();
+                Object value = field == null ? null : record.getField(field);
+                integral[i] = Aggregate.isInteger(value);
+                if (integral[i]) {
+                    integers[i] = Aggregate.toLong(value);
+                } else {
+                    numbers[i] = Aggregate.toNumber(value);
+                }
+            }
+            partial.add(key, GroupTable.hash(key), integral, integers, numbers, start + r);
+        }
+    }
+
+    private void await(Future<?> future) throws FileConversionException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileConversionException("Interrupted while aggregating records", e);
+        } catch (ExecutionException e) {
+            throw new FileConversionException("Failed to aggregate records", e.getCause());
+        }
+    }
+
+    /**
+     * Reader building one record per group.
+     */
+    private final class GroupReader implements RecordReader<DataRecord> {
+
+        private final GroupTable table;
+        private final List<Integer> order;
+        private int index;
+
+        GroupReader(GroupTable table, List<Integer> order) {
+            this.table = table;
+            this.order = order;
+        }
+
+        @Override
+        public DataRecord read() {
+            if (index >= order.size()) {
+                return null;
+            }
+
+            int group = order.get(index++);
+            DataRecord record = DataRecord.ordered(groupBy.size() + aggregates.size());
+            Object[] key = table.key(group);
+            for (int i = 0; i < key.length; i++) {
+                record.addField(groupBy.get(i), key[i]);
+            }
+            for (int i = 0; i < aggregates.size(); i++) {
+                record.addField(aggregates.get(i).getOutputName(), table.result(i, group));
+            }
+            return record;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package global.goit.java_final_n_kovalchuk.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent cache of conversion outputs, keyed by input content and output settings.
+ *
+ * The content key combines CRC32C and CRC32 of the input bytes (64 bits together) with
+ * the input size. Hashing is skipped when the input path, size and modification time
+ * match the previous run. Outputs are kept in the cache directory as hard links, or
+ * copies where links are not possible, and handed out the same way on a hit.
+ * The cache is limited in size and evicts the least recently used outputs first.
+ *
+ * The index is a JSON file updated under a file lock, so several converter processes
+ * can share one cache directory.
+ */
+public class ConversionCache {
+
+    /**
+     * Default size limit of the cached outputs.
+     */
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final String INDEX_FILE = "index.json";
+    private static final String LOCK_FILE = "index.lock";
+    private static final String OBJECTS_DIR = "objects";
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_KNOWN_INPUTS = 100_000;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper;
+
+    private long hits;
+    private long misses;
+
+    private ConversionCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Opens a cache directory, creating it if needed.
+     *
+     * @param directory the cache directory
+     * @param maxBytes  the size limit of the cached outputs in bytes
+     * @return the cache
+     * @throws FileConversionException if the directory cannot be created
+     */
+    public static ConversionCache open(Path directory, long maxBytes) throws FileConversionException {
+        try {
+            Files.createDirectories(directory.resolve(OBJECTS_DIR));
+            return new ConversionCache(directory, maxBytes);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to create cache directory: " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Computes the cache key of converting an input with the given output settings.
+     *
+     * @param input    the input file
+     * @param settings a description of everything besides the input that affects the output
+     * @return the cache key
+     * @throws FileConversionException if the input cannot be read
+     */
+    public String computeKey(Path input, String settings) throws FileConversionException {
+        try {
+            Path absoluteInput = input.toAbsolutePath().normalize();
+            long size = Files.size(absoluteInput);
+            long modified = Files.getLastModifiedTime(absoluteInput).toMillis();
+            String inputPath = absoluteInput.toString();
+
+            String contentHash = withIndex(false, index -> {
+                KnownInput known = index.inputs.get(inputPath);
+                return known != null && known.size == size && known.modified == modified ? known.hash : null;
+            });
+
+            if (contentHash == null) {
+                contentHash = hashContent(absoluteInput) + String.format(Locale.ROOT, "%x", size);
+                String hash = contentHash;
+                withIndex(true, index -> {
+                    KnownInput known = new KnownInput();
+                    known.size = size;
+                    known.modified = modified;
+                    known.hash = hash;
+                    index.inputs.remove(inputPath);
+                    index.inputs.put(inputPath, known);
+                    trimKnownInputs(index);
+                    return null;
+                });
+            }
+
+            CRC32C settingsHash = new CRC32C();
+            settingsHash.update(settings.getBytes(StandardCharsets.UTF_8));
+            return contentHash + "-" + String.format(Locale.ROOT, "%08x", settingsHash.getValue());
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to hash input file for the cache: " + input, e);
+        }
+    }
+
+    /**
+     * Places the cached output of a key at the output path, if there is one.
+     * Counts a hit or a miss.
+     *
+     * @param key    the cache key
+     * @param output the output file to create or replace
+     * @return the number of records of the cached conversion, or -1 on a miss
+     * @throws FileConversionException if the cache cannot be read or the output cannot be written
+     */
+    public long restore(String key, Path output) throws FileConversionException {
+        Long records = withIndex(true, index -> {
+            Entry entry = index.entries.get(key);
+            Path object = objectPath(key);
+            if (entry == null || !Files.exists(object)) {
+                index.entries.remove(key);
+                index.misses++;
+                return null;
+            }
+
+            linkOrCopy(object, output);
+            entry.lastAccess = System.currentTimeMillis();
+            index.hits++;
+            return entry.records;
+        });
+
+        if (records == null) {
+            misses++;
+            return -1;
+        }
+        hits++;
+        return records;
+    }
+
+    /**
+     * Stores the output of a completed conversion and evicts old outputs beyond the size limit.
+     *
+     * @param key     the cache key
+     * @param output  the output file just written
+     * @param records the number of records converted
+     * @throws FileConversionException if the output cannot be stored
+     */
+    public void store(String key, Path output, long records) throws FileConversionException {
+        withIndex(true, index -> {
+            Path object = objectPath(key);
+            linkOrCopy(output, object);
+
+            Entry entry = new Entry();
+            entry.size = Files.size(object);
+            entry.records = records;
+            entry.lastAccess = System.currentTimeMillis();
+            index.entries.put(key, entry);
+            evict(index, key);
+            return null;
+        });
+    }
+
+    /**
+     * Gets the number of hits in this process.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of misses in this process.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Describes the hit rate over the whole lifetime of the cache directory.
+     *
+     * @return a one-line summary such as "Cache hit rate: 75.0% (3 hit(s), 1 miss(es), 12.5 MB cached)"
+     * @throws FileConversionException if the index cannot be read
+     */
+    public String describeStatistics() throws FileConversionException {
+        return withIndex(false, index -> {
+            long total = index.hits + index.misses;
+            long cachedBytes = index.entries.values().stream().mapToLong(entry -> entry.size).sum();
+            return String.format(Locale.ROOT, "Cache hit rate: %.1f%% (%d hit(s), %d miss(es), %.1f MB cached)",
+                total > 0 ? 100.0 * index.hits / total : 0.0, index.hits, index.misses,
+                cachedBytes / (1024.0 * 1024.0));
+        });
+    }
+
+    private void evict(Index index, String keep) throws IOException {
+        long total = index.entries.values().stream().mapToLong(entry -> entry.size).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Map.Entry<String, Entry>> byAge = new ArrayList<>(index.entries.entrySet());
+        byAge.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        for (Map.Entry<String, Entry> oldest : byAge) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (oldest.getKey().equals(keep)) {
+                continue;
+            }
+            Files.deleteIfExists(objectPath(oldest.getKey()));
+            index.entries.remove(oldest.getKey());
+            total -= oldest.getValue().size;
+        }
+    }
+
+    private static void trimKnownInputs(Index index) {
+        // Insertion order is refresh order, so the first entries are the stalest
+        Iterator<String> iterator = index.inputs.keySet().iterator();
+        while (index.inputs.size() > MAX_KNOWN_INPUTS && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private Path objectPath(String key) {
+        return directory.resolve(OBJECTS_DIR).resolve(key);
+    }
+
+    /**
+     * Replaces the target with a hard link to the source, or with a copy if linking fails.
+     */
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            // Different file systems or no hard link support
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String hashContent(Path input) throws IOException {
+        CRC32C crc32c = new CRC32C();
+        CRC32 crc32 = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc32c.update(buffer.duplicate());
+                crc32.update(buffer);
+                buffer.clear();
+            }
+        }
+        return String.format(Locale.ROOT, "%08x%08x", crc32c.getValue(), crc32.getValue());
+    }
+
+    /**
+     * Runs an action on the index while holding the cache lock.
+     *
+     * @param modify whether the action changes the index, so it has to be saved afterwards
+     * @param action the action to run
+     */
+    private <R> R withIndex(boolean modify, IndexAction<R> action) throws FileConversionException {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = lockChannel.lock();
+            try {
+                Index index = Files.exists(indexFile) ? readIndex(indexFile) : new Index();
+                R result = action.apply(index);
+                if (!modify) {
+                    return result;
+                }
+
+                Path temp = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+                objectMapper.writeValue(temp.toFile(), index);
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return result;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to update conversion cache: " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private Index readIndex(Path indexFile) {
+        try {
+            return objectMapper.readValue(indexFile.toFile(), Index.class);
+        } catch (IOException e) {
+            // A damaged index only costs cache hits; the stale objects are overwritten on store
+            return new Index();
+        }
+    }
+
+    /**
+     * Operation on the loaded index.
+     */
+    @FunctionalInterface
+    private interface IndexAction<R> {
+        R apply(Index index) throws IOException;
+    }
+
+    /**
+     * Persistent index of the cache directory.
+     */
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+    private static class Index {
+        private long hits;
+        private long misses;
+        private LinkedHashMap<String, KnownInput> inputs = new LinkedHashMap<>();
+        private LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Content hash of an input file as of a given size and modification time.
+     */
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+    private static class KnownInput {
+        private long size;
+        private long modified;
+        private String hash;
+    }
+
+    /**
+     * Cached output of one conversion.
+     */
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+    private static class Entry {
+        private long size;
+        private long records;
+        private long lastAccess;
+    }
+}
@@ -1,14 +1,23 @@
 package global.goit.java_final_n_kovalchuk.cli;
 
+import global.goit.java_final_n_kovalchuk.converter.ConversionOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Data class representing parsed command-line arguments.
  * Contains input and output file paths provided by the user.
+ * Several inputs may be given; the first one is the input file of single-input conversions.
  */
 public class CommandLineArgs {
 
     private final String inputFile;
+    private final List<String> inputFiles;
     private final String outputFile;
     private final boolean csvMapping;
+    private final ConversionOptions options;
 
     /**
      * Constructs a new CommandLineArgs with the specified input and output file paths.
@@ -29,9 +38,40 @@ public class CommandLineArgs {
      * @param csvMapping whether to skip CSV headers (true = without headers, false = with headers)
      */
     public CommandLineArgs(String inputFile, String outputFile, boolean csvMapping) {
-        this.inputFile = inputFile;
+        this(inputFile, outputFile, createOptions(csvMapping));
+    }
+
+    /**
+     * Constructs a new CommandLineArgs with the specified input and output file paths
+     * and conversion options.
+     *
+     * @param inputFile  the path to the input file, or "-" for standard input
+     * @param outputFile the path to the output file, or "-" for standard output
+     * @param options    the conversion options parsed from the remaining flags
+     */
+    public CommandLineArgs(String inputFile, String outputFile, ConversionOptions options) {
+        this(Collections.singletonList(inputFile), outputFile, options);
+    }
+
+    /**
+     * Constructs a new CommandLineArgs with several input paths, which are merged into one output.
+     *
+     * @param inputFiles the input file paths or glob patterns, in input order, or "-" alone for standard input
+     * @param outputFile the path to the output file, or "-" for standard output
+     * @param options    the conversion options parsed from the remaining flags
+     */
+    public CommandLineArgs(List<String> inputFiles, String outputFile, ConversionOptions options) {
+        this.inputFile = inputFiles.get(0);
+        this.inputFiles = Collections.unmodifiableList(new ArrayList<>(inputFiles));
         this.outputFile = outputFile;
-        this.csvMapping = csvMapping;
+        this.csvMapping = options.isCsvMapping();
+        this.options = options;
+    }
+
+    private static ConversionOptions createOptions(boolean csvMapping) {
+        ConversionOptions options = new ConversionOptions();
+        options.setCsvMapping(csvMapping);
+        return options;
     }
 
     /**
@@ -43,6 +83,15 @@ public class CommandLineArgs {
         return inputFile;
     }
 
+    /**
+     * Gets all input paths, which may include glob patterns.
+     *
+     * @return the input file paths or patterns, in input order
+     */
+    public List<String> getInputFiles() {
+        return inputFiles;
+    }
+
     /**
      * Gets the output file path.
      *
@@ -61,6 +110,15 @@ public class CommandLineArgs {
         return csvMapping;
     }
 
+    /**
+     * Gets the conversion options.
+     *
+     * @return the conversion options, including explicit formats and the CSV mapping flag
+     */
+    public ConversionOptions getOptions() {
+        return options;
+    }
+
     /**
      * Validates the command-line arguments.
      * Checks that both input and output file paths are not null or empty.
@@ -1,16 +1,94 @@
 package global.goit.java_final_n_kovalchuk.cli;
 
+import global.goit.java_final_n_kovalchuk.aggregate.Aggregate;
+import global.goit.java_final_n_kovalchuk.converter.ConversionOptions;
 import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.follow.IncrementalConverter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.metrics.ProgressReporter;
+import global.goit.java_final_n_kovalchuk.sample.RecordSampler;
+import global.goit.java_final_n_kovalchuk.sort.SortKey;
+import global.goit.java_final_n_kovalchuk.validator.FormatDetector;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Parser for command-line arguments.
- * Parses and validates --input, --output, and --csv-mapping flags.
+ * Parses and validates --input, --output, --from, --to and --csv-mapping flags,
+ * as well as --metrics and --metrics-prom for conversion reports, --profile for JFR profiling
+ * and --progress (or --progress=json) for progress reporting.
+ * --memory-budget limits the heap used by buffered records; --cache and --cache-max-size
+ * enable reuse of outputs of unchanged inputs. --follow (or --follow=once) converts only data
+ * appended to a growing input, with progress kept in a --checkpoint file.
+ * --columns keeps only the listed fields (nested paths with dots) in the given order.
+ * --where keeps only the records matching a filter expression; the expression is validated here.
+ * --sort-by orders the output by one or more fields, and --limit stops after the first records.
+ * --distinct-on drops records whose key fields repeat an earlier record, exactly or, with
+ * --distinct-approx, with a Bloom filter.
+ * --group-by and --agg replace the records with one summary record per group.
+ * --skip passes over the first input records, and --sample (with --seed) keeps a random sample.
+ * --split-records and --split-bytes write the output as numbered shards of limited size.
+ * --partition-by writes one output file per partition field value, in Hive-style directories,
+ * with at most --max-open-files of them open at a time.
+ * --input may be repeated, followed by several paths or be a glob pattern; several inputs, also of different formats,
+ * are merged into one output in input order, or with --unordered in the order they are parsed.
+ * --pipeline reads and writes on their own threads, connected by bounded queues of record batches.
+ * --xml-compact writes XML output without indentation and line breaks, and --xml-attributes
+ * writes scalar fields as attributes.
+ * --encoding sets the encoding of CSV input instead of detecting it.
+ * --io-buffer sets the buffer size of input and output files, and --fsync how far outputs are
+ * forced to the storage device before they replace the previous output. --direct-io writes
+ * outputs around the page cache.
+ * The value "-" for --input or --output selects standard input or standard output.
  */
 public class CommandLineParser {
 
     private static final String INPUT_FLAG = "--input";
     private static final String OUTPUT_FLAG = "--output";
     private static final String CSV_MAPPING_FLAG = "--csv-mapping";
+    private static final String FROM_FLAG = "--from";
+    private static final String TO_FLAG = "--to";
+    private static final String METRICS_FLAG = "--metrics";
+    private static final String METRICS_PROM_FLAG = "--metrics-prom";
+    private static final String PROFILE_FLAG = "--profile";
+    private static final String PROGRESS_FLAG = "--progress";
+    private static final String PROGRESS_MODE_PREFIX = "--progress=";
+    private static final String MEMORY_BUDGET_FLAG = "--memory-budget";
+    private static final String CACHE_FLAG = "--cache";
+    private static final String CACHE_MAX_SIZE_FLAG = "--cache-max-size";
+    private static final String FOLLOW_FLAG = "--follow";
+    private static final String FOLLOW_MODE_PREFIX = "--follow=";
+    private static final String CHECKPOINT_FLAG = "--checkpoint";
+    private static final String COLUMNS_FLAG = "--columns";
+    private static final String WHERE_FLAG = "--where";
+    private static final String SORT_BY_FLAG = "--sort-by";
+    private static final String LIMIT_FLAG = "--limit";
+    private static final String DISTINCT_ON_FLAG = "--distinct-on";
+    private static final String DISTINCT_APPROX_FLAG = "--distinct-approx";
+    private static final String GROUP_BY_FLAG = "--group-by";
+    private static final String AGG_FLAG = "--agg";
+    private static final String SKIP_FLAG = "--skip";
+    private static final String SAMPLE_FLAG = "--sample";
+    private static final String SEED_FLAG = "--seed";
+    private static final String SPLIT_RECORDS_FLAG = "--split-records";
+    private static final String SPLIT_BYTES_FLAG = "--split-bytes";
+    private static final String PARTITION_BY_FLAG = "--partition-by";
+    private static final String MAX_OPEN_FILES_FLAG = "--max-open-files";
+    private static final String UNORDERED_FLAG = "--unordered";
+    private static final String PIPELINE_FLAG = "--pipeline";
+    private static final String XML_COMPACT_FLAG = "--xml-compact";
+    private static final String XML_ATTRIBUTES_FLAG = "--xml-attributes";
+    private static final String ENCODING_FLAG = "--encoding";
+    private static final String IO_BUFFER_FLAG = "--io-buffer";
+    private static final String FSYNC_FLAG = "--fsync";
+    private static final String DIRECT_IO_FLAG = "--direct-io";
+    private static final long MAX_IO_BUFFER_SIZE = 1024L * 1024 * 1024;
 
     /**
      * Parses command-line arguments and returns a CommandLineArgs object.
@@ -26,9 +104,9 @@ public class CommandLineParser {
             );
         }
 
-        String inputFile = null;
+        List<String> inputFiles = new ArrayList<>();
         String outputFile = null;
-        boolean csvMapping = false;
+        ConversionOptions options = new ConversionOptions();
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
@@ -39,8 +117,13 @@ public class CommandLineParser {
                             "Missing value for --input flag. Usage: --input <input-file>"
                     );
                 }
-                inputFile = args[i + 1];
+                inputFiles.add(args[i + 1]);
                 i++; // Skip next argument as it's the value
+                // A pattern expanded by the shell leaves more paths before the next flag
+                while (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    inputFiles.add(args[i + 1]);
+                    i++;
+                }
             } else if (OUTPUT_FLAG.equals(arg)) {
                 if (i + 1 >= args.length) {
                     throw new InvalidInputException(
@@ -50,15 +133,127 @@ public class CommandLineParser {
                 outputFile = args[i + 1];
                 i++; // Skip next argument as it's the value
             } else if (CSV_MAPPING_FLAG.equals(arg)) {
-                csvMapping = true;
+                options.setCsvMapping(true);
+            } else if (FROM_FLAG.equals(arg)) {
+                options.setInputFormat(FormatDetector.parseFormat(requireValue(args, i, "--from <json|jsonl|xml|csv>")));
+                i++; // Skip next argument as it's the value
+            } else if (TO_FLAG.equals(arg)) {
+                options.setOutputFormat(FormatDetector.parseFormat(requireValue(args, i, "--to <json|jsonl|xml|csv>")));
+                i++; // Skip next argument as it's the value
+            } else if (METRICS_FLAG.equals(arg)) {
+                options.setMetricsFile(requireValue(args, i, "--metrics <report.json>"));
+                i++; // Skip next argument as it's the value
+            } else if (METRICS_PROM_FLAG.equals(arg)) {
+                options.setOpenMetricsFile(requireValue(args, i, "--metrics-prom <metrics.prom>"));
+                i++; // Skip next argument as it's the value
+            } else if (PROFILE_FLAG.equals(arg)) {
+                options.setProfile(true);
+            } else if (PROGRESS_FLAG.equals(arg)) {
+                options.setProgressMode(ProgressReporter.Mode.TEXT);
+            } else if (arg.startsWith(PROGRESS_MODE_PREFIX)) {
+                options.setProgressMode(parseProgressMode(arg.substring(PROGRESS_MODE_PREFIX.length())));
+            } else if (MEMORY_BUDGET_FLAG.equals(arg)) {
+                options.setMemoryBudget(parseSize(requireValue(args, i, "--memory-budget <size>")));
+                i++; // Skip next argument as it's the value
+            } else if (CACHE_FLAG.equals(arg)) {
+                options.setCacheDirectory(requireValue(args, i, "--cache <directory>"));
+                i++; // Skip next argument as it's the value
+            } else if (CACHE_MAX_SIZE_FLAG.equals(arg)) {
+                options.setCacheMaxSize(parseSize(requireValue(args, i, "--cache-max-size <size>")));
+                i++; // Skip next argument as it's the value
+            } else if (FOLLOW_FLAG.equals(arg)) {
+                options.setFollowMode(IncrementalConverter.Mode.WATCH);
+            } else if (arg.startsWith(FOLLOW_MODE_PREFIX)) {
+                options.setFollowMode(parseFollowMode(arg.substring(FOLLOW_MODE_PREFIX.length())));
+            } else if (CHECKPOINT_FLAG.equals(arg)) {
+                options.setCheckpointFile(requireValue(args, i, "--checkpoint <file>"));
+                i++; // Skip next argument as it's the value
+            } else if (COLUMNS_FLAG.equals(arg)) {
+                String usage = "--columns <a,b.c,...>";
+                options.setColumns(parseColumns(requireValue(args, i, usage), usage));
+                i++; // Skip next argument as it's the value
+            } else if (WHERE_FLAG.equals(arg)) {
+                String where = requireValue(args, i, "--where <expression>");
+                RecordFilter.compile(where);
+                options.setWhere(where);
+                i++; // Skip next argument as it's the value
+            } else if (SORT_BY_FLAG.equals(arg)) {
+                String sortBy = requireValue(args, i, "--sort-by <field[:asc|desc],...>");
+                SortKey.parseList(sortBy);
+                options.setSortBy(sortBy);
+                i++; // Skip next argument as it's the value
+            } else if (LIMIT_FLAG.equals(arg)) {
+                options.setLimit(parseCount(requireValue(args, i, "--limit <records>"), LIMIT_FLAG));
+                i++; // Skip next argument as it's the value
+            } else if (DISTINCT_ON_FLAG.equals(arg)) {
+                String usage = "--distinct-on <a,b,...>";
+                options.setDistinctOn(parseColumns(requireValue(args, i, usage), usage));
+                i++; // Skip next argument as it's the value
+            } else if (DISTINCT_APPROX_FLAG.equals(arg)) {
+                options.setDistinctApproximate(true);
+            } else if (GROUP_BY_FLAG.equals(arg)) {
+                String usage = "--group-by <a,b.c,...>";
+                options.setGroupBy(parseColumns(requireValue(args, i, usage), usage));
+                i++; // Skip next argument as it's the value
+            } else if (AGG_FLAG.equals(arg)) {
+                String aggregates = requireValue(args, i, "--agg <sum(field),count(*),...>");
+                Aggregate.parseList(aggregates);
+                options.setAggregates(aggregates);
+                i++; // Skip next argument as it's the value
+            } else if (SKIP_FLAG.equals(arg)) {
+                options.setSkip(parseCount(requireValue(args, i, "--skip <records>"), SKIP_FLAG));
+                i++; // Skip next argument as it's the value
+            } else if (SAMPLE_FLAG.equals(arg)) {
+                String sample = requireValue(args, i, "--sample <records|percent%>");
+                RecordSampler.parse(sample, options.getSeed());
+                options.setSample(sample);
+                i++; // Skip next argument as it's the value
+            } else if (SEED_FLAG.equals(arg)) {
+                options.setSeed(parseSeed(requireValue(args, i, "--seed <number>")));
+                i++; // Skip next argument as it's the value
+            } else if (SPLIT_RECORDS_FLAG.equals(arg)) {
+                options.setSplitRecords(parseCount(requireValue(args, i, "--split-records <records>"),
+                        SPLIT_RECORDS_FLAG));
+                i++; // Skip next argument as it's the value
+            } else if (SPLIT_BYTES_FLAG.equals(arg)) {
+                options.setSplitBytes(parseSize(requireValue(args, i, "--split-bytes <size>")));
+                i++; // Skip next argument as it's the value
+            } else if (PARTITION_BY_FLAG.equals(arg)) {
+                String usage = "--partition-by <a,b.c,...>";
+                options.setPartitionBy(parseColumns(requireValue(args, i, usage), usage));
+                i++; // Skip next argument as it's the value
+            } else if (MAX_OPEN_FILES_FLAG.equals(arg)) {
+                long files = parseCount(requireValue(args, i, "--max-open-files <files>"), MAX_OPEN_FILES_FLAG);
+                options.setMaxOpenFiles((int) Math.min(files, Integer.MAX_VALUE));
+                i++; // Skip next argument as it's the value
+            } else if (UNORDERED_FLAG.equals(arg)) {
+                options.setUnordered(true);
+            } else if (PIPELINE_FLAG.equals(arg)) {
+                options.setPipelined(true);
+            } else if (XML_COMPACT_FLAG.equals(arg)) {
+                options.setXmlCompact(true);
+            } else if (XML_ATTRIBUTES_FLAG.equals(arg)) {
+                options.setXmlAttributes(true);
+            } else if (DIRECT_IO_FLAG.equals(arg)) {
+                options.setDirectIo(true);
+            } else if (ENCODING_FLAG.equals(arg)) {
+                options.setEncoding(parseEncoding(requireValue(args, i, "--encoding <charset>")));
+                i++; // Skip next argument as it's the value
+            } else if (IO_BUFFER_FLAG.equals(arg)) {
+                options.setIoBufferSize(parseIoBufferSize(requireValue(args, i, "--io-buffer <size>")));
+                i++; // Skip next argument as it's the value
+            } else if (FSYNC_FLAG.equals(arg)) {
+                options.setFsyncPolicy(parseFsyncPolicy(requireValue(args, i, "--fsync <none|file|full>")));
+                i++; // Skip next argument as it's the value
             }
         }
 
-        if (inputFile == null) {
+        if (inputFiles.isEmpty()) {
             throw new InvalidInputException(
                     "Missing --input flag. Usage: --input <input-file> --output <output-file> [--csv-mapping]"
             );
         }
+        String inputFile = inputFiles.get(0);
 
         if (outputFile == null) {
             throw new InvalidInputException(
@@ -66,6 +261,318 @@ public class CommandLineParser {
             );
         }
 
-        return new CommandLineArgs(inputFile, outputFile, csvMapping);
+        if (ConversionOptions.isStandardStream(inputFile) && options.getInputFormat() == null) {
+            throw new InvalidInputException(
+                    "Missing --from flag. Reading from standard input requires --from <json|jsonl|xml|csv>"
+            );
+        }
+
+        if (ConversionOptions.isStandardStream(outputFile) && options.getOutputFormat() == null) {
+            throw new InvalidInputException(
+                    "Missing --to flag. Writing to standard output requires --to <json|jsonl|xml|csv>"
+            );
+        }
+
+        if (options.getFollowMode() != null
+                && (ConversionOptions.isStandardStream(inputFile) || ConversionOptions.isStandardStream(outputFile))) {
+            throw new InvalidInputException(
+                    "--follow requires an input file and an output file, not standard streams"
+            );
+        }
+
+        if (options.getFollowMode() != null && (options.getSortBy() != null || options.getLimit() > 0)) {
+            throw new InvalidInputException(
+                    "--follow cannot be combined with --sort-by or --limit"
+            );
+        }
+
+        if (options.isDistinctApproximate() && options.getDistinctOn() == null) {
+            throw new InvalidInputException(
+                    "--distinct-approx requires --distinct-on <a,b,...>"
+            );
+        }
+
+        if (options.getFollowMode() != null && options.getDistinctOn() != null) {
+            throw new InvalidInputException(
+                    "--follow cannot be combined with --distinct-on"
+            );
+        }
+
+        if (options.getFollowMode() != null && options.isAggregating()) {
+            throw new InvalidInputException(
+                    "--follow cannot be combined with --group-by or --agg"
+            );
+        }
+
+        if (options.getFollowMode() != null && (options.getSkip() > 0 || options.getSample() != null)) {
+            throw new InvalidInputException(
+                    "--follow cannot be combined with --skip or --sample"
+            );
+        }
+
+        if (options.isSplitting() && ConversionOptions.isStandardStream(outputFile)) {
+            throw new InvalidInputException(
+                    "--split-records and --split-bytes require an output file, not standard output"
+            );
+        }
+
+        if (options.getFollowMode() != null && options.isSplitting()) {
+            throw new InvalidInputException(
+                    "--follow cannot be combined with --split-records or --split-bytes"
+            );
+        }
+
+        if (options.getPartitionBy() != null) {
+            validatePartitioning(options, outputFile);
+        }
+
+        if (inputFiles.size() > 1 && inputFiles.stream().anyMatch(ConversionOptions::isStandardStream)) {
+            throw new InvalidInputException(
+                    "Standard input cannot be merged with other inputs; give only input files with several --input flags"
+            );
+        }
+
+        if (inputFiles.size() > 1 && options.getFollowMode() != null) {
+            throw new InvalidInputException(
+                    "--follow converts a single input and cannot be combined with several --input flags"
+            );
+        }
+
+        return new CommandLineArgs(inputFiles, outputFile, options);
+    }
+
+    /**
+     * Parses the value of --follow=&lt;mode&gt;.
+     *
+     * @param value the mode name, "once" or "watch"
+     * @return the follow mode
+     * @throws InvalidInputException if the mode is not supported
+     */
+    private IncrementalConverter.Mode parseFollowMode(String value) throws InvalidInputException {
+        if ("once".equalsIgnoreCase(value)) {
+            return IncrementalConverter.Mode.ONCE;
+        }
+        if ("watch".equalsIgnoreCase(value)) {
+            return IncrementalConverter.Mode.WATCH;
+        }
+        throw new InvalidInputException(
+                "Unsupported follow mode: '" + value + "'. Usage: --follow or --follow=<once|watch>"
+        );
+    }
+
+    /**
+     * Parses the value of --progress=&lt;mode&gt;.
+     *
+     * @param value the mode name, "text" or "json"
+     * @return the progress mode
+     * @throws InvalidInputException if the mode is not supported
+     */
+    private ProgressReporter.Mode parseProgressMode(String value) throws InvalidInputException {
+        if ("text".equalsIgnoreCase(value)) {
+            return ProgressReporter.Mode.TEXT;
+        }
+        if ("json".equalsIgnoreCase(value)) {
+            return ProgressReporter.Mode.JSON;
+        }
+        throw new InvalidInputException(
+                "Unsupported progress mode: '" + value + "'. Usage: --progress or --progress=<text|json>"
+        );
+    }
+
+    /**
+     * Parses a comma-separated column list such as the value of --columns or --distinct-on.
+     *
+     * @param value the column paths, for example "id,customer.name"
+     * @param usage the usage of the flag, shown in the error message
+     * @return the trimmed column paths
+     * @throws InvalidInputException if a column or a path segment is empty
+     */
+    private List<String> parseColumns(String value, String usage) throws InvalidInputException {
+        List<String> columns = new ArrayList<>();
+        for (String column : value.split(",", -1)) {
+            String path = column.trim();
+            if (path.isEmpty() || path.startsWith(".") || path.endsWith(".") || path.contains("..")) {
+                throw new InvalidInputException(
+                        "Invalid column list: '" + value + "'. Usage: " + usage
+                );
+            }
+            columns.add(path);
+        }
+        return columns;
+    }
+
+    /**
+     * Checks that --partition-by can be applied: it needs an output file, cannot be combined
+     * with other ways of laying out the output, and its fields must be among the --columns.
+     *
+     * @param options    the parsed options with the partition fields
+     * @param outputFile the output path
+     * @throws InvalidInputException if the output cannot be partitioned this way
+     */
+    private void validatePartitioning(ConversionOptions options, String outputFile) throws InvalidInputException {
+        if (ConversionOptions.isStandardStream(outputFile)) {
+            throw new InvalidInputException(
+                    "--partition-by requires an output file, not standard output"
+            );
+        }
+
+        if (options.getFollowMode() != null || options.isSplitting()) {
+            throw new InvalidInputException(
+                    "--partition-by cannot be combined with --follow, --split-records or --split-bytes"
+            );
+        }
+
+        if (options.getColumns() != null && !options.getColumns().containsAll(options.getPartitionBy())) {
+            throw new InvalidInputException(
+                    "--partition-by fields must be among the --columns: " + String.join(",", options.getPartitionBy())
+            );
+        }
+    }
+
+    /**
+     * Parses a record count such as the value of --limit.
+     *
+     * @param value the count
+     * @param flag  the flag the count belongs to, used in the error message
+     * @return the count
+     * @throws InvalidInputException if the count is not a positive number
+     */
+    private long parseCount(String value, String flag) throws InvalidInputException {
+        try {
+            long count = Long.parseLong(value.trim());
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below together with the non-positive case
+        }
+        throw new InvalidInputException(
+                "Invalid value for " + flag + ": '" + value + "'. Use a positive number of records"
+        );
+    }
+
+    /**
+     * Parses the value of --seed.
+     *
+     * @param value the seed, any whole number
+     * @return the seed
+     * @throws InvalidInputException if the value is not a whole number
+     */
+    private long parseSeed(String value) throws InvalidInputException {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException(
+                    "Invalid value for --seed: '" + value + "'. Use a whole number"
+            );
+        }
+    }
+
+    /**
+     * Parses the value of --encoding.
+     *
+     * @param value a charset name or alias, such as "UTF-8", "utf-16le" or "latin1"
+     * @return the charset
+     * @throws InvalidInputException if the charset is unknown or not supported
+     */
+    private Charset parseEncoding(String value) throws InvalidInputException {
+        try {
+            return Charset.forName(value.trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new InvalidInputException(
+                    "Invalid value for --encoding: '" + value + "'. Use a charset name such as UTF-8 or ISO-8859-1"
+            );
+        }
+    }
+
+    /**
+     * Parses the value of --io-buffer.
+     *
+     * @param value a byte size such as "64k" or "4m", at most 1g
+     * @return the buffer size in bytes
+     * @throws InvalidInputException if the size is invalid or too large
+     */
+    private int parseIoBufferSize(String value) throws InvalidInputException {
+        long size = parseSize(value);
+        if (size > MAX_IO_BUFFER_SIZE) {
+            throw new InvalidInputException(
+                    "Invalid value for --io-buffer: '" + value + "'. Use a size of at most 1g"
+            );
+        }
+        return (int) size;
+    }
+
+    /**
+     * Parses the value of --fsync.
+     *
+     * @param value the policy name, "none", "file" or "full"
+     * @return the fsync policy
+     * @throws InvalidInputException if the policy is not supported
+     */
+    private IoSettings.FsyncPolicy parseFsyncPolicy(String value) throws InvalidInputException {
+        for (IoSettings.FsyncPolicy policy : IoSettings.FsyncPolicy.values()) {
+            if (policy.name().equalsIgnoreCase(value.trim())) {
+                return policy;
+            }
+        }
+        throw new InvalidInputException(
+                "Unsupported fsync policy: '" + value + "'. Usage: --fsync <none|file|full>"
+        );
+    }
+
+    /**
+     * Parses a byte size such as "1048576", "512k", "256m" or "2g".
+     *
+     * @param value the size with an optional k, m or g suffix (binary multiples)
+     * @return the size in bytes
+     * @throws InvalidInputException if the size is not a positive number
+     */
+    private long parseSize(String value) throws InvalidInputException {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("b")) {
+            text = text.substring(0, text.length() - 1);
+        }
+
+        long multiplier = 1;
+        if (text.endsWith("k")) {
+            multiplier = 1024L;
+        } else if (text.endsWith("m")) {
+            multiplier = 1024L * 1024;
+        } else if (text.endsWith("g")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            text = text.substring(0, text.length() - 1);
+        }
+
+        try {
+            long size = Long.parseLong(text);
+            if (size > 0) {
+                return Math.multiplyExact(size, multiplier);
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            // Reported below together with the non-positive case
+        }
+        throw new InvalidInputException(
+                "Invalid size: '" + value + "'. Use a positive byte count with an optional k, m or g suffix, for example 512m"
+        );
+    }
+
+    /**
+     * Returns the value that follows the flag at the given position.
+     *
+     * @param args  command-line arguments
+     * @param index the position of the flag
+     * @param usage the flag usage shown when the value is missing
+     * @return the flag value
+     * @throws InvalidInputException if the flag has no value
+     */
+    private String requireValue(String[] args, int index, String usage) throws InvalidInputException {
+        if (index + 1 >= args.length) {
+            throw new InvalidInputException(
+                    "Missing value for " + args[index] + " flag. Usage: " + usage
+            );
+        }
+        return args[index + 1];
     }
 }
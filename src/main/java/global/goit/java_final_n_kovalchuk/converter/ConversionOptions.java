@@ -0,0 +1,776 @@
+package global.goit.java_final_n_kovalchuk.converter;
+
+import global.goit.java_final_n_kovalchuk.cache.ConversionCache;
+import global.goit.java_final_n_kovalchuk.follow.IncrementalConverter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.metrics.ProgressReporter;
+import global.goit.java_final_n_kovalchuk.partition.PartitionedRecordWriter;
+import global.goit.java_final_n_kovalchuk.validator.FormatDetector;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Options that control a single conversion run.
+ * Formats left as null are detected from the file extensions.
+ */
+public class ConversionOptions {
+
+    /**
+     * Path value that stands for standard input (as --input) or standard output (as --output).
+     */
+    public static final String STANDARD_STREAM = "-";
+
+    /**
+     * Seed of the random sample when none is given, so that repeated runs select the same records.
+     */
+    public static final long DEFAULT_SEED = 1;
+
+    private FormatDetector.FileFormat inputFormat;
+    private FormatDetector.FileFormat outputFormat;
+    private boolean csvMapping;
+    private String metricsFile;
+    private String openMetricsFile;
+    private boolean profile;
+    private ProgressReporter.Mode progressMode;
+    private long memoryBudget;
+    private String cacheDirectory;
+    private long cacheMaxSize = ConversionCache.DEFAULT_MAX_BYTES;
+    private IncrementalConverter.Mode followMode;
+    private String checkpointFile;
+    private List<String> columns;
+    private String where;
+    private String sortBy;
+    private long limit;
+    private List<String> distinctOn;
+    private boolean distinctApproximate;
+    private List<String> groupBy;
+    private String aggregates;
+    private long skip;
+    private String sample;
+    private long seed = DEFAULT_SEED;
+    private long splitRecords;
+    private long splitBytes;
+    private List<String> partitionBy;
+    private boolean unordered;
+    private boolean pipelined;
+    private boolean xmlCompact;
+    private boolean xmlAttributes;
+    private Charset encoding;
+    private int ioBufferSize = IoSettings.DEFAULT_BUFFER_SIZE;
+    private IoSettings.FsyncPolicy fsyncPolicy = IoSettings.FsyncPolicy.NONE;
+    private boolean directIo;
+    private int maxOpenFiles = PartitionedRecordWriter.DEFAULT_MAX_OPEN_FILES;
+
+    /**
+     * Constructs a new ConversionOptions with formats detected from file extensions
+     * and CSV headers enabled.
+     */
+    public ConversionOptions() {
+    }
+
+    /**
+     * Checks whether the given path refers to a standard stream rather than a file.
+     *
+     * @param path the input or output path
+     * @return true if the path is "-", false otherwise
+     */
+    public static boolean isStandardStream(String path) {
+        return STANDARD_STREAM.equals(path);
+    }
+
+    /**
+     * Gets the explicit input format.
+     *
+     * @return the input format, or null if it should be detected from the input file extension
+     */
+    public FormatDetector.FileFormat getInputFormat() {
+        return inputFormat;
+    }
+
+    /**
+     * Sets the explicit input format.
+     *
+     * @param inputFormat the input format, or null to detect it from the input file extension
+     */
+    public void setInputFormat(FormatDetector.FileFormat inputFormat) {
+        this.inputFormat = inputFormat;
+    }
+
+    /**
+     * Gets the explicit output format.
+     *
+     * @return the output format, or null if it should be detected from the output file extension
+     */
+    public FormatDetector.FileFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Sets the explicit output format.
+     *
+     * @param outputFormat the output format, or null to detect it from the output file extension
+     */
+    public void setOutputFormat(FormatDetector.FileFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Gets the CSV mapping flag.
+     *
+     * @return true if CSV headers should be skipped (no headers), false if headers should be written
+     */
+    public boolean isCsvMapping() {
+        return csvMapping;
+    }
+
+    /**
+     * Sets the CSV mapping flag.
+     *
+     * @param csvMapping whether to skip CSV headers (true = without headers, false = with headers)
+     */
+    public void setCsvMapping(boolean csvMapping) {
+        this.csvMapping = csvMapping;
+    }
+
+    /**
+     * Gets the path of the JSON metrics report.
+     *
+     * @return the report path, or null if no JSON report should be written
+     */
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * Sets the path of the JSON metrics report.
+     *
+     * @param metricsFile the report path, or null to skip the JSON report
+     */
+    public void setMetricsFile(String metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Gets the path of the OpenMetrics text file.
+     *
+     * @return the OpenMetrics file path, or null if no such file should be written
+     */
+    public String getOpenMetricsFile() {
+        return openMetricsFile;
+    }
+
+    /**
+     * Sets the path of the OpenMetrics text file, for example a node-exporter textfile collector target.
+     *
+     * @param openMetricsFile the OpenMetrics file path, or null to skip it
+     */
+    public void setOpenMetricsFile(String openMetricsFile) {
+        this.openMetricsFile = openMetricsFile;
+    }
+
+    /**
+     * Checks whether the run should be profiled with an in-process JFR recording.
+     *
+     * @return true if a profile summary should be printed after the conversion
+     */
+    public boolean isProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets whether the run should be profiled with an in-process JFR recording.
+     *
+     * @param profile true to print the hottest methods and allocation sites after the conversion
+     */
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Gets the style of the progress lines printed while converting.
+     *
+     * @return the progress mode, or null if no progress should be reported
+     */
+    public ProgressReporter.Mode getProgressMode() {
+        return progressMode;
+    }
+
+    /**
+     * Sets the style of the progress lines printed while converting.
+     *
+     * @param progressMode the progress mode, or null to disable progress reporting
+     */
+    public void setProgressMode(ProgressReporter.Mode progressMode) {
+        this.progressMode = progressMode;
+    }
+
+    /**
+     * Gets the heap budget for records that a writer has to buffer.
+     *
+     * @return the budget in bytes, or 0 if buffered records are never spilled to disk
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the heap budget for records that a writer has to buffer.
+     * Beyond it, buffered records are spilled to temporary files.
+     *
+     * @param memoryBudget the budget in bytes, or 0 for no limit
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Gets the directory of the conversion cache.
+     *
+     * @return the cache directory, or null if outputs are not cached
+     */
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Sets the directory of the conversion cache.
+     * Unchanged inputs converted with the same settings then reuse the cached output.
+     *
+     * @param cacheDirectory the cache directory, or null to disable caching
+     */
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Gets the size limit of the conversion cache.
+     *
+     * @return the limit in bytes
+     */
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    /**
+     * Sets the size limit of the conversion cache; least recently used outputs are evicted beyond it.
+     *
+     * @param cacheMaxSize the limit in bytes
+     */
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    /**
+     * Gets how a growing input is followed.
+     *
+     * @return the follow mode, or null to convert the whole input once
+     */
+    public IncrementalConverter.Mode getFollowMode() {
+        return followMode;
+    }
+
+    /**
+     * Sets how a growing input is followed.
+     * When set, only data appended since the previous run is converted and appended to the output.
+     *
+     * @param followMode the follow mode, or null to convert the whole input once
+     */
+    public void setFollowMode(IncrementalConverter.Mode followMode) {
+        this.followMode = followMode;
+    }
+
+    /**
+     * Gets the checkpoint file of a followed input.
+     *
+     * @return the checkpoint path, or null to keep it next to the output
+     */
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Sets the checkpoint file of a followed input.
+     *
+     * @param checkpointFile the checkpoint path, or null to keep it next to the output
+     */
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Gets the columns to keep from every record.
+     *
+     * @return the column paths in output order, or null to keep every field
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Sets the columns to keep from every record.
+     * Parsers skip everything else, and the output has exactly these columns in this order.
+     *
+     * @param columns the column paths such as "id" or "customer.address.city", or null to keep every field
+     */
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Gets the filter expression records must match.
+     *
+     * @return the --where expression, or null to keep every record
+     */
+    public String getWhere() {
+        return where;
+    }
+
+    /**
+     * Sets the filter expression records must match.
+     *
+     * @param where the --where expression, for example "amount >= 100 and status = 'paid'", or null
+     */
+    public void setWhere(String where) {
+        this.where = where;
+    }
+
+    /**
+     * Gets the sort specification of the output.
+     *
+     * @return the --sort-by specification, for example "amount:desc,name", or null to keep the input order
+     */
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    /**
+     * Sets the sort specification of the output.
+     *
+     * @param sortBy comma-separated fields, each optionally followed by ":asc" or ":desc", or null
+     */
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    /**
+     * Gets the maximum number of records to write.
+     *
+     * @return the record limit, or 0 for no limit
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the maximum number of records to write.
+     * With a sort, these are the first records of the sorted output.
+     *
+     * @param limit the record limit, or 0 for no limit
+     */
+    public void setLimit(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the fields whose values identify duplicate records.
+     *
+     * @return the --distinct-on fields, or null to keep duplicates
+     */
+    public List<String> getDistinctOn() {
+        return distinctOn;
+    }
+
+    /**
+     * Sets the fields whose values identify duplicate records.
+     * Only the first record of every combination of their values is written.
+     *
+     * @param distinctOn the field names, or null to keep duplicates
+     */
+    public void setDistinctOn(List<String> distinctOn) {
+        this.distinctOn = distinctOn;
+    }
+
+    /**
+     * Checks whether duplicates are detected with a Bloom filter instead of an exact set.
+     *
+     * @return true for approximate deduplication
+     */
+    public boolean isDistinctApproximate() {
+        return distinctApproximate;
+    }
+
+    /**
+     * Sets whether duplicates are detected with a Bloom filter, which never spills to disk
+     * but drops a small share of unique records.
+     *
+     * @param distinctApproximate true for approximate deduplication
+     */
+    public void setDistinctApproximate(boolean distinctApproximate) {
+        this.distinctApproximate = distinctApproximate;
+    }
+
+    /**
+     * Gets the fields records are grouped by for aggregation.
+     *
+     * @return the --group-by fields, or null
+     */
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Sets the fields records are grouped by; the output then has one record per group.
+     *
+     * @param groupBy the field paths, or null
+     */
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    /**
+     * Gets the aggregates computed per group.
+     *
+     * @return the --agg specification, for example "sum(amount),count(*)", or null
+     */
+    public String getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Sets the aggregates computed per group; without --group-by they are computed over all records.
+     *
+     * @param aggregates comma-separated aggregates of count, sum, min, max and avg, or null
+     */
+    public void setAggregates(String aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Checks whether the output is aggregated instead of holding the input records.
+     *
+     * @return true if --group-by or --agg is set
+     */
+    public boolean isAggregating() {
+        return groupBy != null || aggregates != null;
+    }
+
+    /**
+     * Gets the number of input records skipped before conversion starts.
+     *
+     * @return the record count, or 0 to skip nothing
+     */
+    public long getSkip() {
+        return skip;
+    }
+
+    /**
+     * Sets the number of input records skipped before conversion starts.
+     * They are skipped by the parser without being built or tested against --where.
+     *
+     * @param skip the record count, or 0 to skip nothing
+     */
+    public void setSkip(long skip) {
+        this.skip = skip;
+    }
+
+    /**
+     * Gets the size of the random sample of records to convert.
+     *
+     * @return the --sample specification, a record count or a percentage such as "5%", or null for all records
+     */
+    public String getSample() {
+        return sample;
+    }
+
+    /**
+     * Sets the size of the random sample of records to convert.
+     *
+     * @param sample a record count for a fixed-size sample or a percentage such as "5%", or null
+     */
+    public void setSample(String sample) {
+        this.sample = sample;
+    }
+
+    /**
+     * Gets the seed of the random sample.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random sample; the same seed selects the same records from the same input.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the maximum number of records in one output shard.
+     *
+     * @return the record count, or 0 for no record limit
+     */
+    public long getSplitRecords() {
+        return splitRecords;
+    }
+
+    /**
+     * Sets the maximum number of records in one output shard.
+     *
+     * @param splitRecords the record count, or 0 for no record limit
+     */
+    public void setSplitRecords(long splitRecords) {
+        this.splitRecords = splitRecords;
+    }
+
+    /**
+     * Gets the maximum size of one output shard.
+     *
+     * @return the size in bytes, or 0 for no size limit
+     */
+    public long getSplitBytes() {
+        return splitBytes;
+    }
+
+    /**
+     * Sets the maximum size of one output shard.
+     *
+     * @param splitBytes the size in bytes, or 0 for no size limit
+     */
+    public void setSplitBytes(long splitBytes) {
+        this.splitBytes = splitBytes;
+    }
+
+    /**
+     * Checks whether the output is split into numbered shards instead of a single file.
+     *
+     * @return true if --split-records or --split-bytes is set
+     */
+    public boolean isSplitting() {
+        return splitRecords > 0 || splitBytes > 0;
+    }
+
+    /**
+     * Gets the fields whose values select the output partition of a record.
+     *
+     * @return the partition fields, one directory level each, or null to write a single output
+     */
+    public List<String> getPartitionBy() {
+        return partitionBy;
+    }
+
+    /**
+     * Sets the fields whose values select the output partition of a record.
+     *
+     * @param partitionBy the partition fields, one directory level each, or null to write a single output
+     */
+    public void setPartitionBy(List<String> partitionBy) {
+        this.partitionBy = partitionBy;
+    }
+
+    /**
+     * Gets the maximum number of partition files open at a time.
+     *
+     * @return the open file limit
+     */
+    public int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    /**
+     * Sets the maximum number of partition files open at a time; the least recently used
+     * file is closed and later reopened for appending when the limit is reached.
+     *
+     * @param maxOpenFiles the open file limit
+     */
+    public void setMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    /**
+     * Checks whether the records of several inputs are merged in the order they are parsed
+     * rather than input after input.
+     *
+     * @return true to merge in arrival order
+     */
+    public boolean isUnordered() {
+        return unordered;
+    }
+
+    /**
+     * Sets whether the records of several inputs are merged in the order they are parsed,
+     * which keeps every parsing thread busy, rather than input after input.
+     *
+     * @param unordered true to merge in arrival order
+     */
+    public void setUnordered(boolean unordered) {
+        this.unordered = unordered;
+    }
+
+    /**
+     * Checks whether reading and writing run on their own threads.
+     *
+     * @return true to run the conversion as a pipeline
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Sets whether reading and writing run on their own threads, connected to the converting
+     * thread by bounded queues of record batches. The output is the same either way.
+     *
+     * @param pipelined true to run the conversion as a pipeline
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * Checks whether XML output is written without indentation and line breaks.
+     *
+     * @return true for compact XML output
+     */
+    public boolean isXmlCompact() {
+        return xmlCompact;
+    }
+
+    /**
+     * Sets whether XML output is written without indentation and line breaks.
+     *
+     * @param xmlCompact true for compact XML output
+     */
+    public void setXmlCompact(boolean xmlCompact) {
+        this.xmlCompact = xmlCompact;
+    }
+
+    /**
+     * Checks whether XML output writes scalar fields as attributes.
+     *
+     * @return true for the attribute profile
+     */
+    public boolean isXmlAttributes() {
+        return xmlAttributes;
+    }
+
+    /**
+     * Sets whether XML output writes scalar fields as attributes of their element
+     * and only nested objects, lists and null values as child elements.
+     *
+     * @param xmlAttributes true for the attribute profile
+     */
+    public void setXmlAttributes(boolean xmlAttributes) {
+        this.xmlAttributes = xmlAttributes;
+    }
+
+    /**
+     * Gets the encoding of CSV input.
+     *
+     * @return the encoding, or null to detect it from a byte order mark or the content
+     */
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Sets the encoding of CSV input, overriding detection.
+     *
+     * @param encoding the encoding, or null to detect it
+     */
+    public void setEncoding(Charset encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Gets the buffer size of input and output files.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getIoBufferSize() {
+        return ioBufferSize;
+    }
+
+    /**
+     * Sets the buffer size of input and output files.
+     *
+     * @param ioBufferSize the buffer size in bytes
+     */
+    public void setIoBufferSize(int ioBufferSize) {
+        this.ioBufferSize = ioBufferSize;
+    }
+
+    /**
+     * Gets how far output files are forced to the storage device before the run completes.
+     *
+     * @return the fsync policy
+     */
+    public IoSettings.FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Sets how far output files are forced to the storage device before the run completes.
+     *
+     * @param fsyncPolicy the fsync policy
+     */
+    public void setFsyncPolicy(IoSettings.FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Checks whether output files are written around the page cache.
+     *
+     * @return true for direct I/O
+     */
+    public boolean isDirectIo() {
+        return directIo;
+    }
+
+    /**
+     * Sets whether output files are written around the page cache, where the file system allows it.
+     *
+     * @param directIo true for direct I/O
+     */
+    public void setDirectIo(boolean directIo) {
+        this.directIo = directIo;
+    }
+
+    /**
+     * Gets the settings of the sources and sinks of the run.
+     *
+     * @return the buffer size, fsync policy and direct I/O choice as I/O settings
+     */
+    public IoSettings getIoSettings() {
+        return new IoSettings(ioBufferSize, fsyncPolicy, directIo);
+    }
+
+    /**
+     * Describes the options that affect the content of the output, for use in cache keys.
+     * Options that only affect how the conversion runs (metrics, progress, memory budget) are left out.
+     *
+     * @return a stable description of the output-relevant options
+     */
+    public String describeOutputSettings() {
+        return "csvMapping=" + csvMapping + ";columns=" + columns + ";where=" + where
+            + ";sortBy=" + sortBy + ";limit=" + limit
+            + ";distinctOn=" + distinctOn + ";distinctApproximate=" + distinctApproximate
+            + ";groupBy=" + groupBy + ";aggregates=" + aggregates
+            + ";skip=" + skip + ";sample=" + sample + ";seed=" + seed
+            + ";splitRecords=" + splitRecords + ";splitBytes=" + splitBytes + ";partitionBy=" + partitionBy
+            + ";xmlCompact=" + xmlCompact + ";xmlAttributes=" + xmlAttributes + ";encoding=" + encoding;
+    }
+
+    /**
+     * Checks whether any metrics output was requested.
+     *
+     * @return true if a JSON report or an OpenMetrics file should be written
+     */
+    public boolean isMetricsEnabled() {
+        return metricsFile != null || openMetricsFile != null;
+    }
+}
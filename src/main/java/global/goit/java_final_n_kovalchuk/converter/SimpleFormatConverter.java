@@ -1,35 +1,99 @@
 package global.goit.java_final_n_kovalchuk.converter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.aggregate.Aggregate;
+import global.goit.java_final_n_kovalchuk.aggregate.RecordAggregator;
+import global.goit.java_final_n_kovalchuk.cache.ConversionCache;
+import global.goit.java_final_n_kovalchuk.distinct.RecordDeduplicator;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.follow.IncrementalConverter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+import global.goit.java_final_n_kovalchuk.io.Source;
+import global.goit.java_final_n_kovalchuk.merge.MergingRecordReader;
+import global.goit.java_final_n_kovalchuk.metrics.ConversionMetrics;
+import global.goit.java_final_n_kovalchuk.metrics.MetricsReportWriter;
+import global.goit.java_final_n_kovalchuk.metrics.ProgressReporter;
+import global.goit.java_final_n_kovalchuk.metrics.QueueStatistics;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
 import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
 import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
 import global.goit.java_final_n_kovalchuk.parser.xml.JacksonXmlParser;
+import global.goit.java_final_n_kovalchuk.partition.PartitionedRecordWriter;
+import global.goit.java_final_n_kovalchuk.pipeline.PipelinedRecordReader;
+import global.goit.java_final_n_kovalchuk.pipeline.PipelinedRecordWriter;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.ConversionProfiler;
+import global.goit.java_final_n_kovalchuk.profiling.RecordBatchEvent;
+import global.goit.java_final_n_kovalchuk.sample.RecordSampler;
+import global.goit.java_final_n_kovalchuk.shard.ShardedRecordWriter;
+import global.goit.java_final_n_kovalchuk.sort.RecordSorter;
+import global.goit.java_final_n_kovalchuk.sort.SortKey;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
 import global.goit.java_final_n_kovalchuk.validator.FormatDetector;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
 import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 import global.goit.java_final_n_kovalchuk.writer.csv.CsvWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonLinesWriter;
 import global.goit.java_final_n_kovalchuk.writer.json.JsonWriter;
 import global.goit.java_final_n_kovalchuk.writer.xml.XmlWriter;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
 
 /**
  * Simple implementation of FormatConverter interface.
  * This class handles file format conversions between JSON, XML, and CSV formats.
- * 
+ *
  * The conversion process is straightforward:
  * 1. Detect input and output formats
- * 2. Parse the input file using the appropriate parser
- * 3. Write the data to the output file using the appropriate writer
+ * 2. Open a streaming reader for the input using the appropriate parser
+ * 3. Pass each record to a streaming writer for the output format
+ *
+ * Either side may be a standard stream ("-"), in which case the format must be given
+ * explicitly. Status messages go to standard error so that standard output carries only data.
+ * When requested in the options, per-stage metrics are collected and written as reports,
+ * and the run can be profiled with an in-process JFR recording.
+ * Progress of long conversions can be reported on standard error while they run.
+ * Writers that must buffer records spill them to temporary files beyond the memory budget.
+ * With a cache directory, outputs of unchanged inputs are reused without parsing.
+ * In follow mode only data appended to a growing input is converted and appended to the output.
+ * The output can be split into numbered shards, each a complete document, which are written in parallel,
+ * or partitioned into Hive-style directories by field values.
+ * Several input files, also of different formats, are parsed concurrently and merged into one output.
+ * Files are read and written through the sources and sinks of the io package; an output file
+ * replaces the previous one only once the conversion succeeded.
  */
 public class SimpleFormatConverter implements FormatConverter {
 
+    private static final int PROFILE_TOP_ENTRIES = 10;
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String STREAM_SOURCE = "input stream";
+    private static final long DEFAULT_STAGE_MEMORY_FRACTION = 4;
+    private static final String DEFAULT_AGGREGATES = "count(*)";
+    private static final int MIN_MERGE_THREADS = 2;
+    private static final int PIPELINE_BATCH_RECORDS = 1024;
+    private static final int PIPELINE_BATCHES = 16;
+
     /**
      * Converts a file from one format to another.
-     * 
+     *
      * This method automatically detects the input and output formats based on
      * file extensions, then performs the conversion using the appropriate
      * parser and writer.
@@ -45,7 +109,7 @@ public class SimpleFormatConverter implements FormatConverter {
 
     /**
      * Converts a file from one format to another with optional CSV header control.
-     * 
+     *
      * This method automatically detects the input and output formats based on
      * file extensions, then performs the conversion using the appropriate
      * parser and writer.
@@ -56,47 +120,1004 @@ public class SimpleFormatConverter implements FormatConverter {
      * @throws FileConversionException if conversion fails
      */
     public void convert(File inputFile, File outputFile, boolean csvMapping) throws FileConversionException {
+        ConversionOptions options = new ConversionOptions();
+        options.setCsvMapping(csvMapping);
+        convert(inputFile.getPath(), outputFile.getPath(), options);
+    }
+
+    /**
+     * Converts between two paths, either of which may be "-" for a standard stream.
+     *
+     * Formats set in the options take precedence; otherwise they are detected from
+     * the file extensions. Standard streams always require an explicit format.
+     *
+     * @param inputPath  the input file path, or "-" for standard input
+     * @param outputPath the output file path, or "-" for standard output
+     * @param options    the conversion options
+     * @throws FileConversionException if conversion fails
+     */
+    public void convert(String inputPath, String outputPath, ConversionOptions options) throws FileConversionException {
+        convert(List.of(inputPath), outputPath, options);
+    }
+
+    /**
+     * Converts one or more input files into one output, which may be "-" for standard output.
+     *
+     * Several inputs are parsed concurrently, each with the parser of its own format, and their
+     * records pass the conversion stages as one stream: input after input, or with
+     * {@link ConversionOptions#isUnordered()} in the order they are parsed. Only a single
+     * input may be "-" for standard input.
+     *
+     * @param inputPaths the input file paths, in input order, or "-" alone for standard input
+     * @param outputPath the output file path, or "-" for standard output
+     * @param options    the conversion options
+     * @throws FileConversionException if conversion fails
+     */
+    public void convert(List<String> inputPaths, String outputPath, ConversionOptions options)
+            throws FileConversionException {
+        if (inputPaths.isEmpty()) {
+            throw new FileConversionException("No input files to convert");
+        }
+        if (!options.isProfile()) {
+            convertPaths(inputPaths, outputPath, options);
+            return;
+        }
+
+        ConversionProfiler profiler = new ConversionProfiler();
+        profiler.start();
         try {
+            convertPaths(inputPaths, outputPath, options);
+        } finally {
+            profiler.stop();
+        }
+        profiler.printSummary(System.err, PROFILE_TOP_ENTRIES);
+    }
+
+    /**
+     * Converts the input paths into the output path and reports the result.
+     *
+     * @param inputPaths the input file paths, or "-" alone for standard input
+     * @param outputPath the output file path, or "-" for standard output
+     * @param options    the conversion options
+     * @throws FileConversionException if conversion fails
+     */
+    private void convertPaths(List<String> inputPaths, String outputPath, ConversionOptions options)
+            throws FileConversionException {
+        String inputPath = inputPaths.get(0);
+        boolean merging = inputPaths.size() > 1;
+        ConversionMetrics metrics = new ConversionMetrics(options.isMetricsEnabled());
+        metrics.setEndpoints(String.join(",", inputPaths), outputPath);
+        SpillStatistics spills = new SpillStatistics();
+
+        try {
+            metrics.startRun();
+
             // Detect input and output formats
-            FormatDetector.FileFormat inputFormat = FormatDetector.detectFormat(inputFile.getPath());
-            FormatDetector.FileFormat outputFormat = FormatDetector.detectFormat(outputFile.getPath());
+            metrics.begin(ConversionMetrics.Stage.DETECTION);
+            List<FormatDetector.FileFormat> inputFormats = new ArrayList<>();
+            for (String path : inputPaths) {
+                inputFormats.add(resolveFormat(options.getInputFormat(), path, "--from"));
+            }
+            FormatDetector.FileFormat inputFormat = inputFormats.get(0);
+            FormatDetector.FileFormat outputFormat = resolveFormat(options.getOutputFormat(), outputPath, "--to");
+            metrics.end(ConversionMetrics.Stage.DETECTION);
 
-            // Create parser based on input format
-            FileParser<DataRecord> parser = createParser(inputFormat);
+            if (merging && inputPaths.stream().anyMatch(ConversionOptions::isStandardStream)) {
+                throw new FileConversionException("Standard input cannot be merged with other inputs");
+            }
+            if (options.getFollowMode() != null) {
+                if (merging) {
+                    throw new FileConversionException("Following an input requires a single input file");
+                }
+                follow(inputPath, inputFormat, outputPath, outputFormat, options);
+                return;
+            }
 
-            // Parse input file
-            List<DataRecord> records = parser.parse(inputFile);
+            // The cache key covers a single input file
+            ConversionCache cache = merging ? null : openCache(options, inputPath, outputPath);
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = cache.computeKey(Path.of(inputPath),
+                    inputFormat + "->" + outputFormat + ";" + options.describeOutputSettings());
+                long cachedRecords = cache.restore(cacheKey, Path.of(outputPath));
+                if (cachedRecords >= 0) {
+                    metrics.finishRun(cachedRecords, 0, 0);
+                    System.err.println("Conversion skipped, output reused from cache: "
+                        + new File(inputPath).getName() + " -> " + new File(outputPath).getName());
+                    System.err.println("Converted " + cachedRecords + " record(s)");
+                    System.err.println(cache.describeStatistics());
+                    writeMetricsReports(metrics, options);
+                    return;
+                }
+            }
 
-            // Create writer based on output format
-            FileWriter<DataRecord> writer = createWriter(outputFormat, csvMapping);
+            RecordFilter filter = createFilter(options);
+            RecordDeduplicator distinct = createDeduplicator(options, spills);
+            RecordSampler sampler = createSampler(options);
+            ShardedRecordWriter shards = createShards(options, outputFormat, outputPath, spills);
+            PartitionedRecordWriter partitions = createPartitions(options, outputFormat, outputPath, spills);
+            RecordWriter<DataRecord> files = shards != null ? shards : partitions;
+            long recordCount;
+            long bytesOut;
+            Source source = null;
+            MergingRecordReader merged = null;
+            LongSupplier bytesIn;
+            if (merging) {
+                merged = openMergedInput(inputPaths, inputFormats, options, filter);
+                bytesIn = merged::getBytesRead;
+            } else {
+                source = openInput(inputPath, options.getIoSettings());
+                bytesIn = source::getBytesRead;
+            }
+            try {
+                // Shards and partitions open their own files, the single output is not created
+                Sink sink = files != null ? null : openOutput(outputPath, options.getIoSettings());
+                OutputStream output = sink != null ? sink : OutputStream.nullOutputStream();
+                ProgressReporter progress = createProgressReporter(options, bytesIn, inputPaths);
+                try {
+                    if (merged != null) {
+                        if (files == null) {
+                            files = openUnifiedCsvOutput(inputPaths, inputFormats, outputFormat, options, output);
+                        }
+                        // The inputs are parsed on the threads of the merging reader
+                        metrics.recordWorkerThreads(ConversionMetrics.Stage.PARSING);
+                        recordCount = convert(merged, describeFormats(inputFormats), output, outputFormat, options,
+                            filter, metrics, progress, spills, distinct, sampler, files);
+                    } else {
+                        recordCount = convert(source, sourceName(inputPath), inputFormat, output, outputFormat,
+                            options, filter, metrics, progress, spills, distinct, sampler, files);
+                    }
+                    commitOutput(sink, outputPath);
+                } finally {
+                    if (progress != null) {
+                        progress.close();
+                    }
+                    closeOutput(sink, outputPath);
+                    if (shards != null) {
+                        shards.abort();
+                    }
+                    if (partitions != null) {
+                        partitions.abort();
+                    }
+                }
+                if (shards != null) {
+                    bytesOut = shards.getBytes();
+                } else if (partitions != null) {
+                    bytesOut = partitions.getBytes();
+                } else {
+                    bytesOut = sink.getBytesWritten();
+                }
+            } finally {
+                if (merged != null) {
+                    merged.close();
+                } else {
+                    closeInput(source, inputPath);
+                }
+            }
 
-            // Write to output file
-            writer.write(records, outputFile);
+            metrics.finishRun(recordCount, bytesIn.getAsLong(), bytesOut);
+            metrics.recordSpills(spills.getFiles(), spills.getRecords(), spills.getBytes());
+            if (filter != null) {
+                metrics.recordFiltering(filter.getScanned());
+            }
 
             // Print success message
-            System.out.println("Conversion successful: " + inputFile.getName() + " -> " + outputFile.getName());
-            System.out.println("Converted " + records.size() + " record(s)");
+            System.err.println("Conversion successful: "
+                + (merging ? inputPaths.size() + " inputs" : displayName(inputPath, "stdin"))
+                + " -> " + displayName(outputPath, "stdout"));
+            System.err.println("Converted " + recordCount + " record(s)");
+            if (shards != null) {
+                List<Path> paths = shards.getShardPaths();
+                System.err.println("Wrote " + paths.size() + " shard(s): " + paths.get(0).getFileName()
+                    + (paths.size() > 1 ? " .. " + paths.get(paths.size() - 1).getFileName() : ""));
+            }
+            if (partitions != null) {
+                System.err.println("Wrote " + partitions.getPartitionPaths().size() + " partition file(s) (--partition-by "
+                    + String.join(",", options.getPartitionBy()) + "), reopened " + partitions.getReopened()
+                    + " time(s) to stay within " + options.getMaxOpenFiles() + " open file(s)");
+            }
+            if (filter != null) {
+                System.err.println("Scanned " + filter.getScanned() + " record(s), " + filter.getEmitted()
+                    + " matched --where, " + (filter.getScanned() - filter.getEmitted()) + " dropped");
+            }
+            if (distinct != null) {
+                System.err.println("Removed " + distinct.getDuplicates() + " duplicate record(s) (--distinct-on "
+                    + String.join(",", options.getDistinctOn()) + ")");
+                if (options.isDistinctApproximate()) {
+                    System.err.printf("Estimated false positive rate of --distinct-approx: %.6f%n",
+                        distinct.getFalsePositiveRate());
+                }
+            }
+            if (sampler != null) {
+                System.err.println("Sampled " + sampler.getSampled() + " of " + sampler.getSeen()
+                    + " record(s) (--sample " + options.getSample() + ", --seed " + options.getSeed() + ")");
+            }
+            if (spills.getFiles() > 0) {
+                System.err.println("Spilled " + spills.getRecords() + " record(s) to " + spills.getFiles()
+                    + " temporary file(s), " + spills.getBytes() + " bytes");
+            }
+            for (QueueStatistics queue : metrics.getQueues()) {
+                System.err.println("Pipeline " + queue);
+            }
+            if (cache != null) {
+                cache.store(cacheKey, Path.of(outputPath), recordCount);
+                System.err.println(cache.describeStatistics());
+            }
+
+            writeMetricsReports(metrics, options);
 
         } catch (InvalidInputException e) {
             throw new FileConversionException("Format detection failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Converts records read from an input stream and writes them to an output stream.
+     * Both formats must be set in the options. The streams are neither opened nor closed here.
+     *
+     * @param input   the stream to read from
+     * @param output  the stream to write to
+     * @param options the conversion options with explicit input and output formats
+     * @return the number of records converted
+     * @throws FileConversionException if a format is missing or conversion fails
+     */
+    public long convert(InputStream input, OutputStream output, ConversionOptions options) throws FileConversionException {
+        if (options.getInputFormat() == null || options.getOutputFormat() == null) {
+            throw new InvalidInputException("Input and output formats must be specified when converting streams");
+        }
+
+        SpillStatistics spills = new SpillStatistics();
+        return convert(input, STREAM_SOURCE, options.getInputFormat(), output, options.getOutputFormat(), options,
+            createFilter(options), new ConversionMetrics(false), null, spills, createDeduplicator(options, spills),
+            createSampler(options), null);
+    }
+
+    /**
+     * Opens a parser over an input stream and converts its records.
+     *
+     * @param input        the stream to read from
+     * @param source       the name of the input used in parse errors
+     * @param inputFormat  the input format
+     * @param output       the stream to write to
+     * @param outputFormat the output format
+     * @param options      the conversion options
+     * @param filter       the filter records must match, or null to keep every record
+     * @param metrics      the metrics to record stage timings in
+     * @param progress     the progress reporter to publish the record count to, or null
+     * @param spills       the statistics to record spills of buffering writers in
+     * @param distinct     the deduplication stage, closed here, or null to keep duplicates
+     * @param sampler      the sampling stage, or null to keep every record
+     * @param files        the writer used instead of the output stream, or null
+     * @return the number of records converted
+     * @throws FileConversionException if conversion fails
+     */
+    private long convert(InputStream input, String source, FormatDetector.FileFormat inputFormat,
+                         OutputStream output, FormatDetector.FileFormat outputFormat,
+                         ConversionOptions options, RecordFilter filter, ConversionMetrics metrics,
+                         ProgressReporter progress, SpillStatistics spills,
+                         RecordDeduplicator distinct, RecordSampler sampler,
+                         RecordWriter<DataRecord> files) throws FileConversionException {
+        FileParser<DataRecord> parser = createParser(inputFormat, options, filter);
+
+        if (inputFormat == FormatDetector.FileFormat.JSONL) {
+            // Blocks of lines are parsed on the threads of the parser
+            metrics.recordWorkerThreads(ConversionMetrics.Stage.PARSING);
+        }
+        metrics.begin(ConversionMetrics.Stage.PARSING);
+        RecordReader<DataRecord> reader = parser.open(input, source);
+        metrics.end(ConversionMetrics.Stage.PARSING);
+
+        return convert(reader, inputFormat.toString(), output, outputFormat, options, filter, metrics, progress,
+            spills, distinct, sampler, files);
+    }
+
+    /**
+     * Streams every record from the reader straight into the writer, after skipping the first
+     * --skip records, through the deduplication stage when --distinct-on is set, the sampling
+     * stage when --sample is set, the aggregation stage when --group-by or --agg is set
+     * and the sort stage when --sort-by is set.
+     * Reading stops as soon as --limit records were written.
+     * The writer is only completed when all records were read successfully,
+     * so a failed conversion never produces a document that looks complete.
+     *
+     * @param reader       the reader of the input records, closed here
+     * @param inputFormat  the name of the input format, shown in profiling events
+     * @param output       the stream to write to
+     * @param outputFormat the output format
+     * @param options      the conversion options
+     * @param filter       the filter records must match, or null to keep every record
+     * @param metrics      the metrics to record stage timings in
+     * @param progress     the progress reporter to publish the record count to, or null
+     * @param spills       the statistics to record spills of buffering writers in
+     * @param distinct     the deduplication stage, closed here, or null to keep duplicates
+     * @param sampler      the sampling stage, or null to keep every record
+     * @param files        the writer of output shards, partitions or known CSV columns,
+     *                     used instead of the output stream, or null
+     * @return the number of records converted
+     * @throws FileConversionException if conversion fails
+     */
+    private long convert(RecordReader<DataRecord> reader, String inputFormat,
+                         OutputStream output, FormatDetector.FileFormat outputFormat,
+                         ConversionOptions options, RecordFilter filter, ConversionMetrics metrics,
+                         ProgressReporter progress, SpillStatistics spills,
+                         RecordDeduplicator distinct, RecordSampler sampler,
+                         RecordWriter<DataRecord> files) throws FileConversionException {
+        FileWriter<DataRecord> writer = createWriter(outputFormat, options, spills);
+
+        // Records that every later stage would reject can be skipped before they are parsed
+        boolean skipUnparsed = sampler != null && filter == null && distinct == null;
+
+        try (reader; distinct; RecordAggregator aggregator = createAggregator(options);
+             RecordSorter sorter = createSorter(options, spills)) {
+            recordWorkerThreads(metrics, options, aggregator, files);
+            metrics.begin(ConversionMetrics.Stage.WRITING);
+            RecordWriter<DataRecord> recordWriter = files != null ? files : writer.open(output);
+            PipelinedRecordWriter pipelinedWriter = options.isPipelined()
+                ? new PipelinedRecordWriter(recordWriter, PIPELINE_BATCH_RECORDS, PIPELINE_BATCHES) : null;
+            metrics.end(ConversionMetrics.Stage.WRITING);
+
+            try {
+                Pipeline pipeline = new Pipeline(sampler, aggregator, sorter, metrics,
+                    new OutputStage(pipelinedWriter != null ? pipelinedWriter : recordWriter, metrics, progress,
+                        options.getLimit(),
+                        new ChunkEventEmitter(RecordBatchEvent::new, inputFormat + " -> " + outputFormat)));
+                metrics.begin(ConversionMetrics.Stage.PARSING);
+                reader.skip(options.getSkip());
+                metrics.end(ConversionMetrics.Stage.PARSING);
+
+                // The reading thread must have left the source reader before it is closed
+                PipelinedRecordReader pipelinedReader = options.isPipelined()
+                    ? new PipelinedRecordReader(reader, PIPELINE_BATCH_RECORDS, PIPELINE_BATCHES) : null;
+                RecordReader<DataRecord> records = pipelinedReader != null ? pipelinedReader : reader;
+                try (pipelinedReader) {
+                    while (pipeline.needsInput()) {
+                        metrics.begin(ConversionMetrics.Stage.PARSING);
+                        if (skipUnparsed && sampler.pendingSkip() > 0) {
+                            sampler.skipped(records.skip(sampler.pendingSkip()));
+                        }
+                        DataRecord record = records.read();
+                        metrics.end(ConversionMetrics.Stage.PARSING);
+
+                        if (record == null) {
+                            break;
+                        }
+
+                        if (distinct != null) {
+                            metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                            boolean firstOccurrence = distinct.add(record);
+                            metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+                            if (!firstOccurrence) {
+                                continue;
+                            }
+                        }
+                        pipeline.pass(record);
+                    }
+                } finally {
+                    if (pipelinedReader != null) {
+                        metrics.recordQueue(pipelinedReader.getStatistics());
+                    }
+                }
+
+                // Release the input as soon as it is no longer needed, before the held-back stages are written
+                reader.close();
+
+                if (distinct != null && distinct.hasDeferred() && pipeline.needsInput()) {
+                    pipeline.drain(distinct.openDeferredReader());
+                }
+                return pipeline.finish();
+            } finally {
+                if (pipelinedWriter != null) {
+                    pipelinedWriter.abort();
+                    metrics.recordQueue(pipelinedWriter.getStatistics());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the stages that worker threads take part in: parsing and writing on the pipeline
+     * threads, aggregation on the aggregator threads and writing on the shard writer threads.
+     *
+     * @param metrics    the metrics of the run
+     * @param options    the conversion options
+     * @param aggregator the aggregation stage, or null
+     * @param files      the writer used instead of the output stream, or null
+     */
+    private void recordWorkerThreads(ConversionMetrics metrics, ConversionOptions options,
+                                     RecordAggregator aggregator, RecordWriter<DataRecord> files) {
+        if (options.isPipelined()) {
+            metrics.recordWorkerThreads(ConversionMetrics.Stage.PARSING);
+            metrics.recordWorkerThreads(ConversionMetrics.Stage.WRITING);
+        }
+        if (aggregator != null && aggregator.isParallel()) {
+            metrics.recordWorkerThreads(ConversionMetrics.Stage.TRANSFORMATION);
+        }
+        if (files instanceof ShardedRecordWriter) {
+            metrics.recordWorkerThreads(ConversionMetrics.Stage.WRITING);
+        }
+    }
+
+    /**
+     * Converts the data appended to a growing input since the last run, once or whenever the input changes.
+     *
+     * @param inputPath    the input file path
+     * @param inputFormat  the input format, which must be line-based
+     * @param outputPath   the output file path
+     * @param outputFormat the output format, which must support appending
+     * @param options      the conversion options with the follow mode and checkpoint file
+     * @throws FileConversionException if the formats cannot be followed or conversion fails
+     */
+    private void follow(String inputPath, FormatDetector.FileFormat inputFormat,
+                        String outputPath, FormatDetector.FileFormat outputFormat,
+                        ConversionOptions options) throws FileConversionException {
+        if (ConversionOptions.isStandardStream(inputPath) || ConversionOptions.isStandardStream(outputPath)) {
+            throw new FileConversionException("Following an input requires an input file and an output file");
+        }
+        if (options.getSortBy() != null || options.getLimit() > 0 || options.getDistinctOn() != null
+                || options.isAggregating() || options.getSkip() > 0 || options.getSample() != null
+                || options.isSplitting() || options.getPartitionBy() != null) {
+            throw new FileConversionException("Following an input cannot be combined with sorting, a limit, "
+                + "deduplication, aggregation, sampling, splitting or partitioning the output");
+        }
+        if (inputFormat != FormatDetector.FileFormat.CSV && inputFormat != FormatDetector.FileFormat.JSONL) {
+            throw new FileConversionException("Only line-based inputs (csv, jsonl) can be followed, not " + inputFormat);
+        }
+
+        FileWriter<DataRecord> writer = createWriter(outputFormat, options, new SpillStatistics());
+        if (!(writer instanceof AppendableFileWriter)) {
+            throw new FileConversionException("Cannot append to " + outputFormat + " output; use json, jsonl or xml");
+        }
+
+        String checkpointFile = options.getCheckpointFile() != null
+            ? options.getCheckpointFile()
+            : outputPath + CHECKPOINT_SUFFIX;
+        // A different output profile changes the shape of the records, so it must not be appended to
+        String conversion = inputFormat + " -> " + outputFormat + " (" + options.describeOutputSettings() + ")";
+        IncrementalConverter converter = new IncrementalConverter(Path.of(inputPath), Path.of(outputPath),
+            Path.of(checkpointFile), conversion,
+            inputFormat == FormatDetector.FileFormat.CSV, createParser(inputFormat, options, createFilter(options)),
+            (AppendableFileWriter<DataRecord>) writer, System.err);
+
+        if (options.getFollowMode() == IncrementalConverter.Mode.WATCH) {
+            converter.watch();
+        } else {
+            converter.convertAppended();
+        }
+    }
+
+    /**
+     * Creates and starts a progress reporter if progress reporting was requested.
+     * The total size is only known for regular files, so standard input is reported without ETA.
+     *
+     * @param options    the conversion options
+     * @param bytesRead  the number of input bytes the parsers have read so far
+     * @param inputPaths the input file paths, or "-" alone for standard input
+     * @return the running reporter, or null if progress reporting is disabled
+     */
+    private ProgressReporter createProgressReporter(ConversionOptions options, LongSupplier bytesRead,
+                                                    List<String> inputPaths) {
+        if (options.getProgressMode() == null) {
+            return null;
+        }
+
+        long totalBytes = 0;
+        for (String inputPath : inputPaths) {
+            if (ConversionOptions.isStandardStream(inputPath)) {
+                totalBytes = -1;
+                break;
+            }
+            totalBytes += new File(inputPath).length();
+        }
+        ProgressReporter reporter = new ProgressReporter(options.getProgressMode(), bytesRead, totalBytes,
+            System.err, ProgressReporter.DEFAULT_INTERVAL_MILLIS);
+        reporter.start();
+        return reporter;
+    }
+
+    /**
+     * Writes the metrics reports requested in the options.
+     *
+     * @param metrics the collected metrics
+     * @param options the conversion options naming the report files
+     * @throws FileConversionException if a report cannot be written
+     */
+    private void writeMetricsReports(ConversionMetrics metrics, ConversionOptions options) throws FileConversionException {
+        MetricsReportWriter reportWriter = new MetricsReportWriter();
+
+        if (options.getMetricsFile() != null) {
+            reportWriter.writeJson(metrics, new File(options.getMetricsFile()));
+            System.err.println("Metrics report written to " + options.getMetricsFile());
+        }
+
+        if (options.getOpenMetricsFile() != null) {
+            reportWriter.writeOpenMetrics(metrics, new File(options.getOpenMetricsFile()));
+            System.err.println("OpenMetrics written to " + options.getOpenMetricsFile());
+        }
+    }
+
+    /**
+     * Resolves the format of one side of the conversion.
+     *
+     * @param explicitFormat the format given in the options, or null
+     * @param path           the file path, or "-" for a standard stream
+     * @param flag           the command-line flag that sets the format, used in error messages
+     * @return the resolved format
+     * @throws InvalidInputException if the format cannot be determined
+     */
+    private FormatDetector.FileFormat resolveFormat(FormatDetector.FileFormat explicitFormat, String path, String flag)
+            throws InvalidInputException {
+        if (explicitFormat != null) {
+            return explicitFormat;
+        }
+
+        if (ConversionOptions.isStandardStream(path)) {
+            throw new InvalidInputException("Standard streams require an explicit format. Use " + flag + " <json|jsonl|xml|csv>");
+        }
+
+        return FormatDetector.detectFormat(path);
+    }
+
+    /**
+     * Opens the input as a buffered, counting source.
+     * Standard input is read straight from its file descriptor, bypassing System.in.
+     *
+     * @param inputPath the input file path, or "-" for standard input
+     * @param io        the buffer settings
+     * @return the source
+     * @throws FileConversionException if the input file cannot be opened
+     */
+    private Source openInput(String inputPath, IoSettings io) throws FileConversionException {
+        if (ConversionOptions.isStandardStream(inputPath)) {
+            return Source.standardInput(io);
+        }
+
+        File inputFile = new File(inputPath);
+        try {
+            return Source.open(inputFile.toPath(), io);
+        } catch (IOException e) {
+            throw new FileConversionException("File does not exist: " + inputFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Opens the output as a sink, creating missing parent directories. A file output is
+     * written to a temporary file that only replaces the output once the conversion succeeded.
+     * Standard output is written straight to its file descriptor, bypassing the synchronized System.out.
+     *
+     * @param outputPath the output file path, or "-" for standard output
+     * @param io         the buffer, fsync and direct I/O settings
+     * @return the sink
+     * @throws FileConversionException if the output file cannot be created
+     */
+    private Sink openOutput(String outputPath, IoSettings io) throws FileConversionException {
+        if (ConversionOptions.isStandardStream(outputPath)) {
+            return Sink.standardOutput(io);
+        }
+
+        File outputFile = new File(outputPath);
+        createParentDirectory(outputFile);
+
+        try {
+            Sink sink = Sink.open(outputFile.toPath(), io);
+            if (io.isDirectIo() && !sink.isDirect()) {
+                System.err.println("Direct I/O is not supported for " + outputFile.getAbsolutePath()
+                    + ", writing through the page cache");
+            }
+            return sink;
+        } catch (IOException e) {
+            throw new FileConversionException("Cannot write output file: " + outputFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Creates the missing parent directories of an output file.
+     *
+     * @param outputFile the output file
+     * @throws FileConversionException if a directory cannot be created
+     */
+    private void createParentDirectory(File outputFile) throws FileConversionException {
+        File parentDir = outputFile.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+            throw new FileConversionException(
+                "Failed to create parent directory: " + parentDir.getAbsolutePath()
+            );
+        }
+    }
+
+    /**
+     * Starts parsing several input files for one merged stream of records.
+     * Each input is parsed with the parser of its own format; JSON Lines inputs share the
+     * processors with the other inputs, rather than each using all of them.
+     *
+     * @param inputPaths   the input file paths, in input order
+     * @param inputFormats the format of every input
+     * @param options      the conversion options
+     * @param filter       the filter the parsers evaluate, or null
+     * @return the reader of the merged records
+     * @throws FileConversionException if a parser cannot be created
+     */
+    private MergingRecordReader openMergedInput(List<String> inputPaths, List<FormatDetector.FileFormat> inputFormats,
+                                                ConversionOptions options, RecordFilter filter)
+            throws FileConversionException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int threads = Math.min(inputPaths.size(), Math.max(MIN_MERGE_THREADS, processors));
+        int parserThreads = Math.max(1, processors / threads);
+
+        List<MergingRecordReader.Input> inputs = new ArrayList<>();
+        for (int i = 0; i < inputPaths.size(); i++) {
+            inputs.add(new MergingRecordReader.Input(Path.of(inputPaths.get(i)),
+                createParser(inputFormats.get(i), options, filter, parserThreads)));
+        }
+        return new MergingRecordReader(inputs, options.isUnordered(), threads,
+            MergingRecordReader.DEFAULT_PREFETCH_BATCHES, options.getIoSettings());
+    }
+
+    /**
+     * Opens a CSV writer with the union of the header rows of the inputs, if every input is
+     * a CSV file and the records keep the fields of their header rows. The columns are then
+     * known before the first record is read, so rows are written as they arrive instead of
+     * being collected for the header union; the columns are sorted like those of the collecting writer.
+     *
+     * @param inputPaths   the input file paths
+     * @param inputFormats the format of every input
+     * @param outputFormat the output format
+     * @param options      the conversion options
+     * @param output       the stream to write to
+     * @return the streaming CSV writer, or null if the columns are not known in advance
+     * @throws FileConversionException if a header row cannot be read
+     */
+    private RecordWriter<DataRecord> openUnifiedCsvOutput(List<String> inputPaths,
+                                                          List<FormatDetector.FileFormat> inputFormats,
+                                                          FormatDetector.FileFormat outputFormat,
+                                                          ConversionOptions options, OutputStream output)
+            throws FileConversionException {
+        if (outputFormat != FormatDetector.FileFormat.CSV || projectedColumns(options) != null
+                || options.isAggregating() || inputFormats.stream().anyMatch(format -> format != FormatDetector.FileFormat.CSV)) {
+            return null;
+        }
+
+        Set<String> columns = new TreeSet<>();
+        for (String inputPath : inputPaths) {
+            try (InputStream input = Source.open(Path.of(inputPath), options.getIoSettings())) {
+                columns.addAll(CsvParser.readHeader(input, inputPath, options.getEncoding()));
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to read the CSV header of " + inputPath, e);
+            }
+        }
+        return new CsvWriter(!options.isCsvMapping()).open(output, new ArrayList<>(columns));
+    }
+
+    /**
+     * Describes the formats of several inputs for profiling events, such as "CSV+JSON".
+     *
+     * @param inputFormats the format of every input
+     * @return the distinct formats joined by "+"
+     */
+    private String describeFormats(List<FormatDetector.FileFormat> inputFormats) {
+        Set<String> names = new LinkedHashSet<>();
+        for (FormatDetector.FileFormat format : inputFormats) {
+            names.add(format.toString());
+        }
+        return String.join("+", names);
+    }
+
+    /**
+     * Creates the writer of numbered output shards if --split-records or --split-bytes was requested.
+     *
+     * @param options      the conversion options
+     * @param outputFormat the output format of every shard
+     * @param outputPath   the output path the shard names are derived from
+     * @param spills       the statistics to record spills of buffering writers in
+     * @return the shard writer, or null to write a single output
+     * @throws FileConversionException if the output is standard output or its directory cannot be created
+     */
+    private ShardedRecordWriter createShards(ConversionOptions options, FormatDetector.FileFormat outputFormat,
+                                             String outputPath, SpillStatistics spills) throws FileConversionException {
+        if (!options.isSplitting()) {
+            return null;
+        }
+        if (ConversionOptions.isStandardStream(outputPath)) {
+            throw new FileConversionException("Splitting the output requires an output file, not standard output");
+        }
+
+        createParentDirectory(new File(outputPath));
+        return new ShardedRecordWriter(createWriter(outputFormat, options, spills), Path.of(outputPath),
+            options.getSplitRecords(), options.getSplitBytes(), Runtime.getRuntime().availableProcessors(),
+            options.getIoSettings());
+    }
+
+    /**
+     * Creates the writer of Hive-style output partitions if --partition-by was requested.
+     * Buffered records are limited by --memory-budget, or by a quarter of the maximum heap without a budget.
+     *
+     * @param options      the conversion options
+     * @param outputFormat the output format of every partition file
+     * @param outputPath   the output path whose directory holds the partitions and whose name every partition file gets
+     * @param spills       the statistics to record spills of buffering writers in
+     * @return the partition writer, or null to write a single output
+     * @throws FileConversionException if the output is standard output or cannot be appended to
+     */
+    private PartitionedRecordWriter createPartitions(ConversionOptions options, FormatDetector.FileFormat outputFormat,
+                                                     String outputPath, SpillStatistics spills)
+            throws FileConversionException {
+        if (options.getPartitionBy() == null) {
+            return null;
+        }
+        if (ConversionOptions.isStandardStream(outputPath)) {
+            throw new FileConversionException("Partitioning the output requires an output file, not standard output");
+        }
+
+        FileWriter<DataRecord> writer = createWriter(outputFormat, options, spills);
+        if (!(writer instanceof AppendableFileWriter)) {
+            throw new FileConversionException("Cannot partition " + outputFormat + " output");
+        }
+        long budget = options.getMemoryBudget() > 0
+            ? options.getMemoryBudget()
+            : Runtime.getRuntime().maxMemory() / DEFAULT_STAGE_MEMORY_FRACTION;
+        return new PartitionedRecordWriter((AppendableFileWriter<DataRecord>) writer, Path.of(outputPath),
+            options.getPartitionBy(), options.getMaxOpenFiles(), budget, options.getIoSettings());
+    }
+
+    /**
+     * Opens the conversion cache if one is configured, both sides are regular files
+     * and the output is neither split nor partitioned.
+     *
+     * @param options    the conversion options
+     * @param inputPath  the input file path, or "-" for standard input
+     * @param outputPath the output file path, or "-" for standard output
+     * @return the cache, or null if outputs are not cached for this run
+     * @throws FileConversionException if the cache directory cannot be created
+     */
+    private ConversionCache openCache(ConversionOptions options, String inputPath, String outputPath)
+            throws FileConversionException {
+        if (options.getCacheDirectory() == null || options.isSplitting() || options.getPartitionBy() != null
+                || ConversionOptions.isStandardStream(inputPath) || ConversionOptions.isStandardStream(outputPath)) {
+            return null;
+        }
+        return ConversionCache.open(Path.of(options.getCacheDirectory()), options.getCacheMaxSize());
+    }
+
+    /**
+     * Closes an input stream unless it is standard input.
+     *
+     * @param input     the stream to close
+     * @param inputPath the input file path, or "-" for standard input
+     * @throws FileConversionException if the stream cannot be closed
+     */
+    private void closeInput(InputStream input, String inputPath) throws FileConversionException {
+        if (ConversionOptions.isStandardStream(inputPath)) {
+            return;
+        }
+
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to close input file: " + inputPath, e);
+        }
+    }
+
+    /**
+     * Publishes a completed output: a file output replaces the output file, standard output
+     * gets the rest of its buffer.
+     *
+     * @param sink       the output sink, or null if shards or partitions are written instead
+     * @param outputPath the output file path, or "-" for standard output
+     * @throws FileConversionException if the output cannot be written or renamed
+     */
+    private void commitOutput(Sink sink, String outputPath) throws FileConversionException {
+        if (sink == null) {
+            return;
+        }
+
+        try {
+            sink.commit();
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write output file: " + outputPath, e);
+        }
+    }
+
+    /**
+     * Releases an output sink. A file output that was not committed, because the conversion
+     * failed, is discarded and the previous output file is left as it was.
+     *
+     * @param sink       the output sink, or null if shards or partitions are written instead
+     * @param outputPath the output file path, or "-" for standard output
+     * @throws FileConversionException if the sink cannot be released
+     */
+    private void closeOutput(Sink sink, String outputPath) throws FileConversionException {
+        if (sink == null) {
+            return;
+        }
+
+        try {
+            sink.close();
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write output file: " + outputPath, e);
+        }
+    }
+
+    /**
+     * Returns the name shown in status messages for an input or output path.
+     *
+     * @param path       the file path, or "-" for a standard stream
+     * @param streamName the name to show for a standard stream
+     * @return the file name, or the stream name for "-"
+     */
+    private String displayName(String path, String streamName) {
+        return ConversionOptions.isStandardStream(path) ? streamName : new File(path).getName();
+    }
+
+    /**
+     * Returns the name of an input used in parse errors.
+     *
+     * @param path the input file path, or "-" for standard input
+     * @return the absolute file path, or "stdin" for "-"
+     */
+    private String sourceName(String path) {
+        return ConversionOptions.isStandardStream(path) ? "stdin" : new File(path).getAbsolutePath();
+    }
+
+    /**
+     * Creates the sort stage if --sort-by was requested.
+     * Runs are limited by --memory-budget, or by a quarter of the maximum heap without a budget.
+     *
+     * @param options the conversion options
+     * @param spills  the statistics to record spilled runs in
+     * @return the sorter, or null to keep the input order
+     * @throws InvalidInputException if the sort specification is not valid
+     */
+    private RecordSorter createSorter(ConversionOptions options, SpillStatistics spills) throws InvalidInputException {
+        if (options.getSortBy() == null) {
+            return null;
+        }
+
+        long runBudget = options.getMemoryBudget() > 0
+            ? options.getMemoryBudget()
+            : Runtime.getRuntime().maxMemory() / DEFAULT_STAGE_MEMORY_FRACTION;
+        return new RecordSorter(SortKey.parseList(options.getSortBy()), runBudget, options.getLimit(), spills);
+    }
+
+    /**
+     * Creates the deduplication stage if --distinct-on was requested.
+     * Its fingerprint set is limited by --memory-budget, or by a quarter of the maximum heap without a budget.
+     *
+     * @param options the conversion options
+     * @param spills  the statistics to record deferred records in
+     * @return the deduplicator, or null to keep duplicates
+     */
+    private RecordDeduplicator createDeduplicator(ConversionOptions options, SpillStatistics spills) {
+        if (options.getDistinctOn() == null) {
+            return null;
+        }
+
+        long budget = options.getMemoryBudget() > 0
+            ? options.getMemoryBudget()
+            : Runtime.getRuntime().maxMemory() / DEFAULT_STAGE_MEMORY_FRACTION;
+        return new RecordDeduplicator(options.getDistinctOn(), budget, options.isDistinctApproximate(), spills);
+    }
+
+    /**
+     * Creates the sampling stage if --sample was requested.
+     *
+     * @param options the conversion options with the sample size and seed
+     * @return the sampler, or null to keep every record
+     * @throws InvalidInputException if the sample size is not valid
+     */
+    private RecordSampler createSampler(ConversionOptions options) throws InvalidInputException {
+        return options.getSample() == null ? null : RecordSampler.parse(options.getSample(), options.getSeed());
+    }
+
+    /**
+     * Creates the aggregation stage if --group-by or --agg was requested.
+     * Without --agg every group is counted.
+     *
+     * @param options the conversion options
+     * @return the aggregator, or null to pass records on unchanged
+     * @throws InvalidInputException if the aggregate specification is not valid
+     */
+    private RecordAggregator createAggregator(ConversionOptions options) throws InvalidInputException {
+        if (!options.isAggregating()) {
+            return null;
+        }
+
+        return new RecordAggregator(groupByFields(options), aggregates(options),
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Gets the --group-by fields of the options.
+     *
+     * @param options the conversion options
+     * @return the group key fields, empty for a single group
+     */
+    private List<String> groupByFields(ConversionOptions options) {
+        return options.getGroupBy() == null ? List.of() : options.getGroupBy();
+    }
+
+    /**
+     * Parses the --agg specification of the options.
+     *
+     * @param options the conversion options
+     * @return the aggregates, count(*) when none were given
+     * @throws InvalidInputException if the aggregate specification is not valid
+     */
+    private List<Aggregate> aggregates(ConversionOptions options) throws InvalidInputException {
+        return Aggregate.parseList(options.getAggregates() == null ? DEFAULT_AGGREGATES : options.getAggregates());
+    }
+
+    /**
+     * Gets the columns parsers have to read. Without --columns, an aggregation reads only the
+     * fields it groups by, aggregates and deduplicates on, so that parsers skip all other fields.
+     *
+     * @param options the conversion options
+     * @return the column paths, or null to read every field
+     * @throws InvalidInputException if the aggregate specification is not valid
+     */
+    private List<String> projectedColumns(ConversionOptions options) throws InvalidInputException {
+        if (options.getColumns() != null || !options.isAggregating()) {
+            return options.getColumns();
+        }
+
+        Set<String> columns = new LinkedHashSet<>(groupByFields(options));
+        for (Aggregate aggregate : aggregates(options)) {
+            if (aggregate.getField() != null) {
+                columns.add(aggregate.getField());
+            }
+        }
+        if (options.getDistinctOn() != null) {
+            columns.addAll(options.getDistinctOn());
+        }
+        return new ArrayList<>(columns);
+    }
+
+    /**
+     * Compiles the --where expression of the options.
+     *
+     * @param options the conversion options
+     * @return the compiled filter, or null if no filter was requested
+     * @throws InvalidInputException if the expression is not valid
+     */
+    private RecordFilter createFilter(ConversionOptions options) throws InvalidInputException {
+        return options.getWhere() == null ? null : RecordFilter.compile(options.getWhere());
+    }
+
+    /**
+     * Creates the appropriate parser based on the file format.
+     *
+     * @param format  the file format
+     * @param options the conversion options with the projected columns
+     * @param filter  the filter the parser evaluates on raw values, or null
+     * @return a parser for the specified format
+     * @throws FileConversionException if the format is not supported
+     */
+    private FileParser<DataRecord> createParser(FormatDetector.FileFormat format, ConversionOptions options,
+                                                RecordFilter filter) throws FileConversionException {
+        return createParser(format, options, filter, Runtime.getRuntime().availableProcessors());
+    }
+
     /**
      * Creates the appropriate parser based on the file format.
-     * 
-     * @param format the file format
+     *
+     * @param format  the file format
+     * @param options the conversion options with the projected columns
+     * @param filter  the filter the parser evaluates on raw values, or null
+     * @param threads the number of threads a parallel parser may use
      * @return a parser for the specified format
      * @throws FileConversionException if the format is not supported
      */
-    private FileParser<DataRecord> createParser(FormatDetector.FileFormat format) throws FileConversionException {
+    private FileParser<DataRecord> createParser(FormatDetector.FileFormat format, ConversionOptions options,
+                                                RecordFilter filter, int threads) throws FileConversionException {
+        List<String> columns = projectedColumns(options);
+        Projection projection = columns == null ? null : new Projection(columns);
         switch (format) {
             case JSON:
-                return new JsonParser();
+                return new JsonParser(new ObjectMapper(), projection, filter);
             case CSV:
-                return new CsvParser();
+                return new CsvParser(projection, filter, options.getEncoding());
             case XML:
-                return new JacksonXmlParser();
+                return new JacksonXmlParser(projection, filter);
+            case JSONL:
+                return new JsonLinesParser(new ObjectMapper(), threads, projection, filter);
             default:
                 throw new FileConversionException("Unsupported input format: " + format);
         }
@@ -104,22 +1125,172 @@ public class SimpleFormatConverter implements FormatConverter {
 
     /**
      * Creates the appropriate writer based on the file format.
-     * 
-     * @param format the file format
-     * @param csvMapping whether to skip CSV headers (true = without headers, false = with headers)
+     *
+     * @param format  the file format
+     * @param options the conversion options with the CSV header mode and memory budget
+     * @param spills  the statistics to record spills in
      * @return a writer for the specified format
      * @throws FileConversionException if the format is not supported
      */
-    private FileWriter<DataRecord> createWriter(FormatDetector.FileFormat format, boolean csvMapping) throws FileConversionException {
+    private FileWriter<DataRecord> createWriter(FormatDetector.FileFormat format, ConversionOptions options,
+                                                SpillStatistics spills) throws FileConversionException {
         switch (format) {
             case JSON:
                 return new JsonWriter();
             case CSV:
-                return new CsvWriter(!csvMapping);
+                return new CsvWriter(!options.isCsvMapping(), options.getMemoryBudget(), spills);
             case XML:
-                return new XmlWriter();
+                return new XmlWriter(options.isXmlCompact(), options.isXmlAttributes());
+            case JSONL:
+                return new JsonLinesWriter();
             default:
                 throw new FileConversionException("Unsupported output format: " + format);
         }
     }
+
+    /**
+     * The stages a record passes after parsing and deduplication: sampling, aggregation, sorting and output.
+     * Aggregation and sorting hold records back until the input ends; {@link #finish()} then
+     * feeds their results to the following stages, one stage after the other.
+     */
+    private static final class Pipeline {
+
+        private final ConversionMetrics metrics;
+        private final OutputStage output;
+        private RecordSampler sampler;
+        private RecordAggregator aggregator;
+        private RecordSorter sorter;
+
+        Pipeline(RecordSampler sampler, RecordAggregator aggregator, RecordSorter sorter, ConversionMetrics metrics,
+                 OutputStage output) {
+            this.sampler = sampler;
+            this.aggregator = aggregator;
+            this.sorter = sorter;
+            this.metrics = metrics;
+            this.output = output;
+        }
+
+        /**
+         * Checks whether more records can change the output, which is no longer the case
+         * once the limit was written and no stage holds records back.
+         */
+        boolean needsInput() {
+            return (sampler != null && sampler.isReservoir()) || aggregator != null || sorter != null
+                || !output.isFull();
+        }
+
+        void pass(DataRecord record) throws FileConversionException {
+            if (sampler != null && !sampler.add(record)) {
+                return;
+            }
+            if (aggregator != null) {
+                metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                aggregator.add(record);
+                metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+            } else if (sorter != null) {
+                metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                sorter.add(record);
+                metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+            } else {
+                output.write(record);
+            }
+        }
+
+        /**
+         * Passes every record of an intermediate reader on and closes it.
+         */
+        void drain(RecordReader<DataRecord> records) throws FileConversionException {
+            try (records) {
+                while (needsInput()) {
+                    metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                    DataRecord record = records.read();
+                    metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+
+                    if (record == null) {
+                        break;
+                    }
+                    pass(record);
+                }
+            }
+        }
+
+        /**
+         * Flushes the aggregation and sort stages in order and completes the output.
+         *
+         * @return the number of records written
+         */
+        long finish() throws FileConversionException {
+            if (sampler != null) {
+                RecordReader<DataRecord> sample = sampler.openReader();
+                sampler = null;
+                drain(sample);
+            }
+            if (aggregator != null) {
+                metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                RecordReader<DataRecord> groups = aggregator.openReader();
+                metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+                aggregator = null;
+                drain(groups);
+            }
+            if (sorter != null) {
+                metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+                RecordReader<DataRecord> sorted = sorter.openReader();
+                metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+                sorter = null;
+                drain(sorted);
+            }
+            return output.finish();
+        }
+    }
+
+    /**
+     * The end of the record pipeline: writes records, counts them up to the limit
+     * and publishes the count to the progress reporter and the profiling events.
+     */
+    private static final class OutputStage {
+
+        private final RecordWriter<DataRecord> writer;
+        private final ConversionMetrics metrics;
+        private final ProgressReporter progress;
+        private final long limit;
+        private final ChunkEventEmitter batchEvents;
+        private long recordCount;
+
+        OutputStage(RecordWriter<DataRecord> writer, ConversionMetrics metrics, ProgressReporter progress,
+                    long limit, ChunkEventEmitter batchEvents) {
+            this.writer = writer;
+            this.metrics = metrics;
+            this.progress = progress;
+            this.limit = limit;
+            this.batchEvents = batchEvents;
+        }
+
+        boolean isFull() {
+            return limit > 0 && recordCount >= limit;
+        }
+
+        void write(DataRecord record) throws FileConversionException {
+            metrics.begin(ConversionMetrics.Stage.WRITING);
+            writer.write(record);
+            metrics.end(ConversionMetrics.Stage.WRITING);
+            recordCount++;
+            batchEvents.recordProcessed();
+            if (progress != null) {
+                progress.setRecords(recordCount);
+            }
+        }
+
+        /**
+         * Completes the output document.
+         *
+         * @return the number of records written
+         */
+        long finish() throws FileConversionException {
+            batchEvents.finish();
+            metrics.begin(ConversionMetrics.Stage.WRITING);
+            writer.close();
+            metrics.end(ConversionMetrics.Stage.WRITING);
+            return recordCount;
+        }
+    }
 }
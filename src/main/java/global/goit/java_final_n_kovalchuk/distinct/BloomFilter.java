@@ -0,0 +1,67 @@
+package global.goit.java_final_n_kovalchuk.distinct;
+
+/**
+ * Bloom filter over 64-bit fingerprints with a fixed memory size.
+ *
+ * Bit positions are derived from the two 32-bit halves of the fingerprint by double
+ * hashing, so adding a value costs no further hashing. The number of probes is chosen
+ * for the expected number of values; more values than expected raise the false
+ * positive rate instead of the memory use.
+ */
+public class BloomFilter {
+
+    private static final int MAX_PROBES = 16;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int probes;
+    private long added;
+
+    /**
+     * Constructs a new BloomFilter.
+     *
+     * @param bytes          the memory for the bit array in bytes
+     * @param expectedValues the number of values the filter is sized for
+     */
+    public BloomFilter(long bytes, long expectedValues) {
+        long words = Math.max(1, Math.min(bytes / Long.BYTES, Integer.MAX_VALUE - 8));
+        this.bits = new long[(int) words];
+        this.bitCount = words * Long.SIZE;
+        double optimal = (double) bitCount / Math.max(1, expectedValues) * Math.log(2);
+        this.probes = (int) Math.max(1, Math.min(MAX_PROBES, Math.round(optimal)));
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the fingerprint to add
+     * @return true if the value was certainly not added before; false if it probably was
+     */
+    public boolean add(long value) {
+        int h1 = (int) value;
+        int h2 = (int) (value >>> 32);
+        boolean added = false;
+        for (int i = 0; i < probes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                added = true;
+            }
+        }
+        if (added) {
+            this.added++;
+        }
+        return added;
+    }
+
+    /**
+     * Estimates the probability that a new value is taken for one added before, at the current fill.
+     *
+     * @return the false positive rate between 0 and 1
+     */
+    public double falsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) probes * added / bitCount), probes);
+    }
+}
@@ -0,0 +1,158 @@
+package global.goit.java_final_n_kovalchuk.distinct;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of 64-bit values with linear probing.
+ *
+ * Values are stored in a single {@code long[]} with no per-entry objects, so a set of
+ * n fingerprints takes between 16n and 32n bytes. The values are expected to be well
+ * mixed hashes already and are used as table positions directly. Zero marks an empty
+ * slot, so a zero value is tracked by a separate flag.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * Constructs a new empty LongHashSet.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs a new LongHashSet sized for an expected number of values.
+     *
+     * @param expectedValues the number of values the set should hold without growing
+     */
+    public LongHashSet(int expectedValues) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedValues * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value to add
+     * @return true if the value was not in the set before
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+
+        int index = (int) value & mask;
+        while (true) {
+            long current = table[index];
+            if (current == 0) {
+                table[index] = value;
+                size++;
+                if (size * 2L > table.length) {
+                    grow();
+                }
+                return true;
+            }
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value the value to look up
+     * @return true if the value was added before
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+
+        int index = (int) value & mask;
+        while (true) {
+            long current = table[index];
+            if (current == 0) {
+                return false;
+            }
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return the value count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the heap size of the table.
+     *
+     * @return the table size in bytes
+     */
+    public long tableBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Gets the heap size the table will have after its next growth.
+     *
+     * @return the grown table size in bytes
+     */
+    public long grownTableBytes() {
+        return tableBytes() * 2;
+    }
+
+    /**
+     * Calls an action for every value in the set, in no particular order.
+     *
+     * @param action the action to call
+     */
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (long value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int index = (int) value & mask;
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+}
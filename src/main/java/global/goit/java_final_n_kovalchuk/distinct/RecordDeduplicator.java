@@ -0,0 +1,359 @@
+package global.goit.java_final_n_kovalchuk.distinct;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.spill.SpillFile;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps the first record of every distinct combination of key field values.
+ *
+ * Each record is reduced to a 64-bit fingerprint of its key values. Fingerprints of the
+ * records seen so far are kept in a {@link LongHashSet}, so a record is decided as soon
+ * as it is read and passed on in input order. Two different keys share a fingerprint
+ * with a probability of about n²/2⁶⁵, which is negligible for any realistic input.
+ *
+ * When the set would outgrow the memory budget, the deduplicator switches to
+ * hash-partitioned spilling: the fingerprints seen so far are written to
+ * {@value #PARTITIONS} partition files by their top bits, every following record is
+ * deferred to a {@link SpillFile} and its fingerprint appended to its partition. After
+ * the input ends, the partitions are deduplicated one at a time, so only one partition's
+ * set is in memory, and the deferred records are replayed in input order without the
+ * duplicates. The memory budget thereby covers about {@value #PARTITIONS} times more keys.
+ *
+ * In approximate mode a {@link BloomFilter} of the budget's size is used instead and
+ * nothing is spilled; a unique record is dropped with the filter's false positive rate.
+ */
+public class RecordDeduplicator implements AutoCloseable {
+
+    /**
+     * Number of partitions used once fingerprints are spilled.
+     */
+    public static final int PARTITIONS = 64;
+
+    private static final int PARTITION_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(PARTITIONS);
+    private static final int FINGERPRINT_BUFFER_SIZE = 8 * 1024;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_VALUE = 0x9e3779b97f4a7c15L;
+    private static final long APPROXIMATE_EXPECTED_BYTES_PER_KEY = 2;
+
+    private final String[] keyFields;
+    private final long memoryBudget;
+    private final SpillStatistics statistics;
+    private final Path spillDirectory;
+
+    private LongHashSet seen = new LongHashSet();
+    private BloomFilter bloomFilter;
+    private long duplicates;
+
+    private SpillFile deferred;
+    private Path[] partitionFiles;
+    private DataOutputStream[] partitionOutputs;
+    private long[] priorCounts;
+    private long[] candidateCounts;
+
+    /**
+     * Constructs a new RecordDeduplicator that spills to the system temporary directory.
+     *
+     * @param keyFields    the fields whose values identify a record
+     * @param memoryBudget the maximum heap size of the fingerprint set in bytes
+     * @param approximate  true to use a Bloom filter instead of an exact set
+     * @param statistics   the statistics to record spilled records in
+     */
+    public RecordDeduplicator(List<String> keyFields, long memoryBudget, boolean approximate,
+                              SpillStatistics statistics) {
+        this(keyFields, memoryBudget, approximate, statistics, null);
+    }
+
+    /**
+     * Constructs a new RecordDeduplicator.
+     *
+     * @param keyFields      the fields whose values identify a record
+     * @param memoryBudget   the maximum heap size of the fingerprint set or the Bloom filter in bytes
+     * @param approximate    true to use a Bloom filter instead of an exact set
+     * @param statistics     the statistics to record spilled records in
+     * @param spillDirectory the directory for spill files, or null for the system temporary directory
+     */
+    public RecordDeduplicator(List<String> keyFields, long memoryBudget, boolean approximate,
+                              SpillStatistics statistics, Path spillDirectory) {
+        this.keyFields = keyFields.toArray(new String[0]);
+        this.memoryBudget = memoryBudget;
+        this.statistics = statistics;
+        this.spillDirectory = spillDirectory;
+        if (approximate) {
+            this.seen = null;
+            this.bloomFilter = new BloomFilter(memoryBudget, memoryBudget / APPROXIMATE_EXPECTED_BYTES_PER_KEY);
+        }
+    }
+
+    /**
+     * Decides on a record.
+     *
+     * @param record the record
+     * @return true if the record is a first occurrence to pass on now; false if it is a duplicate,
+     *         or if it was deferred to disk and will be returned by {@link #openDeferredReader()}
+     * @throws FileConversionException if a spill file cannot be written
+     */
+    public boolean add(DataRecord record) throws FileConversionException {
+        long fingerprint = fingerprint(record);
+
+        if (bloomFilter != null) {
+            return count(bloomFilter.add(fingerprint));
+        }
+
+        if (deferred != null) {
+            defer(record, fingerprint);
+            return false;
+        }
+
+        if (seen.contains(fingerprint)) {
+            duplicates++;
+            return false;
+        }
+        if (seen.size() * 2L + 2 > seen.tableBytes() / Long.BYTES && seen.grownTableBytes() > memoryBudget) {
+            // Adding this fingerprint would grow the table beyond the budget
+            startSpilling();
+            defer(record, fingerprint);
+            return false;
+        }
+        seen.add(fingerprint);
+        return true;
+    }
+
+    /**
+     * Checks whether records were deferred to disk.
+     *
+     * @return true if {@link #openDeferredReader()} has records to return
+     */
+    public boolean hasDeferred() {
+        return deferred != null;
+    }
+
+    /**
+     * Deduplicates the deferred records partition by partition and opens a reader over
+     * the first occurrences among them, in input order. No records may be added afterwards.
+     *
+     * @return a reader over the deferred records that are not duplicates
+     * @throws FileConversionException if a spill file cannot be read
+     */
+    public RecordReader<DataRecord> openDeferredReader() throws FileConversionException {
+        if (deferred == null) {
+            return new RecordReader<>() {
+                @Override
+                public DataRecord read() {
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                    // Nothing to release
+                }
+            };
+        }
+
+        BitSet[] keep = new BitSet[PARTITIONS];
+        try {
+            for (DataOutputStream output : partitionOutputs) {
+                output.close();
+            }
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                keep[partition] = dedupePartition(partition);
+            }
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to read deduplication spill files", e);
+        }
+
+        deferred.finishWriting();
+        statistics.recordSpill(deferred.getRecords(), deferred.getBytes(), deferred.getPath().toString());
+        RecordReader<DataRecord> records = deferred.openReader();
+        int[] positions = new int[PARTITIONS];
+
+        return new RecordReader<>() {
+            @Override
+            public DataRecord read() throws FileConversionException {
+                DataRecord record;
+                while ((record = records.read()) != null) {
+                    int partition = partitionOf(fingerprint(record));
+                    if (keep[partition].get(positions[partition]++)) {
+                        return record;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws FileConversionException {
+                records.close();
+            }
+        };
+    }
+
+    /**
+     * Gets the number of duplicate records removed so far.
+     *
+     * @return the duplicate count
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Estimates the share of unique records wrongly removed in approximate mode.
+     *
+     * @return the current false positive rate, or 0 in exact mode
+     */
+    public double getFalsePositiveRate() {
+        return bloomFilter != null ? bloomFilter.falsePositiveRate() : 0;
+    }
+
+    /**
+     * Deletes all spill files.
+     */
+    @Override
+    public void close() {
+        if (deferred != null) {
+            deferred.close();
+        }
+        if (partitionFiles != null) {
+            for (int i = 0; i < PARTITIONS; i++) {
+                try {
+                    partitionOutputs[i].close();
+                    Files.deleteIfExists(partitionFiles[i]);
+                } catch (IOException e) {
+                    // A leftover file in the temporary directory must not fail the conversion
+                    partitionFiles[i].toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the key values of a record: FNV-1a over the text of every
+     * value, with a separator between values, finished with the MurmurHash3 mixer so that
+     * the low bits (table positions) and the top bits (partitions) are both well distributed.
+     *
+     * @param record the record
+     * @return the 64-bit fingerprint
+     */
+    long fingerprint(DataRecord record) {
+        long hash = FNV_OFFSET;
+        for (String field : keyFields) {
+            Object value = record.getField(field);
+            if (value == null) {
+                hash = (hash ^ NULL_VALUE) * FNV_PRIME;
+            } else {
+                String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+                }
+            }
+            // Separator, so that ("ab", "c") and ("a", "bc") differ
+            hash = (hash ^ 0x1F) * FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private boolean count(boolean firstOccurrence) {
+        if (!firstOccurrence) {
+            duplicates++;
+        }
+        return firstOccurrence;
+    }
+
+    private static int partitionOf(long fingerprint) {
+        return (int) (fingerprint >>> PARTITION_SHIFT);
+    }
+
+    /**
+     * Writes the fingerprints seen so far to their partitions and drops the in-memory set.
+     */
+    private void startSpilling() throws FileConversionException {
+        partitionFiles = new Path[PARTITIONS];
+        partitionOutputs = new DataOutputStream[PARTITIONS];
+        priorCounts = new long[PARTITIONS];
+        candidateCounts = new long[PARTITIONS];
+        try {
+            for (int i = 0; i < PARTITIONS; i++) {
+                partitionFiles[i] = spillDirectory != null
+                    ? Files.createTempFile(spillDirectory, "converter-distinct-", ".bin")
+                    : Files.createTempFile("converter-distinct-", ".bin");
+                partitionFiles[i].toFile().deleteOnExit();
+                partitionOutputs[i] = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(partitionFiles[i]), FINGERPRINT_BUFFER_SIZE));
+            }
+
+            IOException[] failure = new IOException[1];
+            seen.forEach(fingerprint -> {
+                int partition = partitionOf(fingerprint);
+                try {
+                    partitionOutputs[partition].writeLong(fingerprint);
+                    priorCounts[partition]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to create deduplication spill files", e);
+        }
+
+        seen = null;
+        deferred = SpillFile.create(spillDirectory);
+    }
+
+    private void defer(DataRecord record, long fingerprint) throws FileConversionException {
+        int partition = partitionOf(fingerprint);
+        try {
+            partitionOutputs[partition].writeLong(fingerprint);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write deduplication spill file", e);
+        }
+        candidateCounts[partition]++;
+        deferred.write(record);
+    }
+
+    /**
+     * Loads the fingerprints seen before spilling into a set and marks which deferred
+     * records of the partition are first occurrences.
+     */
+    private BitSet dedupePartition(int partition) throws IOException {
+        long total = priorCounts[partition] + candidateCounts[partition];
+        LongHashSet partitionSeen = new LongHashSet((int) Math.min(total, Integer.MAX_VALUE / 2));
+        BitSet keep = new BitSet();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(partitionFiles[partition]), FINGERPRINT_BUFFER_SIZE))) {
+            for (long i = 0; i < priorCounts[partition]; i++) {
+                partitionSeen.add(input.readLong());
+            }
+            for (int i = 0; i < candidateCounts[partition]; i++) {
+                if (partitionSeen.add(input.readLong())) {
+                    keep.set(i);
+                } else {
+                    duplicates++;
+                }
+            }
+        }
+        return keep;
+    }
+}
@@ -0,0 +1,261 @@
+package global.goit.java_final_n_kovalchuk.filter;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A node of a compiled filter expression.
+ *
+ * Conditions read field values straight from the value array of the parser
+ * (CSV cells, projected value slots), so a record is tested before it is built.
+ * A field is given by its position in the filter's field list, which the slot
+ * array translates into a position in the value array.
+ */
+interface Condition {
+
+    /**
+     * Tests the values of one record.
+     *
+     * @param values the values read by the parser
+     * @param slots  the position in {@code values} of every filter field, -1 for a field the input does not have
+     * @return true if the record matches
+     */
+    boolean test(Object[] values, int[] slots);
+
+    /**
+     * Gets the value of a filter field.
+     *
+     * @param values the values read by the parser
+     * @param slots  the position in {@code values} of every filter field
+     * @param field  the filter field
+     * @return the value, or null if the field is missing
+     */
+    static Object valueOf(Object[] values, int[] slots, int field) {
+        int slot = slots[field];
+        return slot < 0 || slot >= values.length ? null : values[slot];
+    }
+
+    /**
+     * Converts a value to a number for numeric comparisons.
+     *
+     * @param value a number, or text holding a number
+     * @return the number, or NaN if the value is not numeric
+     */
+    static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Both sides must match.
+     */
+    class And implements Condition {
+
+        private final Condition left;
+        private final Condition right;
+
+        And(Condition left, Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            return left.test(values, slots) && right.test(values, slots);
+        }
+    }
+
+    /**
+     * At least one side must match.
+     */
+    class Or implements Condition {
+
+        private final Condition left;
+        private final Condition right;
+
+        Or(Condition left, Condition right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            return left.test(values, slots) || right.test(values, slots);
+        }
+    }
+
+    /**
+     * The inner condition must not match.
+     */
+    class Not implements Condition {
+
+        private final Condition condition;
+
+        Not(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            return !condition.test(values, slots);
+        }
+    }
+
+    /**
+     * The field is missing or null.
+     */
+    class IsNull implements Condition {
+
+        private final int field;
+
+        IsNull(int field) {
+            this.field = field;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            return valueOf(values, slots, field) == null;
+        }
+    }
+
+    /**
+     * Compares a field with a literal. A null field never matches a comparison.
+     * Numeric literals compare numerically, so "10.0" in a CSV cell equals 10;
+     * text literals compare the text of the value; boolean literals also accept "true"/"false" text.
+     */
+    class Compare implements Condition {
+
+        /**
+         * The comparison operators.
+         */
+        enum Operator {
+            EQ, NE, LT, LE, GT, GE
+        }
+
+        private final int field;
+        private final Operator operator;
+        private final Object literal;
+        private final double number;
+
+        Compare(int field, Operator operator, Object literal) {
+            this.field = field;
+            this.operator = operator;
+            this.literal = literal;
+            this.number = literal instanceof Double ? (Double) literal : Double.NaN;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            Object value = valueOf(values, slots, field);
+            if (value == null) {
+                return false;
+            }
+
+            int comparison;
+            if (literal instanceof Double) {
+                double actual = toNumber(value);
+                if (Double.isNaN(actual)) {
+                    return false;
+                }
+                comparison = Double.compare(actual, number);
+            } else if (literal instanceof Boolean) {
+                boolean actual = value instanceof Boolean ? (Boolean) value : "true".equalsIgnoreCase(value.toString());
+                if (!(value instanceof Boolean) && !actual && !"false".equalsIgnoreCase(value.toString())) {
+                    return false;
+                }
+                comparison = Boolean.compare(actual, (Boolean) literal);
+            } else {
+                comparison = value.toString().compareTo((String) literal);
+            }
+
+            switch (operator) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+    }
+
+    /**
+     * The field equals one of the literals.
+     */
+    class In implements Condition {
+
+        private final Condition[] alternatives;
+
+        In(int field, List<Object> literals) {
+            this.alternatives = new Condition[literals.size()];
+            for (int i = 0; i < alternatives.length; i++) {
+                alternatives[i] = new Compare(field, Compare.Operator.EQ, literals.get(i));
+            }
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            for (Condition alternative : alternatives) {
+                if (alternative.test(values, slots)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The text of the field starts with a prefix.
+     */
+    class StartsWith implements Condition {
+
+        private final int field;
+        private final String prefix;
+
+        StartsWith(int field, String prefix) {
+            this.field = field;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            Object value = valueOf(values, slots, field);
+            return value != null && value.toString().startsWith(prefix);
+        }
+    }
+
+    /**
+     * The text of the field contains a match of a regular expression, compiled once.
+     */
+    class Matches implements Condition {
+
+        private final int field;
+        private final Pattern pattern;
+
+        Matches(int field, Pattern pattern) {
+            this.field = field;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean test(Object[] values, int[] slots) {
+            Object value = valueOf(values, slots, field);
+            return value != null && pattern.matcher(value.toString()).find();
+        }
+    }
+}
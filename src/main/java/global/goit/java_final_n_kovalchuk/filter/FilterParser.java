@@ -0,0 +1,326 @@
+package global.goit.java_final_n_kovalchuk.filter;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Recursive descent parser of the filter expression language.
+ *
+ * <pre>
+ * expression := and ("or" and)*
+ * and        := unary ("and" unary)*
+ * unary      := "not" unary | "(" expression ")" | condition
+ * condition  := field ( ("=" | "==" | "!=" | "&lt;&gt;" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=") literal
+ *                     | "is" ["not"] "null"
+ *                     | ["not"] "in" "(" literal ("," literal)* ")"
+ *                     | ["not"] "startswith" text
+ *                     | ["not"] "matches" text )
+ * literal    := number | text | "true" | "false" | "null"
+ * </pre>
+ *
+ * Keywords are case-insensitive. Fields are names or dotted paths, or any text in backquotes;
+ * text literals are in single or double quotes. Every distinct field gets one position in the field list.
+ */
+class FilterParser {
+
+    private final String expression;
+    private final List<String> fields;
+    private int position;
+
+    /**
+     * Constructs a parser for one expression.
+     *
+     * @param expression the expression text
+     * @param fields     the list that collects the referenced field paths
+     */
+    FilterParser(String expression, List<String> fields) {
+        this.expression = expression;
+        this.fields = fields;
+    }
+
+    /**
+     * Parses the whole expression.
+     *
+     * @return the root condition
+     * @throws InvalidInputException if the expression is not valid
+     */
+    Condition parse() throws InvalidInputException {
+        Condition condition = parseOr();
+        skipWhitespace();
+        if (position < expression.length()) {
+            throw error("unexpected '" + expression.charAt(position) + "'");
+        }
+        return condition;
+    }
+
+    private Condition parseOr() throws InvalidInputException {
+        Condition condition = parseAnd();
+        while (acceptKeyword("or")) {
+            condition = new Condition.Or(condition, parseAnd());
+        }
+        return condition;
+    }
+
+    private Condition parseAnd() throws InvalidInputException {
+        Condition condition = parseUnary();
+        while (acceptKeyword("and")) {
+            condition = new Condition.And(condition, parseUnary());
+        }
+        return condition;
+    }
+
+    private Condition parseUnary() throws InvalidInputException {
+        if (acceptKeyword("not")) {
+            return new Condition.Not(parseUnary());
+        }
+        if (accept("(")) {
+            Condition condition = parseOr();
+            expect(")");
+            return condition;
+        }
+        return parseCondition();
+    }
+
+    private Condition parseCondition() throws InvalidInputException {
+        int field = fieldIndex(parseField());
+
+        if (acceptKeyword("is")) {
+            boolean negated = acceptKeyword("not");
+            expectKeyword("null");
+            Condition condition = new Condition.IsNull(field);
+            return negated ? new Condition.Not(condition) : condition;
+        }
+
+        boolean negated = acceptKeyword("not");
+        Condition condition;
+        if (acceptKeyword("in")) {
+            condition = new Condition.In(field, parseLiteralList());
+        } else if (acceptKeyword("startswith")) {
+            condition = new Condition.StartsWith(field, parseText());
+        } else if (acceptKeyword("matches")) {
+            int start = position;
+            String regex = parseText();
+            try {
+                condition = new Condition.Matches(field, Pattern.compile(regex));
+            } catch (PatternSyntaxException e) {
+                position = start;
+                throw error("invalid regular expression: " + e.getDescription());
+            }
+        } else if (negated) {
+            throw error("expected 'in', 'startswith' or 'matches' after 'not'");
+        } else {
+            condition = parseComparison(field);
+        }
+        return negated ? new Condition.Not(condition) : condition;
+    }
+
+    private Condition parseComparison(int field) throws InvalidInputException {
+        Condition.Compare.Operator operator;
+        if (accept("==") || accept("=")) {
+            operator = Condition.Compare.Operator.EQ;
+        } else if (accept("!=") || accept("<>")) {
+            operator = Condition.Compare.Operator.NE;
+        } else if (accept("<=")) {
+            operator = Condition.Compare.Operator.LE;
+        } else if (accept(">=")) {
+            operator = Condition.Compare.Operator.GE;
+        } else if (accept("<")) {
+            operator = Condition.Compare.Operator.LT;
+        } else if (accept(">")) {
+            operator = Condition.Compare.Operator.GT;
+        } else {
+            throw error("expected a comparison operator, 'is', 'in', 'startswith' or 'matches'");
+        }
+
+        int start = position;
+        Object literal = parseLiteral();
+        if (literal == null) {
+            // "= null" and "!= null" read as "is null" and "is not null"
+            if (operator == Condition.Compare.Operator.EQ) {
+                return new Condition.IsNull(field);
+            }
+            if (operator == Condition.Compare.Operator.NE) {
+                return new Condition.Not(new Condition.IsNull(field));
+            }
+            position = start;
+            throw error("null can only be compared with '=' or '!='");
+        }
+        return new Condition.Compare(field, operator, literal);
+    }
+
+    private List<Object> parseLiteralList() throws InvalidInputException {
+        expect("(");
+        List<Object> literals = new ArrayList<>();
+        do {
+            int start = position;
+            Object literal = parseLiteral();
+            if (literal == null) {
+                position = start;
+                throw error("null is not allowed in 'in', use 'is null'");
+            }
+            literals.add(literal);
+        } while (accept(","));
+        expect(")");
+        return literals;
+    }
+
+    /**
+     * Parses a literal.
+     *
+     * @return a Double, a String, a Boolean, or null for the null literal
+     */
+    private Object parseLiteral() throws InvalidInputException {
+        skipWhitespace();
+        if (position < expression.length()) {
+            char c = expression.charAt(position);
+            if (c == '\'' || c == '"') {
+                return parseText();
+            }
+            if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+                return parseNumber();
+            }
+        }
+        if (acceptKeyword("true")) {
+            return Boolean.TRUE;
+        }
+        if (acceptKeyword("false")) {
+            return Boolean.FALSE;
+        }
+        if (acceptKeyword("null")) {
+            return null;
+        }
+        throw error("expected a number, a quoted text, true, false or null");
+    }
+
+    private Double parseNumber() throws InvalidInputException {
+        int start = position;
+        position++;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            boolean exponentSign = (c == '-' || c == '+')
+                && (expression.charAt(position - 1) == 'e' || expression.charAt(position - 1) == 'E');
+            if (!Character.isDigit(c) && c != '.' && c != 'e' && c != 'E' && !exponentSign) {
+                break;
+            }
+            position++;
+        }
+        try {
+            return Double.parseDouble(expression.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("invalid number");
+        }
+    }
+
+    private String parseText() throws InvalidInputException {
+        skipWhitespace();
+        if (position >= expression.length()
+                || (expression.charAt(position) != '\'' && expression.charAt(position) != '"')) {
+            throw error("expected a quoted text");
+        }
+        return parseQuoted(expression.charAt(position));
+    }
+
+    /**
+     * Parses text enclosed in a quote character; a doubled quote stands for the quote itself.
+     */
+    private String parseQuoted(char quote) throws InvalidInputException {
+        int start = position;
+        position++;
+        StringBuilder text = new StringBuilder();
+        while (position < expression.length()) {
+            char c = expression.charAt(position++);
+            if (c != quote) {
+                text.append(c);
+            } else if (position < expression.length() && expression.charAt(position) == quote) {
+                text.append(quote);
+                position++;
+            } else {
+                return text.toString();
+            }
+        }
+        position = start;
+        throw error("unterminated " + quote + " quote");
+    }
+
+    private String parseField() throws InvalidInputException {
+        skipWhitespace();
+        if (position < expression.length() && expression.charAt(position) == '`') {
+            return parseQuoted('`');
+        }
+
+        int start = position;
+        while (position < expression.length() && isFieldChar(expression.charAt(position))) {
+            position++;
+        }
+        String field = expression.substring(start, position);
+        if (field.isEmpty() || field.startsWith(".") || field.endsWith(".") || field.contains("..")) {
+            position = start;
+            throw error("expected a field name");
+        }
+        return field;
+    }
+
+    private int fieldIndex(String field) {
+        int index = fields.indexOf(field);
+        if (index < 0) {
+            fields.add(field);
+            index = fields.size() - 1;
+        }
+        return index;
+    }
+
+    private static boolean isFieldChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+    }
+
+    private boolean accept(String symbol) {
+        skipWhitespace();
+        if (expression.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) throws InvalidInputException {
+        if (!accept(symbol)) {
+            throw error("expected '" + symbol + "'");
+        }
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (end > expression.length()
+                || !expression.substring(position, end).toLowerCase(Locale.ROOT).equals(keyword)
+                || (end < expression.length() && isFieldChar(expression.charAt(end)))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    private void expectKeyword(String keyword) throws InvalidInputException {
+        if (!acceptKeyword(keyword)) {
+            throw error("expected '" + keyword + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private InvalidInputException error(String message) {
+        return new InvalidInputException(
+            "Invalid --where expression at position " + (position + 1) + ": " + message + " in '" + expression + "'"
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package global.goit.java_final_n_kovalchuk.filter;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * A --where expression compiled into a tree of conditions.
+ *
+ * Parsers bind the referenced fields to positions of their own value arrays once per input
+ * and test every record against its raw values (CSV cells, projected value slots) before
+ * building it, so records that do not match are never allocated. The filter counts the
+ * records it scanned and kept; it is safe to use from several parsing threads.
+ */
+public class RecordFilter {
+
+    private final String expression;
+    private final Condition condition;
+    private final List<String> fields;
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder emitted = new LongAdder();
+
+    private RecordFilter(String expression, Condition condition, List<String> fields) {
+        this.expression = expression;
+        this.condition = condition;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * Compiles a filter expression, for example {@code amount >= 100 and status in ('new', 'paid')}.
+     *
+     * @param expression the expression text
+     * @return the compiled filter
+     * @throws InvalidInputException if the expression is not valid
+     */
+    public static RecordFilter compile(String expression) throws InvalidInputException {
+        if (expression == null || expression.isBlank()) {
+            throw new InvalidInputException("The --where expression cannot be empty");
+        }
+
+        List<String> fields = new ArrayList<>();
+        Condition condition = new FilterParser(expression, fields).parse();
+        return new RecordFilter(expression, condition, fields);
+    }
+
+    /**
+     * Gets the expression the filter was compiled from.
+     *
+     * @return the expression text
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Gets the field paths the expression refers to, in order of first use.
+     *
+     * @return the field paths
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Maps every referenced field to its position in the value array of a parser.
+     *
+     * @param indexOf returns the position of a field path, or -1 if the input has no such field
+     * @return the position of every referenced field, in the order of {@link #getFields()}
+     */
+    public int[] bind(ToIntFunction<String> indexOf) {
+        int[] slots = new int[fields.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = indexOf.applyAsInt(fields.get(i));
+        }
+        return slots;
+    }
+
+    /**
+     * Tests one record and counts it.
+     *
+     * @param values the raw values of the record; null stands for a missing or empty value
+     * @param slots  the positions returned by {@link #bind(ToIntFunction)}
+     * @return true if the record matches and should be kept
+     */
+    public boolean test(Object[] values, int[] slots) {
+        scanned.increment();
+        if (condition.test(values, slots)) {
+            emitted.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of records tested so far.
+     *
+     * @return the scanned record count
+     */
+    public long getScanned() {
+        return scanned.sum();
+    }
+
+    /**
+     * Gets the number of records that matched so far.
+     *
+     * @return the emitted record count
+     */
+    public long getEmitted() {
+        return emitted.sum();
+    }
+}
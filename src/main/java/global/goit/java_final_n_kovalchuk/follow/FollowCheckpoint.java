@@ -0,0 +1,181 @@
+package global.goit.java_final_n_kovalchuk.follow;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Progress of an incremental conversion, persisted between runs.
+ *
+ * Records how far the input was consumed and what the output looked like afterwards,
+ * so the next run can tell whether it may continue or has to start over.
+ * The file is replaced atomically, so a crash leaves either the old or the new checkpoint.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+public class FollowCheckpoint {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private String conversion;
+    private String inputKey;
+    private long inputOffset;
+    private long records;
+    private String csvHeader;
+    private long outputBytes;
+
+    /**
+     * Constructs an empty checkpoint for a conversion that has not consumed any input yet.
+     */
+    public FollowCheckpoint() {
+    }
+
+    /**
+     * Loads a checkpoint file.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint, or null if the file does not exist or cannot be read
+     */
+    public static FollowCheckpoint load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try {
+            return OBJECT_MAPPER.readValue(file.toFile(), FollowCheckpoint.class);
+        } catch (IOException e) {
+            // A damaged checkpoint only means converting from the start again
+            return null;
+        }
+    }
+
+    /**
+     * Saves this checkpoint, replacing the previous one atomically.
+     *
+     * @param file the checkpoint file
+     * @throws FileConversionException if the checkpoint cannot be written
+     */
+    public void save(Path file) throws FileConversionException {
+        try (Sink sink = Sink.open(file, IoSettings.DEFAULT)) {
+            sink.write(OBJECT_MAPPER.writeValueAsBytes(this));
+            sink.commit();
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to save checkpoint: " + file.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Gets the description of the input and output formats the checkpoint was written for.
+     *
+     * @return the conversion, for example "CSV -> JSON"
+     */
+    public String getConversion() {
+        return conversion;
+    }
+
+    /**
+     * Sets the description of the input and output formats.
+     *
+     * @param conversion the conversion, for example "CSV -> JSON"
+     */
+    public void setConversion(String conversion) {
+        this.conversion = conversion;
+    }
+
+    /**
+     * Gets the file system key identifying the input file, used to notice a replaced (rotated) input.
+     *
+     * @return the input file key, or null if the file system has none
+     */
+    public String getInputKey() {
+        return inputKey;
+    }
+
+    /**
+     * Sets the file system key identifying the input file.
+     *
+     * @param inputKey the input file key, or null if the file system has none
+     */
+    public void setInputKey(String inputKey) {
+        this.inputKey = inputKey;
+    }
+
+    /**
+     * Gets the number of input bytes consumed so far; always the end of a complete line.
+     *
+     * @return the input byte offset to continue from
+     */
+    public long getInputOffset() {
+        return inputOffset;
+    }
+
+    /**
+     * Sets the number of input bytes consumed so far.
+     *
+     * @param inputOffset the input byte offset to continue from
+     */
+    public void setInputOffset(long inputOffset) {
+        this.inputOffset = inputOffset;
+    }
+
+    /**
+     * Gets the number of records written to the output so far.
+     *
+     * @return the record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Sets the number of records written to the output so far.
+     *
+     * @param records the record count
+     */
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    /**
+     * Gets the header line of a CSV input, which appended data no longer contains.
+     *
+     * @return the header line including its line break, or null for other inputs
+     */
+    public String getCsvHeader() {
+        return csvHeader;
+    }
+
+    /**
+     * Sets the header line of a CSV input.
+     *
+     * @param csvHeader the header line including its line break
+     */
+    public void setCsvHeader(String csvHeader) {
+        this.csvHeader = csvHeader;
+    }
+
+    /**
+     * Gets the size of the output after the last run, used to notice outputs changed by someone else.
+     *
+     * @return the output size in bytes
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * Sets the size of the output after the last run.
+     *
+     * @param outputBytes the output size in bytes
+     */
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+}
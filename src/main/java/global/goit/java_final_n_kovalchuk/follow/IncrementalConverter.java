@@ -0,0 +1,402 @@
+package global.goit.java_final_n_kovalchuk.follow;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Keeps the conversion of a growing, line-based input (CSV or JSON Lines) up to date.
+ *
+ * Each run parses only the complete lines appended since the previous run, as recorded
+ * in a {@link FollowCheckpoint}, and appends the records to the output through an
+ * {@link AppendableFileWriter}, which rewrites only the closing tail of the document.
+ * A trailing line without a line break is left for the next run, since its writer may
+ * not have finished it yet. The conversion starts over when the input was truncated
+ * or replaced, or when the output no longer matches the checkpoint.
+ */
+public class IncrementalConverter {
+
+    /**
+     * How an incremental conversion runs.
+     */
+    public enum Mode {
+        /** Convert the appended data once and exit. */
+        ONCE,
+        /** Keep converting whenever the input changes. */
+        WATCH
+    }
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final Path input;
+    private final Path output;
+    private final Path checkpointFile;
+    private final String conversion;
+    private final boolean csvInput;
+    private final FileParser<DataRecord> parser;
+    private final AppendableFileWriter<DataRecord> writer;
+    private final PrintStream log;
+
+    /**
+     * Constructs a new IncrementalConverter.
+     *
+     * @param input          the growing input file
+     * @param output         the output file
+     * @param checkpointFile the file keeping the progress between runs
+     * @param conversion     description of the formats and output settings, for example "CSV -> JSON";
+     *                       a checkpoint written for a different conversion is not continued
+     * @param csvInput       whether the input is CSV, whose header line has to be kept in the checkpoint
+     * @param parser         the parser of the input format
+     * @param writer         the writer of the output format
+     * @param log            the stream to print status messages to
+     */
+    public IncrementalConverter(Path input, Path output, Path checkpointFile, String conversion, boolean csvInput,
+                                FileParser<DataRecord> parser, AppendableFileWriter<DataRecord> writer,
+                                PrintStream log) {
+        this.input = input;
+        this.output = output;
+        this.checkpointFile = checkpointFile;
+        this.conversion = conversion;
+        this.csvInput = csvInput;
+        this.parser = parser;
+        this.writer = writer;
+        this.log = log;
+    }
+
+    /**
+     * Converts the data appended to the input since the last run.
+     *
+     * @return the number of records appended to the output
+     * @throws FileConversionException if the input cannot be read or the output cannot be written
+     */
+    public long convertAppended() throws FileConversionException {
+        FollowCheckpoint checkpoint = loadCheckpoint();
+        boolean fresh = checkpoint == null;
+        if (fresh) {
+            checkpoint = new FollowCheckpoint();
+            checkpoint.setConversion(conversion);
+            checkpoint.setInputKey(inputKey());
+        }
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long start = checkpoint.getInputOffset();
+            long size = in.size();
+            if (csvInput && checkpoint.getCsvHeader() == null) {
+                long headerEnd = findLineEnd(in, 0, size);
+                if (headerEnd < 0) {
+                    log.println("Waiting for the CSV header line of " + input.getFileName());
+                    return 0;
+                }
+                checkpoint.setCsvHeader(readString(in, 0, headerEnd));
+                start = headerEnd;
+            }
+
+            long end = findLastLineEnd(in, start, size);
+            if (!fresh && end == start) {
+                return 0;
+            }
+
+            long appended = convertRange(in, start, end, checkpoint, fresh);
+            checkpoint.setInputOffset(end);
+            checkpoint.setRecords(checkpoint.getRecords() + appended);
+            checkpoint.save(checkpointFile);
+
+            log.println("Converted " + appended + " new record(s) from " + input.getFileName()
+                + ", " + checkpoint.getRecords() + " in total");
+            return appended;
+        } catch (NoSuchFileException e) {
+            throw new FileConversionException("File does not exist: " + input.toAbsolutePath(), e);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to read input file: " + input.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Converts the appended data, then keeps converting whenever the input directory
+     * reports a change of the input, until the thread is interrupted.
+     *
+     * @throws FileConversionException if a conversion fails or the input directory cannot be watched
+     */
+    public void watch() throws FileConversionException {
+        Path directory = input.toAbsolutePath().getParent();
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            log.println("Following " + input.getFileName() + " (stop with Ctrl+C)");
+            convertIfPresent();
+
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // After an overflow the input may have changed without an event of its own
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || input.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    convertIfPresent();
+                }
+                if (!key.reset()) {
+                    throw new FileConversionException("Input directory is no longer accessible: " + directory);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to watch input directory: " + directory, e);
+        }
+    }
+
+    private void convertIfPresent() throws FileConversionException {
+        if (Files.exists(input)) {
+            convertAppended();
+        }
+    }
+
+    /**
+     * Parses the complete lines between two input offsets and writes their records.
+     *
+     * @param in         the input
+     * @param start      the offset of the first line to convert
+     * @param end        the offset after the last line to convert
+     * @param checkpoint the checkpoint of the previous run
+     * @param fresh      whether to write a new document instead of appending to the existing one
+     * @return the number of records written
+     */
+    private long convertRange(FileChannel in, long start, long end, FollowCheckpoint checkpoint, boolean fresh)
+            throws IOException, FileConversionException {
+        InputStream data = new BufferedInputStream(new RangeInputStream(in, start, end), STREAM_BUFFER_SIZE);
+        if (checkpoint.getCsvHeader() != null) {
+            byte[] header = checkpoint.getCsvHeader().getBytes(StandardCharsets.UTF_8);
+            data = new SequenceInputStream(new ByteArrayInputStream(header), data);
+        }
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (fresh) {
+            // A new file rather than a truncated one, in case the old output is a hard link
+            Files.deleteIfExists(output);
+        } else {
+            unlinkSharedOutput();
+        }
+
+        try (FileChannel out = FileChannel.open(output,
+                 StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordReader<DataRecord> reader = parser.open(data, input.toAbsolutePath().toString())) {
+
+            BufferedOutputStream freshOutput = null;
+            RecordWriter<DataRecord> recordWriter;
+            if (fresh) {
+                freshOutput = new BufferedOutputStream(Channels.newOutputStream(out), STREAM_BUFFER_SIZE);
+                recordWriter = writer.open(freshOutput);
+            } else {
+                recordWriter = writer.openAppend(out, checkpoint.getRecords());
+            }
+
+            long count = 0;
+            DataRecord record;
+            while ((record = reader.read()) != null) {
+                recordWriter.write(record);
+                count++;
+            }
+            recordWriter.close();
+            if (freshOutput != null) {
+                freshOutput.flush();
+            }
+
+            checkpoint.setOutputBytes(out.size());
+            return count;
+        }
+    }
+
+    /**
+     * Replaces the output by a copy of its own if other hard links share it, for example a
+     * cached copy of the output, so that appending in place does not change them as well.
+     */
+    private void unlinkSharedOutput() throws IOException {
+        Object links;
+        try {
+            links = Files.getAttribute(output, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // No hard link information on this platform
+            return;
+        }
+        if (!(links instanceof Integer) || (Integer) links <= 1) {
+            return;
+        }
+
+        Path copy = output.resolveSibling("." + output.getFileName() + ".unlink.tmp");
+        try {
+            Files.copy(output, copy, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(copy, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(copy, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Loads the checkpoint and checks that the conversion can continue from it.
+     *
+     * @return the checkpoint, or null if the conversion has to start from the beginning
+     */
+    private FollowCheckpoint loadCheckpoint() throws FileConversionException {
+        FollowCheckpoint checkpoint = FollowCheckpoint.load(checkpointFile);
+        if (checkpoint == null) {
+            return null;
+        }
+
+        String restartReason = null;
+        try {
+            if (!conversion.equals(checkpoint.getConversion())) {
+                restartReason = "the checkpoint was written for " + checkpoint.getConversion();
+            } else if (!Files.exists(output) || Files.size(output) != checkpoint.getOutputBytes()) {
+                restartReason = "the output was changed since the last run";
+            } else if (Files.size(input) < checkpoint.getInputOffset()) {
+                restartReason = "the input was truncated";
+            } else if (checkpoint.getInputKey() != null && !checkpoint.getInputKey().equals(inputKey())) {
+                restartReason = "the input file was replaced";
+            }
+        } catch (NoSuchFileException e) {
+            throw new FileConversionException("File does not exist: " + input.toAbsolutePath(), e);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to read input file: " + input.toAbsolutePath(), e);
+        }
+
+        if (restartReason != null) {
+            log.println("Converting " + input.getFileName() + " from the start: " + restartReason);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    private String inputKey() throws FileConversionException {
+        try {
+            Object key = Files.readAttributes(input, BasicFileAttributes.class).fileKey();
+            return key == null ? null : key.toString();
+        } catch (IOException e) {
+            throw new FileConversionException("File does not exist: " + input.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Finds the end of the first line at or after an offset.
+     *
+     * @return the offset just after the first line break, or -1 if there is none
+     */
+    private static long findLineEnd(FileChannel in, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        for (long position = from; position < size; position += buffer.limit()) {
+            buffer.clear();
+            if (in.read(buffer, position) <= 0) {
+                break;
+            }
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the end of the last complete line between two offsets, scanning backwards from the end.
+     *
+     * @return the offset just after the last line break, or {@code from} if there is none
+     */
+    private static long findLastLineEnd(FileChannel in, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long chunkEnd = size;
+        while (chunkEnd > from) {
+            long chunkStart = Math.max(from, chunkEnd - SCAN_BUFFER_SIZE);
+            buffer.clear().limit((int) (chunkEnd - chunkStart));
+            while (buffer.hasRemaining() && in.read(buffer, chunkStart + buffer.position()) > 0) {
+                // Positional reads may return fewer bytes than requested
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return chunkStart + i + 1;
+                }
+            }
+            chunkEnd = chunkStart;
+        }
+        return from;
+    }
+
+    private static String readString(FileChannel in, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+        while (buffer.hasRemaining() && in.read(buffer, from + buffer.position()) > 0) {
+            // Positional reads may return fewer bytes than requested
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Input stream over a byte range of a file channel, read with positional reads.
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+
+            int count = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, count), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
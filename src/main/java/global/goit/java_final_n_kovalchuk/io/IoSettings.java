@@ -0,0 +1,109 @@
+package global.goit.java_final_n_kovalchuk.io;
+
+/**
+ * Buffer size, durability and page cache settings shared by every {@link Source} and
+ * {@link Sink} of a conversion, so that file I/O is tuned in one place.
+ */
+public final class IoSettings {
+
+    /**
+     * Buffer size of sources and sinks when no other size is given.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Smallest buffer size; smaller sizes are raised to it.
+     */
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    /**
+     * Settings with the default buffer size and no fsync.
+     */
+    public static final IoSettings DEFAULT = new IoSettings(DEFAULT_BUFFER_SIZE, FsyncPolicy.NONE, false);
+
+    /**
+     * How far a committed output is forced to the storage device.
+     */
+    public enum FsyncPolicy {
+        /** Leave writing back to the operating system. */
+        NONE,
+        /** Force the file contents to the device before the file is renamed into place. */
+        FILE,
+        /** Also force the directory after the rename, so that the new name survives a crash. */
+        FULL
+    }
+
+    private final int bufferSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final boolean directIo;
+
+    /**
+     * Constructs a new IoSettings that writes outputs through the page cache.
+     *
+     * @param bufferSize  the buffer size of every source and sink in bytes
+     * @param fsyncPolicy how far committed outputs are forced to the device
+     */
+    public IoSettings(int bufferSize, FsyncPolicy fsyncPolicy) {
+        this(bufferSize, fsyncPolicy, false);
+    }
+
+    /**
+     * Constructs a new IoSettings.
+     *
+     * @param bufferSize  the buffer size of every source and sink in bytes
+     * @param fsyncPolicy how far committed outputs are forced to the device
+     * @param directIo    true to write output files around the page cache where the file system allows it
+     */
+    public IoSettings(int bufferSize, FsyncPolicy fsyncPolicy, boolean directIo) {
+        this.bufferSize = Math.max(MIN_BUFFER_SIZE, bufferSize);
+        this.fsyncPolicy = fsyncPolicy;
+        this.directIo = directIo;
+    }
+
+    /**
+     * Gets the buffer size of every source and sink.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets how far committed outputs are forced to the device.
+     *
+     * @return the fsync policy
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Checks whether output files are written around the page cache.
+     *
+     * @return true for direct I/O
+     */
+    public boolean isDirectIo() {
+        return directIo;
+    }
+
+    /**
+     * Returns settings that differ only in the buffer size, for example for many files open at once.
+     *
+     * @param bufferSize the buffer size in bytes
+     * @return the new settings
+     */
+    public IoSettings withBufferSize(int bufferSize) {
+        return new IoSettings(bufferSize, fsyncPolicy, directIo);
+    }
+
+    /**
+     * Returns settings that differ only in whether outputs are written around the page cache.
+     *
+     * @param directIo true for direct I/O
+     * @return the new settings
+     */
+    public IoSettings withDirectIo(boolean directIo) {
+        return new IoSettings(bufferSize, fsyncPolicy, directIo);
+    }
+}
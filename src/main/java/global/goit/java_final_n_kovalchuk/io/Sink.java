@@ -0,0 +1,383 @@
+package global.goit.java_final_n_kovalchuk.io;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Buffered output stream over a file channel that publishes the file only once it is complete.
+ *
+ * The bytes are written to a hidden temporary file next to the target and collected in a
+ * direct buffer of the configured size, so the operating system is called once per block.
+ * {@link #commit()} writes the rest, forces the file to the device as the fsync policy asks,
+ * and renames it over the target in one atomic step, so readers of the target see either
+ * the previous file or the complete new one. Closing a sink that was not committed deletes
+ * the temporary file and leaves the target as it was. Since the target is replaced rather
+ * than overwritten, files sharing its contents through hard links keep them.
+ *
+ * With direct I/O the temporary file is opened with {@link ExtendedOpenOption#DIRECT}, so
+ * its bytes go to the device without passing through the page cache and large outputs do
+ * not evict the cached data of other processes. Such writes must cover whole blocks of the
+ * file system from a buffer aligned to the block size: the buffer is aligned and only its
+ * whole blocks are written, and the last partial block is written padded with zeros and
+ * cut off again by truncating the file. Anything written after that, such as an append
+ * through {@link #channel()}, goes through the page cache. File systems that refuse direct
+ * I/O get a sink that writes through the page cache, see {@link #isDirect()}. A direct sink
+ * buffers at least {@value #MIN_DIRECT_BUFFER_SIZE} bytes, as small direct writes are slow.
+ *
+ * A sink on standard output has no temporary file: its bytes are written straight through
+ * and committing only writes the rest of the buffer.
+ */
+public final class Sink extends OutputStream {
+
+    /**
+     * Smallest buffer of a direct sink; each direct write waits for the device, so smaller
+     * writes lose throughput.
+     */
+    static final int MIN_DIRECT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final OpenOption[] CREATE_OPTIONS = {
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE};
+    private static final OpenOption[] CREATE_DIRECT_OPTIONS = {
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT};
+
+    private final Path target;
+    private final Path temp;
+    private final IoSettings settings;
+    private final int blockSize;
+    // Allocated on the first write and released by suspend, so that idle sinks hold no buffer
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private boolean direct;
+    private long drained;
+    private boolean committed;
+    private boolean closed;
+
+    private Sink(Path target, Path temp, FileChannel channel, IoSettings settings, int blockSize) {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+        this.settings = settings;
+        this.blockSize = blockSize;
+        this.direct = blockSize > 0;
+    }
+
+    /**
+     * Creates the temporary file of a new output. The directory of the target must exist.
+     *
+     * @param target   the file that {@link #commit()} creates or replaces
+     * @param settings the settings with the buffer size, the fsync policy and whether to use direct I/O
+     * @return the sink, writing to an empty temporary file
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static Sink open(Path target, IoSettings settings) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        int blockSize = settings.isDirectIo() ? directBlockSize(absolute.getParent()) : 0;
+        while (true) {
+            Path temp = absolute.resolveSibling("." + absolute.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                if (blockSize > 0) {
+                    FileChannel channel = openDirect(temp);
+                    if (channel != null) {
+                        return new Sink(target, temp, channel, settings, blockSize);
+                    }
+                }
+                return new Sink(target, temp, FileChannel.open(temp, CREATE_OPTIONS), settings, 0);
+            } catch (FileAlreadyExistsException e) {
+                // Another sink picked the same name; try the next one
+            }
+        }
+    }
+
+    /**
+     * Opens standard output for writing, straight to its file descriptor rather than through
+     * System.out. Closing the sink leaves the descriptor open. Standard output never uses direct I/O.
+     *
+     * @param settings the settings with the buffer size
+     * @return the sink
+     */
+    public static Sink standardOutput(IoSettings settings) {
+        return new Sink(null, null, new FileOutputStream(FileDescriptor.out).getChannel(), settings, 0);
+    }
+
+    /**
+     * Gets the file that the sink creates or replaces.
+     *
+     * @return the target, or null for standard output
+     */
+    public Path getTarget() {
+        return target;
+    }
+
+    /**
+     * Checks whether the sink writes around the page cache. False if direct I/O was not
+     * requested or the file system does not support it.
+     *
+     * @return true while the file is written with direct I/O
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Gets the number of bytes written so far, including those still buffered.
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        ByteBuffer buffered = buffer;
+        return drained + (buffered != null ? buffered.position() : 0);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (buffer == null) {
+            buffer = allocateBuffer();
+        } else if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (buffer == null && len > 0) {
+            buffer = allocateBuffer();
+        }
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the file; with direct I/O only the whole blocks among them.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Writes the buffered bytes and gets the channel of the temporary file, positioned at its
+     * end, for writers that continue a file in place. The channel is reopened if the sink was
+     * suspended, and writes through the page cache.
+     *
+     * @return the channel, owned by the sink
+     * @throws IOException if the file cannot be written or reopened
+     */
+    public FileChannel channel() throws IOException {
+        drainAll();
+        if (channel == null) {
+            channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        channel.position(channel.size());
+        return channel;
+    }
+
+    /**
+     * Writes the buffered bytes and closes the temporary file without committing or deleting
+     * it, so that a writer with many open outputs can release file handles and buffers. The
+     * next write reopens the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void suspend() throws IOException {
+        drainAll();
+        buffer = null;
+        if (channel != null && temp != null) {
+            FileChannel suspended = channel;
+            channel = null;
+            suspended.close();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes, forces the file to the device as the fsync policy asks, and
+     * renames it over the target. Closing the sink afterwards only releases it.
+     *
+     * @throws IOException if the file cannot be written, forced or renamed
+     */
+    public void commit() throws IOException {
+        drainAll();
+        buffer = null;
+        if (temp == null) {
+            committed = true;
+            return;
+        }
+
+        if (settings.getFsyncPolicy() != IoSettings.FsyncPolicy.NONE) {
+            channel().force(true);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        if (settings.getFsyncPolicy() == IoSettings.FsyncPolicy.FULL) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Releases the sink. A file sink that was not committed is discarded together with
+     * everything written to it; standard output gets the buffered bytes and stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (temp == null) {
+            if (!committed) {
+                drain();
+            }
+            return;
+        }
+        if (!committed) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private ByteBuffer allocateBuffer() {
+        if (!direct) {
+            return ByteBuffer.allocateDirect(settings.getBufferSize());
+        }
+        // Direct writes must start at an address aligned to the block size
+        int size = Math.max(MIN_DIRECT_BUFFER_SIZE, settings.getBufferSize()) / blockSize * blockSize;
+        return ByteBuffer.allocateDirect(size + blockSize - 1).alignedSlice(blockSize);
+    }
+
+    /**
+     * Writes the buffered bytes; with direct I/O only whole blocks, keeping the last partial
+     * block in the buffer.
+     */
+    private void drain() throws IOException {
+        if (buffer == null || buffer.position() == 0) {
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+
+        int partial = direct ? buffer.position() % blockSize : 0;
+        buffer.flip();
+        buffer.limit(buffer.limit() - partial);
+        while (buffer.hasRemaining()) {
+            drained += channel.write(buffer);
+        }
+        buffer.limit(buffer.position() + partial);
+        buffer.compact();
+    }
+
+    /**
+     * Writes all buffered bytes. With direct I/O the last partial block is written padded
+     * to a whole block, the padding is truncated, and the file is reopened for writing
+     * through the page cache, as its end is no longer aligned.
+     */
+    private void drainAll() throws IOException {
+        drain();
+        if (!direct) {
+            return;
+        }
+
+        direct = false;
+        int partial = buffer != null ? buffer.position() : 0;
+        if (partial > 0) {
+            while (buffer.position() % blockSize != 0) {
+                buffer.put((byte) 0);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            drained += partial;
+            channel.truncate(drained);
+        }
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Opens a new temporary file for direct I/O.
+     *
+     * @return the channel, or null if the platform or the file system does not support direct I/O
+     * @throws FileAlreadyExistsException if the file exists already
+     */
+    private static FileChannel openDirect(Path temp) throws FileAlreadyExistsException {
+        try {
+            return FileChannel.open(temp, CREATE_DIRECT_OPTIONS);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            // Some file systems create the file before they refuse the flag
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // creating the buffered file then fails and another name is picked
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gets the block size that direct writes to a directory must be aligned to.
+     *
+     * @return the block size, or 0 if it is unknown or larger than the buffer
+     */
+    private static int directBlockSize(Path directory) {
+        try {
+            long blockSize = Files.getFileStore(directory).getBlockSize();
+            boolean usable = blockSize > 0 && Long.bitCount(blockSize) == 1 && blockSize <= MIN_DIRECT_BUFFER_SIZE;
+            return usable ? (int) blockSize : 0;
+        } catch (IOException | UnsupportedOperationException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Forces a directory entry to the device. Not every platform can open a directory, and
+     * the rename has happened either way, so failures are ignored.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // the file itself is already forced
+        }
+    }
+}
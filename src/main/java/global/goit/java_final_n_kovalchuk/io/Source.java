@@ -0,0 +1,119 @@
+package global.goit.java_final_n_kovalchuk.io;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Buffered input stream over a file channel, the way every parser reads its input.
+ *
+ * The channel is read into a direct buffer of the configured size, so each read call of the
+ * operating system moves a large block without an intermediate copy, and the parser takes
+ * its bytes from there. The number of bytes read from the channel is counted and can be
+ * read from another thread, for example by a progress reporter.
+ */
+public final class Source extends InputStream {
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final ByteBuffer buffer;
+    private volatile long bytesRead;
+
+    private Source(FileChannel channel, boolean ownsChannel, int bufferSize) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip();
+    }
+
+    /**
+     * Opens a file for reading.
+     *
+     * @param path     the file
+     * @param settings the settings with the buffer size
+     * @return the source, positioned at the start of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static Source open(Path path, IoSettings settings) throws IOException {
+        return new Source(FileChannel.open(path, StandardOpenOption.READ), true, settings.getBufferSize());
+    }
+
+    /**
+     * Opens standard input for reading, straight from its file descriptor rather than through
+     * System.in. Closing the source leaves the descriptor open. Pipes can be read this way;
+     * only positioning the channel would fail on them.
+     *
+     * @param settings the settings with the buffer size
+     * @return the source
+     */
+    public static Source standardInput(IoSettings settings) {
+        return new Source(new FileInputStream(FileDescriptor.in).getChannel(), false, settings.getBufferSize());
+    }
+
+    /**
+     * Gets the number of bytes read from the file so far, including those still buffered.
+     * Safe to call from another thread.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buffer.hasRemaining() && fill() < 0) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining() && fill() < 0) {
+            return -1;
+        }
+
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Closes the file; standard input stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    private int fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read > 0) {
+            bytesRead += read;
+        }
+        return read;
+    }
+}
@@ -0,0 +1,99 @@
+package global.goit.java_final_n_kovalchuk.merge;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Expands the glob patterns among the input paths, such as "exports/*.csv" or "data/**.json".
+ * Patterns the shell did not expand, usually because they were quoted, match files
+ * below the directory part that precedes the first wildcard; the matches of one pattern
+ * are sorted by path, so the input order is the same on every run.
+ */
+public final class InputPaths {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private InputPaths() {
+        // Utility class
+    }
+
+    /**
+     * Checks whether a path is a glob pattern.
+     *
+     * @param path the input path
+     * @return true if the path contains a wildcard
+     */
+    public static boolean isPattern(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(path.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every glob pattern by the regular files it matches; other paths are kept as they are.
+     *
+     * @param paths the input paths and patterns, in input order
+     * @return the input paths, in input order
+     * @throws InvalidInputException   if a pattern matches no file
+     * @throws FileConversionException if a directory cannot be listed
+     */
+    public static List<String> expand(List<String> paths) throws FileConversionException {
+        List<String> expanded = new ArrayList<>();
+        for (String path : paths) {
+            if (isPattern(path)) {
+                List<String> matches = match(path);
+                if (matches.isEmpty()) {
+                    throw new InvalidInputException("No input files match the pattern: " + path);
+                }
+                expanded.addAll(matches);
+            } else {
+                expanded.add(path);
+            }
+        }
+        return expanded;
+    }
+
+    private static List<String> match(String pattern) throws FileConversionException {
+        // The directory part before the first wildcard is walked; the rest of the pattern is matched
+        String normalized = pattern.replace('\\', '/');
+        int wildcard = 0;
+        while (GLOB_CHARACTERS.indexOf(normalized.charAt(wildcard)) < 0) {
+            wildcard++;
+        }
+        int separator = normalized.lastIndexOf('/', wildcard);
+        Path base = separator < 0 ? Path.of("") : Path.of(normalized.substring(0, separator + 1));
+        String rest = normalized.substring(separator + 1);
+        int depth = rest.contains("**") ? Integer.MAX_VALUE : rest.split("/").length;
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + rest);
+        Path root = base.toString().isEmpty() ? Path.of(".") : base;
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.walk(root, depth)) {
+            List<String> matches = new ArrayList<>();
+            files.filter(Files::isRegularFile)
+                .filter(file -> matcher.matches(root.relativize(file)))
+                .map(file -> base.resolve(root.relativize(file)).toString())
+                .sorted()
+                .forEach(matches::add);
+            return matches;
+        } catch (IOException | UncheckedIOException e) {
+            throw new FileConversionException("Cannot list the input files matching " + pattern, e);
+        }
+    }
+}
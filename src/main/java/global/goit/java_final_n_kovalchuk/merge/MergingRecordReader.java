@@ -0,0 +1,259 @@
+package global.goit.java_final_n_kovalchuk.merge;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Source;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reads the records of several input files, each with its own parser, as one stream.
+ *
+ * The inputs are parsed concurrently on a fixed pool of threads, in the order they were given.
+ * Every parsing thread hands its records over in batches through a bounded queue, so at most
+ * {@code threads} inputs are open at a time and each of them is at most
+ * {@code prefetchBatches} batches ahead of the reader; memory does not grow with the
+ * number or the size of the inputs.
+ *
+ * In input order, the records of one input are returned before those of the next, exactly
+ * as if the inputs were concatenated; the following inputs are parsed meanwhile and wait
+ * once their queue is full. In arrival order, all inputs share one queue and batches are
+ * returned as soon as any input produced them, so a slow input never holds up the others.
+ *
+ * A failure to parse an input is reported by {@link #read()} with the name of the input,
+ * after the records that preceded it.
+ */
+public class MergingRecordReader implements RecordReader<DataRecord> {
+
+    /**
+     * Number of batches each parsing thread may be ahead of the reader when no other limit is given.
+     */
+    public static final int DEFAULT_PREFETCH_BATCHES = 4;
+
+    private static final int BATCH_RECORDS = 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final List<Input> inputs;
+    private final boolean unordered;
+    private final List<BlockingQueue<Batch>> queues;
+    private final IoSettings io;
+    private final AtomicReferenceArray<Source> sources;
+    private final ExecutorService executor;
+
+    private volatile boolean closed;
+    private int current;
+    private int finished;
+    private List<DataRecord> batch = List.of();
+    private int position;
+
+    /**
+     * Constructs a new MergingRecordReader and starts parsing the first inputs.
+     *
+     * @param inputs          the input files and their parsers, in input order
+     * @param unordered       true to return batches in arrival order rather than input order
+     * @param threads         the number of inputs parsed at a time
+     * @param prefetchBatches the number of batches of {@value #BATCH_RECORDS} records each input may be ahead
+     */
+    public MergingRecordReader(List<Input> inputs, boolean unordered, int threads, int prefetchBatches) {
+        this(inputs, unordered, threads, prefetchBatches, IoSettings.DEFAULT);
+    }
+
+    /**
+     * Constructs a new MergingRecordReader that reads its inputs with the given buffer size
+     * and starts parsing the first inputs.
+     *
+     * @param inputs          the input files and their parsers, in input order
+     * @param unordered       true to return batches in arrival order rather than input order
+     * @param threads         the number of inputs parsed at a time
+     * @param prefetchBatches the number of batches of {@value #BATCH_RECORDS} records each input may be ahead
+     * @param io              the settings of the input sources
+     */
+    public MergingRecordReader(List<Input> inputs, boolean unordered, int threads, int prefetchBatches,
+                               IoSettings io) {
+        this.inputs = inputs;
+        this.unordered = unordered;
+        this.io = io;
+        this.sources = new AtomicReferenceArray<>(inputs.size());
+        int parallelism = Math.max(1, Math.min(threads, inputs.size()));
+        int capacity = Math.max(1, prefetchBatches);
+
+        this.queues = new ArrayList<>();
+        if (unordered) {
+            queues.add(new ArrayBlockingQueue<>(capacity * parallelism));
+        } else {
+            for (int i = 0; i < inputs.size(); i++) {
+                queues.add(new ArrayBlockingQueue<>(capacity));
+            }
+        }
+
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "merge-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Tasks start in submission order, so the input being read is always among the running ones
+        for (int i = 0; i < inputs.size(); i++) {
+            int index = i;
+            executor.execute(() -> parse(index));
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public DataRecord read() throws FileConversionException {
+        while (position == batch.size()) {
+            if (current == inputs.size()) {
+                return null;
+            }
+
+            Batch next = take(unordered ? queues.get(0) : queues.get(current));
+            if (next.failure != null) {
+                throw next.failure;
+            }
+            if (next.records == null) {
+                // One input has ended
+                if (unordered) {
+                    finished++;
+                    current = finished;
+                } else {
+                    current++;
+                }
+                continue;
+            }
+            batch = next.records;
+            position = 0;
+        }
+        return batch.get(position++);
+    }
+
+    /**
+     * Stops parsing and closes every input that is still open.
+     */
+    @Override
+    public void close() throws FileConversionException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of bytes read from all inputs so far.
+     * Safe to call from another thread, for example a progress reporter.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        long bytes = 0;
+        for (int i = 0; i < sources.length(); i++) {
+            Source source = sources.get(i);
+            if (source != null) {
+                bytes += source.getBytesRead();
+            }
+        }
+        return bytes;
+    }
+
+    private Batch take(BlockingQueue<Batch> queue) throws FileConversionException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileConversionException("Interrupted while reading the inputs", e);
+        }
+    }
+
+    /**
+     * Parses one input on a pool thread and hands its records over in batches.
+     */
+    private void parse(int index) {
+        Input input = inputs.get(index);
+        BlockingQueue<Batch> queue = unordered ? queues.get(0) : queues.get(index);
+        try {
+            try (Source source = Source.open(input.path, io);
+                 RecordReader<DataRecord> reader = input.parser.open(source, input.path.toAbsolutePath().toString())) {
+                sources.set(index, source);
+                List<DataRecord> records = new ArrayList<>(BATCH_RECORDS);
+                for (DataRecord record = reader.read(); record != null && !closed; record = reader.read()) {
+                    records.add(record);
+                    if (records.size() == BATCH_RECORDS) {
+                        queue.put(new Batch(records, null));
+                        records = new ArrayList<>(BATCH_RECORDS);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    queue.put(new Batch(records, null));
+                }
+            }
+            queue.put(new Batch(null, null));
+        } catch (InterruptedException e) {
+            // The reader was closed; nobody waits for the rest of this input
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                fail(queue, input, e);
+            }
+        }
+    }
+
+    private void fail(BlockingQueue<Batch> queue, Input input, Exception cause) {
+        String message = "Failed to read input " + input.path + ": " + cause.getMessage();
+        try {
+            queue.put(new Batch(null, new FileConversionException(message, cause)));
+        } catch (InterruptedException e) {
+            // The reader was closed before it reached the failure
+        }
+    }
+
+    /**
+     * One input of the merge: a file and the parser of its format.
+     */
+    public static final class Input {
+
+        private final Path path;
+        private final FileParser<DataRecord> parser;
+
+        /**
+         * Constructs a new Input.
+         *
+         * @param path   the input file
+         * @param parser the parser of the file's format
+         */
+        public Input(Path path, FileParser<DataRecord> parser) {
+            this.path = path;
+            this.parser = parser;
+        }
+    }
+
+    /**
+     * Records handed over from a parsing thread; without records it marks the end of an input,
+     * with a failure the end of an input that could not be parsed.
+     */
+    private static final class Batch {
+
+        private final List<DataRecord> records;
+        private final FileConversionException failure;
+
+        Batch(List<DataRecord> records, FileConversionException failure) {
+            this.records = records;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects timing and resource usage of a single conversion run.
+ *
+ * Wall time is measured for every interval of every stage. Thread CPU time and
+ * allocated bytes need a call into the JVM, so for stages that run once per record
+ * they are measured on every {@value #SAMPLE_INTERVAL}th interval and scaled up to
+ * the full interval count. Totals for the whole run are always measured exactly.
+ *
+ * Stage intervals must not overlap and must be recorded from the converting thread.
+ * Thread measurements only see that thread, so stages that worker threads take part in,
+ * such as parsing on a pipeline or parser pool, report their CPU time and allocated
+ * bytes as not available rather than the share of the converting thread.
+ */
+public class ConversionMetrics {
+
+    /**
+     * Stages of a conversion run.
+     */
+    public enum Stage {
+        DETECTION,
+        PARSING,
+        TRANSFORMATION,
+        WRITING
+    }
+
+    private static final int SAMPLE_INTERVAL = 64;
+
+    private final boolean enabled;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final Map<Stage, StageMetrics> stages = new EnumMap<>(Stage.class);
+
+    private long stageStartNanos;
+    private long stageStartCpu;
+    private long stageStartAllocated;
+    private boolean stageSampled;
+
+    private long runStartNanos;
+    private long runStartCpu;
+    private long runStartAllocated;
+    private long runStartGcMillis;
+    private long runStartGcCount;
+
+    private String input;
+    private String output;
+    private long wallNanos;
+    private long cpuNanos = -1;
+    private long allocatedBytes = -1;
+    private long gcPauseMillis;
+    private long gcCount;
+    private long records;
+    private long bytesIn;
+    private long bytesOut;
+    private long spillFiles;
+    private long spilledRecords;
+    private long spilledBytes;
+    private long scannedRecords = -1;
+    private final List<QueueStatistics> queues = new ArrayList<>();
+
+    /**
+     * Constructs a new ConversionMetrics.
+     *
+     * @param enabled whether to collect anything; a disabled instance makes every call a no-op
+     */
+    public ConversionMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.threadBean = enabled ? resolveThreadBean() : null;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageMetrics());
+        }
+    }
+
+    /**
+     * Checks whether this instance collects metrics.
+     *
+     * @return true if metrics are collected, false if every call is a no-op
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the names of the input and output shown in reports.
+     *
+     * @param input  the input path, or "-" for standard input
+     * @param output the output path, or "-" for standard output
+     */
+    public void setEndpoints(String input, String output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Gets the input name shown in reports.
+     *
+     * @return the input path
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Gets the output name shown in reports.
+     *
+     * @return the output path
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Marks the start of the whole run and captures the GC counters.
+     */
+    public void startRun() {
+        if (!enabled) {
+            return;
+        }
+
+        runStartGcMillis = totalGcMillis();
+        runStartGcCount = totalGcCount();
+        runStartCpu = currentCpu();
+        runStartAllocated = currentAllocated();
+        runStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the whole run.
+     *
+     * @param records  the number of records converted
+     * @param bytesIn  the number of bytes read from the input
+     * @param bytesOut the number of bytes written to the output
+     */
+    public void finishRun(long records, long bytesIn, long bytesOut) {
+        if (!enabled) {
+            return;
+        }
+
+        wallNanos = System.nanoTime() - runStartNanos;
+        cpuNanos = runStartCpu < 0 ? -1 : currentCpu() - runStartCpu;
+        allocatedBytes = runStartAllocated < 0 ? -1 : currentAllocated() - runStartAllocated;
+        gcPauseMillis = totalGcMillis() - runStartGcMillis;
+        gcCount = totalGcCount() - runStartGcCount;
+        this.records = records;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+    }
+
+    /**
+     * Records how much buffered data the run had to spill to disk.
+     *
+     * @param files   the number of spill files written
+     * @param records the number of records spilled
+     * @param bytes   the number of bytes written to spill files
+     */
+    public void recordSpills(long files, long records, long bytes) {
+        this.spillFiles = files;
+        this.spilledRecords = records;
+        this.spilledBytes = bytes;
+    }
+
+    /**
+     * Records how many input records a filter tested; the rest of them were dropped.
+     *
+     * @param scanned the number of records read from the input before filtering
+     */
+    public void recordFiltering(long scanned) {
+        this.scannedRecords = scanned;
+    }
+
+    /**
+     * Records the statistics of a queue between two pipeline threads of the run.
+     *
+     * @param queue the queue statistics, taken once both threads are done
+     */
+    public void recordQueue(QueueStatistics queue) {
+        queues.add(queue);
+    }
+
+    /**
+     * Records that worker threads do part of the work of a stage, so that its CPU time and
+     * allocated bytes are reported as not available.
+     *
+     * @param stage the stage run partly off the converting thread
+     */
+    public void recordWorkerThreads(Stage stage) {
+        stages.get(stage).workerThreads = true;
+    }
+
+    /**
+     * Marks the start of an interval spent in the given stage.
+     *
+     * @param stage the stage being entered
+     */
+    public void begin(Stage stage) {
+        if (!enabled) {
+            return;
+        }
+
+        StageMetrics metrics = stages.get(stage);
+        stageSampled = metrics.intervals % SAMPLE_INTERVAL == 0;
+        if (stageSampled) {
+            stageStartCpu = currentCpu();
+            stageStartAllocated = currentAllocated();
+        }
+        stageStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the interval started by the last {@link #begin(Stage)} call.
+     *
+     * @param stage the stage being left
+     */
+    public void end(Stage stage) {
+        if (!enabled) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - stageStartNanos;
+        StageMetrics metrics = stages.get(stage);
+        metrics.wallNanos += elapsed;
+        metrics.intervals++;
+
+        if (stageSampled) {
+            metrics.sampledIntervals++;
+            if (stageStartCpu >= 0) {
+                metrics.sampledCpuNanos += currentCpu() - stageStartCpu;
+            }
+            if (stageStartAllocated >= 0) {
+                metrics.sampledAllocatedBytes += currentAllocated() - stageStartAllocated;
+            }
+        }
+    }
+
+    /**
+     * Gets the wall time spent in a stage.
+     *
+     * @param stage the stage
+     * @return the wall time in nanoseconds
+     */
+    public long getStageWallNanos(Stage stage) {
+        return stages.get(stage).wallNanos;
+    }
+
+    /**
+     * Gets the number of intervals recorded for a stage.
+     *
+     * @param stage the stage
+     * @return the number of intervals
+     */
+    public long getStageIntervals(Stage stage) {
+        return stages.get(stage).intervals;
+    }
+
+    /**
+     * Gets the thread CPU time spent in a stage, extrapolated from the sampled intervals.
+     *
+     * @param stage the stage
+     * @return the estimated CPU time in nanoseconds, or -1 if CPU time is not available
+     *         or worker threads took part in the stage
+     */
+    public long getStageCpuNanos(Stage stage) {
+        StageMetrics metrics = stages.get(stage);
+        return runStartCpu < 0 || metrics.workerThreads ? -1 : metrics.extrapolate(metrics.sampledCpuNanos);
+    }
+
+    /**
+     * Gets the bytes allocated in a stage, extrapolated from the sampled intervals.
+     *
+     * @param stage the stage
+     * @return the estimated allocated bytes, or -1 if allocation tracking is not available
+     *         or worker threads took part in the stage
+     */
+    public long getStageAllocatedBytes(Stage stage) {
+        StageMetrics metrics = stages.get(stage);
+        return runStartAllocated < 0 || metrics.workerThreads
+            ? -1
+            : metrics.extrapolate(metrics.sampledAllocatedBytes);
+    }
+
+    /**
+     * Gets the wall time of the whole run.
+     *
+     * @return the wall time in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Gets the CPU time of the converting thread over the whole run.
+     *
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Gets the bytes allocated by the converting thread over the whole run.
+     *
+     * @return the allocated bytes, or -1 if not available
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the accumulated garbage collection time during the run.
+     *
+     * @return the GC time in milliseconds, as reported by the collector MXBeans
+     */
+    public long getGcPauseMillis() {
+        return gcPauseMillis;
+    }
+
+    /**
+     * Gets the number of garbage collections during the run.
+     *
+     * @return the number of collections
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Gets the number of records converted.
+     *
+     * @return the record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the number of bytes read from the input.
+     *
+     * @return the input byte count
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * Gets the number of bytes written to the output.
+     *
+     * @return the output byte count
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Gets the number of spill files written.
+     *
+     * @return the spill file count
+     */
+    public long getSpillFiles() {
+        return spillFiles;
+    }
+
+    /**
+     * Gets the number of records spilled to disk.
+     *
+     * @return the spilled record count
+     */
+    public long getSpilledRecords() {
+        return spilledRecords;
+    }
+
+    /**
+     * Gets the number of bytes written to spill files.
+     *
+     * @return the spilled byte count
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Gets the number of records read from the input, including records dropped by a filter.
+     *
+     * @return the scanned record count, equal to the converted record count without a filter
+     */
+    public long getScannedRecords() {
+        return scannedRecords >= 0 ? scannedRecords : records;
+    }
+
+    /**
+     * Gets the statistics of the pipeline queues of the run.
+     *
+     * @return the queue statistics in the order they were recorded, empty if the run was not pipelined
+     */
+    public List<QueueStatistics> getQueues() {
+        return Collections.unmodifiableList(queues);
+    }
+
+    /**
+     * Computes a per-second rate over the wall time of the run.
+     *
+     * @param amount the amount measured over the run (records or bytes)
+     * @return the amount per second, or 0 if no time was measured
+     */
+    public double perSecond(long amount) {
+        return wallNanos > 0 ? amount * 1_000_000_000.0 / wallNanos : 0.0;
+    }
+
+    private long currentCpu() {
+        return threadBean != null && threadBean.isCurrentThreadCpuTimeSupported()
+            ? threadBean.getCurrentThreadCpuTime()
+            : -1;
+    }
+
+    private long currentAllocated() {
+        return threadBean != null && threadBean.isThreadAllocatedMemoryEnabled()
+            ? threadBean.getCurrentThreadAllocatedBytes()
+            : -1;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean resolveThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    /**
+     * Accumulated measurements of one stage.
+     */
+    private static class StageMetrics {
+
+        private long wallNanos;
+        private long intervals;
+        private long sampledIntervals;
+        private long sampledCpuNanos;
+        private long sampledAllocatedBytes;
+        private boolean workerThreads;
+
+        private long extrapolate(long sampledValue) {
+            if (sampledIntervals == 0) {
+                return 0;
+            }
+            return sampledIntervals == intervals
+                ? sampledValue
+                : Math.round((double) sampledValue * intervals / sampledIntervals);
+        }
+    }
+}
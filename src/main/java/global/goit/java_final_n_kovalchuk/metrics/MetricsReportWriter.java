@@ -0,0 +1,250 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes collected conversion metrics as a JSON report or as an OpenMetrics text file.
+ * The OpenMetrics file is written to a temporary sibling and renamed into place,
+ * so a node-exporter textfile collector never reads a half-written file.
+ */
+public class MetricsReportWriter {
+
+    private static final String METRIC_PREFIX = "file_converter_";
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new MetricsReportWriter with pretty-printed JSON output.
+     */
+    public MetricsReportWriter() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Writes the metrics as a JSON report.
+     *
+     * @param metrics the collected metrics
+     * @param file    the report file
+     * @throws FileConversionException if the report cannot be written
+     */
+    public void writeJson(ConversionMetrics metrics, File file) throws FileConversionException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("input", metrics.getInput());
+        report.put("output", metrics.getOutput());
+        report.put("records", metrics.getRecords());
+        report.put("scannedRecords", metrics.getScannedRecords());
+        report.put("wallTimeNanos", metrics.getWallNanos());
+        report.put("cpuTimeNanos", metrics.getCpuNanos());
+        report.put("allocatedBytes", metrics.getAllocatedBytes());
+        report.put("recordsPerSecond", metrics.perSecond(metrics.getRecords()));
+        report.put("bytesIn", metrics.getBytesIn());
+        report.put("bytesOut", metrics.getBytesOut());
+        report.put("bytesInPerSecond", metrics.perSecond(metrics.getBytesIn()));
+        report.put("bytesOutPerSecond", metrics.perSecond(metrics.getBytesOut()));
+        report.put("gcPauseMillis", metrics.getGcPauseMillis());
+        report.put("gcCount", metrics.getGcCount());
+        report.put("spillFiles", metrics.getSpillFiles());
+        report.put("spilledRecords", metrics.getSpilledRecords());
+        report.put("spilledBytes", metrics.getSpilledBytes());
+
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (ConversionMetrics.Stage stage : ConversionMetrics.Stage.values()) {
+            Map<String, Object> stageReport = new LinkedHashMap<>();
+            stageReport.put("intervals", metrics.getStageIntervals(stage));
+            stageReport.put("wallTimeNanos", metrics.getStageWallNanos(stage));
+            stageReport.put("cpuTimeNanos", metrics.getStageCpuNanos(stage));
+            stageReport.put("allocatedBytes", metrics.getStageAllocatedBytes(stage));
+            stages.put(stageName(stage), stageReport);
+        }
+        report.put("stages", stages);
+
+        if (!metrics.getQueues().isEmpty()) {
+            Map<String, Object> queues = new LinkedHashMap<>();
+            for (QueueStatistics queue : metrics.getQueues()) {
+                Map<String, Object> queueReport = new LinkedHashMap<>();
+                queueReport.put("capacity", queue.getCapacity());
+                queueReport.put("batches", queue.getPuts());
+                queueReport.put("averageDepth", queue.getAverageDepth());
+                queueReport.put("maxDepth", queue.getMaxDepth());
+                queueReport.put("producerWaits", queue.getFullWaits());
+                queueReport.put("consumerWaits", queue.getEmptyWaits());
+                queues.put(queue.getName(), queueReport);
+            }
+            report.put("queues", queues);
+        }
+
+        try {
+            ensureParentDirectory(file);
+            // Serialized first, as the mapper would close the sink before it is committed
+            writeAtomically(file.toPath(), objectMapper.writeValueAsBytes(report));
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write metrics report: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Writes the metrics in the OpenMetrics text format.
+     * All values describe the last run, so every metric is exposed as a gauge.
+     *
+     * @param metrics the collected metrics
+     * @param file    the metrics file, usually with a .prom extension
+     * @throws FileConversionException if the file cannot be written
+     */
+    public void writeOpenMetrics(ConversionMetrics metrics, File file) throws FileConversionException {
+        StringBuilder text = new StringBuilder();
+
+        gauge(text, "records", null, "Records converted in the last run", metrics.getRecords());
+        gauge(text, "scanned_records", null, "Records read before filtering in the last run",
+            metrics.getScannedRecords());
+        gauge(text, "wall_seconds", "seconds", "Wall time of the last run", metrics.getWallNanos() / NANOS_PER_SECOND);
+        if (metrics.getCpuNanos() >= 0) {
+            gauge(text, "cpu_seconds", "seconds", "Converting thread CPU time of the last run",
+                metrics.getCpuNanos() / NANOS_PER_SECOND);
+        }
+        if (metrics.getAllocatedBytes() >= 0) {
+            gauge(text, "allocated_bytes", "bytes", "Bytes allocated by the converting thread in the last run",
+                metrics.getAllocatedBytes());
+        }
+        gauge(text, "records_per_second", null, "Record throughput of the last run",
+            metrics.perSecond(metrics.getRecords()));
+        gauge(text, "input_bytes", "bytes", "Bytes read in the last run", metrics.getBytesIn());
+        gauge(text, "output_bytes", "bytes", "Bytes written in the last run", metrics.getBytesOut());
+        gauge(text, "input_bytes_per_second", null, "Input throughput of the last run",
+            metrics.perSecond(metrics.getBytesIn()));
+        gauge(text, "output_bytes_per_second", null, "Output throughput of the last run",
+            metrics.perSecond(metrics.getBytesOut()));
+        gauge(text, "gc_pause_seconds", "seconds", "Garbage collection time during the last run",
+            metrics.getGcPauseMillis() / 1000.0);
+        gauge(text, "gc_collections", null, "Garbage collections during the last run", metrics.getGcCount());
+        gauge(text, "spill_files", null, "Spill files written in the last run", metrics.getSpillFiles());
+        gauge(text, "spilled_records", null, "Records spilled to disk in the last run", metrics.getSpilledRecords());
+        gauge(text, "spilled_bytes", "bytes", "Bytes spilled to disk in the last run", metrics.getSpilledBytes());
+
+        stageGauges(text, "stage_wall_seconds", "seconds", "Wall time per conversion stage", metrics, Measure.WALL);
+        if (metrics.getCpuNanos() >= 0) {
+            stageGauges(text, "stage_cpu_seconds", "seconds", "Estimated CPU time per conversion stage", metrics,
+                Measure.CPU);
+        }
+        if (metrics.getAllocatedBytes() >= 0) {
+            stageGauges(text, "stage_allocated_bytes", "bytes", "Estimated allocated bytes per conversion stage",
+                metrics, Measure.ALLOCATED);
+        }
+        if (!metrics.getQueues().isEmpty()) {
+            queueGauges(text, "queue_capacity", "Capacity in batches per pipeline queue", metrics,
+                QueueStatistics::getCapacity);
+            queueGauges(text, "queue_average_depth", "Average depth in batches per pipeline queue", metrics,
+                QueueStatistics::getAverageDepth);
+            queueGauges(text, "queue_max_depth", "Largest depth in batches per pipeline queue", metrics,
+                QueueStatistics::getMaxDepth);
+            queueGauges(text, "queue_producer_waits", "Times the producer waited on a full pipeline queue", metrics,
+                QueueStatistics::getFullWaits);
+            queueGauges(text, "queue_consumer_waits", "Times the consumer waited on an empty pipeline queue",
+                metrics, QueueStatistics::getEmptyWaits);
+        }
+        gauge(text, "last_run_timestamp_seconds", "seconds", "Time the last run finished",
+            System.currentTimeMillis() / 1000.0);
+        text.append("# EOF\n");
+
+        try {
+            ensureParentDirectory(file);
+            writeAtomically(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write OpenMetrics file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Values that can be reported per stage.
+     */
+    private enum Measure {
+        WALL,
+        CPU,
+        ALLOCATED
+    }
+
+    private void stageGauges(StringBuilder text, String name, String unit, String help,
+                             ConversionMetrics metrics, Measure measure) {
+        header(text, name, unit, help);
+        for (ConversionMetrics.Stage stage : ConversionMetrics.Stage.values()) {
+            double value = switch (measure) {
+                case WALL -> metrics.getStageWallNanos(stage) / NANOS_PER_SECOND;
+                case CPU -> metrics.getStageCpuNanos(stage) / NANOS_PER_SECOND;
+                case ALLOCATED -> metrics.getStageAllocatedBytes(stage);
+            };
+            if (value < 0) {
+                // Not measured for stages that worker threads took part in
+                continue;
+            }
+            text.append(METRIC_PREFIX).append(name)
+                .append("{stage=\"").append(stageName(stage)).append("\"} ")
+                .append(formatValue(value)).append('\n');
+        }
+    }
+
+    private void queueGauges(StringBuilder text, String name, String help, ConversionMetrics metrics,
+                             ToDoubleFunction<QueueStatistics> value) {
+        header(text, name, null, help);
+        for (QueueStatistics queue : metrics.getQueues()) {
+            text.append(METRIC_PREFIX).append(name)
+                .append("{queue=\"").append(queue.getName()).append("\"} ")
+                .append(formatValue(value.applyAsDouble(queue))).append('\n');
+        }
+    }
+
+    private void gauge(StringBuilder text, String name, String unit, String help, double value) {
+        header(text, name, unit, help);
+        text.append(METRIC_PREFIX).append(name).append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private void header(StringBuilder text, String name, String unit, String help) {
+        text.append("# TYPE ").append(METRIC_PREFIX).append(name).append(" gauge\n");
+        if (unit != null) {
+            text.append("# UNIT ").append(METRIC_PREFIX).append(name).append(' ').append(unit).append('\n');
+        }
+        text.append("# HELP ").append(METRIC_PREFIX).append(name).append(' ').append(help).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static String stageName(ConversionMetrics.Stage stage) {
+        return stage.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Replaces a report file in one step, so that a scraper never reads half a report.
+     */
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        try (Sink sink = Sink.open(target, IoSettings.DEFAULT)) {
+            sink.write(content);
+            sink.commit();
+        }
+    }
+
+    private static void ensureParentDirectory(File file) throws IOException {
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            Files.createDirectories(parentDir.toPath());
+        }
+    }
+}
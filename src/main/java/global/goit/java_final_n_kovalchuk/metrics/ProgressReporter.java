@@ -0,0 +1,166 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically prints the progress of a running conversion.
+ *
+ * Progress is sampled from a background thread: bytes come from the byte count
+ * of the input source, or of the merging reader for several inputs, records from
+ * a counter the converting thread updates with a plain ordered store. Nothing is called back per record, so a running reporter
+ * costs the conversion nothing measurable.
+ */
+public class ProgressReporter implements AutoCloseable {
+
+    /**
+     * Output style of the progress lines.
+     */
+    public enum Mode {
+        /** Human-readable lines. */
+        TEXT,
+        /** One JSON object per line. */
+        JSON
+    }
+
+    /**
+     * Default time between two progress lines.
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final Mode mode;
+    private final LongSupplier bytesRead;
+    private final long totalBytes;
+    private final PrintStream out;
+    private final long intervalMillis;
+    private final AtomicLong records = new AtomicLong();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ScheduledExecutorService scheduler;
+    private long startNanos;
+
+    /**
+     * Constructs a new ProgressReporter.
+     *
+     * @param mode           the output style
+     * @param bytesRead      supplies the number of input bytes read so far; called from the reporter thread
+     * @param totalBytes     the input size in bytes, or -1 if unknown (for example standard input)
+     * @param out            the stream to print progress lines to
+     * @param intervalMillis the time between two progress lines
+     */
+    public ProgressReporter(Mode mode, LongSupplier bytesRead, long totalBytes, PrintStream out, long intervalMillis) {
+        this.mode = mode;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.out = out;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts printing progress lines on a daemon thread.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversion-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> report(false), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes the number of records converted so far.
+     * Uses an ordered store without a full fence, so it is cheap enough to call for every record.
+     *
+     * @param count the number of records converted so far
+     */
+    public void setRecords(long count) {
+        records.lazySet(count);
+    }
+
+    /**
+     * Stops the reporter thread and prints a final progress line.
+     */
+    @Override
+    public void close() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        report(true);
+    }
+
+    /**
+     * Prints one progress line with the current counters.
+     *
+     * @param done whether the conversion has finished
+     */
+    void report(boolean done) {
+        long bytes = bytesRead.getAsLong();
+        long recordCount = records.get();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        double bytesPerSecond = elapsedSeconds > 0 ? bytes / elapsedSeconds : 0.0;
+        double recordsPerSecond = elapsedSeconds > 0 ? recordCount / elapsedSeconds : 0.0;
+        double percent = totalBytes > 0 ? Math.min(100.0, 100.0 * bytes / totalBytes) : -1;
+        long etaSeconds = totalBytes > 0 && bytesPerSecond > 0
+            ? Math.round(Math.max(0, totalBytes - bytes) / bytesPerSecond)
+            : -1;
+
+        if (mode == Mode.JSON) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("bytesRead", bytes);
+            line.put("totalBytes", totalBytes);
+            line.put("percent", percent);
+            line.put("records", recordCount);
+            line.put("recordsPerSecond", recordsPerSecond);
+            line.put("bytesPerSecond", bytesPerSecond);
+            line.put("elapsedSeconds", elapsedSeconds);
+            line.put("etaSeconds", done ? 0 : etaSeconds);
+            line.put("done", done);
+            try {
+                out.println(objectMapper.writeValueAsString(line));
+            } catch (JsonProcessingException e) {
+                // A map of numbers always serializes; nothing sensible to report otherwise
+            }
+            return;
+        }
+
+        StringBuilder text = new StringBuilder("Progress: ");
+        if (percent >= 0) {
+            text.append(String.format(Locale.ROOT, "%5.1f%% ", percent));
+        }
+        text.append(String.format(Locale.ROOT, "%.1f MB", bytes / BYTES_PER_MB));
+        if (totalBytes >= 0) {
+            text.append(String.format(Locale.ROOT, " / %.1f MB", totalBytes / BYTES_PER_MB));
+        }
+        text.append(String.format(Locale.ROOT, ", %d records, %.0f records/s", recordCount, recordsPerSecond));
+        if (done) {
+            text.append(", done");
+        } else if (etaSeconds >= 0) {
+            text.append(String.format(Locale.ROOT, ", ETA %02d:%02d:%02d",
+                etaSeconds / 3600, etaSeconds / 60 % 60, etaSeconds % 60));
+        }
+        out.println(text);
+    }
+}
@@ -0,0 +1,116 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import java.util.Locale;
+
+/**
+ * Depth and wait statistics of one queue between two pipeline threads.
+ * A queue that is mostly full means the consuming stage is the bottleneck,
+ * a queue that is mostly empty means the producing stage is.
+ */
+public class QueueStatistics {
+
+    private final String name;
+    private final int capacity;
+    private final long puts;
+    private final double averageDepth;
+    private final int maxDepth;
+    private final long fullWaits;
+    private final long emptyWaits;
+
+    /**
+     * Constructs a new QueueStatistics.
+     *
+     * @param name         the name of the queue in reports
+     * @param capacity     the maximum number of elements
+     * @param puts         the number of elements added
+     * @param averageDepth the average number of queued elements right after an element was added
+     * @param maxDepth     the largest number of queued elements
+     * @param fullWaits    the number of times the producer waited for a free slot
+     * @param emptyWaits   the number of times the consumer waited for an element
+     */
+    public QueueStatistics(String name, int capacity, long puts, double averageDepth, int maxDepth,
+                           long fullWaits, long emptyWaits) {
+        this.name = name;
+        this.capacity = capacity;
+        this.puts = puts;
+        this.averageDepth = averageDepth;
+        this.maxDepth = maxDepth;
+        this.fullWaits = fullWaits;
+        this.emptyWaits = emptyWaits;
+    }
+
+    /**
+     * Gets the name of the queue in reports.
+     *
+     * @return the queue name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the maximum number of elements.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of elements added.
+     *
+     * @return the put count
+     */
+    public long getPuts() {
+        return puts;
+    }
+
+    /**
+     * Gets the average number of queued elements right after an element was added.
+     *
+     * @return the average depth
+     */
+    public double getAverageDepth() {
+        return averageDepth;
+    }
+
+    /**
+     * Gets the largest number of queued elements.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the number of times the producer waited because the queue was full.
+     *
+     * @return the producer wait count
+     */
+    public long getFullWaits() {
+        return fullWaits;
+    }
+
+    /**
+     * Gets the number of times the consumer waited because the queue was empty.
+     *
+     * @return the consumer wait count
+     */
+    public long getEmptyWaits() {
+        return emptyWaits;
+    }
+
+    /**
+     * Describes the statistics in one line for status messages.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "%s queue: %d batch(es), average depth %.1f of %d, max %d, producer waited %d time(s), consumer waited %d time(s)",
+            name, puts, averageDepth, capacity, maxDepth, fullWaits, emptyWaits);
+    }
+}
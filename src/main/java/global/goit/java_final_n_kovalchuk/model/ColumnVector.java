@@ -0,0 +1,529 @@
+package global.goit.java_final_n_kovalchuk.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single column of a {@link RecordBatch}.
+ *
+ * Values are stored unboxed in a primitive array of the column type; strings are
+ * dictionary-encoded. Two bitmaps track cells whose value is null and cells whose
+ * record did not contain the field at all, so a batch gives back exactly the records
+ * it was built from.
+ */
+public abstract class ColumnVector {
+
+    /**
+     * Storage type of a column.
+     */
+    public enum Type {
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        STRING,
+        OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final BitSet nulls = new BitSet();
+    private final BitSet missing = new BitSet();
+    private int size;
+
+    /**
+     * Gets the storage type of this column.
+     *
+     * @return the column type
+     */
+    public abstract Type getType();
+
+    /**
+     * Gets the number of cells in this column.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a cell has no value, either because it is null or because the field was absent.
+     *
+     * @param row the row index
+     * @return true if the cell holds no value
+     */
+    public boolean isNull(int row) {
+        return nulls.get(row) || missing.get(row);
+    }
+
+    /**
+     * Checks whether the record of a row contained this field, possibly with a null value.
+     *
+     * @param row the row index
+     * @return true if the field was present in the record
+     */
+    public boolean isPresent(int row) {
+        return !missing.get(row);
+    }
+
+    /**
+     * Gets an int cell of an {@link Type#INT} column.
+     *
+     * @param row the row index
+     * @return the value, or 0 for an empty cell
+     */
+    public int getInt(int row) {
+        throw new UnsupportedOperationException("Column of type " + getType() + " has no int values");
+    }
+
+    /**
+     * Gets a long cell of an {@link Type#INT} or {@link Type#LONG} column.
+     *
+     * @param row the row index
+     * @return the value, or 0 for an empty cell
+     */
+    public long getLong(int row) {
+        throw new UnsupportedOperationException("Column of type " + getType() + " has no long values");
+    }
+
+    /**
+     * Gets a double cell of a numeric column.
+     *
+     * @param row the row index
+     * @return the value, or 0 for an empty cell
+     */
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException("Column of type " + getType() + " has no double values");
+    }
+
+    /**
+     * Gets a boolean cell of a {@link Type#BOOLEAN} column.
+     *
+     * @param row the row index
+     * @return the value, or false for an empty cell
+     */
+    public boolean getBoolean(int row) {
+        throw new UnsupportedOperationException("Column of type " + getType() + " has no boolean values");
+    }
+
+    /**
+     * Gets a cell as the object it was added as.
+     * Boxes primitive values, so scans over large batches should prefer the typed getters.
+     *
+     * @param row the row index
+     * @return the value, or null for an empty cell
+     */
+    public Object getValue(int row) {
+        return isNull(row) ? null : getPresentValue(row);
+    }
+
+    /**
+     * Estimates the heap size of the column data.
+     *
+     * @return the approximate number of bytes used
+     */
+    public long estimatedBytes() {
+        return (nulls.size() + missing.size()) / Byte.SIZE + estimatedDataBytes();
+    }
+
+    /**
+     * Appends a value to the column.
+     *
+     * @param value the value, or null
+     * @return false if the value does not fit the column type and nothing was appended
+     */
+    boolean append(Object value) {
+        if (value == null) {
+            nulls.set(size);
+            appendEmpty();
+        } else if (accepts(value)) {
+            appendValue(value);
+        } else {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Appends a cell for a record that does not contain this field.
+     */
+    void appendMissing() {
+        missing.set(size);
+        appendEmpty();
+        size++;
+    }
+
+    /**
+     * Checks whether every cell of this column is empty, so it can be retyped freely.
+     *
+     * @return true if no cell holds a value
+     */
+    boolean isAllNull() {
+        return nulls.cardinality() + missing.cardinality() == size;
+    }
+
+    /**
+     * Creates an empty column whose type fits the given value.
+     *
+     * @param value the first value of the column, or null if unknown
+     * @return a new empty column
+     */
+    static ColumnVector forValue(Object value) {
+        if (value instanceof Integer) {
+            return new IntVector();
+        } else if (value instanceof Long) {
+            return new LongVector();
+        } else if (value instanceof Double) {
+            return new DoubleVector();
+        } else if (value instanceof Boolean) {
+            return new BooleanVector();
+        } else if (value == null || value instanceof String) {
+            return new StringVector();
+        }
+        return new ObjectVector();
+    }
+
+    /**
+     * Copies a column into a new column that can also hold the given value.
+     * A column without values is retyped for the value; any other column falls back to objects.
+     *
+     * @param column the column to copy
+     * @param value  the value that did not fit the column
+     * @return the new column with all cells of the old one
+     */
+    static ColumnVector promote(ColumnVector column, Object value) {
+        ColumnVector promoted = column.isAllNull() ? forValue(value) : new ObjectVector();
+        for (int row = 0; row < column.size; row++) {
+            if (column.isPresent(row)) {
+                promoted.append(column.getValue(row));
+            } else {
+                promoted.appendMissing();
+            }
+        }
+        return promoted;
+    }
+
+    abstract boolean accepts(Object value);
+
+    abstract void appendValue(Object value);
+
+    abstract void appendEmpty();
+
+    abstract Object getPresentValue(int row);
+
+    abstract long estimatedDataBytes();
+
+    /**
+     * Returns the capacity to grow a full value array to.
+     */
+    static int grownCapacity(int capacity) {
+        return Math.max(INITIAL_CAPACITY, capacity * 2);
+    }
+
+    /**
+     * Column of int values.
+     */
+    static class IntVector extends ColumnVector {
+
+        private int[] values = new int[0];
+
+        @Override
+        public Type getType() {
+            return Type.INT;
+        }
+
+        @Override
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            appendEmpty();
+            values[size()] = (Integer) value;
+        }
+
+        @Override
+        void appendEmpty() {
+            if (size() == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length));
+            }
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            return (long) values.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * Column of long values.
+     */
+    static class LongVector extends ColumnVector {
+
+        private long[] values = new long[0];
+
+        @Override
+        public Type getType() {
+            return Type.LONG;
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            appendEmpty();
+            values[size()] = (Long) value;
+        }
+
+        @Override
+        void appendEmpty() {
+            if (size() == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length));
+            }
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            return (long) values.length * Long.BYTES;
+        }
+    }
+
+    /**
+     * Column of double values.
+     */
+    static class DoubleVector extends ColumnVector {
+
+        private double[] values = new double[0];
+
+        @Override
+        public Type getType() {
+            return Type.DOUBLE;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            appendEmpty();
+            values[size()] = (Double) value;
+        }
+
+        @Override
+        void appendEmpty() {
+            if (size() == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length));
+            }
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            return (long) values.length * Double.BYTES;
+        }
+    }
+
+    /**
+     * Column of boolean values stored as a bitset.
+     */
+    static class BooleanVector extends ColumnVector {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        public Type getType() {
+            return Type.BOOLEAN;
+        }
+
+        @Override
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            values.set(size(), (Boolean) value);
+        }
+
+        @Override
+        void appendEmpty() {
+            // Unset bits already read as false
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            return values.size() / Byte.SIZE;
+        }
+    }
+
+    /**
+     * Column of strings; each distinct string is stored once and rows hold its dictionary code.
+     */
+    static class StringVector extends ColumnVector {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private long dictionaryChars;
+        private int[] values = new int[0];
+
+        @Override
+        public Type getType() {
+            return Type.STRING;
+        }
+
+        /**
+         * Gets the number of distinct strings in this column.
+         *
+         * @return the dictionary size
+         */
+        public int getDictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            String text = (String) value;
+            Integer code = codes.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(text, code);
+                dictionary.add(text);
+                dictionaryChars += text.length();
+            }
+
+            appendEmpty();
+            values[size()] = code;
+        }
+
+        @Override
+        void appendEmpty() {
+            if (size() == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length));
+            }
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return dictionary.get(values[row]);
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            // Rough per-entry cost of the string object and its hash map node
+            return (long) values.length * Integer.BYTES + dictionaryChars + dictionary.size() * 80L;
+        }
+    }
+
+    /**
+     * Column of arbitrary objects, used for nested values and columns with mixed types.
+     */
+    static class ObjectVector extends ColumnVector {
+
+        private Object[] values = new Object[0];
+
+        @Override
+        public Type getType() {
+            return Type.OBJECT;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void appendValue(Object value) {
+            appendEmpty();
+            values[size()] = value;
+        }
+
+        @Override
+        void appendEmpty() {
+            if (size() == values.length) {
+                values = Arrays.copyOf(values, grownCapacity(values.length));
+            }
+        }
+
+        @Override
+        Object getPresentValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long estimatedDataBytes() {
+            // References only; the referenced objects are not measured
+            return (long) values.length * 8;
+        }
+    }
+}
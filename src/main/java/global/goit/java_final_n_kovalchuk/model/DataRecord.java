@@ -1,6 +1,8 @@
 package global.goit.java_final_n_kovalchuk.model;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -20,6 +22,16 @@ public class DataRecord {
         this.fields = new HashMap<>();
     }
 
+    /**
+     * Constructs a new empty DataRecord sized for the given number of fields.
+     * Parsers that know the width of a record use it so the map is never resized while filling it.
+     *
+     * @param expectedFields the number of fields the record will hold
+     */
+    public DataRecord(int expectedFields) {
+        this.fields = new HashMap<>(capacityFor(expectedFields));
+    }
+
     /**
      * Constructs a new DataRecord with the specified fields map.
      *
@@ -29,13 +41,49 @@ public class DataRecord {
         this.fields = new HashMap<>(fields);
     }
 
+    /**
+     * Creates an empty DataRecord that keeps its fields in the order they are added,
+     * for example the order of the columns selected with a projection.
+     *
+     * @param expectedFields the number of fields the record will hold
+     * @return a new ordered record
+     */
+    public static DataRecord ordered(int expectedFields) {
+        return new DataRecord(new LinkedHashMap<String, Object>(capacityFor(expectedFields)));
+    }
+
+    private DataRecord(LinkedHashMap<String, Object> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the initial hash map capacity that holds the given number of entries without resizing.
+     *
+     * @param entries the number of entries
+     * @return the capacity for the default load factor of 0.75
+     */
+    private static int capacityFor(int entries) {
+        return (int) Math.ceil(entries / 0.75);
+    }
+
     /**
      * Gets the fields map for this record.
+     * The copy iterates in the same order as the record itself.
      *
      * @return the fields map
      */
     public Map<String, Object> getFields() {
-        return new HashMap<>(fields);
+        return fields instanceof LinkedHashMap ? new LinkedHashMap<>(fields) : new HashMap<>(fields);
+    }
+
+    /**
+     * Gets a read-only view of the fields without copying them.
+     * Used by batch adapters that visit every field of many records.
+     *
+     * @return an unmodifiable view of the fields map
+     */
+    Map<String, Object> fieldView() {
+        return Collections.unmodifiableMap(fields);
     }
 
     /**
@@ -0,0 +1,133 @@
+package global.goit.java_final_n_kovalchuk.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented buffer of records.
+ *
+ * Each field becomes a {@link ColumnVector} that keeps its values unboxed, so buffering
+ * many records costs roughly the raw size of the data instead of one HashMap and a boxed
+ * value per cell. Column types follow the first non-null value of the field; a field
+ * whose values have mixed types falls back to an object column.
+ */
+public class RecordBatch {
+
+    private final Map<String, ColumnVector> columns = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * Appends a record as a new row.
+     *
+     * @param record the record to append
+     */
+    public void add(DataRecord record) {
+        for (Map.Entry<String, Object> field : record.fieldView().entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+
+            ColumnVector column = columns.get(name);
+            if (column == null) {
+                column = ColumnVector.forValue(value);
+                for (int row = 0; row < size; row++) {
+                    column.appendMissing();
+                }
+                columns.put(name, column);
+            }
+
+            if (!column.append(value)) {
+                column = ColumnVector.promote(column, value);
+                column.append(value);
+                columns.put(name, column);
+            }
+        }
+
+        // Fields the record does not have still need a cell in every column
+        for (ColumnVector column : columns.values()) {
+            if (column.size() == size) {
+                column.appendMissing();
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Rebuilds the record of a row.
+     *
+     * @param row the row index
+     * @return a new record with the fields present in that row
+     */
+    public DataRecord get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for batch of " + size + " record(s)");
+        }
+
+        DataRecord record = new DataRecord();
+        for (Map.Entry<String, ColumnVector> column : columns.entrySet()) {
+            if (column.getValue().isPresent(row)) {
+                record.addField(column.getKey(), column.getValue().getValue(row));
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Gets the number of records in this batch.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this batch holds no records.
+     *
+     * @return true if the batch is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the names of all fields seen in this batch, in order of first appearance.
+     *
+     * @return an unmodifiable set of column names
+     */
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * Gets the column of a field.
+     *
+     * @param name the field name
+     * @return the column, or null if no record in this batch has the field
+     */
+    public ColumnVector getColumn(String name) {
+        return columns.get(name);
+    }
+
+    /**
+     * Estimates the heap size of all columns.
+     *
+     * @return the approximate number of bytes used
+     */
+    public long estimatedBytes() {
+        long total = 0;
+        for (ColumnVector column : columns.values()) {
+            total += column.estimatedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Removes all records and columns.
+     */
+    public void clear() {
+        columns.clear();
+        size = 0;
+    }
+}
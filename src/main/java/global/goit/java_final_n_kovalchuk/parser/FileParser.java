@@ -3,6 +3,7 @@ package global.goit.java_final_n_kovalchuk.parser;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -21,4 +22,24 @@ public interface FileParser<T> {
      * @throws FileConversionException if parsing fails
      */
     List<T> parse(File file) throws FileConversionException;
+
+    /**
+     * Opens a streaming reader over the given input stream.
+     * Records are parsed lazily as {@link RecordReader#read()} is called.
+     *
+     * @param input the stream to read from
+     * @return a reader returning records one at a time
+     * @throws FileConversionException if the input cannot be opened
+     */
+    RecordReader<T> open(InputStream input) throws FileConversionException;
+
+    /**
+     * Opens a streaming reader over the given input stream, naming the input in error messages.
+     *
+     * @param input  the stream to read from
+     * @param source the name of the input used in error messages, such as its file path
+     * @return a reader returning records one at a time
+     * @throws FileConversionException if the input cannot be opened
+     */
+    RecordReader<T> open(InputStream input, String source) throws FileConversionException;
 }
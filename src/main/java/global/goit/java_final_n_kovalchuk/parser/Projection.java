@@ -0,0 +1,210 @@
+package global.goit.java_final_n_kovalchuk.parser;
+
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The columns to keep from every record, given as paths such as "id" or "customer.address.city".
+ *
+ * Parsers walk the projection tree alongside the input and skip everything outside it
+ * before any value is built, so the work saved grows with the number of fields dropped.
+ * A projected record holds exactly the projected columns, named by their paths and in
+ * projection order; a column missing from the input is null. Paths address fields of
+ * nested objects: when a value on the path is not an object, the column is null.
+ *
+ * Hidden columns are read like projected columns but left out of the record,
+ * for fields that are only needed to decide whether a record is kept.
+ */
+public class Projection {
+
+    private static final String PATH_SEPARATOR = "\\.";
+
+    private final List<String> columns;
+    private final int slots;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final Node root = new Node();
+
+    /**
+     * Constructs a new Projection.
+     *
+     * @param columns the column paths in output order; repeated paths are kept once
+     */
+    public Projection(List<String> columns) {
+        this(columns, List.of());
+    }
+
+    /**
+     * Constructs a new Projection with hidden columns.
+     *
+     * @param columns       the column paths in output order; repeated paths are kept once
+     * @param hiddenColumns the column paths read into value slots after the output columns
+     *                      but not added to records; paths that are also output columns are kept once
+     */
+    public Projection(List<String> columns, List<String> hiddenColumns) {
+        LinkedHashSet<String> outputColumns = new LinkedHashSet<>(columns);
+        this.columns = Collections.unmodifiableList(new ArrayList<>(outputColumns));
+
+        LinkedHashSet<String> allColumns = new LinkedHashSet<>(outputColumns);
+        allColumns.addAll(hiddenColumns);
+        this.slots = allColumns.size();
+
+        int i = 0;
+        for (String column : allColumns) {
+            columnIndexes.put(column, i);
+
+            Node node = root;
+            for (String name : column.split(PATH_SEPARATOR)) {
+                node = node.children.computeIfAbsent(name, key -> new Node());
+            }
+            node.column = i;
+            i++;
+        }
+    }
+
+    /**
+     * Creates a projection with the same output columns that also reads the given hidden columns.
+     *
+     * @param hiddenColumns the column paths to read without adding them to records
+     * @return the extended projection
+     */
+    public Projection withHiddenColumns(List<String> hiddenColumns) {
+        return new Projection(columns, hiddenColumns);
+    }
+
+    /**
+     * Gets the projected output column paths in order.
+     *
+     * @return the column paths
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of projected output columns.
+     *
+     * @return the column count
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Gets the position of a column given by its full path, hidden columns included.
+     * Used by flat inputs, whose field names are matched as whole paths.
+     *
+     * @param column the column path
+     * @return the column position, or -1 if the column is not projected
+     */
+    public int indexOf(String column) {
+        Integer index = columnIndexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets the node of the top-level fields.
+     *
+     * @return the root of the projection tree
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Creates the value slots of one projected record, one per column including hidden columns.
+     *
+     * @return an array of nulls
+     */
+    public Object[] newValues() {
+        return new Object[slots];
+    }
+
+    /**
+     * Builds a projected record from filled value slots.
+     *
+     * @param values the column values in projection order
+     * @return a record with one field per output column, in projection order
+     */
+    public DataRecord toRecord(Object[] values) {
+        DataRecord record = DataRecord.ordered(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            record.addField(columns.get(i), values[i]);
+        }
+        return record;
+    }
+
+    /**
+     * Projects fields that were already materialized, for inputs that cannot be skipped through.
+     *
+     * @param fields the fields of a whole record
+     * @return the projected record
+     */
+    public DataRecord project(Map<String, Object> fields) {
+        Object[] values = newValues();
+        fill(root, fields, values);
+        return toRecord(values);
+    }
+
+    /**
+     * Stores a materialized value in the slot of its node and in the slots of projected paths below it.
+     *
+     * @param node   the projection node the value belongs to
+     * @param value  the value of the node's field
+     * @param values the value slots of the record being projected
+     */
+    public static void fill(Node node, Object value, Object[] values) {
+        if (node.column >= 0) {
+            values[node.column] = value;
+        }
+        if (!node.children.isEmpty() && value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            for (Map.Entry<String, Node> child : node.children.entrySet()) {
+                fill(child.getValue(), map.get(child.getKey()), values);
+            }
+        }
+    }
+
+    /**
+     * A field on one or more projected paths.
+     */
+    public static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private int column = -1;
+
+        /**
+         * Gets the node of a nested field.
+         *
+         * @param name the field name
+         * @return the node, or null if no projected path continues through the field
+         */
+        public Node child(String name) {
+            return children.get(name);
+        }
+
+        /**
+         * Checks whether the whole value of this field is a projected column,
+         * so it has to be materialized rather than walked through.
+         *
+         * @return true if the field's value is needed
+         */
+        public boolean isSelected() {
+            return column >= 0;
+        }
+
+        /**
+         * Gets the position of this field's column.
+         *
+         * @return the column position, or -1 if only fields below this one are projected
+         */
+        public int getColumn() {
+            return column;
+        }
+    }
+}
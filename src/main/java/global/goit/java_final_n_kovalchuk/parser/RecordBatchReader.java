@@ -0,0 +1,53 @@
+package global.goit.java_final_n_kovalchuk.parser;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.model.RecordBatch;
+
+/**
+ * Adapter that reads records from any parser's {@link RecordReader} into columnar batches.
+ */
+public class RecordBatchReader implements AutoCloseable {
+
+    private final RecordReader<DataRecord> reader;
+    private final int batchSize;
+
+    /**
+     * Constructs a new RecordBatchReader.
+     *
+     * @param reader    the record reader to read from
+     * @param batchSize the maximum number of records per batch
+     */
+    public RecordBatchReader(RecordReader<DataRecord> reader, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.reader = reader;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads the next batch of records.
+     *
+     * @return a batch with up to the configured number of records, or null if the input is exhausted
+     * @throws FileConversionException if the input cannot be parsed
+     */
+    public RecordBatch readBatch() throws FileConversionException {
+        RecordBatch batch = new RecordBatch();
+        DataRecord record;
+        while (batch.size() < batchSize && (record = reader.read()) != null) {
+            batch.add(record);
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    /**
+     * Closes the underlying record reader.
+     *
+     * @throws FileConversionException if the reader cannot be closed
+     */
+    @Override
+    public void close() throws FileConversionException {
+        reader.close();
+    }
+}
@@ -0,0 +1,47 @@
+package global.goit.java_final_n_kovalchuk.parser;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+/**
+ * Streaming reader that returns parsed data records one at a time.
+ * Readers are obtained from {@link FileParser#open(java.io.InputStream)} and allow
+ * large inputs to be converted without holding every record in memory.
+ *
+ * @param <T> the type of data records to read
+ */
+public interface RecordReader<T> extends AutoCloseable {
+
+    /**
+     * Reads the next record from the input.
+     *
+     * @return the next record, or null if the end of the input has been reached
+     * @throws FileConversionException if the input cannot be parsed
+     */
+    T read() throws FileConversionException;
+
+    /**
+     * Skips records without returning them. Parsers override this to pass over input records
+     * at the tokenizer level, before they are built or tested against a filter; this default
+     * reads and discards records.
+     *
+     * @param count the number of records to skip
+     * @return the number of records skipped, less than count only at the end of the input
+     * @throws FileConversionException if the input cannot be parsed
+     */
+    default long skip(long count) throws FileConversionException {
+        long skipped = 0;
+        while (skipped < count && read() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Releases the parsing resources held by this reader.
+     * The underlying input stream is closed by whoever opened it.
+     *
+     * @throws FileConversionException if the reader cannot be closed
+     */
+    @Override
+    void close() throws FileConversionException;
+}
@@ -0,0 +1,169 @@
+package global.goit.java_final_n_kovalchuk.parser.csv;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Detects the character encoding of text input from its first bytes.
+ *
+ * A byte order mark decides first: UTF-8, UTF-16BE and UTF-16LE marks are recognised and
+ * skipped. Without one, a sample of the input is examined: text in which every other byte
+ * is zero is taken for UTF-16 of that byte order, text that is valid UTF-8 (which includes
+ * plain ASCII) for UTF-8, and anything else for ISO-8859-1, which accepts every byte.
+ */
+public final class CharsetDetector {
+
+    /**
+     * The number of bytes examined when there is no byte order mark.
+     */
+    public static final int SAMPLE_BYTES = 64 * 1024;
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * Detects the encoding of a stream and positions the stream after its byte order mark.
+     * With an explicit encoding nothing is guessed, but a byte order mark of that same
+     * encoding is still skipped.
+     *
+     * @param input    the stream, which must support mark and reset over {@link #SAMPLE_BYTES}
+     * @param explicit the encoding given by the user, or null to detect it
+     * @return the encoding of the text after the current position
+     * @throws IOException if the stream cannot be read
+     */
+    public static Charset detect(BufferedInputStream input, Charset explicit) throws IOException {
+        byte[] sample = new byte[SAMPLE_BYTES];
+        input.mark(SAMPLE_BYTES);
+        int length = 0;
+        for (int read = 0; read >= 0 && length < sample.length; read = input.read(sample, length, sample.length - length)) {
+            length += read;
+        }
+        input.reset();
+
+        Charset marked = null;
+        int markLength = 0;
+        if (startsWith(sample, length, UTF_8_BOM)) {
+            marked = StandardCharsets.UTF_8;
+            markLength = UTF_8_BOM.length;
+        } else if (startsWith(sample, length, UTF_16BE_BOM)) {
+            marked = StandardCharsets.UTF_16BE;
+            markLength = UTF_16BE_BOM.length;
+        } else if (startsWith(sample, length, UTF_16LE_BOM)) {
+            marked = StandardCharsets.UTF_16LE;
+            markLength = UTF_16LE_BOM.length;
+        }
+
+        if (explicit != null) {
+            // The generic UTF-16 decoder reads the byte order mark itself
+            if (marked != null && marked.equals(explicit)) {
+                input.skipNBytes(markLength);
+            }
+            return explicit;
+        }
+        if (marked != null) {
+            input.skipNBytes(markLength);
+            return marked;
+        }
+        return detect(sample, length, length < sample.length);
+    }
+
+    /**
+     * Guesses the encoding of a sample without a byte order mark.
+     *
+     * @param sample   the first bytes of the input
+     * @param length   the number of bytes in the sample
+     * @param complete true if the sample is the whole input, false if it may end inside a character
+     * @return UTF-16LE, UTF-16BE, UTF-8 or ISO-8859-1
+     */
+    static Charset detect(byte[] sample, int length, boolean complete) {
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            if (sample[i] == 0) {
+                evenZeros++;
+            }
+            if (sample[i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        int pairs = length / 2;
+        if (pairs > 0 && oddZeros * 4 > pairs && evenZeros * 20 < pairs) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (pairs > 0 && evenZeros * 4 > pairs && oddZeros * 20 < pairs) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return isUtf8(sample, length, complete) ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * Tests whether bytes are well-formed UTF-8, without overlong forms and surrogates.
+     */
+    private static boolean isUtf8(byte[] bytes, int length, boolean complete) {
+        int i = 0;
+        while (i < length) {
+            int lead = bytes[i] & 0xFF;
+            if (lead < 0x80) {
+                i++;
+                continue;
+            }
+
+            int continuations;
+            int min;
+            int max = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                continuations = 1;
+                min = 0x80;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                continuations = 2;
+                min = lead == 0xE0 ? 0xA0 : 0x80;
+                max = lead == 0xED ? 0x9F : 0xBF;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                continuations = 3;
+                min = lead == 0xF0 ? 0x90 : 0x80;
+                max = lead == 0xF4 ? 0x8F : 0xBF;
+            } else {
+                return false;
+            }
+
+            if (i + continuations >= length) {
+                // A sample cut inside a character says nothing against UTF-8
+                return !complete && validContinuations(bytes, i + 1, length, min, max);
+            }
+            if (!validContinuations(bytes, i + 1, i + 1 + continuations, min, max)) {
+                return false;
+            }
+            i += 1 + continuations;
+        }
+        return true;
+    }
+
+    private static boolean validContinuations(byte[] bytes, int from, int to, int min, int max) {
+        for (int i = from; i < to; i++) {
+            int b = bytes[i] & 0xFF;
+            // Only the first continuation byte has a narrower range
+            if (i == from ? b < min || b > max : b < 0x80 || b > 0xBF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,28 +1,88 @@
 package global.goit.java_final_n_kovalchuk.parser.csv;
 
 import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Source;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.ParseChunkEvent;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Parser for CSV files.
  * Reads CSV files with headers and maps each row to a DataRecord.
- * Uses OpenCSV for parsing with support for quoted values and special characters.
+ * The encoding is taken from a byte order mark or detected from the first bytes (see {@link CharsetDetector}),
+ * unless it is given explicitly. UTF-8, ASCII and ISO-8859-1 content is split into cells directly on its bytes
+ * by {@link CsvTokenizer}; content in other encodings is decoded and parsed by OpenCSV's RFC 4180 parser.
+ * Header names are trimmed once per input and the same name strings are reused as keys of every record.
+ * With a projection, cells of columns that are not projected are never turned into fields.
+ * With a filter, rows are tested on their raw cells and rows that do not match are never turned into records.
  */
 public class CsvParser implements FileParser<DataRecord> {
 
+    private static final String STREAM_SOURCE = "input stream";
+
+    private final Projection projection;
+    private final RecordFilter filter;
+    private final Charset encoding;
+
     /**
      * Constructs a new CsvParser.
      */
     public CsvParser() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new CsvParser that keeps only the projected columns.
+     * Header names are matched against whole column paths.
+     *
+     * @param projection the columns to keep, or null to keep all
+     */
+    public CsvParser(Projection projection) {
+        this(projection, null);
+    }
+
+    /**
+     * Constructs a new CsvParser that keeps only the projected columns of the rows matching a filter.
+     * Header names are matched against whole column and field paths.
+     *
+     * @param projection the columns to keep, or null to keep all
+     * @param filter     the filter rows must match, or null to keep every row
+     */
+    public CsvParser(Projection projection, RecordFilter filter) {
+        this(projection, filter, null);
+    }
+
+    /**
+     * Constructs a new CsvParser that reads content in the given encoding.
+     *
+     * @param projection the columns to keep, or null to keep all
+     * @param filter     the filter rows must match, or null to keep every row
+     * @param encoding   the encoding of the content, or null to detect it
+     */
+    public CsvParser(Projection projection, RecordFilter filter, Charset encoding) {
+        this.projection = projection;
+        this.filter = filter;
+        this.encoding = encoding;
     }
 
     /**
@@ -47,35 +107,13 @@ public class CsvParser implements FileParser<DataRecord> {
             throw new FileConversionException("File cannot be read: " + file.getAbsolutePath());
         }
 
-        try (Reader reader = new FileReader(file);
-             CSVReader csvReader = new CSVReader(reader)) {
-
-            // Read header row
-            String[] headers = csvReader.readNext();
-
-            if (headers == null) {
-                throw new FileConversionException("CSV file is empty: " + file.getAbsolutePath());
-            }
+        try (InputStream input = Source.open(file.toPath(), IoSettings.DEFAULT);
+             RecordReader<DataRecord> reader = open(input, file.getAbsolutePath())) {
 
             List<DataRecord> records = new ArrayList<>();
 
-            // Read data rows
-            String[] row;
-            while ((row = csvReader.readNext()) != null) {
-                DataRecord record = new DataRecord();
-
-                for (int i = 0; i < headers.length; i++) {
-                    String header = headers[i].trim();
-                    String value = (i < row.length) ? row[i] : "";
-
-                    // Handle empty values
-                    if (value.isEmpty()) {
-                        record.addField(header, null);
-                    } else {
-                        record.addField(header, value);
-                    }
-                }
-
+            DataRecord record;
+            while ((record = reader.read()) != null) {
                 records.add(record);
             }
 
@@ -85,11 +123,265 @@ public class CsvParser implements FileParser<DataRecord> {
                 "Failed to parse CSV file: " + file.getAbsolutePath(),
                 e
             );
-        } catch (com.opencsv.exceptions.CsvValidationException e) {
-            throw new FileConversionException(
-                "Invalid CSV format in file: " + file.getAbsolutePath(),
-                e
-            );
+        }
+    }
+
+    /**
+     * Opens a streaming reader over CSV content.
+     * The header row is read immediately; data rows are read on demand.
+     *
+     * @param input the stream to read from
+     * @return a reader returning one DataRecord per CSV row
+     * @throws FileConversionException if the header row cannot be read
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input) throws FileConversionException {
+        return open(input, STREAM_SOURCE);
+    }
+
+    /**
+     * Reads only the header row of CSV content, for example to learn the columns of several
+     * inputs before any of them is parsed.
+     *
+     * @param input    the stream to read from, which is not closed
+     * @param source   the name of the input used in error messages
+     * @param encoding the encoding of the content, or null to detect it
+     * @return the trimmed header names
+     * @throws FileConversionException if the content is empty or the header row cannot be read
+     */
+    public static List<String> readHeader(InputStream input, String source, Charset encoding)
+            throws FileConversionException {
+        String[] headers = openRows(input, source, encoding).readRow();
+        if (headers == null) {
+            throw new FileConversionException("CSV file is empty: " + source);
+        }
+
+        List<String> names = new ArrayList<>(headers.length);
+        for (String header : headers) {
+            names.add(header.trim());
+        }
+        return names;
+    }
+
+    /**
+     * Opens a streaming reader and reads the header row.
+     *
+     * @param input  the stream to read from
+     * @param source the name of the input used in error messages
+     * @return a reader returning one DataRecord per CSV row
+     * @throws FileConversionException if the header row cannot be read
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input, String source) throws FileConversionException {
+        if (input == null) {
+            throw new FileConversionException("Input stream cannot be null");
+        }
+
+        CsvRowReader rows = openRows(input, source, encoding);
+
+        // Read header row
+        String[] headers = rows.readRow();
+
+        if (headers == null) {
+            throw new FileConversionException("CSV file is empty: " + source);
+        }
+
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = headers[i].trim();
+        }
+
+        return new CsvRecordReader(rows, headers, projectedColumns(headers), filterSlots(headers));
+    }
+
+    /**
+     * Detects the encoding of CSV content and opens the row reader suited to it.
+     *
+     * @param input    the stream to read from
+     * @param source   the name of the input used in error messages
+     * @param encoding the encoding of the content, or null to detect it
+     * @return the byte tokenizer for UTF-8, ASCII and ISO-8859-1, OpenCSV for other encodings
+     * @throws FileConversionException if the stream cannot be read
+     */
+    private static CsvRowReader openRows(InputStream input, String source, Charset encoding)
+            throws FileConversionException {
+        try {
+            BufferedInputStream buffered = new BufferedInputStream(input, CharsetDetector.SAMPLE_BYTES);
+            Charset charset = CharsetDetector.detect(buffered, encoding);
+            if (CsvTokenizer.supports(charset)) {
+                return new CsvTokenizer(buffered, charset, source);
+            }
+
+            CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(buffered, charset))
+                .withCSVParser(new RFC4180ParserBuilder().build())
+                .build();
+            return new OpenCsvRowReader(csvReader, source);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to parse CSV file: " + source, e);
+        }
+    }
+
+    /**
+     * Maps every header to the position of its projected column.
+     *
+     * @param headers the trimmed header row
+     * @return the column position of each header, -1 for dropped headers, or null without a projection
+     */
+    private int[] projectedColumns(String[] headers) {
+        if (projection == null) {
+            return null;
+        }
+
+        int[] columns = new int[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            columns[i] = projection.indexOf(headers[i]);
+        }
+        return columns;
+    }
+
+    /**
+     * Maps every field of the filter to the position of its header.
+     *
+     * @param headers the trimmed header row
+     * @return the cell position of each filter field, -1 for fields without a header, or null without a filter
+     */
+    private int[] filterSlots(String[] headers) {
+        if (filter == null) {
+            return null;
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = headers.length - 1; i >= 0; i--) {
+            positions.put(headers[i], i);
+        }
+        return filter.bind(field -> positions.getOrDefault(field, -1));
+    }
+
+    /**
+     * Streaming reader that maps each CSV row to a DataRecord using the trimmed header row.
+     */
+    private class CsvRecordReader implements RecordReader<DataRecord> {
+
+        private final CsvRowReader rows;
+        private final String[] headers;
+        private final int[] columns;
+        private final int[] filterSlots;
+        private final ChunkEventEmitter parseEvents = new ChunkEventEmitter(ParseChunkEvent::new, "CSV");
+
+        CsvRecordReader(CsvRowReader rows, String[] headers, int[] columns, int[] filterSlots) {
+            this.rows = rows;
+            this.headers = headers;
+            this.columns = columns;
+            this.filterSlots = filterSlots;
+        }
+
+        @Override
+        public DataRecord read() throws FileConversionException {
+            String[] row = rows.readRow();
+            while (row != null && filterSlots != null && !matches(row)) {
+                row = rows.readRow();
+            }
+            if (row == null) {
+                parseEvents.finish();
+                return null;
+            }
+
+            if (columns != null) {
+                parseEvents.recordProcessed();
+                return projectRow(row);
+            }
+
+            DataRecord record = new DataRecord(headers.length);
+
+            for (int i = 0; i < headers.length; i++) {
+                String header = headers[i];
+                String value = (i < row.length) ? row[i] : "";
+
+                // Handle empty values
+                if (value == null || value.isEmpty()) {
+                    record.addField(header, null);
+                } else {
+                    record.addField(header, value);
+                }
+            }
+
+            parseEvents.recordProcessed();
+            return record;
+        }
+
+        /**
+         * Skips rows with the tokenizer alone: quoted line breaks are honoured,
+         * but no record is built and the filter is not applied.
+         */
+        @Override
+        public long skip(long count) throws FileConversionException {
+            long skipped = 0;
+            while (skipped < count && rows.skipRow()) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        /**
+         * Tests a row against the filter. Empty cells of filter fields are replaced with null
+         * in place, since they become null fields of the record.
+         */
+        private boolean matches(String[] row) {
+            for (int slot : filterSlots) {
+                if (slot >= 0 && slot < row.length && row[slot].isEmpty()) {
+                    row[slot] = null;
+                }
+            }
+            return filter.test(row, filterSlots);
+        }
+
+        private DataRecord projectRow(String[] row) {
+            Object[] values = projection.newValues();
+            int cells = Math.min(row.length, columns.length);
+            for (int i = 0; i < cells; i++) {
+                if (columns[i] >= 0 && row[i] != null && !row[i].isEmpty()) {
+                    values[columns[i]] = row[i];
+                }
+            }
+            return projection.toRecord(values);
+        }
+
+        @Override
+        public void close() {
+            // The underlying stream is owned by the caller, so there is nothing to release here
+        }
+    }
+
+    /**
+     * Row reader over OpenCSV, for encodings the byte tokenizer does not handle.
+     */
+    private static class OpenCsvRowReader implements CsvRowReader {
+
+        private final CSVReader csvReader;
+        private final String source;
+
+        OpenCsvRowReader(CSVReader csvReader, String source) {
+            this.csvReader = csvReader;
+            this.source = source;
+        }
+
+        @Override
+        public String[] readRow() throws FileConversionException {
+            try {
+                return csvReader.readNext();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse CSV file: " + source, e);
+            } catch (CsvValidationException e) {
+                throw new FileConversionException("Invalid CSV format in file: " + source, e);
+            }
+        }
+
+        @Override
+        public boolean skipRow() throws FileConversionException {
+            try {
+                return csvReader.readNextSilently() != null;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse CSV file: " + source, e);
+            }
         }
     }
 }
@@ -0,0 +1,25 @@
+package global.goit.java_final_n_kovalchuk.parser.csv;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+/**
+ * Source of the raw cells of CSV rows.
+ */
+interface CsvRowReader {
+
+    /**
+     * Reads the cells of the next row.
+     *
+     * @return the cells, with empty cells as empty strings, or null at the end of the input
+     * @throws FileConversionException if the row cannot be read or is malformed
+     */
+    String[] readRow() throws FileConversionException;
+
+    /**
+     * Skips the next row without turning its cells into strings.
+     *
+     * @return true if a row was skipped, false at the end of the input
+     * @throws FileConversionException if the row cannot be read or is malformed
+     */
+    boolean skipRow() throws FileConversionException;
+}
@@ -0,0 +1,313 @@
+package global.goit.java_final_n_kovalchuk.parser.csv;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits UTF-8, ASCII or ISO-8859-1 CSV content into cells directly on its bytes.
+ *
+ * In these encodings separators, quotes and line breaks are single bytes that never occur
+ * inside a multi-byte character, so rows are found without decoding the input first. Each
+ * cell is then turned into a string straight from the input buffer: cells of ASCII bytes
+ * and all ISO-8859-1 cells are copied as compact Latin-1 strings, and only cells with
+ * other bytes are decoded as UTF-8, replacing malformed sequences.
+ *
+ * Cells follow RFC 4180: quoted cells may contain separators, line breaks and doubled
+ * quotes, and backslashes are ordinary characters. For files written with OpenCSV's default
+ * backslash escape, a backslash before a quote that RFC 4180 would not accept, one that
+ * is neither doubled nor followed by a separator, a line break or the end of the input,
+ * escapes that quote: {@code "x\"y"} is read as {@code x"y}, while {@code "c:\"} is still
+ * read as {@code c:\}. Rows end at {@code \n}, {@code \r\n}
+ * or {@code \r}, line breaks inside quoted cells are read as {@code \n}, and an empty line
+ * is a row with one empty cell. Quotes that do not follow these rules are read as OpenCSV
+ * reads them: every quote switches quoting on or off, a doubled quote anywhere but at the
+ * start of a cell stands for one quote, and a quote is kept in the value unless it opens
+ * the cell or stands right before its end.
+ */
+final class CsvTokenizer implements CsvRowReader {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte BACKSLASH = '\\';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int END_OF_INPUT = -1;
+
+    private final InputStream input;
+    private final boolean utf8;
+    private final String source;
+    private final List<String> cells = new ArrayList<>();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // The bytes from here on are still needed and are kept when the buffer is refilled
+    private int cellStart;
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+
+    /**
+     * Constructs a new CsvTokenizer.
+     *
+     * @param input   the stream to read, positioned after any byte order mark
+     * @param charset the encoding of the stream, one the tokenizer {@link #supports}
+     * @param source  the name of the input used in error messages
+     */
+    CsvTokenizer(InputStream input, Charset charset, String source) {
+        this.input = input;
+        this.utf8 = !charset.equals(StandardCharsets.ISO_8859_1);
+        this.source = source;
+    }
+
+    /**
+     * Tests whether content in an encoding can be split on its bytes.
+     *
+     * @param charset the encoding
+     * @return true for UTF-8, US-ASCII and ISO-8859-1
+     */
+    static boolean supports(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String[] readRow() throws FileConversionException {
+        return nextRow(true) ? cells.toArray(new String[0]) : null;
+    }
+
+    @Override
+    public boolean skipRow() throws FileConversionException {
+        return nextRow(false);
+    }
+
+    private boolean nextRow(boolean keep) throws FileConversionException {
+        try {
+            cells.clear();
+            cellStart = position;
+            if (position == limit && !fill()) {
+                return false;
+            }
+            while (readCell(keep)) {
+                // the cells are collected by readCell
+            }
+            return true;
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to parse CSV file: " + source, e);
+        }
+    }
+
+    /**
+     * Reads one cell and the separator or line break after it.
+     *
+     * @param keep true to add the cell to the row, false to skip it
+     * @return true if another cell of the same row follows
+     */
+    private boolean readCell(boolean keep) throws IOException {
+        cellStart = position;
+        if (position == limit && !fill()) {
+            // A separator right before the end of the input is followed by one empty cell
+            if (keep) {
+                cells.add("");
+            }
+            return false;
+        }
+
+        boolean quoted = buffer[position] == QUOTE;
+        if (quoted) {
+            position++;
+            cellStart = position;
+        }
+        scratchLength = 0;
+        boolean copied = false;
+        int bits = 0;
+        int end;
+        while (true) {
+            int p = position;
+            byte[] bytes = buffer;
+            int available = limit;
+            if (quoted) {
+                while (p < available && bytes[p] != QUOTE && bytes[p] != CR) {
+                    bits |= bytes[p++];
+                }
+            } else {
+                while (p < available) {
+                    byte b = bytes[p];
+                    if (b == SEPARATOR || b == LF || b == CR || b == QUOTE) {
+                        break;
+                    }
+                    bits |= b;
+                    p++;
+                }
+            }
+            position = p;
+            if (p == available) {
+                if (fill()) {
+                    continue;
+                }
+                if (quoted) {
+                    throw new FileConversionException(
+                        "Invalid CSV format in file: " + source + ": unterminated quoted field");
+                }
+                end = position;
+                break;
+            }
+
+            byte b = bytes[p];
+            if (b != QUOTE && !quoted) {
+                end = position;
+                break;
+            }
+            if (b == CR) {
+                // Line breaks inside quotes are read as \n, whichever convention the file uses
+                if (keep) {
+                    append(cellStart, position);
+                    scratch[scratchLength++] = LF;
+                }
+                copied = true;
+                // peek may move the buffered bytes, so position is read after it
+                int lineBreak = peek(1) == LF ? 2 : 1;
+                position += lineBreak;
+                cellStart = position;
+                continue;
+            }
+
+            int next = peek(1);
+            if (next == QUOTE) {
+                // A doubled quote stands for one quote
+                if (keep) {
+                    append(cellStart, position + 1);
+                }
+                copied = true;
+                position += 2;
+                cellStart = position;
+                continue;
+            }
+
+            boolean inside = next != SEPARATOR && next != LF && next != CR && next != END_OF_INPUT;
+            if (inside && position > cellStart && buffer[position - 1] == BACKSLASH) {
+                // A backslash-escaped quote stands for one quote, as with OpenCSV's default escape
+                if (keep) {
+                    append(cellStart, position - 1);
+                }
+                copied = true;
+                cellStart = position;
+                position++;
+                continue;
+            }
+
+            quoted = !quoted;
+            if (inside) {
+                // A quote inside the cell switches quoting and is kept, as OpenCSV does
+                position++;
+                continue;
+            }
+            if (!quoted) {
+                end = position;
+                position++;
+                break;
+            }
+            // A quote right before a separator or line break opens quoting but is not kept
+            if (keep) {
+                append(cellStart, position);
+            }
+            copied = true;
+            position++;
+            cellStart = position;
+        }
+
+        if (keep && copied) {
+            append(cellStart, end);
+            cells.add(decode(scratch, 0, scratchLength, bits < 0));
+        } else if (keep) {
+            cells.add(decode(buffer, cellStart, end - cellStart, bits < 0));
+        }
+        return endCell();
+    }
+
+    /**
+     * Consumes the separator or line break after a cell.
+     *
+     * @return true after a separator, false at the end of the row
+     */
+    private boolean endCell() throws IOException {
+        cellStart = position;
+        int next = peek(0);
+        if (next == SEPARATOR) {
+            position++;
+            return true;
+        }
+        if (next == CR) {
+            int lineBreak = peek(1) == LF ? 2 : 1;
+            position += lineBreak;
+        } else if (next == LF) {
+            position++;
+        }
+        return false;
+    }
+
+    /**
+     * Gets a byte ahead of the current position, reading more input if needed.
+     *
+     * @return the unsigned byte, or -1 at the end of the input
+     */
+    private int peek(int offset) throws IOException {
+        while (position + offset >= limit) {
+            if (!fill()) {
+                return END_OF_INPUT;
+            }
+        }
+        return buffer[position + offset] & 0xFF;
+    }
+
+    /**
+     * Reads more input after the buffered bytes, first moving the bytes still needed to the
+     * start of the buffer, or into a larger buffer when they fill all of it.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (cellStart > 0) {
+            int kept = limit - cellStart;
+            System.arraycopy(buffer, cellStart, buffer, 0, kept);
+            position -= cellStart;
+            limit = kept;
+            cellStart = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private void append(int from, int to) {
+        int length = to - from;
+        if (scratchLength + length + 1 > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + length + 1));
+        }
+        System.arraycopy(buffer, from, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private String decode(byte[] bytes, int offset, int length, boolean nonAscii) {
+        if (length == 0) {
+            return "";
+        }
+        // ISO-8859-1 bytes become a compact Latin-1 string by a plain copy
+        return utf8 && nonAscii
+            ? new String(bytes, offset, length, StandardCharsets.UTF_8)
+            : new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
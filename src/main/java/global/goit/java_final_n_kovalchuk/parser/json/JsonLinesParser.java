@@ -0,0 +1,468 @@
+package global.goit.java_final_n_kovalchuk.parser.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Source;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.ParseChunkEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parser for JSON Lines (NDJSON) files.
+ * Every non-blank line holds one JSON object that becomes one DataRecord.
+ *
+ * Because lines are independent, the input is cut into blocks of whole lines on the
+ * reading thread and the blocks are parsed in parallel on a worker pool. Records are
+ * still returned in input order, and only a bounded number of blocks is in flight.
+ * With a projection, each line is read from the token stream and unprojected fields are skipped.
+ * With a filter, lines are tested on the parsing threads and lines that do not match never become records.
+ */
+public class JsonLinesParser implements FileParser<DataRecord> {
+
+    private static final String STREAM_SOURCE = "input stream";
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final ObjectMapper objectMapper;
+    private final int threads;
+    private final Projection projection;
+    private final RecordFilter filter;
+    private final Projection filterFields;
+    private final int[] filterSlots;
+
+    /**
+     * Constructs a new JsonLinesParser that uses one worker per available processor.
+     */
+    public JsonLinesParser() {
+        this(new ObjectMapper(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new JsonLinesParser.
+     *
+     * @param objectMapper the ObjectMapper to parse lines with
+     * @param threads      the number of worker threads parsing blocks
+     */
+    public JsonLinesParser(ObjectMapper objectMapper, int threads) {
+        this(objectMapper, threads, null);
+    }
+
+    /**
+     * Constructs a new JsonLinesParser that keeps only the projected columns.
+     *
+     * @param objectMapper the ObjectMapper to parse lines with
+     * @param threads      the number of worker threads parsing blocks
+     * @param projection   the columns to keep, or null to keep all
+     */
+    public JsonLinesParser(ObjectMapper objectMapper, int threads, Projection projection) {
+        this(objectMapper, threads, projection, null);
+    }
+
+    /**
+     * Constructs a new JsonLinesParser that keeps only the projected columns of the lines matching a filter.
+     *
+     * @param objectMapper the ObjectMapper to parse lines with
+     * @param threads      the number of worker threads parsing blocks
+     * @param projection   the columns to keep, or null to keep all
+     * @param filter       the filter lines must match, or null to keep every line
+     */
+    public JsonLinesParser(ObjectMapper objectMapper, int threads, Projection projection, RecordFilter filter) {
+        this.objectMapper = objectMapper;
+        this.threads = Math.max(1, threads);
+        this.filter = filter;
+        if (filter == null) {
+            this.projection = projection;
+            this.filterFields = null;
+            this.filterSlots = null;
+        } else if (projection != null) {
+            this.projection = projection.withHiddenColumns(filter.getFields());
+            this.filterFields = null;
+            this.filterSlots = filter.bind(this.projection::indexOf);
+        } else {
+            this.projection = null;
+            this.filterFields = new Projection(filter.getFields());
+            this.filterSlots = filter.bind(filterFields::indexOf);
+        }
+    }
+
+    /**
+     * Parses a JSON Lines file and returns a list of DataRecords.
+     *
+     * @param file the JSON Lines file to parse
+     * @return a list of DataRecords, one per line
+     * @throws FileConversionException if parsing fails
+     */
+    @Override
+    public List<DataRecord> parse(File file) throws FileConversionException {
+        if (file == null) {
+            throw new FileConversionException("File cannot be null");
+        }
+
+        if (!file.exists()) {
+            throw new FileConversionException("File does not exist: " + file.getAbsolutePath());
+        }
+
+        if (!file.canRead()) {
+            throw new FileConversionException("File cannot be read: " + file.getAbsolutePath());
+        }
+
+        try (InputStream input = Source.open(file.toPath(), IoSettings.DEFAULT);
+             RecordReader<DataRecord> reader = new JsonLinesRecordReader(input, file.getAbsolutePath())) {
+
+            List<DataRecord> records = new ArrayList<>();
+
+            DataRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+
+            return records;
+        } catch (IOException e) {
+            throw new FileConversionException(
+                "Failed to parse JSON Lines file: " + file.getAbsolutePath(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Opens a reader that parses blocks of lines in parallel.
+     *
+     * @param input the stream to read from
+     * @return a reader returning one DataRecord per line, in input order
+     * @throws FileConversionException if the input stream is null
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input) throws FileConversionException {
+        return open(input, STREAM_SOURCE);
+    }
+
+    /**
+     * Opens a reader that parses blocks of lines in parallel.
+     *
+     * @param input  the stream to read from
+     * @param source the name of the input used in error messages
+     * @return a reader returning one DataRecord per line, in input order
+     * @throws FileConversionException if the input stream is null
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input, String source) throws FileConversionException {
+        if (input == null) {
+            throw new FileConversionException("Input stream cannot be null");
+        }
+
+        return new JsonLinesRecordReader(input, source);
+    }
+
+    /**
+     * Parses every line of a block.
+     *
+     * @param block the bytes of whole lines
+     * @param length the number of valid bytes in the block
+     * @return the parsed records and the number of lines in the block
+     * @throws IOException if a line is not valid JSON
+     * @throws LineFormatException if a line is valid JSON but not an object
+     */
+    private ParsedBlock parseBlock(byte[] block, int length) throws IOException {
+        List<DataRecord> records = new ArrayList<>();
+        int lines = 0;
+        int start = 0;
+
+        while (start < length) {
+            int end = start;
+            while (end < length && block[end] != '\n') {
+                end++;
+            }
+            lines++;
+
+            int lineEnd = end;
+            while (lineEnd > start && isWhitespace(block[lineEnd - 1])) {
+                lineEnd--;
+            }
+            int lineStart = start;
+            while (lineStart < lineEnd && isWhitespace(block[lineStart])) {
+                lineStart++;
+            }
+
+            if (lineStart < lineEnd && projection != null) {
+                DataRecord record = parseProjectedLine(block, lineStart, lineEnd, lines);
+                if (record != null) {
+                    records.add(record);
+                }
+            } else if (lineStart < lineEnd) {
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(block, lineStart, lineEnd - lineStart);
+                } catch (JsonProcessingException e) {
+                    throw new LineFormatException(lines, "is not valid JSON: " + e.getOriginalMessage(), e);
+                }
+                if (!node.isObject()) {
+                    throw new LineFormatException(lines, "is not a JSON object, got " + node.getNodeType(), null);
+                }
+                if (filter == null || JsonParser.matches(node, filterFields, filter, filterSlots)) {
+                    records.add(JsonParser.convertJsonNodeToDataRecord(node));
+                }
+            }
+
+            start = end + 1;
+        }
+
+        return new ParsedBlock(records, lines);
+    }
+
+    /**
+     * Parses one line into a projected record straight from the token stream.
+     *
+     * @param block     the bytes of whole lines
+     * @param lineStart the offset of the first non-blank byte of the line
+     * @param lineEnd   the offset after the last non-blank byte of the line
+     * @param line      the line number within the block
+     * @return the projected record, or null if the line does not match the filter
+     * @throws IOException if the line is not valid JSON or not an object
+     */
+    private DataRecord parseProjectedLine(byte[] block, int lineStart, int lineEnd, int line) throws IOException {
+        try (com.fasterxml.jackson.core.JsonParser parser =
+                 objectMapper.createParser(block, lineStart, lineEnd - lineStart)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new LineFormatException(line, "is not a JSON object, got " + token, null);
+            }
+            return JsonParser.readProjectedRecord(parser, projection, filter, filterSlots);
+        } catch (JsonProcessingException e) {
+            throw new LineFormatException(line, "is not valid JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Records of one block together with its line count, used to number lines in error messages.
+     */
+    private static class ParsedBlock {
+
+        private final List<DataRecord> records;
+        private final int lines;
+
+        ParsedBlock(List<DataRecord> records, int lines) {
+            this.records = records;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Failure on a line, numbered relative to the start of its block.
+     */
+    private static class LineFormatException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int lineInBlock;
+
+        LineFormatException(int lineInBlock, String message, Throwable cause) {
+            super(message, cause);
+            this.lineInBlock = lineInBlock;
+        }
+    }
+
+    /**
+     * Reader that keeps a bounded queue of blocks being parsed and drains them in order.
+     */
+    private class JsonLinesRecordReader implements RecordReader<DataRecord> {
+
+        private final InputStream input;
+        private final String source;
+        private final ExecutorService executor;
+        private final Deque<Future<ParsedBlock>> pending = new ArrayDeque<>();
+        private final int maxPending = threads * BLOCKS_IN_FLIGHT_PER_THREAD;
+        private final ChunkEventEmitter parseEvents = new ChunkEventEmitter(ParseChunkEvent::new, "JSONL");
+
+        private byte[] carry = new byte[0];
+        private int carryLength;
+        private boolean inputFinished;
+        private boolean firstBlock = true;
+        private List<DataRecord> current = List.of();
+        private int currentIndex;
+        private long linesBefore;
+
+        JsonLinesRecordReader(InputStream input, String source) {
+            this.input = input;
+            this.source = source;
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "jsonl-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public DataRecord read() throws FileConversionException {
+            while (currentIndex >= current.size()) {
+                fillPending();
+                if (pending.isEmpty()) {
+                    parseEvents.finish();
+                    return null;
+                }
+                ParsedBlock block = await(pending.poll());
+                current = block.records;
+                currentIndex = 0;
+                linesBefore += block.lines;
+            }
+
+            parseEvents.recordProcessed();
+            return current.get(currentIndex++);
+        }
+
+        /**
+         * Skips non-blank lines by scanning the raw blocks for line breaks, without parsing
+         * or filtering them. The rest of the block where skipping ends is parsed as usual.
+         */
+        @Override
+        public long skip(long count) throws FileConversionException {
+            long skipped = 0;
+            while (skipped < count && currentIndex < current.size()) {
+                // Records of a block that was already parsed
+                currentIndex++;
+                skipped++;
+            }
+
+            while (skipped < count && pending.isEmpty() && !inputFinished) {
+                byte[] block = nextBlock();
+                if (block == null) {
+                    break;
+                }
+
+                int offset = 0;
+                int lines = 0;
+                while (offset < block.length && skipped < count) {
+                    int end = offset;
+                    boolean blank = true;
+                    while (end < block.length && block[end] != '\n') {
+                        blank &= isWhitespace(block[end]);
+                        end++;
+                    }
+                    lines++;
+                    if (!blank) {
+                        skipped++;
+                    }
+                    offset = end + 1;
+                }
+                linesBefore += lines;
+
+                if (offset < block.length) {
+                    byte[] rest = Arrays.copyOfRange(block, offset, block.length);
+                    pending.add(executor.submit(() -> parseBlock(rest, rest.length)));
+                }
+            }
+
+            while (skipped < count && read() != null) {
+                // Blocks already in flight are parsed anyway
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            for (Future<ParsedBlock> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            executor.shutdownNow();
+        }
+
+        private void fillPending() throws FileConversionException {
+            while (pending.size() < maxPending && !inputFinished) {
+                byte[] block = nextBlock();
+                if (block == null) {
+                    break;
+                }
+                int length = block.length;
+                pending.add(executor.submit(() -> parseBlock(block, length)));
+            }
+        }
+
+        /**
+         * Reads the next block of whole lines; a partial last line is carried over to the next block.
+         */
+        private byte[] nextBlock() throws FileConversionException {
+            try {
+                byte[] buffer = Arrays.copyOf(carry, Math.max(BLOCK_SIZE, carryLength * 2));
+                int length = carryLength;
+
+                while (true) {
+                    int read = input.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        inputFinished = true;
+                        carryLength = 0;
+                        return length > 0 ? trimBom(Arrays.copyOf(buffer, length)) : null;
+                    }
+                    length += read;
+
+                    int lastNewline = length - 1;
+                    while (lastNewline >= 0 && buffer[lastNewline] != '\n') {
+                        lastNewline--;
+                    }
+
+                    if (lastNewline >= 0 && length == buffer.length) {
+                        carryLength = length - lastNewline - 1;
+                        carry = Arrays.copyOfRange(buffer, lastNewline + 1, length);
+                        return trimBom(Arrays.copyOf(buffer, lastNewline + 1));
+                    }
+                    if (length == buffer.length) {
+                        // A single line longer than the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                }
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to read JSON Lines input: " + source, e);
+            }
+        }
+
+        private byte[] trimBom(byte[] block) {
+            boolean bom = firstBlock && block.length >= 3
+                && block[0] == (byte) 0xEF && block[1] == (byte) 0xBB && block[2] == (byte) 0xBF;
+            firstBlock = false;
+            return bom ? Arrays.copyOfRange(block, 3, block.length) : block;
+        }
+
+        private ParsedBlock await(Future<ParsedBlock> future) throws FileConversionException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileConversionException("Interrupted while parsing JSON Lines input: " + source, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LineFormatException) {
+                    LineFormatException lineError = (LineFormatException) cause;
+                    throw new FileConversionException("Invalid JSON Lines format in " + source + ": line "
+                        + (linesBefore + lineError.lineInBlock) + " " + lineError.getMessage(), lineError);
+                }
+                throw new FileConversionException("Failed to parse JSON Lines input: " + source, cause);
+            }
+        }
+    }
+}
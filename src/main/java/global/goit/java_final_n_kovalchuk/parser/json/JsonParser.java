@@ -1,13 +1,22 @@
 package global.goit.java_final_n_kovalchuk.parser.json;
 
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Source;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.ParseChunkEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -17,16 +26,25 @@ import java.util.Map;
  * Parser for JSON files.
  * Handles both simple JSON objects and arrays of objects.
  * Uses Jackson ObjectMapper for parsing.
+ * With a projection, fields outside the projected paths are skipped in the token
+ * stream without being materialized.
+ * With a filter, every object is tested on the values of the filter fields before its record is built.
  */
 public class JsonParser implements FileParser<DataRecord> {
 
+    private static final String STREAM_SOURCE = "input stream";
+
     private final ObjectMapper objectMapper;
+    private final Projection projection;
+    private final RecordFilter filter;
+    private final Projection filterFields;
+    private final int[] filterSlots;
 
     /**
      * Constructs a new JsonParser with a default ObjectMapper.
      */
     public JsonParser() {
-        this.objectMapper = new ObjectMapper();
+        this(new ObjectMapper());
     }
 
     /**
@@ -35,7 +53,43 @@ public class JsonParser implements FileParser<DataRecord> {
      * @param objectMapper the ObjectMapper to use for parsing
      */
     public JsonParser(ObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    /**
+     * Constructs a new JsonParser that keeps only the projected columns.
+     *
+     * @param objectMapper the ObjectMapper to use for parsing
+     * @param projection   the columns to keep, or null to keep all
+     */
+    public JsonParser(ObjectMapper objectMapper, Projection projection) {
+        this(objectMapper, projection, null);
+    }
+
+    /**
+     * Constructs a new JsonParser that keeps only the projected columns of the objects matching a filter.
+     * The filter fields are read along with the projected columns, or on their own without a projection.
+     *
+     * @param objectMapper the ObjectMapper to use for parsing
+     * @param projection   the columns to keep, or null to keep all
+     * @param filter       the filter objects must match, or null to keep every object
+     */
+    public JsonParser(ObjectMapper objectMapper, Projection projection, RecordFilter filter) {
         this.objectMapper = objectMapper;
+        this.filter = filter;
+        if (filter == null) {
+            this.projection = projection;
+            this.filterFields = null;
+            this.filterSlots = null;
+        } else if (projection != null) {
+            this.projection = projection.withHiddenColumns(filter.getFields());
+            this.filterFields = null;
+            this.filterSlots = filter.bind(this.projection::indexOf);
+        } else {
+            this.projection = null;
+            this.filterFields = new Projection(filter.getFields());
+            this.filterSlots = filter.bind(filterFields::indexOf);
+        }
     }
 
     /**
@@ -60,25 +114,14 @@ public class JsonParser implements FileParser<DataRecord> {
             throw new FileConversionException("File cannot be read: " + file.getAbsolutePath());
         }
 
-        try {
-            JsonNode rootNode = objectMapper.readTree(file);
+        try (InputStream input = Source.open(file.toPath(), IoSettings.DEFAULT);
+             RecordReader<DataRecord> reader = open(input, file.getAbsolutePath())) {
 
             List<DataRecord> records = new ArrayList<>();
 
-            if (rootNode.isArray()) {
-                // Handle JSON array
-                Iterator<JsonNode> elements = rootNode.elements();
-                while (elements.hasNext()) {
-                    JsonNode element = elements.next();
-                    records.add(convertJsonNodeToDataRecord(element));
-                }
-            } else if (rootNode.isObject()) {
-                // Handle single JSON object
-                records.add(convertJsonNodeToDataRecord(rootNode));
-            } else {
-                throw new FileConversionException(
-                    "Invalid JSON format: expected object or array, got " + rootNode.getNodeType()
-                );
+            DataRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
             }
 
             return records;
@@ -90,15 +133,69 @@ public class JsonParser implements FileParser<DataRecord> {
         }
     }
 
+    /**
+     * Opens a streaming reader over JSON content.
+     * A top-level array is read one element at a time, so only the current
+     * record is held in memory; a top-level object yields a single record.
+     *
+     * @param input the stream to read from
+     * @return a reader returning one DataRecord per JSON object
+     * @throws FileConversionException if the input is not a JSON object or array
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input) throws FileConversionException {
+        return open(input, STREAM_SOURCE);
+    }
+
+    /**
+     * Opens a streaming reader and positions it on the first token of the document.
+     *
+     * @param input  the stream to read from
+     * @param source the name of the input used in error messages
+     * @return a reader returning one DataRecord per JSON object
+     * @throws FileConversionException if the input is not a JSON object or array
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input, String source) throws FileConversionException {
+        if (input == null) {
+            throw new FileConversionException("Input stream cannot be null");
+        }
+
+        try {
+            com.fasterxml.jackson.core.JsonParser parser = objectMapper.createParser(input);
+            parser.disable(com.fasterxml.jackson.core.JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken firstToken = parser.nextToken();
+
+            if (firstToken == JsonToken.START_ARRAY) {
+                // Handle JSON array
+                return new JsonRecordReader(parser, true, source);
+            } else if (firstToken == JsonToken.START_OBJECT) {
+                // Handle single JSON object
+                return new JsonRecordReader(parser, false, source);
+            }
+
+            JsonNode rootNode = firstToken == null ? null : objectMapper.readTree(parser);
+            throw new FileConversionException(
+                "Invalid JSON format in file: " + source + ": expected object or array, got "
+                    + (rootNode == null ? "MISSING" : rootNode.getNodeType())
+            );
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to parse JSON file: " + source, e);
+        }
+    }
+
     /**
      * Converts a JsonNode to a DataRecord.
      * Handles nested structures by converting them to strings.
+     * Also used by {@link JsonLinesParser} for every line.
      *
      * @param jsonNode the JsonNode to convert
      * @return a DataRecord containing the data from the JsonNode
      */
-    private DataRecord convertJsonNodeToDataRecord(JsonNode jsonNode) {
-        DataRecord record = new DataRecord();
+    static DataRecord convertJsonNodeToDataRecord(JsonNode jsonNode) {
+        // Field names are already canonical strings shared by all records of the input:
+        // the Jackson symbol table returns the same instance for every occurrence of a name
+        DataRecord record = new DataRecord(jsonNode.size());
 
         if (!jsonNode.isObject()) {
             return record;
@@ -117,6 +214,79 @@ public class JsonParser implements FileParser<DataRecord> {
         return record;
     }
 
+    /**
+     * Reads a JSON object into a projected record, skipping every field outside the projection.
+     * Also used by {@link JsonLinesParser} for every line.
+     *
+     * @param parser      the parser positioned on the START_OBJECT token; left on the matching END_OBJECT
+     * @param projection  the columns to keep, with the filter fields as hidden columns
+     * @param filter      the filter the object must match, or null
+     * @param filterSlots the positions of the filter fields in the projection
+     * @return the projected record, or null if the object does not match the filter
+     * @throws IOException if the object is not valid JSON
+     */
+    static DataRecord readProjectedRecord(com.fasterxml.jackson.core.JsonParser parser, Projection projection,
+                                          RecordFilter filter, int[] filterSlots) throws IOException {
+        Object[] values = projection.newValues();
+        readProjectedObject(parser, projection.getRoot(), values);
+        if (filter != null && !filter.test(values, filterSlots)) {
+            return null;
+        }
+        return projection.toRecord(values);
+    }
+
+    /**
+     * Tests a parsed JSON value against a filter without converting the rest of it.
+     * Also used by {@link JsonLinesParser} for every line.
+     *
+     * @param jsonNode     the parsed value
+     * @param filterFields the projection of the filter fields
+     * @param filter       the filter
+     * @param filterSlots  the positions of the filter fields in {@code filterFields}
+     * @return true if the value matches
+     */
+    static boolean matches(JsonNode jsonNode, Projection filterFields, RecordFilter filter, int[] filterSlots) {
+        Object[] values = filterFields.newValues();
+        fillFromTree(jsonNode, filterFields.getRoot(), values);
+        return filter.test(values, filterSlots);
+    }
+
+    private static void fillFromTree(JsonNode jsonNode, Projection.Node node, Object[] values) {
+        Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Projection.Node child = node.child(field.getKey());
+            if (child == null) {
+                continue;
+            }
+            if (child.isSelected()) {
+                Projection.fill(child, convertJsonNodeToValue(field.getValue()), values);
+            } else if (field.getValue().isObject()) {
+                fillFromTree(field.getValue(), child, values);
+            }
+        }
+    }
+
+    private static void readProjectedObject(com.fasterxml.jackson.core.JsonParser parser, Projection.Node node,
+                                            Object[] values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Projection.Node child = node.child(parser.currentName());
+            JsonToken token = parser.nextToken();
+
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.isSelected()) {
+                JsonNode value = parser.readValueAsTree();
+                Projection.fill(child, convertJsonNodeToValue(value), values);
+            } else if (token == JsonToken.START_OBJECT) {
+                readProjectedObject(parser, child, values);
+            } else {
+                // Projected paths continue below this field, but its value is not an object
+                parser.skipChildren();
+            }
+        }
+    }
+
     /**
      * Converts a JsonNode to an appropriate Java value.
      * Handles primitive types, arrays, and nested objects.
@@ -124,7 +294,7 @@ public class JsonParser implements FileParser<DataRecord> {
      * @param jsonNode the JsonNode to convert
      * @return the converted Java value
      */
-    private Object convertJsonNodeToValue(JsonNode jsonNode) {
+    private static Object convertJsonNodeToValue(JsonNode jsonNode) {
         if (jsonNode.isTextual()) {
             return jsonNode.asText();
         } else if (jsonNode.isInt()) {
@@ -152,4 +322,124 @@ public class JsonParser implements FileParser<DataRecord> {
 
         return jsonNode.toString();
     }
+
+    /**
+     * Streaming reader over a Jackson token stream.
+     * Each array element is materialized as a tree only while it is being converted.
+     */
+    private class JsonRecordReader implements RecordReader<DataRecord> {
+
+        private final com.fasterxml.jackson.core.JsonParser parser;
+        private final boolean array;
+        private final String source;
+        private final ChunkEventEmitter parseEvents = new ChunkEventEmitter(ParseChunkEvent::new, "JSON");
+        private boolean finished;
+
+        JsonRecordReader(com.fasterxml.jackson.core.JsonParser parser, boolean array, String source) {
+            this.parser = parser;
+            this.array = array;
+            this.source = source;
+        }
+
+        @Override
+        public DataRecord read() throws FileConversionException {
+            if (finished) {
+                return null;
+            }
+
+            try {
+                if (!array) {
+                    finished = true;
+                    DataRecord record = readRecord();
+                    parseEvents.recordProcessed();
+                    parseEvents.finish();
+                    return record;
+                }
+
+                while (true) {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        finished = true;
+                        parseEvents.finish();
+                        return null;
+                    }
+
+                    DataRecord record = readRecord();
+                    if (record != null) {
+                        parseEvents.recordProcessed();
+                        return record;
+                    }
+                }
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse JSON file: " + source, e);
+            }
+        }
+
+        /**
+         * Skips array elements on the token stream without building them or applying the filter.
+         */
+        @Override
+        public long skip(long count) throws FileConversionException {
+            long skipped = 0;
+            try {
+                while (skipped < count && !finished) {
+                    if (!array) {
+                        finished = true;
+                        parser.skipChildren();
+                        skipped++;
+                        break;
+                    }
+
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        finished = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                    skipped++;
+                }
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse JSON file: " + source, e);
+            }
+            return skipped;
+        }
+
+        /**
+         * Reads the value at the current token as a record.
+         * Array elements that are not objects become empty records, or records of nulls when projecting.
+         *
+         * @return the record, or null if the value does not match the filter
+         */
+        private DataRecord readRecord() throws IOException {
+            if (projection == null) {
+                JsonNode element = objectMapper.readTree(parser);
+                if (element == null) {
+                    element = objectMapper.createObjectNode();
+                }
+                if (filter != null && !matches(element, filterFields, filter, filterSlots)) {
+                    return null;
+                }
+                return convertJsonNodeToDataRecord(element);
+            }
+
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                return readProjectedRecord(parser, projection, filter, filterSlots);
+            }
+            parser.skipChildren();
+            Object[] values = projection.newValues();
+            if (filter != null && !filter.test(values, filterSlots)) {
+                return null;
+            }
+            return projection.toRecord(values);
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to close JSON parser: " + source, e);
+            }
+        }
+    }
 }
@@ -1,17 +1,27 @@
 package global.goit.java_final_n_kovalchuk.parser.xml;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.dataformat.xml.deser.FromXmlParser;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Source;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.ParseChunkEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -32,26 +42,72 @@ import java.util.Map;
  *     </data>
  *   </record>
  * </records>
+ *
+ * Attributes are read like child elements, so the attribute profile of the XML writer,
+ * {@code <record field1="value1" field2="value2">} with only nested values as child elements,
+ * reads back to the same records.
  * 
  * This parser correctly handles:
  * - Nested objects (represented as Map)
  * - Arrays (represented as List)
  * - Null values (empty elements)
  * - Primitive types (String, Integer, Double, Boolean)
+ *
+ * With a projection, elements outside the projected paths are skipped while streaming
+ * records, without building their values.
+ * With a filter, streamed records are tested on the values of the filter fields before they are built.
  */
 public class JacksonXmlParser implements FileParser<DataRecord> {
 
     private final XmlMapper xmlMapper;
     private final ObjectMapper objectMapper;
+    private final Projection projection;
+    private final RecordFilter filter;
+    private final Projection filterFields;
+    private final int[] filterSlots;
 
     private static final String ROOT_ELEMENT = "records";
     private static final String RECORD_ELEMENT = "record";
+    private static final String STREAM_SOURCE = "input stream";
 
     /**
      * Constructs a new JacksonXmlParser with default XmlMapper and ObjectMapper.
      * Configures XmlMapper to convert empty XML elements to null.
      */
     public JacksonXmlParser() {
+        this((Projection) null);
+    }
+
+    /**
+     * Constructs a new JacksonXmlParser that keeps only the projected columns.
+     *
+     * @param projection the columns to keep, or null to keep all
+     */
+    public JacksonXmlParser(Projection projection) {
+        this(projection, null);
+    }
+
+    /**
+     * Constructs a new JacksonXmlParser that keeps only the projected columns of the records matching a filter.
+     *
+     * @param projection the columns to keep, or null to keep all
+     * @param filter     the filter records must match, or null to keep every record
+     */
+    public JacksonXmlParser(Projection projection, RecordFilter filter) {
+        this.filter = filter;
+        if (filter == null) {
+            this.projection = projection;
+            this.filterFields = null;
+            this.filterSlots = null;
+        } else if (projection != null) {
+            this.projection = projection.withHiddenColumns(filter.getFields());
+            this.filterFields = null;
+            this.filterSlots = filter.bind(this.projection::indexOf);
+        } else {
+            this.projection = null;
+            this.filterFields = new Projection(filter.getFields());
+            this.filterSlots = filter.bind(filterFields::indexOf);
+        }
         this.xmlMapper = new XmlMapper();
         // Configure XmlMapper to convert empty XML elements to null
         this.xmlMapper.enable(FromXmlParser.Feature.EMPTY_ELEMENT_AS_NULL);
@@ -70,6 +126,10 @@ public class JacksonXmlParser implements FileParser<DataRecord> {
     public JacksonXmlParser(XmlMapper xmlMapper, ObjectMapper objectMapper) {
         this.xmlMapper = xmlMapper;
         this.objectMapper = objectMapper;
+        this.projection = null;
+        this.filter = null;
+        this.filterFields = null;
+        this.filterSlots = null;
     }
 
     /**
@@ -95,57 +155,14 @@ public class JacksonXmlParser implements FileParser<DataRecord> {
             throw new FileConversionException("File cannot be read: " + file.getAbsolutePath());
         }
 
-        try {
-            // Parse XML to Map using Jackson XML
-            @SuppressWarnings("unchecked")
-            Map<String, Object> rootMap = xmlMapper.readValue(file, Map.class);
-
-            // Unwrap item wrappers to restore array structure
-            // This converts { "data": { "item": [...] } } to { "data": [...] }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> unwrappedMap = (Map<String, Object>) unwrapItemWrappers(rootMap);
+        try (InputStream input = Source.open(file.toPath(), IoSettings.DEFAULT);
+             RecordReader<DataRecord> reader = open(input, file.getAbsolutePath())) {
 
             List<DataRecord> records = new ArrayList<>();
 
-            // Check if root contains "records" element
-            if (unwrappedMap.containsKey(ROOT_ELEMENT)) {
-                Object recordsObj = unwrappedMap.get(ROOT_ELEMENT);
-                if (recordsObj instanceof Map) {
-                    // Single record inside records
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> recordMap = (Map<String, Object>) recordsObj;
-                    records.add(convertMapToDataRecord(recordMap));
-                } else if (recordsObj instanceof List) {
-                    // Multiple records inside records
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> recordList = (List<Map<String, Object>>) recordsObj;
-                    for (Map<String, Object> recordMap : recordList) {
-                        if (recordMap != null) {
-                            records.add(convertMapToDataRecord(recordMap));
-                        }
-                    }
-                }
-            } else if (unwrappedMap.containsKey(RECORD_ELEMENT)) {
-                // Direct record element at root
-                Object recordObj = unwrappedMap.get(RECORD_ELEMENT);
-                if (recordObj instanceof Map) {
-                    // Single record
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> recordMap = (Map<String, Object>) recordObj;
-                    records.add(convertMapToDataRecord(recordMap));
-                } else if (recordObj instanceof List) {
-                    // Multiple records
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> recordList = (List<Map<String, Object>>) recordObj;
-                    for (Map<String, Object> recordMap : recordList) {
-                        if (recordMap != null) {
-                            records.add(convertMapToDataRecord(recordMap));
-                        }
-                    }
-                }
-            } else {
-                // Root itself is a record
-                records.add(convertMapToDataRecord(unwrappedMap));
+            DataRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
             }
 
             return records;
@@ -157,6 +174,131 @@ public class JacksonXmlParser implements FileParser<DataRecord> {
         }
     }
 
+    /**
+     * Opens a streaming reader over XML content.
+     * When the root element contains "record" children, each record is read and
+     * converted separately, so only the current record is held in memory.
+     * Any other layout is read as a whole and interpreted like {@link #parse(File)}.
+     *
+     * @param input the stream to read from
+     * @return a reader returning one DataRecord per record element
+     * @throws FileConversionException if the input is not well-formed XML
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input) throws FileConversionException {
+        return open(input, STREAM_SOURCE);
+    }
+
+    /**
+     * Opens a streaming reader and inspects the first child of the root element
+     * to choose between record-by-record streaming and whole-document parsing.
+     *
+     * @param input  the stream to read from
+     * @param source the name of the input used in error messages
+     * @return a reader returning one DataRecord per record element
+     * @throws FileConversionException if the input is not well-formed XML
+     */
+    @Override
+    public RecordReader<DataRecord> open(InputStream input, String source) throws FileConversionException {
+        if (input == null) {
+            throw new FileConversionException("Input stream cannot be null");
+        }
+
+        try {
+            JsonParser parser = xmlMapper.createParser(input);
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.close();
+                throw new FileConversionException("Failed to parse XML file: " + source);
+            }
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.FIELD_NAME && RECORD_ELEMENT.equals(parser.currentName())) {
+                return new StreamingXmlRecordReader(parser, source);
+            }
+
+            // Unknown layout: read the rest of the root element and interpret it as a whole
+            @SuppressWarnings("unchecked")
+            Map<String, Object> rootMap = token == JsonToken.END_OBJECT
+                ? new java.util.HashMap<>()
+                : xmlMapper.readValue(parser, Map.class);
+            parser.close();
+
+            List<DataRecord> records = extractRecords(rootMap);
+            if (filter != null) {
+                Projection lookup = projection != null ? projection : filterFields;
+                records.removeIf(record -> !matches(record.getFields(), lookup));
+            }
+            if (projection != null) {
+                // Nothing left to skip: the whole document had to be read to find the records
+                records.replaceAll(record -> projection.project(record.getFields()));
+            }
+            return new ListRecordReader(records.iterator());
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to parse XML file: " + source, e);
+        }
+    }
+
+    /**
+     * Extracts records from a fully parsed XML document.
+     * Supports a "records" wrapper, direct "record" children, or a root that is itself a record.
+     *
+     * @param rootMap the parsed root element
+     * @return the list of DataRecords found in the document
+     */
+    private List<DataRecord> extractRecords(Map<String, Object> rootMap) {
+        // Unwrap item wrappers to restore array structure
+        // This converts { "data": { "item": [...] } } to { "data": [...] }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> unwrappedMap = (Map<String, Object>) unwrapItemWrappers(rootMap);
+
+        List<DataRecord> records = new ArrayList<>();
+
+        // Check if root contains "records" element
+        if (unwrappedMap.containsKey(ROOT_ELEMENT)) {
+            Object recordsObj = unwrappedMap.get(ROOT_ELEMENT);
+            if (recordsObj instanceof Map) {
+                // Single record inside records
+                @SuppressWarnings("unchecked")
+                Map<String, Object> recordMap = (Map<String, Object>) recordsObj;
+                records.add(convertMapToDataRecord(recordMap));
+            } else if (recordsObj instanceof List) {
+                // Multiple records inside records
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> recordList = (List<Map<String, Object>>) recordsObj;
+                for (Map<String, Object> recordMap : recordList) {
+                    if (recordMap != null) {
+                        records.add(convertMapToDataRecord(recordMap));
+                    }
+                }
+            }
+        } else if (unwrappedMap.containsKey(RECORD_ELEMENT)) {
+            // Direct record element at root
+            Object recordObj = unwrappedMap.get(RECORD_ELEMENT);
+            if (recordObj instanceof Map) {
+                // Single record
+                @SuppressWarnings("unchecked")
+                Map<String, Object> recordMap = (Map<String, Object>) recordObj;
+                records.add(convertMapToDataRecord(recordMap));
+            } else if (recordObj instanceof List) {
+                // Multiple records
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> recordList = (List<Map<String, Object>>) recordObj;
+                for (Map<String, Object> recordMap : recordList) {
+                    if (recordMap != null) {
+                        records.add(convertMapToDataRecord(recordMap));
+                    }
+                }
+            }
+        } else {
+            // Root itself is a record
+            records.add(convertMapToDataRecord(unwrappedMap));
+        }
+
+        return records;
+    }
+
     /**
      * Converts a Map to a DataRecord.
      * Handles nested structures (Map, List) and primitive types.
@@ -165,7 +307,7 @@ public class JacksonXmlParser implements FileParser<DataRecord> {
      * @return a DataRecord containing the data from the Map
      */
     private DataRecord convertMapToDataRecord(Map<String, Object> map) {
-        DataRecord record = new DataRecord();
+        DataRecord record = new DataRecord(map.size());
 
         for (Map.Entry<String, Object> entry : map.entrySet()) {
             String key = entry.getKey();
@@ -336,4 +478,263 @@ public class JacksonXmlParser implements FileParser<DataRecord> {
         // Primitive value, return as is
         return obj;
     }
+
+    /**
+     * Tests the fields of a record against the filter.
+     *
+     * @param fields the record fields, with item wrappers already unwrapped
+     * @param lookup the projection the filter slots were bound to
+     * @return true if the record matches
+     */
+    private boolean matches(Map<String, Object> fields, Projection lookup) {
+        Object[] values = lookup.newValues();
+        Projection.fill(lookup.getRoot(), fields, values);
+        for (int slot : filterSlots) {
+            if (slot >= 0) {
+                values[slot] = convertValue(values[slot]);
+            }
+        }
+        return filter.test(values, filterSlots);
+    }
+
+    /**
+     * Reads the children of an element into projected value slots, skipping unprojected children.
+     * A repeated child element of a projected column collects its values in a list,
+     * as when the whole record is read.
+     *
+     * @param parser the parser positioned on the START_OBJECT token of the element
+     * @param node   the projection node of the element
+     * @param values the value slots of the record being read
+     * @throws IOException if the XML is not well-formed
+     */
+    private void readProjectedElement(JsonParser parser, Projection.Node node, Object[] values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Projection.Node child = node.child(parser.currentName());
+            JsonToken token = parser.nextToken();
+
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.isSelected()) {
+                Object previous = values[child.getColumn()];
+                Object value = convertValue(unwrapItemWrapper(xmlMapper.readValue(parser, Object.class)));
+                Projection.fill(child, value, values);
+                if (previous != null) {
+                    values[child.getColumn()] = appendRepeated(previous, value);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                readProjectedElement(parser, child, values);
+            } else {
+                // Projected paths continue below this element, but it has no child elements
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Unwraps the value of a single element the way {@link #unwrapItemWrappers(Object)}
+     * unwraps the values of a map.
+     *
+     * @param value the element value
+     * @return the list of items for an item wrapper, otherwise the value with nested wrappers unwrapped
+     */
+    @SuppressWarnings("unchecked")
+    private Object unwrapItemWrapper(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            if (map.size() == 1 && map.get("item") instanceof List) {
+                List<Object> items = new ArrayList<>();
+                for (Object item : (List<Object>) map.get("item")) {
+                    items.add(unwrapItemWrappers(item));
+                }
+                return items;
+            }
+        }
+        return unwrapItemWrappers(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object appendRepeated(Object previous, Object value) {
+        List<Object> values;
+        if (previous instanceof RepeatedValues) {
+            values = (List<Object>) previous;
+        } else {
+            values = new RepeatedValues();
+            values.add(previous);
+        }
+        values.add(value);
+        return values;
+    }
+
+    /**
+     * Values of a repeated element, told apart from a list value read from a single element.
+     */
+    private static class RepeatedValues extends ArrayList<Object> {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Streaming reader that converts each "record" child of the root element as it is reached.
+     * Other children of the root element are skipped without being materialized.
+     */
+    private class StreamingXmlRecordReader implements RecordReader<DataRecord> {
+
+        private final JsonParser parser;
+        private final String source;
+        private final ChunkEventEmitter parseEvents = new ChunkEventEmitter(ParseChunkEvent::new, "XML");
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+        private boolean positioned = true;
+        private boolean finished;
+
+        StreamingXmlRecordReader(JsonParser parser, String source) {
+            this.parser = parser;
+            this.source = source;
+        }
+
+        @Override
+        public DataRecord read() throws FileConversionException {
+            try {
+                while (!finished) {
+                    JsonToken token = positioned ? parser.currentToken() : parser.nextToken();
+                    positioned = false;
+
+                    if (token != JsonToken.FIELD_NAME) {
+                        finished = true;
+                        break;
+                    }
+
+                    String name = parser.currentName();
+                    JsonToken valueToken = parser.nextToken();
+
+                    if (RECORD_ELEMENT.equals(name) && valueToken == JsonToken.START_OBJECT && projection != null) {
+                        Object[] values = projection.newValues();
+                        readProjectedElement(parser, projection.getRoot(), values);
+                        if (filter != null && !filter.test(values, filterSlots)) {
+                            continue;
+                        }
+                        parseEvents.recordProcessed();
+                        return projection.toRecord(values);
+                    }
+
+                    if (RECORD_ELEMENT.equals(name) && valueToken == JsonToken.START_OBJECT) {
+                        DataRecord record = readRecord();
+                        if (filter != null && !matchesRecord(record)) {
+                            continue;
+                        }
+                        parseEvents.recordProcessed();
+                        return record;
+                    }
+
+                    // Empty record elements and unrelated elements are skipped
+                    parser.skipChildren();
+                }
+                parseEvents.finish();
+                return null;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse XML file: " + source, e);
+            }
+        }
+
+        /**
+         * Reads the fields of a record element, which are its attributes and child elements alike.
+         * Scalar values are taken from the token stream directly; only nested elements are
+         * materialized through the mapper. A repeated child element collects its values in a list,
+         * as when the whole document is read.
+         */
+        private DataRecord readRecord() throws IOException {
+            names.clear();
+            values.clear();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                names.add(parser.currentName());
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_STRING) {
+                    values.add(convertValue(parser.getText()));
+                } else if (token == JsonToken.VALUE_NULL) {
+                    values.add(null);
+                } else {
+                    values.add(convertValue(unwrapItemWrapper(xmlMapper.readValue(parser, Object.class))));
+                }
+            }
+
+            DataRecord record = new DataRecord(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                String field = names.get(i);
+                Object value = values.get(i);
+                record.addField(field, record.hasField(field) ? appendRepeated(record.getField(field), value) : value);
+            }
+            return record;
+        }
+
+        private boolean matchesRecord(DataRecord record) {
+            Object[] slots = filterFields.newValues();
+            for (String field : names) {
+                Projection.Node node = filterFields.getRoot().child(field);
+                if (node != null) {
+                    Projection.fill(node, record.getField(field), slots);
+                }
+            }
+            return filter.test(slots, filterSlots);
+        }
+
+        /**
+         * Skips record elements on the token stream without building them or applying the filter.
+         */
+        @Override
+        public long skip(long count) throws FileConversionException {
+            long skipped = 0;
+            try {
+                while (skipped < count && !finished) {
+                    JsonToken token = positioned ? parser.currentToken() : parser.nextToken();
+                    positioned = false;
+
+                    if (token != JsonToken.FIELD_NAME) {
+                        finished = true;
+                        break;
+                    }
+
+                    String name = parser.currentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if (RECORD_ELEMENT.equals(name) && valueToken == JsonToken.START_OBJECT) {
+                        skipped++;
+                    }
+                    parser.skipChildren();
+                }
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to parse XML file: " + source, e);
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to close XML parser: " + source, e);
+            }
+        }
+    }
+
+    /**
+     * Reader over records that were already extracted from a fully parsed document.
+     */
+    private static class ListRecordReader implements RecordReader<DataRecord> {
+
+        private final Iterator<DataRecord> records;
+
+        ListRecordReader(Iterator<DataRecord> records) {
+            this.records = records;
+        }
+
+        @Override
+        public DataRecord read() {
+            return records.hasNext() ? records.next() : null;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release, the document was read completely when the reader was opened
+        }
+    }
 }
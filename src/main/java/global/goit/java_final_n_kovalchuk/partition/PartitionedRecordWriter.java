@@ -0,0 +1,440 @@
+package global.goit.java_final_n_kovalchuk.partition;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes records to one output file per distinct combination of partition field values,
+ * in Hive-style directories: with the output path out/part.csv and the partition field
+ * country, a record of Ukraine goes to out/country=UA/part.csv. Characters that cannot
+ * be part of a directory name are written as %XX, and a missing or empty value selects
+ * the directory {@value #DEFAULT_PARTITION}. Top-level partition fields are taken out of
+ * the records, as the directory names already hold them.
+ *
+ * Records are buffered per partition and written in batches, so many partitions do not
+ * cause many tiny writes. A partition is written when its buffer is full, and when all
+ * buffers together exceed the memory budget the largest buffers are written first.
+ * A CSV partition file is completed by its first batch, which sets its header row.
+ *
+ * At most a fixed number of partition files are open at a time. The open writers are kept
+ * in a least recently used order; opening one more closes the least recently used writer,
+ * which completes its document, and the file is later reopened through
+ * {@link AppendableFileWriter#openAppend} when its partition gets more records. Any number
+ * of partitions can therefore be written without running out of file descriptors.
+ *
+ * Every partition file is written to a temporary file next to it, and all of them are
+ * renamed to their partition paths when the writer is closed; an aborted run leaves the
+ * partition files of a previous run as they were.
+ */
+public class PartitionedRecordWriter implements RecordWriter<DataRecord> {
+
+    /**
+     * Directory value of records whose partition field is missing or empty.
+     */
+    public static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+    /**
+     * Number of partition files open at a time when no other limit is given.
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 256;
+
+    private static final long PARTITION_BUFFER_BYTES = 256 * 1024;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static final String ESCAPED_CHARACTERS = "\"#%'*/:=?\\[]^{}<>|";
+    private static final long RECORD_OVERHEAD_BYTES = 96;
+    private static final long FIELD_OVERHEAD_BYTES = 48;
+    private static final int ESTIMATE_INTERVAL = 64;
+
+    private final AppendableFileWriter<DataRecord> format;
+    private final Path output;
+    private final String[] fields;
+    private final int maxOpenFiles;
+    private final long memoryBudget;
+    private final IoSettings io;
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private final LinkedHashMap<Partition, OpenFile> openFiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bufferedBytes;
+    private long recordBytes;
+    private long sequence;
+    private long reopened;
+
+    /**
+     * Constructs a new PartitionedRecordWriter.
+     *
+     * @param format       the writer of the output format, which must be able to continue its documents
+     * @param output       the output path; its directory holds the partition directories and
+     *                     its file name is the name of every partition file
+     * @param fields       the partition fields, one directory level each, in order
+     * @param maxOpenFiles the maximum number of partition files open at a time
+     * @param memoryBudget the maximum estimated heap size of all buffered records in bytes
+     */
+    public PartitionedRecordWriter(AppendableFileWriter<DataRecord> format, Path output, List<String> fields,
+                                   int maxOpenFiles, long memoryBudget) {
+        this(format, output, fields, maxOpenFiles, memoryBudget, IoSettings.DEFAULT);
+    }
+
+    /**
+     * Constructs a new PartitionedRecordWriter that writes the partition files with the given I/O settings.
+     * As many files are open at a time, each file buffers at most {@value #FILE_BUFFER_SIZE} bytes,
+     * and as files are reopened and continued in place, they are written through the page cache.
+     *
+     * @param format       the writer of the output format, which must be able to continue its documents
+     * @param output       the output path; its directory holds the partition directories and
+     *                     its file name is the name of every partition file
+     * @param fields       the partition fields, one directory level each, in order
+     * @param maxOpenFiles the maximum number of partition files open at a time
+     * @param memoryBudget the maximum estimated heap size of all buffered records in bytes
+     * @param io           the buffer and fsync settings of the partition files
+     */
+    public PartitionedRecordWriter(AppendableFileWriter<DataRecord> format, Path output, List<String> fields,
+                                   int maxOpenFiles, long memoryBudget, IoSettings io) {
+        this.format = format;
+        this.output = output;
+        this.fields = fields.toArray(new String[0]);
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+        this.memoryBudget = memoryBudget;
+        this.io = io.withBufferSize(Math.min(io.getBufferSize(), FILE_BUFFER_SIZE)).withDirectIo(false);
+    }
+
+    /**
+     * Builds the directory name of one partition field value, such as "country=UA".
+     *
+     * @param field the partition field
+     * @param value the field value, or null
+     * @return the directory name with unsafe characters escaped
+     */
+    public static String directoryName(String field, Object value) {
+        String text = value == null ? "" : value.toString();
+        if (text.isEmpty()) {
+            return escape(field) + "=" + DEFAULT_PARTITION;
+        }
+        return escape(field) + "=" + escape(text);
+    }
+
+    @Override
+    public void write(DataRecord record) throws FileConversionException {
+        StringBuilder key = new StringBuilder();
+        for (String field : fields) {
+            if (key.length() > 0) {
+                key.append('/');
+            }
+            key.append(directoryName(field, valueOf(record, field)));
+        }
+
+        Partition partition = partitions.get(key.toString());
+        if (partition == null) {
+            String directory = key.toString();
+            partition = new Partition(output.resolveSibling(directory).resolve(output.getFileName()));
+            partitions.put(directory, partition);
+        }
+
+        if (sequence++ % ESTIMATE_INTERVAL == 0) {
+            // Measuring a record walks its fields, so a sample stands in for the records that follow it
+            recordBytes = estimateBytes(record);
+        }
+        partition.buffer.add(withoutPartitionFields(record));
+        partition.bufferedBytes += recordBytes;
+        bufferedBytes += recordBytes;
+
+        if (partition.bufferedBytes >= PARTITION_BUFFER_BYTES) {
+            writeBuffer(partition);
+        }
+        if (bufferedBytes > memoryBudget) {
+            writeLargestBuffers();
+        }
+    }
+
+    /**
+     * Writes all buffered records, completes every partition document and renames the
+     * partition files into place.
+     *
+     * @throws FileConversionException if a partition file cannot be written
+     */
+    @Override
+    public void close() throws FileConversionException {
+        for (Partition partition : partitions.values()) {
+            if (!partition.buffer.isEmpty()) {
+                writeBuffer(partition);
+            }
+        }
+        closeOpenFiles();
+        for (Partition partition : partitions.values()) {
+            if (partition.sink != null) {
+                try (Sink sink = partition.sink) {
+                    sink.commit();
+                } catch (IOException e) {
+                    throw new FileConversionException("Failed to write partition file " + partition.path, e);
+                }
+                partition.sink = null;
+            }
+        }
+    }
+
+    /**
+     * Discards the partition files that were not renamed into place, without writing the buffered records.
+     */
+    public void abort() {
+        openFiles.clear();
+        for (Partition partition : partitions.values()) {
+            if (partition.sink != null) {
+                try {
+                    partition.sink.close();
+                } catch (IOException e) {
+                    // The conversion already failed; the temporary file may be left behind
+                }
+                partition.sink = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the paths of all partition files, in the order their partitions were first seen.
+     *
+     * @return the partition file paths
+     */
+    public List<Path> getPartitionPaths() {
+        List<Partition> ordered = new ArrayList<>(partitions.values());
+        ordered.sort(Comparator.comparingLong(partition -> partition.firstSeen));
+        List<Path> paths = new ArrayList<>(ordered.size());
+        for (Partition partition : ordered) {
+            paths.add(partition.path);
+        }
+        return paths;
+    }
+
+    /**
+     * Gets the number of times a partition file was reopened after it was closed to stay within the open file limit.
+     *
+     * @return the reopen count
+     */
+    public long getReopened() {
+        return reopened;
+    }
+
+    /**
+     * Gets the total size of the partition files written so far.
+     *
+     * @return the size in bytes
+     * @throws FileConversionException if the size of a file cannot be read
+     */
+    public long getBytes() throws FileConversionException {
+        long bytes = 0;
+        for (Partition partition : partitions.values()) {
+            try {
+                bytes += partition.records > 0 ? Files.size(partition.path) : 0;
+            } catch (IOException e) {
+                throw new FileConversionException("Cannot read the size of " + partition.path, e);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Looks a field up by its name, or by a dotted path through nested objects if no field has that name.
+     */
+    private static Object valueOf(DataRecord record, String field) {
+        Object value = record.getField(field);
+        if (value != null || field.indexOf('.') < 0) {
+            return value;
+        }
+
+        Object current = record.getFields();
+        for (String part : field.split("\\.")) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(part);
+        }
+        return current;
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean unsafe = c < 0x20 || c == 0x7F || ESCAPED_CHARACTERS.indexOf(c) >= 0;
+            if (unsafe && escaped == null) {
+                escaped = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (unsafe) {
+                    escaped.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : text;
+    }
+
+    private DataRecord withoutPartitionFields(DataRecord record) {
+        boolean found = false;
+        for (String field : fields) {
+            found |= record.hasField(field);
+        }
+        if (!found) {
+            return record;
+        }
+
+        DataRecord trimmed = DataRecord.ordered(record.size());
+        outer:
+        for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+            for (String partitionField : fields) {
+                if (partitionField.equals(field.getKey())) {
+                    continue outer;
+                }
+            }
+            trimmed.addField(field.getKey(), field.getValue());
+        }
+        return trimmed;
+    }
+
+    /**
+     * Estimates the heap size of a record roughly, counting field entries and value text.
+     */
+    private static long estimateBytes(DataRecord record) {
+        long bytes = RECORD_OVERHEAD_BYTES;
+        for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+            Object value = field.getValue();
+            bytes += FIELD_OVERHEAD_BYTES + (value == null ? 0 : 2L * value.toString().length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the largest buffers until the buffered records take up at most half the memory budget.
+     */
+    private void writeLargestBuffers() throws FileConversionException {
+        List<Partition> buffered = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            if (!partition.buffer.isEmpty()) {
+                buffered.add(partition);
+            }
+        }
+        buffered.sort(Comparator.comparingLong((Partition partition) -> partition.bufferedBytes).reversed());
+
+        Iterator<Partition> largest = buffered.iterator();
+        while (bufferedBytes > memoryBudget / 2 && largest.hasNext()) {
+            writeBuffer(largest.next());
+        }
+    }
+
+    private void writeBuffer(Partition partition) throws FileConversionException {
+        OpenFile file = open(partition);
+        for (DataRecord record : partition.buffer) {
+            file.writer.write(record);
+        }
+        partition.records += partition.buffer.size();
+        partition.buffer.clear();
+        bufferedBytes -= partition.bufferedBytes;
+        partition.bufferedBytes = 0;
+
+        if (!file.writer.flush()) {
+            // A writer that holds records back until it is closed (CSV) would keep them on the heap;
+            // closing it writes them, and further records are appended with its columns
+            openFiles.remove(partition);
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the open writer of a partition, opening its file and closing the least recently used one if needed.
+     */
+    private OpenFile open(Partition partition) throws FileConversionException {
+        OpenFile file = openFiles.get(partition);
+        if (file != null) {
+            return file;
+        }
+
+        if (openFiles.size() >= maxOpenFiles) {
+            Iterator<OpenFile> eldest = openFiles.values().iterator();
+            OpenFile evicted = eldest.next();
+            eldest.remove();
+            evicted.close();
+        }
+
+        try {
+            if (partition.sink == null) {
+                Files.createDirectories(partition.path.toAbsolutePath().getParent());
+                partition.sink = Sink.open(partition.path, io);
+                file = new OpenFile(partition.sink, format.open(partition.sink));
+            } else {
+                reopened++;
+                file = new OpenFile(partition.sink, format.openAppend(partition.sink.channel(), partition.records));
+            }
+        } catch (IOException e) {
+            throw new FileConversionException("Cannot open partition file " + partition.path, e);
+        }
+        openFiles.put(partition, file);
+        return file;
+    }
+
+    private void closeOpenFiles() throws FileConversionException {
+        Collection<OpenFile> files = new ArrayList<>(openFiles.values());
+        openFiles.clear();
+        for (OpenFile file : files) {
+            file.close();
+        }
+    }
+
+    /**
+     * One partition: its file, the records written to it and the records buffered for it.
+     */
+    private final class Partition {
+
+        private final Path path;
+        private final long firstSeen = partitions.size();
+        private final List<DataRecord> buffer = new ArrayList<>();
+        private long bufferedBytes;
+        private long records;
+        private Sink sink;
+
+        Partition(Path path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * A partition file that is open, with the writer continuing its document.
+     */
+    private static final class OpenFile {
+
+        private final Sink sink;
+        private final RecordWriter<DataRecord> writer;
+
+        OpenFile(Sink sink, RecordWriter<DataRecord> writer) {
+            this.sink = sink;
+            this.writer = writer;
+        }
+
+        /**
+         * Completes the document and closes the file, keeping it for later appends or the final rename.
+         */
+        void close() throws FileConversionException {
+            try {
+                writer.close();
+                sink.suspend();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write partition file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package global.goit.java_final_n_kovalchuk.pipeline;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.metrics.QueueStatistics;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads records from another reader on a dedicated thread, so that parsing overlaps with
+ * whatever the calling thread does with the records. The reading thread hands records
+ * over in batches through an {@link SpscRingBuffer}, which stops it once it is the given
+ * number of batches ahead.
+ *
+ * Closing this reader stops the reading thread but does not close the source reader,
+ * which belongs to the caller; it is safe to close the source afterwards.
+ */
+public class PipelinedRecordReader implements RecordReader<DataRecord> {
+
+    private static final List<DataRecord> END = List.of();
+
+    private final RecordReader<DataRecord> source;
+    private final int batchRecords;
+    private final SpscRingBuffer<List<DataRecord>> queue;
+    private final Thread thread;
+
+    private volatile FileConversionException failure;
+    private List<DataRecord> batch = new ArrayList<>();
+    private int position;
+    private boolean ended;
+
+    /**
+     * Constructs a new PipelinedRecordReader and starts the reading thread.
+     *
+     * @param source       the reader to read from on the reading thread
+     * @param batchRecords the number of records handed over at a time
+     * @param batches      the number of batches the reading thread may be ahead
+     */
+    public PipelinedRecordReader(RecordReader<DataRecord> source, int batchRecords, int batches) {
+        this.source = source;
+        this.batchRecords = Math.max(1, batchRecords);
+        this.queue = new SpscRingBuffer<>(batches);
+        this.thread = new Thread(this::readAll, "pipeline-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public DataRecord read() throws FileConversionException {
+        while (position == batch.size()) {
+            if (ended) {
+                return null;
+            }
+            List<DataRecord> next = queue.take();
+            if (next == null || next == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure;
+                }
+                return null;
+            }
+            batch = next;
+            position = 0;
+        }
+        return batch.get(position++);
+    }
+
+    /**
+     * Stops the reading thread and waits for it to leave the source reader.
+     */
+    @Override
+    public void close() {
+        queue.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the statistics of the queue between the reading thread and the caller.
+     *
+     * @return the queue statistics
+     */
+    public QueueStatistics getStatistics() {
+        return queue.getStatistics("read");
+    }
+
+    private void readAll() {
+        try {
+            List<DataRecord> records = new ArrayList<>(batchRecords);
+            for (DataRecord record = source.read(); record != null; record = source.read()) {
+                records.add(record);
+                if (records.size() == batchRecords) {
+                    if (!queue.put(records)) {
+                        return;
+                    }
+                    records = new ArrayList<>(batchRecords);
+                }
+            }
+            if (!records.isEmpty() && !queue.put(records)) {
+                return;
+            }
+        } catch (FileConversionException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new FileConversionException("Failed to read input: " + e.getMessage(), e);
+        }
+        queue.put(END);
+    }
+}
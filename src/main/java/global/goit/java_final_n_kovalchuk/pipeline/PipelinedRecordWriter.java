@@ -0,0 +1,136 @@
+package global.goit.java_final_n_kovalchuk.pipeline;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.metrics.QueueStatistics;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes records to another writer on a dedicated thread, so that serialization and output
+ * overlap with producing the records. Records are collected in batches on the calling
+ * thread and handed over through an {@link SpscRingBuffer}; when the writing thread falls
+ * the given number of batches behind, {@link #write} waits for it.
+ *
+ * {@link #close()} hands over the last batch, waits for the writing thread and completes
+ * the target document. A failure of the writing thread is reported by the next call of
+ * {@link #write} or by {@link #close()}. {@link #abort()} stops the writing thread without
+ * completing the document.
+ */
+public class PipelinedRecordWriter implements RecordWriter<DataRecord> {
+
+    private static final List<DataRecord> END = List.of();
+
+    private final RecordWriter<DataRecord> target;
+    private final int batchRecords;
+    private final SpscRingBuffer<List<DataRecord>> queue;
+    private final Thread thread;
+
+    private volatile FileConversionException failure;
+    private List<DataRecord> batch;
+    private boolean finished;
+
+    /**
+     * Constructs a new PipelinedRecordWriter and starts the writing thread.
+     *
+     * @param target       the writer to write to on the writing thread
+     * @param batchRecords the number of records handed over at a time
+     * @param batches      the number of batches the writing thread may be behind
+     */
+    public PipelinedRecordWriter(RecordWriter<DataRecord> target, int batchRecords, int batches) {
+        this.target = target;
+        this.batchRecords = Math.max(1, batchRecords);
+        this.batch = new ArrayList<>(this.batchRecords);
+        this.queue = new SpscRingBuffer<>(batches);
+        this.thread = new Thread(this::writeAll, "pipeline-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void write(DataRecord record) throws FileConversionException {
+        batch.add(record);
+        if (batch.size() == batchRecords) {
+            handOver(batch);
+            batch = new ArrayList<>(batchRecords);
+        }
+    }
+
+    /**
+     * Writes the remaining records and completes the target document.
+     *
+     * @throws FileConversionException if the writing thread failed or the document cannot be completed
+     */
+    @Override
+    public void close() throws FileConversionException {
+        if (finished) {
+            return;
+        }
+        if (!batch.isEmpty()) {
+            handOver(batch);
+            batch = new ArrayList<>();
+        }
+        handOver(END);
+        join();
+        finished = true;
+        if (failure != null) {
+            throw failure;
+        }
+        target.close();
+    }
+
+    /**
+     * Stops the writing thread without completing the target document; does nothing after {@link #close()}.
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        queue.close();
+        join();
+    }
+
+    /**
+     * Gets the statistics of the queue between the caller and the writing thread.
+     *
+     * @return the queue statistics
+     */
+    public QueueStatistics getStatistics() {
+        return queue.getStatistics("write");
+    }
+
+    private void handOver(List<DataRecord> records) throws FileConversionException {
+        if (!queue.put(records) || failure != null) {
+            join();
+            finished = true;
+            throw failure != null ? failure : new FileConversionException("The output writer was stopped");
+        }
+    }
+
+    private void join() {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeAll() {
+        try {
+            for (List<DataRecord> records = queue.take(); records != null && records != END; records = queue.take()) {
+                for (DataRecord record : records) {
+                    target.write(record);
+                }
+            }
+        } catch (FileConversionException e) {
+            failure = e;
+            queue.close();
+        } catch (RuntimeException e) {
+            failure = new FileConversionException("Failed to write output: " + e.getMessage(), e);
+            queue.close();
+        }
+    }
+}
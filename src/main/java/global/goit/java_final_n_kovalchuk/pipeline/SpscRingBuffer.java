@@ -0,0 +1,162 @@
+package global.goit.java_final_n_kovalchuk.pipeline;
+
+import global.goit.java_final_n_kovalchuk.metrics.QueueStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue between exactly one producer thread and one consumer thread.
+ *
+ * Elements live in a power-of-two array indexed by two ever-increasing counters: the
+ * producer alone advances the tail, the consumer alone advances the head, and each side
+ * publishes its counter with an ordered write. Each side also keeps the last value it saw
+ * of the other side's counter and only rereads it when the buffer looks full or empty,
+ * so the two threads rarely touch the same cache line.
+ *
+ * A full buffer makes the producer wait, which is the backpressure that keeps a fast
+ * stage from running ahead of a slow one. Waiting threads spin briefly, then yield, then
+ * park for short intervals, so a stalled side does not hold a processor. Either side can
+ * close the buffer to release the other one.
+ *
+ * The depth of the buffer is sampled on every put, and the waits of both sides are
+ * counted; the statistics are meant to be read once both threads are done.
+ *
+ * @param <T> the type of elements
+ */
+public class SpscRingBuffer<T> {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile boolean closed;
+
+    // Producer side
+    private long cachedHead;
+    private long depthSum;
+    private int maxDepth;
+    private long fullWaits;
+
+    // Consumer side
+    private long cachedTail;
+    private long emptyWaits;
+
+    /**
+     * Constructs a new SpscRingBuffer.
+     *
+     * @param capacity the maximum number of elements, rounded up to a power of two
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new Object[Math.max(2, size)];
+        this.mask = slots.length - 1;
+    }
+
+    /**
+     * Gets the maximum number of elements.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Adds an element, waiting while the buffer is full. Called by the producer only.
+     *
+     * @param element the element, not null
+     * @return true if the element was added, false if the buffer was closed
+     */
+    public boolean put(T element) {
+        long position = tail.get();
+        if (position - cachedHead == slots.length) {
+            cachedHead = head.get();
+            if (position - cachedHead == slots.length) {
+                fullWaits++;
+                for (int tries = 0; position - cachedHead == slots.length; tries++) {
+                    if (closed) {
+                        return false;
+                    }
+                    backOff(tries);
+                    cachedHead = head.get();
+                }
+            }
+        }
+        if (closed) {
+            return false;
+        }
+
+        slots[(int) position & mask] = element;
+        tail.lazySet(position + 1);
+
+        int depth = (int) (position + 1 - cachedHead);
+        depthSum += depth;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the oldest element, waiting while the buffer is empty. Called by the consumer only.
+     *
+     * @return the element, or null if the buffer was closed
+     */
+    @SuppressWarnings("unchecked")
+    public T take() {
+        long position = head.get();
+        if (position == cachedTail) {
+            cachedTail = tail.get();
+            if (position == cachedTail) {
+                emptyWaits++;
+                for (int tries = 0; position == cachedTail; tries++) {
+                    if (closed) {
+                        return null;
+                    }
+                    backOff(tries);
+                    cachedTail = tail.get();
+                }
+            }
+        }
+
+        int index = (int) position & mask;
+        T element = (T) slots[index];
+        slots[index] = null;
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Closes the buffer; waiting and later calls of {@link #put} and {@link #take} return right away.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Gets the statistics of the buffer.
+     *
+     * @param name the name of the buffer in reports
+     * @return the depth and wait statistics so far
+     */
+    public QueueStatistics getStatistics(String name) {
+        long puts = tail.get();
+        return new QueueStatistics(name, slots.length, puts, puts == 0 ? 0 : (double) depthSum / puts, maxDepth,
+            fullWaits, emptyWaits);
+    }
+
+    private static void backOff(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class for JFR events that cover a chunk of records.
+ * Each event spans the wall-clock window in which its records were processed.
+ */
+@Category({"File Converter"})
+@StackTrace(false)
+public abstract class ChunkEvent extends Event {
+
+    @Label("Format")
+    String format;
+
+    @Label("Records")
+    int records;
+
+    /**
+     * Sets the format the chunk was read or written in.
+     *
+     * @param format the format name
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the number of records in the chunk.
+     *
+     * @param records the record count
+     */
+    public void setRecords(int records) {
+        this.records = records;
+    }
+}
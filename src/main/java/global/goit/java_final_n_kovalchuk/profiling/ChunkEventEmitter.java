@@ -0,0 +1,70 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import java.util.function.Supplier;
+
+/**
+ * Groups records into chunks and emits one JFR event per chunk.
+ * Processing a record only increments a counter, so emitters can stay in the
+ * per-record paths of parsers and writers; when no recording is running,
+ * the committed events are discarded by JFR at almost no cost.
+ */
+public class ChunkEventEmitter {
+
+    /**
+     * Number of records covered by one event.
+     */
+    public static final int CHUNK_SIZE = 1024;
+
+    private final Supplier<? extends ChunkEvent> eventFactory;
+    private final String format;
+    private ChunkEvent event;
+    private int records;
+
+    /**
+     * Constructs a new ChunkEventEmitter and starts timing the first chunk.
+     *
+     * @param eventFactory creates the event for each chunk
+     * @param format       the format name stored in every event
+     */
+    public ChunkEventEmitter(Supplier<? extends ChunkEvent> eventFactory, String format) {
+        this.eventFactory = eventFactory;
+        this.format = format;
+        startChunk();
+    }
+
+    /**
+     * Counts one processed record and emits an event when the chunk is full.
+     */
+    public void recordProcessed() {
+        if (++records == CHUNK_SIZE) {
+            commitChunk();
+            startChunk();
+        }
+    }
+
+    /**
+     * Emits the event for the last, partially filled chunk.
+     * Calling this more than once has no further effect.
+     */
+    public void finish() {
+        if (records > 0) {
+            commitChunk();
+            records = 0;
+        }
+    }
+
+    private void startChunk() {
+        event = eventFactory.get();
+        records = 0;
+        event.begin();
+    }
+
+    private void commitChunk() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormat(format);
+            event.setRecords(records);
+            event.commit();
+        }
+    }
+}
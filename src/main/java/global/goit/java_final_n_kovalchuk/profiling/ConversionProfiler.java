@@ -0,0 +1,188 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process profiler for a conversion run.
+ *
+ * Starts a JFR recording with execution and allocation sampling, consumes it
+ * through the JFR streaming API while the conversion runs, and aggregates samples
+ * by top stack frame. The converter's own chunk, batch and spill events are counted too.
+ */
+public class ConversionProfiler {
+
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final Duration SAMPLING_PERIOD = Duration.ofMillis(10);
+    private static final String ALLOCATION_THROTTLE = "1000/s";
+    private static final int FLUSHES_TO_AWAIT = 2;
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    private final Map<String, Long> methodSamples = new ConcurrentHashMap<>();
+    private final Map<String, Long> allocationWeights = new ConcurrentHashMap<>();
+    private final Map<String, Long> converterEvents = new ConcurrentHashMap<>();
+    private final CountDownLatch flushesAfterStop = new CountDownLatch(FLUSHES_TO_AWAIT);
+
+    private RecordingStream stream;
+    private volatile boolean stopping;
+
+    /**
+     * Constructs a new ConversionProfiler.
+     */
+    public ConversionProfiler() {
+    }
+
+    /**
+     * Starts the JFR recording and begins consuming it on a background thread.
+     *
+     * @throws FileConversionException if JFR is not available in this JVM
+     */
+    public void start() throws FileConversionException {
+        try {
+            stream = new RecordingStream();
+            stream.enable(EXECUTION_SAMPLE).withPeriod(SAMPLING_PERIOD).withStackTrace();
+            stream.enable(ALLOCATION_SAMPLE).with("throttle", ALLOCATION_THROTTLE).withStackTrace();
+            stream.enable(ParseChunkEvent.class);
+            stream.enable(WriteChunkEvent.class);
+            stream.enable(RecordBatchEvent.class);
+            stream.enable(SpillEvent.class);
+
+            stream.onEvent(EXECUTION_SAMPLE, this::onExecutionSample);
+            stream.onEvent(ALLOCATION_SAMPLE, this::onAllocationSample);
+            stream.onEvent(ParseChunkEvent.NAME, event -> converterEvents.merge("parse chunks", 1L, Long::sum));
+            stream.onEvent(WriteChunkEvent.NAME, event -> converterEvents.merge("write chunks", 1L, Long::sum));
+            stream.onEvent(RecordBatchEvent.NAME, event -> converterEvents.merge("record batches", 1L, Long::sum));
+            stream.onEvent(SpillEvent.NAME, event -> converterEvents.merge("spills", 1L, Long::sum));
+            stream.onFlush(() -> {
+                if (stopping) {
+                    flushesAfterStop.countDown();
+                }
+            });
+
+            stream.startAsync();
+        } catch (RuntimeException e) {
+            throw new FileConversionException("Failed to start JFR profiling: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits until the events recorded so far have been delivered, then stops the recording.
+     * JFR flushes the stream about once per second, so this may take a second or two.
+     */
+    public void stop() {
+        if (stream == null) {
+            return;
+        }
+
+        stopping = true;
+        try {
+            flushesAfterStop.await(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * Prints the hottest methods, the largest allocation sites and the converter event counts.
+     *
+     * @param out   the stream to print to
+     * @param limit the maximum number of methods and allocation sites to print
+     */
+    public void printSummary(PrintStream out, int limit) {
+        long totalSamples = methodSamples.values().stream().mapToLong(Long::longValue).sum();
+        long totalWeight = allocationWeights.values().stream().mapToLong(Long::longValue).sum();
+
+        out.println("Profile: " + totalSamples + " execution sample(s)");
+        out.println("Top hot methods:");
+        for (Map.Entry<String, Long> entry : top(methodSamples, limit)) {
+            out.printf("  %6.2f%%  %s%n", 100.0 * entry.getValue() / totalSamples, entry.getKey());
+        }
+
+        out.println("Top allocation sites:");
+        for (Map.Entry<String, Long> entry : top(allocationWeights, limit)) {
+            out.printf("  %10.2f MB  %6.2f%%  %s%n",
+                entry.getValue() / (1024.0 * 1024.0), 100.0 * entry.getValue() / totalWeight, entry.getKey());
+        }
+
+        out.println("Converter events: " + converterEvents);
+    }
+
+    /**
+     * Gets execution sample counts per method.
+     *
+     * @return samples keyed by "class.method"
+     */
+    public Map<String, Long> getMethodSamples() {
+        return methodSamples;
+    }
+
+    /**
+     * Gets sampled allocation weight per allocation site.
+     *
+     * @return allocated bytes keyed by "allocated class at class.method"
+     */
+    public Map<String, Long> getAllocationWeights() {
+        return allocationWeights;
+    }
+
+    /**
+     * Gets the number of converter events received per kind.
+     *
+     * @return event counts keyed by event kind
+     */
+    public Map<String, Long> getConverterEvents() {
+        return converterEvents;
+    }
+
+    private void onExecutionSample(RecordedEvent event) {
+        String method = topMethod(event.getStackTrace());
+        if (method != null) {
+            methodSamples.merge(method, 1L, Long::sum);
+        }
+    }
+
+    private void onAllocationSample(RecordedEvent event) {
+        String method = topMethod(event.getStackTrace());
+        if (method == null) {
+            return;
+        }
+
+        String site = event.getClass("objectClass").getName() + " at " + method;
+        allocationWeights.merge(site, event.getLong("weight"), Long::sum);
+    }
+
+    private static String topMethod(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame()) {
+                return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            }
+        }
+        return null;
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> values, int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(values.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+}
@@ -0,0 +1,19 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted by the parsers for every chunk of records read from the input.
+ */
+@Name(ParseChunkEvent.NAME)
+@Label("Parse Chunk")
+@Description("A chunk of records parsed from the input")
+public class ParseChunkEvent extends ChunkEvent {
+
+    /**
+     * Event name used in recordings.
+     */
+    public static final String NAME = "global.goit.converter.ParseChunk";
+}
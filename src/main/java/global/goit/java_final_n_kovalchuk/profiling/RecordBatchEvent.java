@@ -0,0 +1,19 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted by the converter for every batch of records moved from the parser to the writer.
+ */
+@Name(RecordBatchEvent.NAME)
+@Label("Record Batch")
+@Description("A batch of records moved from the parser to the writer by the converter")
+public class RecordBatchEvent extends ChunkEvent {
+
+    /**
+     * Event name used in recordings.
+     */
+    public static final String NAME = "global.goit.converter.RecordBatch";
+}
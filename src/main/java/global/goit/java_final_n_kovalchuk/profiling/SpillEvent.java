@@ -0,0 +1,62 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when buffered records are spilled to a temporary file.
+ */
+@Name(SpillEvent.NAME)
+@Label("Spill")
+@Description("Buffered records written to a temporary file to stay within the memory budget")
+@Category({"File Converter"})
+@StackTrace(false)
+public class SpillEvent extends Event {
+
+    /**
+     * Event name used in recordings.
+     */
+    public static final String NAME = "global.goit.converter.Spill";
+
+    @Label("Records")
+    int records;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("File")
+    String file;
+
+    /**
+     * Sets the number of records spilled.
+     *
+     * @param records the record count
+     */
+    public void setRecords(int records) {
+        this.records = records;
+    }
+
+    /**
+     * Sets the number of bytes written to the spill file.
+     *
+     * @param bytes the byte count
+     */
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Sets the path of the spill file.
+     *
+     * @param file the spill file path
+     */
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
@@ -0,0 +1,19 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted by the writers for every chunk of records serialized to the output.
+ */
+@Name(WriteChunkEvent.NAME)
+@Label("Write Chunk")
+@Description("A chunk of records serialized to the output")
+public class WriteChunkEvent extends ChunkEvent {
+
+    /**
+     * Event name used in recordings.
+     */
+    public static final String NAME = "global.goit.converter.WriteChunk";
+}
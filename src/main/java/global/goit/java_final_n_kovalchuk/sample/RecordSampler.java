@@ -0,0 +1,227 @@
+package global.goit.java_final_n_kovalchuk.sample;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Random sample of records, for --sample.
+ *
+ * A percentage keeps every record independently with that probability (Bernoulli sampling)
+ * and passes kept records on at once. A count keeps a uniform sample of exactly that many
+ * records (reservoir sampling, Algorithm L) and returns them in input order after the input
+ * ends. Both draw the number of records to pass over before the next candidate from a
+ * geometric distribution, so randomness is only drawn per candidate, and readers can skip
+ * the records in between without parsing them. The same seed always selects the same records.
+ */
+public class RecordSampler {
+
+    private static final double PERCENT = 100.0;
+    private static final int MAX_RESERVOIR_SIZE = Integer.MAX_VALUE - 8;
+
+    private final SplittableRandom random;
+    private final double probability;
+    private final int reservoirSize;
+    private final List<DataRecord> reservoir;
+    private long[] positions;
+
+    private double weight;
+    private long gap;
+    private long seen;
+    private long sampled;
+
+    private RecordSampler(double probability, int reservoirSize, long seed) {
+        this.random = new SplittableRandom(seed);
+        this.probability = probability;
+        this.reservoirSize = reservoirSize;
+        this.reservoir = reservoirSize > 0 ? new ArrayList<>(Math.min(reservoirSize, 1024)) : null;
+        this.positions = new long[reservoirSize > 0 ? Math.min(reservoirSize, 1024) : 0];
+        if (reservoirSize > 0) {
+            weight = Math.exp(Math.log(nextUniform()) / reservoirSize);
+        } else {
+            gap = nextBernoulliGap();
+        }
+    }
+
+    /**
+     * Parses a --sample specification: a record count such as "1000" or a percentage such as "2.5%".
+     *
+     * @param specification the sample size
+     * @param seed          the seed of the random generator
+     * @return the sampler
+     * @throws InvalidInputException if the specification is not a positive count or a percentage up to 100
+     */
+    public static RecordSampler parse(String specification, long seed) throws InvalidInputException {
+        String text = specification.trim();
+        try {
+            if (text.endsWith("%")) {
+                double percent = Double.parseDouble(text.substring(0, text.length() - 1).trim());
+                if (percent > 0 && percent <= PERCENT) {
+                    return new RecordSampler(percent / PERCENT, 0, seed);
+                }
+            } else {
+                long count = Long.parseLong(text);
+                if (count > 0 && count <= MAX_RESERVOIR_SIZE) {
+                    return new RecordSampler(0, (int) count, seed);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below together with out-of-range values
+        }
+        throw new InvalidInputException(
+            "Invalid sample size: '" + specification + "'. Usage: --sample <records|percent%>, "
+                + "for example --sample 1000 or --sample 5%"
+        );
+    }
+
+    /**
+     * Checks whether records are held back until the input ends.
+     *
+     * @return true for a fixed-size sample, false for a percentage
+     */
+    public boolean isReservoir() {
+        return reservoir != null;
+    }
+
+    /**
+     * Gets the number of following records that are rejected whatever they hold,
+     * so that a reader may skip them without parsing.
+     *
+     * @return the records to pass over before the next candidate
+     */
+    public long pendingSkip() {
+        return gap;
+    }
+
+    /**
+     * Counts records that a reader skipped instead of offering them.
+     *
+     * @param count the number of records skipped, at most {@link #pendingSkip()}
+     */
+    public void skipped(long count) {
+        gap -= count;
+        seen += count;
+    }
+
+    /**
+     * Offers the next record.
+     *
+     * @param record the record
+     * @return true if the record is in the sample and should be passed on now;
+     *         false if it was rejected or is held in the reservoir
+     */
+    public boolean add(DataRecord record) {
+        long position = seen++;
+        if (gap > 0) {
+            gap--;
+            return false;
+        }
+
+        if (reservoir == null) {
+            gap = nextBernoulliGap();
+            sampled++;
+            return true;
+        }
+
+        if (reservoir.size() < reservoirSize) {
+            if (reservoir.size() == positions.length) {
+                positions = Arrays.copyOf(positions, (int) Math.min((long) positions.length * 2, reservoirSize));
+            }
+            positions[reservoir.size()] = position;
+            reservoir.add(record);
+            if (reservoir.size() == reservoirSize) {
+                gap = nextReservoirGap();
+            }
+        } else {
+            int slot = random.nextInt(reservoirSize);
+            reservoir.set(slot, record);
+            positions[slot] = position;
+            weight *= Math.exp(Math.log(nextUniform()) / reservoirSize);
+            gap = nextReservoirGap();
+        }
+        return false;
+    }
+
+    /**
+     * Opens a reader over the reservoir in input order. No records may be added afterwards.
+     *
+     * @return the sampled records, or no records for a percentage sample
+     */
+    public RecordReader<DataRecord> openReader() {
+        List<Integer> order = new ArrayList<>();
+        if (reservoir != null) {
+            for (int i = 0; i < reservoir.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingLong(slot -> positions[slot]));
+            sampled = reservoir.size();
+        }
+
+        return new RecordReader<>() {
+            private int index;
+
+            @Override
+            public DataRecord read() {
+                return index < order.size() ? reservoir.get(order.get(index++)) : null;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release
+            }
+        };
+    }
+
+    /**
+     * Gets the number of records offered or skipped.
+     *
+     * @return the input record count
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    /**
+     * Gets the number of records in the sample.
+     *
+     * @return the sampled record count
+     */
+    public long getSampled() {
+        return sampled;
+    }
+
+    /**
+     * Draws the number of records rejected before the next one kept with the sampling probability.
+     */
+    private long nextBernoulliGap() {
+        if (probability >= 1) {
+            return 0;
+        }
+        return geometric(probability);
+    }
+
+    /**
+     * Draws the number of records passed over before the next one that replaces a reservoir slot.
+     */
+    private long nextReservoirGap() {
+        return geometric(weight);
+    }
+
+    private long geometric(double successProbability) {
+        double skip = Math.floor(Math.log(nextUniform()) / Math.log1p(-successProbability));
+        return skip >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) skip;
+    }
+
+    /**
+     * Draws a uniform number in (0, 1], so that its logarithm is finite.
+     */
+    private double nextUniform() {
+        return 1.0 - random.nextDouble();
+    }
+}
@@ -0,0 +1,512 @@
+package global.goit.java_final_n_kovalchuk.shard;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes records into a series of complete documents, the shards, named after the output
+ * path with a shard number: out.json becomes out-00000.json, out-00001.json and so on.
+ * Every shard is a document of its own, with the XML root element, the JSON array or the
+ * CSV header row of its format.
+ *
+ * A shard ends after a number of records, before it would grow beyond a number of bytes,
+ * or both. Records are handed to the shards in batches through bounded queues, and every
+ * shard is serialized by a task on a worker pool, so parsing goes on while the shards are
+ * written. Shards that end by record count are serialized several at a time; with a byte
+ * limit, a shard only knows where it ends while it is written, so one shard is filled at a time.
+ *
+ * Every shard is written to a temporary file that is renamed to the shard path once the
+ * shard is complete, so a shard path always holds a complete document.
+ *
+ * With a byte limit, the format writer is flushed after every record and the size of the
+ * shard is measured at its output stream. A record is moved to the next shard when the
+ * shard, the size expected for the record and the closing tail of the document would no
+ * longer fit; the size expected for a record is the larger of its text size and the largest
+ * record measured so far. Writers that hold records back until they are closed (CSV) cannot
+ * be measured; their shards are sized as the table they will write instead, a header row of
+ * all field names and a row per record with a quoted cell per field name. A shard always takes
+ * at least one record, so a single record larger than the limit still gets a shard of its own.
+ */
+public class ShardedRecordWriter implements RecordWriter<DataRecord> {
+
+    /**
+     * Number of records handed to a shard at a time.
+     */
+    public static final int BATCH_RECORDS = 1024;
+
+    private static final int QUEUE_BATCHES = 4;
+    private static final long TAIL_RESERVE_BYTES = 64;
+    private static final long FIELD_OVERHEAD_BYTES = 8;
+    private static final long CELL_OVERHEAD_BYTES = 3;
+    private static final long NESTED_VALUE_FACTOR = 2;
+    private static final long POLL_MILLIS = 50;
+    private static final long ABORT_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Marks the end of the records of a shard; compared by identity.
+     */
+    private static final List<DataRecord> END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final FileWriter<DataRecord> format;
+    private final Path output;
+    private final long maxRecords;
+    private final long maxBytes;
+    private final IoSettings io;
+    private final ExecutorService executor;
+    private final List<Shard> shards = new ArrayList<>();
+    private final AtomicLong largestRecordBytes = new AtomicLong();
+
+    private Shard current;
+    private List<DataRecord> batch = new ArrayList<>(BATCH_RECORDS);
+
+    /**
+     * Constructs a new ShardedRecordWriter.
+     *
+     * @param format     the writer of the output format, used to open every shard
+     * @param output     the output path the shard names are derived from
+     * @param maxRecords the maximum number of records in a shard, or 0 for no record limit
+     * @param maxBytes   the maximum size of a shard in bytes, or 0 for no size limit
+     * @param threads    the number of shards serialized at the same time
+     */
+    public ShardedRecordWriter(FileWriter<DataRecord> format, Path output, long maxRecords, long maxBytes,
+                               int threads) {
+        this(format, output, maxRecords, maxBytes, threads, IoSettings.DEFAULT);
+    }
+
+    /**
+     * Constructs a new ShardedRecordWriter that writes the shards with the given I/O settings.
+     *
+     * @param format     the writer of the output format, used to open every shard
+     * @param output     the output path the shard names are derived from
+     * @param maxRecords the maximum number of records in a shard, or 0 for no record limit
+     * @param maxBytes   the maximum size of a shard in bytes, or 0 for no size limit
+     * @param threads    the number of shards serialized at the same time
+     * @param io         the buffer and fsync settings of the shard files
+     */
+    public ShardedRecordWriter(FileWriter<DataRecord> format, Path output, long maxRecords, long maxBytes,
+                               int threads, IoSettings io) {
+        this.format = format;
+        this.output = output;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.io = io;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "shard-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Derives the path of a shard from the output path: the shard number is inserted
+     * before the file extension, or appended to a name without one.
+     *
+     * @param output the output path
+     * @param index  the shard number, starting at 0
+     * @return the shard path, next to the output path
+     */
+    public static Path shardPath(Path output, int index) {
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return output.resolveSibling(String.format(Locale.ROOT, "%s-%05d%s", base, index, extension));
+    }
+
+    @Override
+    public void write(DataRecord record) throws FileConversionException {
+        if (current == null) {
+            current = startShard();
+        } else if (maxRecords > 0 && current.assigned + batch.size() >= maxRecords) {
+            endShard();
+            current = startShard();
+        }
+
+        batch.add(record);
+        if (batch.size() == BATCH_RECORDS) {
+            submit(batch);
+            batch = new ArrayList<>(BATCH_RECORDS);
+        }
+    }
+
+    /**
+     * Ends the last shard and waits until every shard is written completely.
+     * Without any records, a single empty shard is written.
+     *
+     * @throws FileConversionException if a shard cannot be written
+     */
+    @Override
+    public void close() throws FileConversionException {
+        if (current == null) {
+            current = startShard();
+        }
+        endShard();
+        try {
+            for (Shard shard : shards) {
+                await(shard.task);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops all shard tasks without completing their documents and waits until they removed
+     * their temporary files. Does nothing once the writer was closed.
+     */
+    public void abort() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(ABORT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the paths of the shards started so far, in order.
+     *
+     * @return the shard paths
+     */
+    public List<Path> getShardPaths() {
+        List<Path> paths = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            paths.add(shard.path);
+        }
+        return paths;
+    }
+
+    /**
+     * Gets the number of bytes written to all shards so far.
+     *
+     * @return the total shard size in bytes
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            Sink sink = shard.sink;
+            bytes += sink != null ? sink.getBytesWritten() : shard.bytes;
+        }
+        return bytes;
+    }
+
+    private Shard startShard() throws FileConversionException {
+        Shard shard = new Shard(shardPath(output, shards.size()));
+        shards.add(shard);
+        try {
+            shard.task = executor.submit(() -> {
+                shard.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw new FileConversionException("Cannot start writing shard " + shard.path, e);
+        }
+        return shard;
+    }
+
+    /**
+     * Hands records to the current shard. When the current shard was found to be full,
+     * it is ended first and the records it could not take are handed to the next shard.
+     */
+    private void submit(List<DataRecord> records) throws FileConversionException {
+        if (maxBytes > 0 && current.full) {
+            List<DataRecord> leftovers = current.finish(true);
+            current = startShard();
+            if (!leftovers.isEmpty()) {
+                submit(leftovers);
+            }
+        }
+        current.put(records);
+    }
+
+    /**
+     * Hands the pending batch to the current shard and ends it. With a byte limit the
+     * shard may not take all of its records, so the rest continue in further shards.
+     */
+    private void endShard() throws FileConversionException {
+        if (!batch.isEmpty()) {
+            submit(batch);
+            batch = new ArrayList<>(BATCH_RECORDS);
+        }
+
+        List<DataRecord> leftovers = current.finish(maxBytes > 0);
+        while (!leftovers.isEmpty()) {
+            current = startShard();
+            current.put(leftovers);
+            leftovers = current.finish(true);
+        }
+    }
+
+    private void await(Future<?> task) throws FileConversionException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileConversionException("Interrupted while writing output shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FileConversionException) {
+                throw (FileConversionException) e.getCause();
+            }
+            throw new FileConversionException("Failed to write output shard", e.getCause());
+        }
+    }
+
+    /**
+     * Estimates the size of a record in the output from the text of its field names and values.
+     */
+    private static long estimateBytes(DataRecord record) {
+        long bytes = FIELD_OVERHEAD_BYTES;
+        for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+            Object value = field.getValue();
+            bytes += FIELD_OVERHEAD_BYTES + field.getKey().length() + (value == null ? 0 : value.toString().length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Computes the size of a table cell holding a value: the UTF-8 bytes of its text with
+     * doubled quotes, two enclosing quotes and a separator. Nested values are written as
+     * JSON, which is longer than their text, so they are counted twice over.
+     */
+    private static long cellBytes(Object value) {
+        if (value == null) {
+            return CELL_OVERHEAD_BYTES;
+        }
+
+        String text = value.toString();
+        long bytes = CELL_OVERHEAD_BYTES;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += c == '"' ? 2 : 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // A surrogate pair takes four bytes, two for each half
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return value instanceof Map || value instanceof List ? bytes * NESTED_VALUE_FACTOR : bytes;
+    }
+
+    /**
+     * Size of the table a held-back writer will write: a header row of all field names seen
+     * and a row per record with a cell for every one of them.
+     */
+    private static final class TableSize {
+
+        private final Set<String> columns = new HashSet<>();
+        private long headerBytes;
+        private long valueBytes;
+        private long rows;
+
+        /**
+         * Computes the size of the table with one more record, without adding it.
+         */
+        long with(DataRecord record) {
+            long newHeaderBytes = 0;
+            int newColumns = 0;
+            long recordBytes = 0;
+            for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+                if (!columns.contains(field.getKey())) {
+                    newHeaderBytes += cellBytes(field.getKey());
+                    newColumns++;
+                }
+                // The overhead of every cell is counted per column below
+                recordBytes += cellBytes(field.getValue()) - CELL_OVERHEAD_BYTES;
+            }
+            return headerBytes + newHeaderBytes + valueBytes + recordBytes
+                + (rows + 1) * (columns.size() + newColumns) * CELL_OVERHEAD_BYTES;
+        }
+
+        long add(DataRecord record) {
+            long size = with(record);
+            for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+                if (columns.add(field.getKey())) {
+                    headerBytes += cellBytes(field.getKey());
+                }
+                valueBytes += cellBytes(field.getValue()) - CELL_OVERHEAD_BYTES;
+            }
+            rows++;
+            return size;
+        }
+    }
+
+    /**
+     * View of a shard sink that ignores flushes, so that flushing the format writer after
+     * every record does not issue a write every time; the sink writes when its buffer is
+     * full or the shard is committed.
+     */
+    private static final class ShardStream extends OutputStream {
+
+        private final Sink sink;
+
+        ShardStream(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            sink.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            sink.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // Written when the buffer is full or the shard is committed
+        }
+    }
+
+    /**
+     * One output document: the queue of record batches handed to it and the task that writes them.
+     */
+    private final class Shard {
+
+        private final Path path;
+        private final BlockingQueue<List<DataRecord>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        private final CountDownLatch consumed = new CountDownLatch(1);
+        private final List<DataRecord> leftovers = new ArrayList<>();
+        private volatile Sink sink;
+        private volatile long bytes;
+        private volatile boolean full;
+        private Future<?> task;
+        private long assigned;
+
+        Shard(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Queues records for the shard, waiting while its queue is full.
+         */
+        void put(List<DataRecord> records) throws FileConversionException {
+            try {
+                while (!queue.offer(records, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (task.isDone()) {
+                        // The task failed, so nobody takes the records any more
+                        await(task);
+                        throw new FileConversionException("Output shard " + path + " stopped early");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileConversionException("Interrupted while writing output shards", e);
+            }
+            if (records != END) {
+                assigned += records.size();
+            }
+        }
+
+        /**
+         * Ends the records of the shard.
+         *
+         * @param collectLeftovers true to wait until the shard took its records and return those it
+         *                         had no room for; false to return at once
+         * @return the records to continue in the next shard, in order
+         */
+        List<DataRecord> finish(boolean collectLeftovers) throws FileConversionException {
+            put(END);
+            if (!collectLeftovers) {
+                return Collections.emptyList();
+            }
+
+            try {
+                while (!consumed.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (task.isDone()) {
+                        await(task);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileConversionException("Interrupted while writing output shards", e);
+            }
+            return leftovers;
+        }
+
+        /**
+         * Writes the queued records until the end marker, keeping those that do not fit
+         * as leftovers, and completes and commits the document.
+         */
+        void run() throws IOException, InterruptedException, FileConversionException {
+            Sink counting = Sink.open(path, io);
+            sink = counting;
+            try (counting) {
+                RecordWriter<DataRecord> writer = format.open(new ShardStream(counting));
+                boolean streaming = writer.flush();
+                TableSize table = streaming ? null : new TableSize();
+                long size = counting.getBytesWritten();
+                long written = 0;
+
+                for (List<DataRecord> records = queue.take(); records != END; records = queue.take()) {
+                    for (DataRecord record : records) {
+                        if (full) {
+                            leftovers.add(record);
+                            continue;
+                        }
+                        if (maxBytes <= 0) {
+                            writer.write(record);
+                            continue;
+                        }
+
+                        long estimate = streaming ? estimateBytes(record) : 0;
+                        long expected = streaming
+                            ? size + Math.max(estimate, largestRecordBytes.get()) + TAIL_RESERVE_BYTES
+                            : table.with(record);
+                        if (written > 0 && expected > maxBytes) {
+                            full = true;
+                            leftovers.add(record);
+                            continue;
+                        }
+
+                        writer.write(record);
+                        written++;
+                        if (!streaming) {
+                            size = table.add(record);
+                        } else if (writer.flush()) {
+                            largestRecordBytes.accumulateAndGet(counting.getBytesWritten() - size, Math::max);
+                            size = counting.getBytesWritten();
+                        } else {
+                            // Held back for now, such as the first record of a JSON document
+                            size += estimate;
+                        }
+                    }
+                }
+                consumed.countDown();
+                writer.close();
+                counting.commit();
+            } finally {
+                // Only the size is kept, not the buffer of the sink
+                bytes = counting.getBytesWritten();
+                sink = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package global.goit.java_final_n_kovalchuk.sort;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.spill.SpillFile;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort of records by one or more {@link SortKey}s.
+ *
+ * Records are collected into a run until the run reaches the memory budget. A full run
+ * is sorted with {@link Arrays#parallelSort}, written to a {@link SpillFile} and dropped
+ * from the heap. Reading merges all spilled runs and the last in-memory run with a heap
+ * of run cursors, so the heap holds one run plus one record per spilled run.
+ *
+ * The sort is stable: records with equal keys keep their input order, because runs hold
+ * consecutive input records, the run sort is stable, and the merge prefers earlier runs.
+ *
+ * With a limit of at most {@link #TOP_K_MAX_RECORDS}, only the best records are kept in a
+ * bounded heap instead, and nothing is spilled.
+ */
+public class RecordSorter implements AutoCloseable {
+
+    /**
+     * Largest limit served by the bounded heap; larger limits sort everything and stop early.
+     */
+    public static final int TOP_K_MAX_RECORDS = 100_000;
+
+    private static final long RECORD_OVERHEAD_BYTES = 96;
+    private static final long FIELD_OVERHEAD_BYTES = 48;
+    private static final long VALUE_OVERHEAD_BYTES = 24;
+    private static final int ESTIMATE_INTERVAL = 64;
+
+    private final List<SortKey> keys;
+    private final long runBudget;
+    private final long limit;
+    private final SpillStatistics statistics;
+    private final Path spillDirectory;
+    private final Comparator<Entry> comparator;
+    private final List<SpillFile> runs = new ArrayList<>();
+
+    private List<Entry> run = new ArrayList<>();
+    private long runBytes;
+    private long recordBytes;
+    private PriorityQueue<Entry> topK;
+    private long sequence;
+
+    /**
+     * Constructs a new RecordSorter that spills to the system temporary directory.
+     *
+     * @param keys       the sort keys in order of precedence
+     * @param runBudget  the maximum estimated heap size of one run in bytes
+     * @param limit      the number of records needed from the start of the sorted output, or 0 for all
+     * @param statistics the statistics to record spilled runs in
+     */
+    public RecordSorter(List<SortKey> keys, long runBudget, long limit, SpillStatistics statistics) {
+        this(keys, runBudget, limit, statistics, null);
+    }
+
+    /**
+     * Constructs a new RecordSorter.
+     *
+     * @param keys           the sort keys in order of precedence
+     * @param runBudget      the maximum estimated heap size of one run in bytes; capped so that
+     *                       a run always fits into one spill file
+     * @param limit          the number of records needed from the start of the sorted output, or 0 for all
+     * @param statistics     the statistics to record spilled runs in
+     * @param spillDirectory the directory for run files, or null for the system temporary directory
+     */
+    public RecordSorter(List<SortKey> keys, long runBudget, long limit, SpillStatistics statistics,
+                        Path spillDirectory) {
+        this.keys = keys;
+        this.runBudget = Math.min(runBudget, SpillFile.MAX_FILE_BYTES);
+        this.limit = limit;
+        this.statistics = statistics;
+        this.spillDirectory = spillDirectory;
+        this.comparator = keyComparator(keys);
+        if (limit > 0 && limit <= TOP_K_MAX_RECORDS) {
+            // Worst record on top, so it is the one replaced by a better record
+            this.topK = new PriorityQueue<>((int) limit + 1,
+                comparator.thenComparingLong(entry -> entry.sequence).reversed());
+        }
+    }
+
+    /**
+     * Adds a record to the sort.
+     *
+     * @param record the record to add
+     * @throws FileConversionException if a run cannot be spilled
+     */
+    public void add(DataRecord record) throws FileConversionException {
+        Entry entry = new Entry(extractKeys(record), record, sequence++);
+
+        if (topK != null) {
+            if (topK.size() < limit) {
+                topK.add(entry);
+            } else if (topK.comparator().compare(entry, topK.peek()) > 0) {
+                // Better than the current worst of the kept records
+                topK.poll();
+                topK.add(entry);
+            }
+            return;
+        }
+
+        run.add(entry);
+        if (entry.sequence % ESTIMATE_INTERVAL == 0) {
+            // Measuring a record copies its fields, so a sample stands in for the records that follow it
+            recordBytes = estimateBytes(record);
+        }
+        runBytes += recordBytes;
+        if (runBytes > runBudget) {
+            spillRun();
+        }
+    }
+
+    /**
+     * Gets the number of records added.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return sequence;
+    }
+
+    /**
+     * Opens a reader over the sorted records. No records may be added afterwards.
+     *
+     * @return a reader returning the records in key order, at most the limit of them
+     * @throws FileConversionException if a run file cannot be read
+     */
+    public RecordReader<DataRecord> openReader() throws FileConversionException {
+        if (topK != null) {
+            List<Entry> best = new ArrayList<>(topK);
+            topK.clear();
+            best.sort(comparator.thenComparingLong(entry -> entry.sequence));
+            return new ListReader(best);
+        }
+
+        Entry[] last = run.toArray(new Entry[0]);
+        run = new ArrayList<>();
+        Arrays.parallelSort(last, comparator);
+        if (runs.isEmpty()) {
+            return limited(new ListReader(Arrays.asList(last)));
+        }
+
+        List<RecordReader<DataRecord>> sources = new ArrayList<>();
+        for (SpillFile file : runs) {
+            sources.add(file.openReader());
+        }
+        sources.add(new ListReader(Arrays.asList(last)));
+        return limited(new MergeReader(sources));
+    }
+
+    /**
+     * Deletes all run files and drops the buffered records.
+     */
+    @Override
+    public void close() {
+        for (SpillFile file : runs) {
+            file.close();
+        }
+        runs.clear();
+        run = new ArrayList<>();
+        if (topK != null) {
+            topK.clear();
+        }
+    }
+
+    private void spillRun() throws FileConversionException {
+        Entry[] sorted = run.toArray(new Entry[0]);
+        run = new ArrayList<>();
+        runBytes = 0;
+        Arrays.parallelSort(sorted, comparator);
+
+        SpillFile file = SpillFile.create(spillDirectory);
+        runs.add(file);
+        for (Entry entry : sorted) {
+            file.write(entry.record);
+        }
+        file.finishWriting();
+        statistics.recordSpill(file.getRecords(), file.getBytes(), file.getPath().toString());
+    }
+
+    private Object[] extractKeys(DataRecord record) {
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = SortKey.comparableValue(record.getField(keys.get(i).getField()));
+        }
+        return values;
+    }
+
+    private static Comparator<Entry> keyComparator(List<SortKey> keys) {
+        boolean[] descending = new boolean[keys.size()];
+        for (int i = 0; i < descending.length; i++) {
+            descending[i] = keys.get(i).isDescending();
+        }
+
+        return (left, right) -> {
+            for (int i = 0; i < descending.length; i++) {
+                Object a = left.keys[i];
+                Object b = right.keys[i];
+                int comparison = descending[i] && a != null && b != null
+                    ? SortKey.compareValues(b, a)
+                    : SortKey.compareValues(a, b);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Estimates the heap size of a record roughly, counting field entries and value sizes.
+     */
+    private static long estimateBytes(DataRecord record) {
+        long bytes = RECORD_OVERHEAD_BYTES;
+        for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+            bytes += FIELD_OVERHEAD_BYTES + estimateValueBytes(field.getValue());
+        }
+        return bytes;
+    }
+
+    private static long estimateValueBytes(Object value) {
+        if (value instanceof String) {
+            return VALUE_OVERHEAD_BYTES + ((String) value).length();
+        }
+        if (value instanceof Map) {
+            long bytes = RECORD_OVERHEAD_BYTES;
+            for (Object nested : ((Map<?, ?>) value).values()) {
+                bytes += FIELD_OVERHEAD_BYTES + estimateValueBytes(nested);
+            }
+            return bytes;
+        }
+        if (value instanceof List) {
+            long bytes = VALUE_OVERHEAD_BYTES;
+            for (Object item : (List<?>) value) {
+                bytes += 8 + estimateValueBytes(item);
+            }
+            return bytes;
+        }
+        return value == null ? 0 : VALUE_OVERHEAD_BYTES;
+    }
+
+    private RecordReader<DataRecord> limited(RecordReader<DataRecord> reader) {
+        if (limit <= 0) {
+            return reader;
+        }
+
+        return new RecordReader<>() {
+            private long remaining = limit;
+
+            @Override
+            public DataRecord read() throws FileConversionException {
+                if (remaining == 0) {
+                    return null;
+                }
+                remaining--;
+                return reader.read();
+            }
+
+            @Override
+            public void close() throws FileConversionException {
+                reader.close();
+            }
+        };
+    }
+
+    /**
+     * A record with its comparable key values, extracted once when the record is added.
+     */
+    private static final class Entry {
+
+        private final Object[] keys;
+        private final DataRecord record;
+        private final long sequence;
+
+        Entry(Object[] keys, DataRecord record, long sequence) {
+            this.keys = keys;
+            this.record = record;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Reader over sorted entries held in memory.
+     */
+    private static final class ListReader implements RecordReader<DataRecord> {
+
+        private final List<Entry> entries;
+        private int index;
+
+        ListReader(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public DataRecord read() {
+            return index < entries.size() ? entries.get(index++).record : null;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs through a heap of run cursors.
+     * Equal keys are taken from the earlier run first, which keeps the sort stable.
+     */
+    private final class MergeReader implements RecordReader<DataRecord> {
+
+        private final List<RecordReader<DataRecord>> sources;
+        private final PriorityQueue<Cursor> heap;
+
+        MergeReader(List<RecordReader<DataRecord>> sources) throws FileConversionException {
+            this.sources = sources;
+            this.heap = new PriorityQueue<>(Math.max(1, sources.size()),
+                Comparator.comparing((Cursor cursor) -> cursor.current, comparator)
+                    .thenComparingInt(cursor -> cursor.run));
+            for (int i = 0; i < sources.size(); i++) {
+                Cursor cursor = new Cursor(i, sources.get(i));
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public DataRecord read() throws FileConversionException {
+            Cursor cursor = heap.poll();
+            if (cursor == null) {
+                return null;
+            }
+
+            DataRecord record = cursor.current.record;
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            heap.clear();
+            for (RecordReader<DataRecord> source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Position in one sorted run during the merge.
+     */
+    private final class Cursor {
+
+        private final int run;
+        private final RecordReader<DataRecord> reader;
+        private Entry current;
+
+        Cursor(int run, RecordReader<DataRecord> reader) {
+            this.run = run;
+            this.reader = reader;
+        }
+
+        boolean advance() throws FileConversionException {
+            DataRecord record = reader.read();
+            current = record == null ? null : new Entry(extractKeys(record), record, 0);
+            return current != null;
+        }
+    }
+}
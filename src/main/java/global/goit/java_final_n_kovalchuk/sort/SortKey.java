@@ -0,0 +1,254 @@
+package global.goit.java_final_n_kovalchuk.sort;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One key of a --sort-by specification: a field name and a direction.
+ *
+ * Values are compared by type: numbers and text holding a number compare numerically
+ * and come before other text, which compares by character. Null and missing values
+ * come last in both directions. Integral values compare exactly as long values, so
+ * 64-bit identifiers beyond the precision of a double keep their order; only fractional
+ * values are compared as doubles, and integers beyond the long range as decimals.
+ */
+public class SortKey {
+
+    private static final String DESCENDING = "desc";
+    private static final String ASCENDING = "asc";
+
+    private final String field;
+    private final boolean descending;
+
+    /**
+     * Constructs a new SortKey.
+     *
+     * @param field      the field name
+     * @param descending true to sort from the largest value down
+     */
+    public SortKey(String field, boolean descending) {
+        this.field = field;
+        this.descending = descending;
+    }
+
+    /**
+     * Parses a --sort-by specification such as "amount:desc,name".
+     *
+     * @param specification comma-separated fields, each optionally followed by ":asc" or ":desc"
+     * @return the keys in order of precedence
+     * @throws InvalidInputException if a field is empty or a direction is unknown
+     */
+    public static List<SortKey> parseList(String specification) throws InvalidInputException {
+        List<SortKey> keys = new ArrayList<>();
+        for (String part : specification.split(",", -1)) {
+            String field = part.trim();
+            boolean descending = false;
+
+            int separator = field.lastIndexOf(':');
+            if (separator >= 0) {
+                String direction = field.substring(separator + 1).trim().toLowerCase(Locale.ROOT);
+                field = field.substring(0, separator).trim();
+                if (DESCENDING.equals(direction)) {
+                    descending = true;
+                } else if (!ASCENDING.equals(direction)) {
+                    throw new InvalidInputException(
+                        "Invalid sort direction '" + direction + "' in '" + specification + "'. Use asc or desc"
+                    );
+                }
+            }
+
+            if (field.isEmpty()) {
+                throw new InvalidInputException(
+                    "Invalid sort specification: '" + specification + "'. Usage: --sort-by <field[:asc|desc],...>"
+                );
+            }
+            keys.add(new SortKey(field, descending));
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Gets the field name.
+     *
+     * @return the field name
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Checks whether the key sorts from the largest value down.
+     *
+     * @return true for a descending key
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Converts a field value to the form it is compared in: a Long for integral numbers and
+     * integral text, a Double for other numbers and numeric text, a BigDecimal for integers
+     * and decimals beyond those, a String for other values, null for null.
+     * Done once per record, so comparisons never parse text.
+     *
+     * @param value the field value
+     * @return the comparable value
+     */
+    static Object comparableValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            return integer.bitLength() < Long.SIZE ? (Object) integer.longValue() : new BigDecimal(integer);
+        }
+        if (value instanceof BigDecimal) {
+            return value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+
+        String text = value.toString();
+        if (looksIntegral(text)) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // More digits than a long holds
+                return new BigDecimal(text);
+            }
+        }
+        if (looksNumeric(text)) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                // Characters of a number in an order that is not one, such as "1-2"
+                return text;
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Compares two comparable values in ascending order, nulls last.
+     *
+     * @param left  a value returned by {@link #comparableValue(Object)}
+     * @param right a value returned by {@link #comparableValue(Object)}
+     * @return a negative number, zero or a positive number
+     */
+    static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : 1) : -1;
+        }
+        if (left instanceof Number) {
+            return right instanceof Number ? compareNumbers((Number) left, (Number) right) : -1;
+        }
+        return right instanceof Number ? 1 : ((String) left).compareTo((String) right);
+    }
+
+    /**
+     * Compares two numbers returned by {@link #comparableValue(Object)} exactly; NaN is the
+     * largest number, as with {@link Double#compare}.
+     */
+    private static int compareNumbers(Number left, Number right) {
+        if (left instanceof Long) {
+            if (right instanceof Long) {
+                return Long.compare((Long) left, (Long) right);
+            }
+            if (right instanceof Double) {
+                return compareLongToDouble((Long) left, (Double) right);
+            }
+        } else if (left instanceof Double) {
+            if (right instanceof Double) {
+                return Double.compare((Double) left, (Double) right);
+            }
+            if (right instanceof Long) {
+                return -compareLongToDouble((Long) right, (Double) left);
+            }
+        }
+
+        // One of them is a BigDecimal
+        if (left instanceof Double && !Double.isFinite((Double) left)) {
+            return (Double) left < 0 ? -1 : 1;
+        }
+        if (right instanceof Double && !Double.isFinite((Double) right)) {
+            return (Double) right < 0 ? 1 : -1;
+        }
+        return toDecimal(left).compareTo(toDecimal(right));
+    }
+
+    /**
+     * Compares a long with a double without rounding the long to a double.
+     */
+    private static int compareLongToDouble(long left, double right) {
+        if (Double.isNaN(right) || right >= 0x1p63) {
+            return -1;
+        }
+        if (right < -0x1p63) {
+            return 1;
+        }
+        // Doubles in the long range have an exact long floor
+        long floor = (long) Math.floor(right);
+        if (left != floor) {
+            return Long.compare(left, floor);
+        }
+        return right > floor ? -1 : 0;
+    }
+
+    private static BigDecimal toDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        return number instanceof Long ? BigDecimal.valueOf((Long) number) : new BigDecimal((Double) number);
+    }
+
+    /**
+     * Checks whether text is an integer: an optional sign followed by digits only.
+     */
+    private static boolean looksIntegral(String text) {
+        int start = !text.isEmpty() && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (start == text.length() || text.length() > 32) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks cheaply whether text can be a number, so that parsing rarely fails with an exception.
+     */
+    private static boolean looksNumeric(String text) {
+        if (text.isEmpty() || text.length() > 32) {
+            return false;
+        }
+        boolean digit = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    @Override
+    public String toString() {
+        return field + ":" + (descending ? DESCENDING : ASCENDING);
+    }
+}
@@ -0,0 +1,260 @@
+package global.goit.java_final_n_kovalchuk.spill;
+
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary row encoding for records written to temporary files.
+ *
+ * A row is a varint field count followed by the fields. Field names are written in
+ * full the first time they occur in a file and as a varint index afterwards. Values
+ * carry a one-byte tag; integers use zigzag varints, so small numbers take one or two
+ * bytes. Integers and decimals beyond long and double are stored as their digits and
+ * read back as the same number type, so that sorting and writing still see numbers.
+ * Lists and maps are encoded recursively. Values of any other type are stored as their
+ * string form.
+ */
+public final class RowCodec {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_TRUE = 5;
+    private static final byte TAG_FALSE = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_BIG_INTEGER = 9;
+    private static final byte TAG_BIG_DECIMAL = 10;
+    private static final byte TAG_FLOAT = 11;
+
+    private RowCodec() {
+    }
+
+    /**
+     * Writes rows to a stream. One encoder must be used per file, because field names
+     * are only written in full the first time.
+     */
+    public static class Encoder {
+
+        private final Map<String, Integer> nameIndexes = new HashMap<>();
+
+        /**
+         * Writes one record.
+         *
+         * @param record the record to write
+         * @param out    the stream to write to
+         * @throws IOException if writing fails
+         */
+        public void write(DataRecord record, DataOutputStream out) throws IOException {
+            Map<String, Object> fields = record.getFields();
+            writeVarint(out, fields.size());
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                writeName(out, field.getKey());
+                writeValue(out, field.getValue());
+            }
+        }
+
+        private void writeName(DataOutputStream out, String name) throws IOException {
+            Integer index = nameIndexes.get(name);
+            if (index != null) {
+                writeVarint(out, index << 1);
+                return;
+            }
+
+            // Low bit set: a new name follows and gets the next index
+            nameIndexes.put(name, nameIndexes.size());
+            writeVarint(out, 1);
+            writeString(out, name);
+        }
+
+        private void writeValue(DataOutputStream out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof String) {
+                out.writeByte(TAG_STRING);
+                writeString(out, (String) value);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(TAG_INT);
+                writeVarlong(out, zigzag(((Number) value).intValue()));
+            } else if (value instanceof Long) {
+                out.writeByte(TAG_LONG);
+                writeVarlong(out, zigzag((Long) value));
+            } else if (value instanceof Double) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                out.writeByte(TAG_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof BigInteger) {
+                out.writeByte(TAG_BIG_INTEGER);
+                writeString(out, value.toString());
+            } else if (value instanceof BigDecimal) {
+                out.writeByte(TAG_BIG_DECIMAL);
+                writeString(out, value.toString());
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(TAG_LIST);
+                writeVarint(out, list.size());
+                for (Object item : list) {
+                    writeValue(out, item);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(TAG_MAP);
+                writeVarint(out, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, String.valueOf(entry.getKey()));
+                    writeValue(out, entry.getValue());
+                }
+            } else {
+                out.writeByte(TAG_STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    /**
+     * Reads rows written by an {@link Encoder} from a buffer, typically a memory-mapped file.
+     */
+    public static class Decoder {
+
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Reads one record.
+         *
+         * @param in the buffer positioned at the start of a row
+         * @return the decoded record
+         */
+        public DataRecord read(ByteBuffer in) {
+            int fieldCount = readVarint(in);
+            // Keeps the field order of the written record, such as the order of projected columns
+            DataRecord record = DataRecord.ordered(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                String name = readName(in);
+                record.addField(name, readValue(in));
+            }
+            return record;
+        }
+
+        private String readName(ByteBuffer in) {
+            int reference = readVarint(in);
+            if ((reference & 1) == 0) {
+                return names.get(reference >>> 1);
+            }
+
+            String name = readString(in);
+            names.add(name);
+            return name;
+        }
+
+        private Object readValue(ByteBuffer in) {
+            byte tag = in.get();
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_STRING:
+                    return readString(in);
+                case TAG_INT:
+                    return (int) unzigzag(readVarlong(in));
+                case TAG_LONG:
+                    return unzigzag(readVarlong(in));
+                case TAG_DOUBLE:
+                    return in.getDouble();
+                case TAG_FLOAT:
+                    return in.getFloat();
+                case TAG_BIG_INTEGER:
+                    return new BigInteger(readString(in));
+                case TAG_BIG_DECIMAL:
+                    return new BigDecimal(readString(in));
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_LIST: {
+                    int size = readVarint(in);
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(in));
+                    }
+                    return list;
+                }
+                case TAG_MAP: {
+                    int size = readVarint(in);
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        String key = readString(in);
+                        map.put(key, readValue(in));
+                    }
+                    return map;
+                }
+                default:
+                    throw new IllegalStateException("Corrupt spill data: unknown value tag " + tag);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        writeVarlong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarlong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        return (int) readVarlong(in);
+    }
+
+    private static long readVarlong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,179 @@
+package global.goit.java_final_n_kovalchuk.spill;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file of records in the {@link RowCodec} encoding.
+ *
+ * Records are appended through a buffered stream and read back from a read-only
+ * memory mapping, so replaying a spill does not copy the file through the heap.
+ * A single mapping is limited to 2 GB; writers start a new file once
+ * {@link #MAX_FILE_BYTES} has been reached. Closing the file deletes it.
+ */
+public class SpillFile implements AutoCloseable {
+
+    /**
+     * Size after which a writer should continue in a new spill file.
+     */
+    public static final long MAX_FILE_BYTES = 1L << 30;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final RowCodec.Encoder encoder = new RowCodec.Encoder();
+    private DataOutputStream out;
+    private int records;
+
+    private SpillFile(Path path, DataOutputStream out) {
+        this.path = path;
+        this.out = out;
+    }
+
+    /**
+     * Creates a new empty spill file open for writing.
+     *
+     * @param directory the directory for the file, or null for the system temporary directory
+     * @return the new spill file
+     * @throws FileConversionException if the file cannot be created
+     */
+    public static SpillFile create(Path directory) throws FileConversionException {
+        try {
+            Path path = directory != null
+                ? Files.createTempFile(directory, "converter-spill-", ".bin")
+                : Files.createTempFile("converter-spill-", ".bin");
+            // Safety net for runs that fail before the buffer is closed
+            path.toFile().deleteOnExit();
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), WRITE_BUFFER_SIZE));
+            return new SpillFile(path, out);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to create spill file", e);
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param record the record to append
+     * @throws FileConversionException if writing fails
+     */
+    public void write(DataRecord record) throws FileConversionException {
+        try {
+            encoder.write(record, out);
+            records++;
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write spill file: " + path, e);
+        }
+    }
+
+    /**
+     * Completes writing; the file can be read afterwards.
+     *
+     * @throws FileConversionException if the buffered data cannot be written
+     */
+    public void finishWriting() throws FileConversionException {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to write spill file: " + path, e);
+        }
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the file size in bytes
+     */
+    public long getBytes() {
+        return out != null ? out.size() : sizeOnDisk();
+    }
+
+    /**
+     * Gets the number of records written.
+     *
+     * @return the record count
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the path of the file.
+     *
+     * @return the file path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Opens a reader over the records of a completed file.
+     *
+     * @return a reader returning the records in write order
+     * @throws FileConversionException if the file cannot be mapped
+     */
+    public RecordReader<DataRecord> openReader() throws FileConversionException {
+        finishWriting();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            RowCodec.Decoder decoder = new RowCodec.Decoder();
+
+            return new RecordReader<>() {
+                @Override
+                public DataRecord read() {
+                    return buffer.hasRemaining() ? decoder.read(buffer) : null;
+                }
+
+                @Override
+                public void close() {
+                    // Mapped buffers are released by the garbage collector
+                }
+            };
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to read spill file: " + path, e);
+        }
+    }
+
+    /**
+     * Deletes the file.
+     */
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // A leftover file in the temporary directory must not fail the conversion
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private long sizeOnDisk() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package global.goit.java_final_n_kovalchuk.spill;
+
+import global.goit.java_final_n_kovalchuk.profiling.SpillEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the spills of one conversion run.
+ * Shared by every buffer of the run and safe to update from several threads.
+ */
+public class SpillStatistics {
+
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Records a completed spill file and emits a JFR spill event for it.
+     *
+     * @param recordCount the number of records in the file
+     * @param byteCount   the size of the file in bytes
+     * @param file        the path of the file
+     */
+    public void recordSpill(int recordCount, long byteCount, String file) {
+        files.incrementAndGet();
+        records.addAndGet(recordCount);
+        bytes.addAndGet(byteCount);
+
+        SpillEvent event = new SpillEvent();
+        if (event.shouldCommit()) {
+            event.setRecords(recordCount);
+            event.setBytes(byteCount);
+            event.setFile(file);
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the number of spill files written.
+     *
+     * @return the spill file count
+     */
+    public long getFiles() {
+        return files.get();
+    }
+
+    /**
+     * Gets the number of records written to spill files.
+     *
+     * @return the spilled record count
+     */
+    public long getRecords() {
+        return records.get();
+    }
+
+    /**
+     * Gets the number of bytes written to spill files.
+     *
+     * @return the spilled byte count
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+}
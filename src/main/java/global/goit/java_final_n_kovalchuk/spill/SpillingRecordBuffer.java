@@ -0,0 +1,195 @@
+package global.goit.java_final_n_kovalchuk.spill;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.model.RecordBatch;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only record buffer that stays within a memory budget.
+ *
+ * Records are collected in a columnar {@link RecordBatch}. Whenever the batch grows
+ * beyond the budget it is written to a {@link SpillFile} and cleared, so the heap
+ * holds at most one budget's worth of records no matter how large the input is.
+ * Replaying the buffer returns all records in the order they were added.
+ */
+public class SpillingRecordBuffer implements AutoCloseable {
+
+    /**
+     * Budget value that disables spilling.
+     */
+    public static final long UNLIMITED = 0;
+
+    private static final int BUDGET_CHECK_INTERVAL = 256;
+
+    private final long memoryBudget;
+    private final SpillStatistics statistics;
+    private final Path spillDirectory;
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+    private final Set<String> spilledFieldNames = new LinkedHashSet<>();
+    private RecordBatch batch = new RecordBatch();
+    private long size;
+
+    /**
+     * Constructs a new SpillingRecordBuffer that spills to the system temporary directory.
+     *
+     * @param memoryBudget the maximum estimated heap size of buffered records in bytes, or {@link #UNLIMITED}
+     * @param statistics   the statistics to record spills in
+     */
+    public SpillingRecordBuffer(long memoryBudget, SpillStatistics statistics) {
+        this(memoryBudget, statistics, null);
+    }
+
+    /**
+     * Constructs a new SpillingRecordBuffer.
+     *
+     * @param memoryBudget   the maximum estimated heap size of buffered records in bytes, or {@link #UNLIMITED}
+     * @param statistics     the statistics to record spills in
+     * @param spillDirectory the directory for spill files, or null for the system temporary directory
+     */
+    public SpillingRecordBuffer(long memoryBudget, SpillStatistics statistics, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.statistics = statistics;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Adds a record, spilling the buffered records first if they exceed the budget.
+     *
+     * @param record the record to add
+     * @throws FileConversionException if a spill file cannot be written
+     */
+    public void add(DataRecord record) throws FileConversionException {
+        batch.add(record);
+        size++;
+
+        if (memoryBudget > UNLIMITED && batch.size() % BUDGET_CHECK_INTERVAL == 0
+                && batch.estimatedBytes() > memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * Gets the number of records added.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the union of the field names of all records, in order of first appearance.
+     *
+     * @return the field names
+     */
+    public Set<String> getFieldNames() {
+        Set<String> names = new LinkedHashSet<>(spilledFieldNames);
+        names.addAll(batch.getColumnNames());
+        return names;
+    }
+
+    /**
+     * Gets the spill files written so far, oldest first.
+     *
+     * @return an unmodifiable list of spill files
+     */
+    public List<SpillFile> getSpillFiles() {
+        return Collections.unmodifiableList(spillFiles);
+    }
+
+    /**
+     * Gets the records still held in memory; they follow the records of all spill files.
+     *
+     * @return the in-memory batch
+     */
+    public RecordBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Opens a reader over all records in the order they were added.
+     *
+     * @return a reader over spilled and in-memory records
+     * @throws FileConversionException if a spill file cannot be read
+     */
+    public RecordReader<DataRecord> openReader() throws FileConversionException {
+        return new RecordReader<>() {
+            private int fileIndex;
+            private RecordReader<DataRecord> fileReader;
+            private int row;
+
+            @Override
+            public DataRecord read() throws FileConversionException {
+                while (fileIndex < spillFiles.size()) {
+                    if (fileReader == null) {
+                        fileReader = spillFiles.get(fileIndex).openReader();
+                    }
+                    DataRecord record = fileReader.read();
+                    if (record != null) {
+                        return record;
+                    }
+                    fileReader.close();
+                    fileReader = null;
+                    fileIndex++;
+                }
+                return row < batch.size() ? batch.get(row++) : null;
+            }
+
+            @Override
+            public void close() throws FileConversionException {
+                if (fileReader != null) {
+                    fileReader.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Deletes all spill files and drops the buffered records.
+     */
+    @Override
+    public void close() {
+        for (SpillFile file : spillFiles) {
+            file.close();
+        }
+        spillFiles.clear();
+        batch = new RecordBatch();
+    }
+
+    private void spill() throws FileConversionException {
+        spilledFieldNames.addAll(batch.getColumnNames());
+
+        SpillFile file = null;
+        for (int row = 0; row < batch.size(); row++) {
+            if (file == null) {
+                file = SpillFile.create(spillDirectory);
+                spillFiles.add(file);
+            }
+
+            file.write(batch.get(row));
+
+            if (file.getBytes() >= SpillFile.MAX_FILE_BYTES) {
+                completeSpillFile(file);
+                file = null;
+            }
+        }
+        if (file != null) {
+            completeSpillFile(file);
+        }
+
+        batch = new RecordBatch();
+    }
+
+    private void completeSpillFile(SpillFile file) throws FileConversionException {
+        file.finishWriting();
+        statistics.recordSpill(file.getRecords(), file.getBytes(), file.getPath().toString());
+    }
+}
@@ -22,6 +22,21 @@ public class FileValidator {
      * @throws InvalidInputException if the file is invalid or cannot be read
      */
     public static FormatDetector.FileFormat validateFile(String filePath) throws InvalidInputException {
+        return validateFile(filePath, null);
+    }
+
+    /**
+     * Validates the input file and returns its format.
+     * When an explicit format is given, it takes precedence over the file extension,
+     * so files with non-standard extensions can still be converted.
+     *
+     * @param filePath       the path to the file to validate
+     * @param explicitFormat the format requested by the user, or null to detect it from the extension
+     * @return the explicit format if given, otherwise the detected FileFormat of the file
+     * @throws InvalidInputException if the file is invalid or cannot be read
+     */
+    public static FormatDetector.FileFormat validateFile(String filePath, FormatDetector.FileFormat explicitFormat)
+            throws InvalidInputException {
         if (filePath == null || filePath.trim().isEmpty()) {
             throw new InvalidInputException("File path cannot be null or empty");
         }
@@ -57,6 +72,10 @@ public class FileValidator {
             );
         }
 
+        if (explicitFormat != null) {
+            return explicitFormat;
+        }
+
         // Detect and return the format
         return FormatDetector.detectFormat(filePath);
     }
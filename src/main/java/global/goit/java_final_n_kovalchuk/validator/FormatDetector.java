@@ -4,7 +4,7 @@ import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
 
 /**
  * Detector for file formats based on file extensions.
- * Supports JSON, XML, and CSV formats.
+ * Supports JSON, JSON Lines, XML, and CSV formats.
  */
 public class FormatDetector {
 
@@ -14,7 +14,8 @@ public class FormatDetector {
     public enum FileFormat {
         JSON,
         XML,
-        CSV
+        CSV,
+        JSONL
     }
 
     /**
@@ -36,7 +37,7 @@ public class FormatDetector {
         int lastDotIndex = normalizedPath.lastIndexOf('.');
         if (lastDotIndex == -1 || lastDotIndex == normalizedPath.length() - 1) {
             throw new InvalidInputException(
-                    "File '" + filePath + "' has no extension. Supported formats: .json, .xml, .csv"
+                    "File '" + filePath + "' has no extension. Supported formats: .json, .jsonl, .ndjson, .xml, .csv"
             );
         }
 
@@ -46,8 +47,38 @@ public class FormatDetector {
             case ".json" -> FileFormat.JSON;
             case ".xml" -> FileFormat.XML;
             case ".csv" -> FileFormat.CSV;
+            case ".jsonl", ".ndjson" -> FileFormat.JSONL;
             default -> throw new InvalidInputException(
-                    "Unsupported file format: '" + extension + "'. Supported formats: .json, .xml, .csv"
+                    "Unsupported file format: '" + extension + "'. Supported formats: .json, .jsonl, .ndjson, .xml, .csv"
+            );
+        };
+    }
+
+    /**
+     * Parses an explicit format name such as the value of the --from and --to flags.
+     * The name is case-insensitive and may be given with or without a leading dot.
+     *
+     * @param formatName the format name, for example "json" or ".csv"
+     * @return the matching FileFormat
+     * @throws InvalidInputException if the format name is not supported
+     */
+    public static FileFormat parseFormat(String formatName) throws InvalidInputException {
+        if (formatName == null || formatName.trim().isEmpty()) {
+            throw new InvalidInputException("Format name cannot be null or empty");
+        }
+
+        String normalizedName = formatName.trim().toLowerCase();
+        if (normalizedName.startsWith(".")) {
+            normalizedName = normalizedName.substring(1);
+        }
+
+        return switch (normalizedName) {
+            case "json" -> FileFormat.JSON;
+            case "xml" -> FileFormat.XML;
+            case "csv" -> FileFormat.CSV;
+            case "jsonl", "ndjson" -> FileFormat.JSONL;
+            default -> throw new InvalidInputException(
+                    "Unsupported format: '" + formatName + "'. Supported formats: json, jsonl, xml, csv"
             );
         };
     }
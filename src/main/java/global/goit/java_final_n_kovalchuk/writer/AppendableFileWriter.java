@@ -0,0 +1,59 @@
+package global.goit.java_final_n_kovalchuk.writer;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * File writer whose completed documents can be extended with more records.
+ * Only the closing tail of the document (closing tags, array brackets) is rewritten,
+ * the records already in the file are left untouched.
+ *
+ * @param <T> the type of data records to write
+ */
+public interface AppendableFileWriter<T> extends FileWriter<T> {
+
+    /**
+     * Number of bytes at the end of a document searched for its closing tail.
+     */
+    int TAIL_SEARCH_BYTES = 256;
+
+    /**
+     * Opens a streaming writer that continues a document previously written by this writer.
+     * The closing tail of the document is removed, records are written after the last
+     * existing one, and the tail is written again when the returned writer is closed.
+     * The channel is not closed.
+     *
+     * @param output          the complete document, opened for reading and writing
+     * @param existingRecords the number of records already in the document
+     * @return a writer accepting one record at a time
+     * @throws FileConversionException if the document does not end the way this writer ends documents
+     */
+    RecordWriter<T> openAppend(FileChannel output, long existingRecords) throws FileConversionException;
+
+    /**
+     * Finds the last occurrence of a closing tail near the end of a document.
+     *
+     * @param output the document
+     * @param tail   the closing tail, for example a root end tag
+     * @return the position where the tail starts, or -1 if the end of the document does not contain it
+     * @throws IOException if the document cannot be read
+     */
+    static long findTail(FileChannel output, String tail) throws IOException {
+        long size = output.size();
+        int length = (int) Math.min(size, TAIL_SEARCH_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (output.read(buffer, size - length + buffer.position()) < 0) {
+                return -1;
+            }
+        }
+
+        String end = new String(buffer.array(), StandardCharsets.ISO_8859_1);
+        int index = end.lastIndexOf(tail);
+        return index < 0 ? -1 : size - length + index;
+    }
+}
@@ -3,6 +3,7 @@ package global.goit.java_final_n_kovalchuk.writer;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -21,4 +22,14 @@ public interface FileWriter<T> {
      * @throws FileConversionException if writing fails
      */
     void write(List<T> records, File file) throws FileConversionException;
+
+    /**
+     * Opens a streaming writer over the given output stream.
+     * The document is completed when the returned writer is closed.
+     *
+     * @param output the stream to write to
+     * @return a writer accepting records one at a time
+     * @throws FileConversionException if the output cannot be opened
+     */
+    RecordWriter<T> open(OutputStream output) throws FileConversionException;
 }
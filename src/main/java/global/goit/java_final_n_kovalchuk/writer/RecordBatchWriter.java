@@ -0,0 +1,44 @@
+package global.goit.java_final_n_kovalchuk.writer;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.model.RecordBatch;
+
+/**
+ * Adapter that writes columnar batches through any writer's {@link RecordWriter}.
+ */
+public class RecordBatchWriter implements AutoCloseable {
+
+    private final RecordWriter<DataRecord> writer;
+
+    /**
+     * Constructs a new RecordBatchWriter.
+     *
+     * @param writer the record writer to write to
+     */
+    public RecordBatchWriter(RecordWriter<DataRecord> writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes every record of a batch in row order.
+     *
+     * @param batch the batch to write
+     * @throws FileConversionException if writing fails
+     */
+    public void writeBatch(RecordBatch batch) throws FileConversionException {
+        for (int row = 0; row < batch.size(); row++) {
+            writer.write(batch.get(row));
+        }
+    }
+
+    /**
+     * Completes the document of the underlying record writer.
+     *
+     * @throws FileConversionException if the document cannot be completed
+     */
+    @Override
+    public void close() throws FileConversionException {
+        writer.close();
+    }
+}
@@ -0,0 +1,42 @@
+package global.goit.java_final_n_kovalchuk.writer;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+/**
+ * Streaming writer that accepts data records one at a time.
+ * Writers are obtained from {@link FileWriter#open(java.io.OutputStream)}; closing the
+ * writer completes the document (closing tags, array brackets) and flushes the output.
+ *
+ * @param <T> the type of data records to write
+ */
+public interface RecordWriter<T> extends AutoCloseable {
+
+    /**
+     * Writes a single record to the output.
+     *
+     * @param record the record to write
+     * @throws FileConversionException if writing fails
+     */
+    void write(T record) throws FileConversionException;
+
+    /**
+     * Pushes the records written so far from the writer's own buffers to the output stream,
+     * which may be flushed as well. Writers that must see every record before they can write
+     * the first one, such as CSV with its header union, hold them back until they are closed.
+     *
+     * @return true if every record written so far has reached the output stream
+     * @throws FileConversionException if the buffered output cannot be written
+     */
+    default boolean flush() throws FileConversionException {
+        return false;
+    }
+
+    /**
+     * Completes the document and flushes all buffered output.
+     * The underlying output stream is not closed, so standard output stays usable.
+     *
+     * @throws FileConversionException if the document cannot be completed
+     */
+    @Override
+    void close() throws FileConversionException;
+}
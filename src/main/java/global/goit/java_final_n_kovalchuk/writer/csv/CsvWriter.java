@@ -1,16 +1,39 @@
 package global.goit.java_final_n_kovalchuk.writer.csv;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+import global.goit.java_final_n_kovalchuk.model.ColumnVector;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
-import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.model.RecordBatch;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.WriteChunkEvent;
+import global.goit.java_final_n_kovalchuk.spill.SpillFile;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
+import global.goit.java_final_n_kovalchuk.spill.SpillingRecordBuffer;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 /**
@@ -18,11 +41,16 @@ import java.util.TreeSet;
  * Writes a list of DataRecords to CSV format with optional headers.
  * Uses OpenCSV for writing with support for special characters and quoting.
  * Handles nested data structures (Map and List) by serializing them as JSON.
+ * Rows can be appended to a file written before, in the column order of its header row.
  */
-public class CsvWriter implements FileWriter<DataRecord> {
+public class CsvWriter implements AppendableFileWriter<DataRecord> {
+
+    private static final int APPEND_BUFFER_SIZE = 64 * 1024;
 
     private final ObjectMapper objectMapper;
     private final boolean writeHeaders;
+    private final long memoryBudget;
+    private final SpillStatistics spillStatistics;
 
     /**
      * Constructs a new CsvWriter with headers enabled by default.
@@ -37,8 +65,22 @@ public class CsvWriter implements FileWriter<DataRecord> {
      * @param writeHeaders whether to write CSV headers (true = with headers, false = without headers)
      */
     public CsvWriter(boolean writeHeaders) {
+        this(writeHeaders, SpillingRecordBuffer.UNLIMITED, new SpillStatistics());
+    }
+
+    /**
+     * Constructs a new CsvWriter that spills buffered records to disk beyond a memory budget.
+     *
+     * @param writeHeaders    whether to write CSV headers (true = with headers, false = without headers)
+     * @param memoryBudget    the maximum estimated heap size of buffered records in bytes,
+     *                        or {@link SpillingRecordBuffer#UNLIMITED}
+     * @param spillStatistics the statistics to record spills in
+     */
+    public CsvWriter(boolean writeHeaders, long memoryBudget, SpillStatistics spillStatistics) {
         this.objectMapper = new ObjectMapper();
         this.writeHeaders = writeHeaders;
+        this.memoryBudget = memoryBudget;
+        this.spillStatistics = spillStatistics;
     }
 
     /**
@@ -70,38 +112,169 @@ public class CsvWriter implements FileWriter<DataRecord> {
                 }
             }
 
-            // Collect all unique field names from all records
-            List<String> headers = collectAllFieldNames(records);
+            try (Sink sink = Sink.open(file.toPath(), IoSettings.DEFAULT)) {
+                try (RecordWriter<DataRecord> recordWriter = open(sink)) {
+                    for (DataRecord record : records) {
+                        recordWriter.write(record);
+                    }
+                }
+                sink.commit();
+            }
+        } catch (IOException e) {
+            throw new FileConversionException(
+                "Failed to write CSV file: " + file.getAbsolutePath(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Opens a streaming writer over the given output stream.
+     * The header row is the union of the field names of all records, so records are
+     * collected in a columnar batch until the writer is closed and only then written out.
+     * Beyond the memory budget the batch is spilled to temporary files.
+     *
+     * @param output the stream to write to
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the output stream is null
+     */
+    @Override
+    public RecordWriter<DataRecord> open(OutputStream output) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output stream cannot be null");
+        }
 
-            try (java.io.FileWriter fileWriter = new java.io.FileWriter(file);
-                 CSVWriter csvWriter = new CSVWriter(fileWriter)) {
+        return new CsvRecordWriter(output);
+    }
 
-                // Write header row if writeHeaders is enabled
-                if (writeHeaders) {
-                    String[] headerArray = headers.toArray(new String[0]);
-                    csvWriter.writeNext(headerArray);
-                }
+    /**
+     * Opens a streaming writer whose columns are known in advance, such as the union of the
+     * header rows of CSV inputs. The header row is written right away and every record is
+     * written as soon as it arrives, without collecting the records first; a record with
+     * a field that is not among the columns cannot be written.
+     *
+     * @param output  the stream to write to
+     * @param columns the columns of the header row, in order
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the output stream is null
+     */
+    public RecordWriter<DataRecord> open(OutputStream output, List<String> columns) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output stream cannot be null");
+        }
+
+        String[] headers = columns.toArray(new String[0]);
+        CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (writeHeaders) {
+            csvWriter.writeNext(headers);
+        }
+        return new CsvAppendingRecordWriter(csvWriter, headers);
+    }
+
+    /**
+     * Opens a streaming writer that adds rows after the end of a file written by this writer.
+     * The columns are those of the existing header row, so rows are written right away;
+     * a record with a field that is not among them cannot be appended.
+     * Without headers, every row holds the fields of its record in alphabetical order.
+     * An empty file is written as a new document.
+     *
+     * @param output          the existing output, opened for reading and writing
+     * @param existingRecords the number of records already in the output; not needed for CSV
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the header row cannot be read
+     */
+    @Override
+    public RecordWriter<DataRecord> openAppend(FileChannel output, long existingRecords) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output channel cannot be null");
+        }
+
+        try {
+            String[] headers = null;
+            if (writeHeaders && output.size() > 0) {
+                output.position(0);
+                // Not closed, which would close the channel
+                CSVReader reader = new CSVReader(new InputStreamReader(Channels.newInputStream(output),
+                    StandardCharsets.UTF_8));
+                headers = reader.readNext();
+            }
+            output.position(output.size());
+
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(output), APPEND_BUFFER_SIZE);
+            if (output.size() == 0) {
+                return open(stream);
+            }
+            return new CsvAppendingRecordWriter(new CSVWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)),
+                headers);
+        } catch (IOException | CsvValidationException e) {
+            throw new FileConversionException("Failed to open CSV output for appending", e);
+        }
+    }
+
+    /**
+     * Writes the header row (if enabled) and all data rows.
+     *
+     * Spilled records are replayed first, then the records still held in memory
+     * are written straight from their columns.
+     *
+     * @param records the buffered records to write
+     * @param output  the stream to write to
+     * @throws IOException             if writing fails
+     * @throws FileConversionException if a spill file cannot be read
+     */
+    private void writeRows(SpillingRecordBuffer records, OutputStream output) throws IOException, FileConversionException {
+        // Collect all unique field names from all records
+        List<String> headers = collectAllFieldNames(records);
+        RecordBatch batch = records.getBatch();
+        List<ColumnVector> columns = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            columns.add(batch.getColumn(header));
+        }
+
+        OutputStreamWriter streamWriter = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        CSVWriter csvWriter = new CSVWriter(streamWriter);
 
-                // Write data rows
-                for (DataRecord record : records) {
+        // Write header row if writeHeaders is enabled
+        if (writeHeaders) {
+            String[] headerArray = headers.toArray(new String[0]);
+            csvWriter.writeNext(headerArray);
+        }
+
+        // Write data rows
+        ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "CSV");
+        for (SpillFile spillFile : records.getSpillFiles()) {
+            try (RecordReader<DataRecord> spilled = spillFile.openReader()) {
+                DataRecord record;
+                while ((record = spilled.read()) != null) {
                     String[] row = new String[headers.size()];
                     Map<String, Object> fields = record.getFields();
 
                     for (int i = 0; i < headers.size(); i++) {
-                        String header = headers.get(i);
-                        Object value = fields.get(header);
-                        row[i] = formatValue(value);
+                        row[i] = formatValue(fields.get(headers.get(i)));
                     }
 
                     csvWriter.writeNext(row);
+                    writeEvents.recordProcessed();
                 }
             }
-        } catch (IOException e) {
-            throw new FileConversionException(
-                "Failed to write CSV file: " + file.getAbsolutePath(),
-                e
-            );
         }
+
+        for (int rowIndex = 0; rowIndex < batch.size(); rowIndex++) {
+            String[] row = new String[headers.size()];
+
+            for (int i = 0; i < columns.size(); i++) {
+                // Fields that only occur in spilled records have no column in the batch
+                ColumnVector column = columns.get(i);
+                row[i] = column != null ? formatValue(column.getValue(rowIndex)) : "";
+            }
+
+            csvWriter.writeNext(row);
+            writeEvents.recordProcessed();
+        }
+        writeEvents.finish();
+
+        // Flush without closing, the output stream belongs to the caller
+        csvWriter.flush();
     }
 
     /**
@@ -135,17 +308,103 @@ public class CsvWriter implements FileWriter<DataRecord> {
      * Collects all unique field names from all records.
      * Uses TreeSet to maintain alphabetical order.
      *
-     * @param records list of DataRecords
+     * @param records the buffered records
      * @return a list of all unique field names in alphabetical order
      */
-    private List<String> collectAllFieldNames(List<DataRecord> records) {
-        TreeSet<String> fieldNames = new TreeSet<>();
+    private List<String> collectAllFieldNames(SpillingRecordBuffer records) {
+        TreeSet<String> fieldNames = new TreeSet<>(records.getFieldNames());
+
+        return new ArrayList<>(fieldNames);
+    }
+
+    /**
+     * Streaming writer that writes rows in the column order of a known header row.
+     */
+    private class CsvAppendingRecordWriter implements RecordWriter<DataRecord> {
+
+        private final CSVWriter csvWriter;
+        private final String[] headers;
+        private final Set<String> columns;
+        private final ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "CSV");
+
+        CsvAppendingRecordWriter(CSVWriter csvWriter, String[] headers) {
+            this.csvWriter = csvWriter;
+            this.headers = headers;
+            this.columns = headers != null ? new HashSet<>(Arrays.asList(headers)) : null;
+        }
 
-        for (DataRecord record : records) {
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
             Map<String, Object> fields = record.getFields();
-            fieldNames.addAll(fields.keySet());
+            String[] names = headers;
+            if (names == null) {
+                names = new TreeSet<>(fields.keySet()).toArray(new String[0]);
+            } else {
+                for (String field : fields.keySet()) {
+                    if (!columns.contains(field)) {
+                        throw new FileConversionException("Cannot write field '" + field
+                            + "' to CSV output with the columns " + Arrays.toString(headers));
+                    }
+                }
+            }
+
+            String[] row = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                row[i] = formatValue(fields.get(names[i]));
+            }
+            csvWriter.writeNext(row);
+            writeEvents.recordProcessed();
         }
 
-        return new ArrayList<>(fieldNames);
+        @Override
+        public boolean flush() throws FileConversionException {
+            try {
+                csvWriter.flush();
+                return true;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write CSV output", e);
+            }
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                // Flush without closing, the channel belongs to the caller
+                csvWriter.flush();
+                writeEvents.finish();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write CSV output", e);
+            }
+        }
+    }
+
+    /**
+     * Streaming writer that collects records for the header union and writes them on close.
+     */
+    private class CsvRecordWriter implements RecordWriter<DataRecord> {
+
+        private final OutputStream output;
+        private final SpillingRecordBuffer records;
+
+        CsvRecordWriter(OutputStream output) {
+            this.output = output;
+            this.records = new SpillingRecordBuffer(memoryBudget, spillStatistics);
+        }
+
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
+            records.add(record);
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                writeRows(records, output);
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write CSV output", e);
+            } finally {
+                records.close();
+            }
+        }
     }
 }
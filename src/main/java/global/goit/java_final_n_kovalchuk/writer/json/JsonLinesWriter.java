@@ -0,0 +1,193 @@
+package global.goit.java_final_n_kovalchuk.writer.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.WriteChunkEvent;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Writer for JSON Lines (NDJSON) files.
+ * Writes every DataRecord as one compact JSON object followed by a newline,
+ * so records are written as they arrive with no document structure around them.
+ * Appending to existing output therefore never rewrites anything.
+ */
+public class JsonLinesWriter implements AppendableFileWriter<DataRecord> {
+
+    private static final int APPEND_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new JsonLinesWriter with a default ObjectMapper.
+     */
+    public JsonLinesWriter() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Constructs a new JsonLinesWriter with a custom ObjectMapper.
+     * Indentation configured on the mapper is ignored, every record stays on one line.
+     *
+     * @param objectMapper the ObjectMapper to use for writing
+     */
+    public JsonLinesWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes a list of DataRecords to a JSON Lines file.
+     *
+     * @param records the list of DataRecords to write
+     * @param file    the file to write to
+     * @throws FileConversionException if writing fails
+     */
+    @Override
+    public void write(List<DataRecord> records, File file) throws FileConversionException {
+        if (records == null) {
+            throw new FileConversionException("Records list cannot be null");
+        }
+
+        if (file == null) {
+            throw new FileConversionException("File cannot be null");
+        }
+
+        try {
+            // Ensure parent directory exists
+            File parentDir = file.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                if (!parentDir.mkdirs()) {
+                    throw new FileConversionException(
+                        "Failed to create parent directory: " + parentDir.getAbsolutePath()
+                    );
+                }
+            }
+
+            try (Sink sink = Sink.open(file.toPath(), IoSettings.DEFAULT)) {
+                try (RecordWriter<DataRecord> recordWriter = open(sink)) {
+                    for (DataRecord record : records) {
+                        recordWriter.write(record);
+                    }
+                }
+                sink.commit();
+            }
+        } catch (IOException e) {
+            throw new FileConversionException(
+                "Failed to write JSON Lines file: " + file.getAbsolutePath(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Opens a streaming writer over the given output stream.
+     *
+     * @param output the stream to write to
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the JSON generator cannot be created
+     */
+    @Override
+    public RecordWriter<DataRecord> open(OutputStream output) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output stream cannot be null");
+        }
+
+        try {
+            JsonGenerator generator = objectMapper.createGenerator(output, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // One record per line: no indentation, and lines are separated explicitly
+            // instead of by the default space between root values
+            generator.setPrettyPrinter(null);
+            generator.setRootValueSeparator(null);
+            return new JsonLinesRecordWriter(generator);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to create JSON generator", e);
+        }
+    }
+
+    /**
+     * Opens a streaming writer that adds lines after the end of existing output.
+     *
+     * @param output          the existing output, opened for writing
+     * @param existingRecords the number of records already in the output; not needed for JSON Lines
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the output cannot be positioned
+     */
+    @Override
+    public RecordWriter<DataRecord> openAppend(FileChannel output, long existingRecords) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output channel cannot be null");
+        }
+
+        try {
+            output.position(output.size());
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to open JSON Lines output for appending", e);
+        }
+        return open(new BufferedOutputStream(Channels.newOutputStream(output), APPEND_BUFFER_SIZE));
+    }
+
+    /**
+     * Streaming writer that serializes each record on its own line.
+     */
+    private class JsonLinesRecordWriter implements RecordWriter<DataRecord> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter valueWriter;
+        private final ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "JSONL");
+
+        JsonLinesRecordWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.valueWriter = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
+            try {
+                valueWriter.writeValue(generator, record.getFields());
+                generator.writeRaw('\n');
+                writeEvents.recordProcessed();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON Lines record", e);
+            }
+        }
+
+        @Override
+        public boolean flush() throws FileConversionException {
+            try {
+                generator.flush();
+                return true;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON Lines output", e);
+            }
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                generator.close();
+                writeEvents.finish();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to complete JSON Lines output", e);
+            }
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package global.goit.java_final_n_kovalchuk.writer.json;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.Separators;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
-import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.WriteChunkEvent;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -15,8 +31,12 @@ import java.util.Map;
  * Writer for JSON files.
  * Handles both single records and arrays of records.
  * Uses Jackson ObjectMapper for writing with pretty printing enabled.
+ * Complete documents can be appended to; a single record is then turned into an array.
  */
-public class JsonWriter implements FileWriter<DataRecord> {
+public class JsonWriter implements AppendableFileWriter<DataRecord> {
+
+    private static final String ARRAY_END = "]";
+    private static final int APPEND_BUFFER_SIZE = 64 * 1024;
 
     private final ObjectMapper objectMapper;
 
@@ -67,18 +87,14 @@ public class JsonWriter implements FileWriter<DataRecord> {
                 }
             }
 
-            // Convert DataRecords to a format suitable for JSON serialization
-            Object output;
-            if (records.size() == 1) {
-                output = convertDataRecordToMap(records.get(0));
-            } else {
-                output = records.stream()
-                    .map(this::convertDataRecordToMap)
-                    .toArray();
+            try (Sink sink = Sink.open(file.toPath(), IoSettings.DEFAULT)) {
+                try (RecordWriter<DataRecord> recordWriter = open(sink)) {
+                    for (DataRecord record : records) {
+                        recordWriter.write(record);
+                    }
+                }
+                sink.commit();
             }
-
-            // Write to file
-            objectMapper.writeValue(file, output);
         } catch (IOException e) {
             throw new FileConversionException(
                 "Failed to write JSON file: " + file.getAbsolutePath(),
@@ -87,6 +103,100 @@ public class JsonWriter implements FileWriter<DataRecord> {
         }
     }
 
+    /**
+     * Opens a streaming writer over the given output stream.
+     * The first record is held back until the second one arrives, so a single record
+     * is still written as a JSON object and several records as a JSON array.
+     *
+     * @param output the stream to write to
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the JSON generator cannot be created
+     */
+    @Override
+    public RecordWriter<DataRecord> open(OutputStream output) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output stream cannot be null");
+        }
+
+        try {
+            JsonGenerator generator = objectMapper.createGenerator(output, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return new JsonRecordWriter(generator);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to create JSON generator", e);
+        }
+    }
+
+    /**
+     * Opens a streaming writer that adds records to a document written by this writer.
+     * The closing bracket of the array is removed and written again on close;
+     * a document holding a single object, as written for one record, is first wrapped into an array.
+     *
+     * @param output          the complete document, opened for reading and writing
+     * @param existingRecords the number of records already in the document
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the document does not end like a document of this writer
+     */
+    @Override
+    public RecordWriter<DataRecord> openAppend(FileChannel output, long existingRecords) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output channel cannot be null");
+        }
+
+        try {
+            if (output.size() > 0 && readByte(output, 0) == '{') {
+                wrapInArray(output);
+            } else {
+                long tail = AppendableFileWriter.findTail(output, ARRAY_END);
+                if (tail < 0) {
+                    throw new FileConversionException("Cannot append to JSON output: it does not end with an array");
+                }
+                // The pretty printer puts a space before the closing bracket
+                output.truncate(tail > 0 && readByte(output, tail - 1) == ' ' ? tail - 1 : tail);
+            }
+            output.position(output.size());
+
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(output), APPEND_BUFFER_SIZE);
+            JsonGenerator generator = objectMapper.createGenerator(stream, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Separators between array elements are written explicitly, not between root values;
+            // a pretty printer writes its own root separator instead of the generator's
+            if (generator.getPrettyPrinter() instanceof DefaultPrettyPrinter) {
+                generator.setPrettyPrinter(((DefaultPrettyPrinter) generator.getPrettyPrinter())
+                    .withSeparators(Separators.createDefaultInstance().withRootSeparator(null)));
+            }
+            generator.setRootValueSeparator(null);
+            return new JsonAppendingRecordWriter(generator, existingRecords == 0);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to open JSON output for appending", e);
+        }
+    }
+
+    /**
+     * Turns a document holding one object into an array holding that object.
+     * Only used for single-record documents, so rewriting the whole file is cheap.
+     *
+     * @param output the document
+     * @throws IOException if the document cannot be read or written
+     */
+    private void wrapInArray(FileChannel output) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(output.size()));
+        while (content.hasRemaining() && output.read(content, content.position()) >= 0) {
+            // Keep reading until the whole object is in the buffer
+        }
+        content.flip();
+
+        output.truncate(0);
+        output.write(ByteBuffer.wrap("[ ".getBytes(StandardCharsets.UTF_8)), 0);
+        output.write(content, 2);
+    }
+
+    private static byte readByte(FileChannel output, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        output.read(buffer, position);
+        return buffer.get(0);
+    }
+
     /**
      * Converts a DataRecord to a Map for JSON serialization.
      *
@@ -96,4 +206,127 @@ public class JsonWriter implements FileWriter<DataRecord> {
     private Map<String, Object> convertDataRecordToMap(DataRecord record) {
         return record.getFields();
     }
+
+    /**
+     * Streaming writer that serializes records straight into a shared JsonGenerator.
+     */
+    private class JsonRecordWriter implements RecordWriter<DataRecord> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter valueWriter;
+        private final ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "JSON");
+        private DataRecord pending;
+        private long count;
+
+        JsonRecordWriter(JsonGenerator generator) {
+            this.generator = generator;
+            // Flushing after every record would defeat output buffering
+            this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
+            try {
+                count++;
+                writeEvents.recordProcessed();
+                if (count == 1) {
+                    pending = record;
+                    return;
+                }
+
+                if (count == 2) {
+                    generator.writeStartArray();
+                    valueWriter.writeValue(generator, convertDataRecordToMap(pending));
+                    pending = null;
+                }
+
+                valueWriter.writeValue(generator, convertDataRecordToMap(record));
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON record", e);
+            }
+        }
+
+        @Override
+        public boolean flush() throws FileConversionException {
+            if (count == 1) {
+                // A single record is written as an object, so it is held back until the second one
+                return false;
+            }
+            try {
+                generator.flush();
+                return true;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON output", e);
+            }
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                if (count == 1) {
+                    valueWriter.writeValue(generator, convertDataRecordToMap(pending));
+                } else {
+                    if (count == 0) {
+                        generator.writeStartArray();
+                    }
+                    generator.writeEndArray();
+                }
+
+                generator.close();
+                writeEvents.finish();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to complete JSON document", e);
+            }
+        }
+    }
+
+    /**
+     * Streaming writer that continues the array of an existing document.
+     */
+    private class JsonAppendingRecordWriter implements RecordWriter<DataRecord> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter valueWriter;
+        private final ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "JSON");
+        private boolean empty;
+
+        JsonAppendingRecordWriter(JsonGenerator generator, boolean empty) {
+            this.generator = generator;
+            this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.empty = empty;
+        }
+
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
+            try {
+                generator.writeRaw(empty ? " " : ", ");
+                empty = false;
+                valueWriter.writeValue(generator, convertDataRecordToMap(record));
+                writeEvents.recordProcessed();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON record", e);
+            }
+        }
+
+        @Override
+        public boolean flush() throws FileConversionException {
+            try {
+                generator.flush();
+                return true;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write JSON output", e);
+            }
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                generator.writeRaw(" " + ARRAY_END);
+                generator.close();
+                writeEvents.finish();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to complete JSON document", e);
+            }
+        }
+    }
 }
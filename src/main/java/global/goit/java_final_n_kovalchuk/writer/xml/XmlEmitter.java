@@ -0,0 +1,303 @@
+package global.goit.java_final_n_kovalchuk.writer.xml;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Low-level UTF-8 XML output for {@link XmlWriter}, written straight into a reusable byte buffer.
+ *
+ * Indentation comes from a table built once per depth, start and end tags are encoded
+ * once per element name and cached, and text that is plain ASCII without markup characters
+ * is copied byte by byte; only other characters go through escaping and UTF-8 encoding.
+ * In compact mode indentation and line breaks are left out.
+ *
+ * The output matches what a StAX writer produces for the same calls: text escapes
+ * {@code <} and {@code &}, {@code >} only where it would end a {@code ]]>} sequence, and
+ * carriage returns as character references; characters XML 1.0 does not allow are rejected.
+ * Attribute values also escape quotes, and tabs and line breaks as character references,
+ * so that attribute value normalization on reading does not turn them into spaces.
+ */
+final class XmlEmitter {
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final int INDENT_WIDTH = 2;
+    private static final int CACHED_DEPTHS = 32;
+    private static final int MAX_CACHED_TAGS = 4096;
+    // The longest encoding of one char: a character reference such as &#xd; or &amp;
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    private static final byte[] DECLARATION =
+        "<?xml version='1.0' encoding='UTF-8'?>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] INDENTS = new byte[CACHED_DEPTHS][];
+
+    static {
+        for (int depth = 0; depth < CACHED_DEPTHS; depth++) {
+            INDENTS[depth] = indentation(depth);
+        }
+    }
+
+    private final OutputStream output;
+    private final boolean compact;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Map<String, Tag> tags = new HashMap<>();
+    private int position;
+
+    /**
+     * Constructs a new XmlEmitter.
+     *
+     * @param output  the stream to write to; it is written in large blocks, so it needs no buffering
+     * @param compact true to leave out indentation and line breaks
+     */
+    XmlEmitter(OutputStream output, boolean compact) {
+        this.output = output;
+        this.compact = compact;
+    }
+
+    /**
+     * Writes the XML declaration.
+     */
+    void declaration() throws IOException {
+        bytes(DECLARATION);
+    }
+
+    /**
+     * Writes a line break, unless compact.
+     */
+    void newline() throws IOException {
+        if (!compact) {
+            ensure(1);
+            buffer[position++] = '\n';
+        }
+    }
+
+    /**
+     * Writes the indentation of the given depth, unless compact.
+     */
+    void indent(int depth) throws IOException {
+        if (!compact && depth > 0) {
+            bytes(depth < CACHED_DEPTHS ? INDENTS[depth] : indentation(depth));
+        }
+    }
+
+    void startTag(String name) throws IOException {
+        bytes(tag(name).start);
+    }
+
+    void endTag(String name) throws IOException {
+        bytes(tag(name).end);
+    }
+
+    /**
+     * Writes an element without content, such as {@code <name/>}.
+     */
+    void emptyTag(String name) throws IOException {
+        bytes(tag(name).empty);
+    }
+
+    /**
+     * Writes the beginning of a start tag, to be followed by attributes and
+     * {@link #closeStartTag()} or {@link #closeEmptyTag()}.
+     */
+    void openStartTag(String name) throws IOException {
+        bytes(tag(name).open);
+    }
+
+    /**
+     * Writes an attribute of the start tag opened last.
+     *
+     * @param name  the attribute name
+     * @param value the attribute value
+     * @throws IOException             if the output cannot be written
+     * @throws FileConversionException if the value contains a character XML does not allow
+     */
+    void attribute(String name, String value) throws IOException {
+        bytes(tag(name).attribute);
+        escaped(value, true);
+        ensure(1);
+        buffer[position++] = '"';
+    }
+
+    void closeStartTag() throws IOException {
+        ensure(1);
+        buffer[position++] = '>';
+    }
+
+    void closeEmptyTag() throws IOException {
+        ensure(2);
+        buffer[position++] = '/';
+        buffer[position++] = '>';
+    }
+
+    /**
+     * Writes escaped character data.
+     *
+     * @param text the text
+     * @throws IOException             if the output cannot be written
+     * @throws FileConversionException if the text contains a character XML does not allow
+     */
+    void text(String text) throws IOException {
+        escaped(text, false);
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and flushes it.
+     */
+    void flush() throws IOException {
+        drain();
+        output.flush();
+    }
+
+    /**
+     * Writes the buffered bytes to the stream.
+     */
+    void drain() throws IOException {
+        if (position > 0) {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Writes escaped text in chunks that fit the buffer, copying plain ASCII straight into it.
+     */
+    private void escaped(String text, boolean attribute) throws IOException {
+        int length = text.length();
+        int chunk = BUFFER_SIZE / MAX_BYTES_PER_CHAR;
+        int i = 0;
+        while (i < length) {
+            int end = Math.min(length, i + chunk);
+            ensure((end - i) * MAX_BYTES_PER_CHAR);
+            byte[] bytes = buffer;
+            int pos = position;
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80 && c >= 0x20 && c != '<' && c != '&' && c != '>' && c != '"') {
+                    bytes[pos++] = (byte) c;
+                } else {
+                    position = pos;
+                    i = escape(text, i, attribute);
+                    pos = position;
+                }
+            }
+            position = pos;
+        }
+    }
+
+    /**
+     * Writes one character that is not plain ASCII text, with enough room in the buffer.
+     *
+     * @return the index of the last character consumed, which is the next one for a surrogate pair
+     */
+    private int escape(String text, int index, boolean attribute) {
+        char c = text.charAt(index);
+        if (c == '<') {
+            ascii("&lt;");
+        } else if (c == '&') {
+            ascii("&amp;");
+        } else if (c == '>') {
+            boolean endsCdata = index >= 2 && text.charAt(index - 1) == ']' && text.charAt(index - 2) == ']';
+            ascii(endsCdata && !attribute ? "&gt;" : ">");
+        } else if (c == '"') {
+            ascii(attribute ? "&quot;" : "\"");
+        } else if (c == '\r') {
+            ascii("&#xd;");
+        } else if (c == '\n') {
+            ascii(attribute ? "&#xa;" : "\n");
+        } else if (c == '\t') {
+            ascii(attribute ? "&#x9;" : "\t");
+        } else if (c < 0x20 || c == 0xFFFE || c == 0xFFFF) {
+            throw invalidCharacter(c);
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            char low = index + 1 < text.length() ? text.charAt(index + 1) : 0;
+            if (!Character.isHighSurrogate(c) || !Character.isLowSurrogate(low)) {
+                throw invalidCharacter(c);
+            }
+            int codePoint = Character.toCodePoint(c, low);
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        }
+        return index;
+    }
+
+    private void ascii(String escaped) {
+        for (int i = 0; i < escaped.length(); i++) {
+            buffer[position++] = (byte) escaped.charAt(i);
+        }
+    }
+
+    private void bytes(byte[] bytes) throws IOException {
+        if (bytes.length > BUFFER_SIZE) {
+            drain();
+            output.write(bytes);
+            return;
+        }
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > BUFFER_SIZE) {
+            drain();
+        }
+    }
+
+    private Tag tag(String name) {
+        Tag tag = tags.get(name);
+        if (tag == null) {
+            tag = new Tag(name);
+            // Records with ever new field names must not grow the cache without bound
+            if (tags.size() < MAX_CACHED_TAGS) {
+                tags.put(name, tag);
+            }
+        }
+        return tag;
+    }
+
+    private static byte[] indentation(int depth) {
+        byte[] indentation = new byte[depth * INDENT_WIDTH];
+        Arrays.fill(indentation, (byte) ' ');
+        return indentation;
+    }
+
+    private static FileConversionException invalidCharacter(char c) {
+        return new FileConversionException(
+            String.format("Invalid XML character U+%04X in text", (int) c));
+    }
+
+    /**
+     * The encoded tags of one element name, and its beginning as an attribute.
+     */
+    private static final class Tag {
+
+        private final byte[] start;
+        private final byte[] end;
+        private final byte[] empty;
+        private final byte[] open;
+        private final byte[] attribute;
+
+        Tag(String name) {
+            this.start = ("<" + name + ">").getBytes(StandardCharsets.UTF_8);
+            this.end = ("</" + name + ">").getBytes(StandardCharsets.UTF_8);
+            this.empty = ("<" + name + "/>").getBytes(StandardCharsets.UTF_8);
+            this.open = ("<" + name).getBytes(StandardCharsets.UTF_8);
+            this.attribute = (" " + name + "=\"").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
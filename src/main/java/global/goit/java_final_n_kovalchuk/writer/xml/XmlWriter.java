@@ -1,35 +1,59 @@
 package global.goit.java_final_n_kovalchuk.writer.xml;
 
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+import global.goit.java_final_n_kovalchuk.io.Sink;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
-import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.profiling.ChunkEventEmitter;
+import global.goit.java_final_n_kovalchuk.profiling.WriteChunkEvent;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 
-import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Writer for XML files.
- * Writes a list of DataRecords to XML format using StAX (XMLStreamWriter).
+ * Writes a list of DataRecords to XML format with an {@link XmlEmitter}, which encodes
+ * straight into a byte buffer instead of going through a StAX writer call by call.
  * Each DataRecord becomes a child element of the root "records" element.
- * Output is formatted with proper indentation for readability.
+ * Output is formatted with proper indentation for readability, or without any whitespace in compact mode.
+ * In the attribute profile, scalar fields of records and nested objects are written as attributes,
+ * such as {@code <record id="1" name="Ann">}, and only nested objects, lists and null values
+ * as child elements, which makes the output considerably smaller.
+ * Complete documents can be appended to by rewriting only the closing root tag.
  */
-public class XmlWriter implements FileWriter<DataRecord> {
+public class XmlWriter implements AppendableFileWriter<DataRecord> {
 
     private static final String ROOT_ELEMENT = "records";
     private static final String RECORD_ELEMENT = "record";
-    private static final String INDENT = "  ";
-    private static final String NEWLINE = "\n";
+    private static final String ITEM_ELEMENT = "item";
+    private static final String ROOT_END_TAG = "</" + ROOT_ELEMENT + ">";
+
+    private final boolean compact;
+    private final boolean attributes;
 
     /**
-     * Constructs a new XmlWriter.
+     * Constructs a new XmlWriter with indented output.
      */
     public XmlWriter() {
+        this(false, false);
+    }
+
+    /**
+     * Constructs a new XmlWriter.
+     *
+     * @param compact    true to write no indentation or line breaks between elements
+     * @param attributes true to write scalar fields as attributes rather than child elements
+     */
+    public XmlWriter(boolean compact, boolean attributes) {
+        this.compact = compact;
+        this.attributes = attributes;
     }
 
     /**
@@ -61,172 +85,243 @@ public class XmlWriter implements FileWriter<DataRecord> {
                 }
             }
 
-            XMLOutputFactory factory = XMLOutputFactory.newInstance();
-
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                XMLStreamWriter writer = factory.createXMLStreamWriter(fos, "UTF-8");
-
-                // Write XML declaration
-                writer.writeStartDocument("UTF-8", "1.0");
-                writer.writeCharacters(NEWLINE);
-
-                // Write root element
-                writer.writeStartElement(ROOT_ELEMENT);
-                writer.writeCharacters(NEWLINE);
-
-                // Write each record
-                for (DataRecord record : records) {
-                    writeRecord(writer, record);
+            try (Sink sink = Sink.open(file.toPath(), IoSettings.DEFAULT)) {
+                try (RecordWriter<DataRecord> recordWriter = open(sink)) {
+                    // Write each record
+                    for (DataRecord record : records) {
+                        recordWriter.write(record);
+                    }
                 }
-
-                // Close root element
-                writer.writeEndElement();
-                writer.writeCharacters(NEWLINE);
-
-                writer.writeEndDocument();
-                writer.flush();
-                writer.close();
+                sink.commit();
             }
         } catch (IOException e) {
             throw new FileConversionException(
                 "Failed to write XML file: " + file.getAbsolutePath(),
                 e
             );
-        } catch (XMLStreamException e) {
-            throw new FileConversionException(
-                "Failed to generate XML for file: " + file.getAbsolutePath(),
-                e
-            );
         }
     }
 
     /**
-     * Writes a single DataRecord as a "record" element.
+     * Opens a streaming writer over the given output stream.
+     * The XML declaration and the root element are written immediately,
+     * each record is written as it arrives, and the root element is closed when the writer is closed.
      *
-     * @param writer the XMLStreamWriter
-     * @param record the DataRecord to write
-     * @throws XMLStreamException if writing fails
+     * @param output the stream to write to
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the XML document cannot be started
      */
-    private void writeRecord(XMLStreamWriter writer, DataRecord record) throws XMLStreamException {
-        writer.writeCharacters(INDENT);
-        writer.writeStartElement(RECORD_ELEMENT);
-        writer.writeCharacters(NEWLINE);
-
-        Map<String, Object> fields = record.getFields();
-        for (Map.Entry<String, Object> entry : fields.entrySet()) {
-            writeField(writer, entry.getKey(), entry.getValue());
+    @Override
+    public RecordWriter<DataRecord> open(OutputStream output) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output stream cannot be null");
         }
 
-        writer.writeCharacters(INDENT);
-        writer.writeEndElement();
-        writer.writeCharacters(NEWLINE);
+        try {
+            XmlEmitter emitter = new XmlEmitter(output, compact);
+            emitter.declaration();
+            emitter.newline();
+            emitter.startTag(ROOT_ELEMENT);
+            emitter.newline();
+            return new XmlRecordWriter(emitter);
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to start XML document", e);
+        }
     }
 
     /**
-     * Writes a single field as an element.
-     * Handles null values by writing an empty element.
-     * Supports recursive serialization for Map and List types.
+     * Opens a streaming writer that adds records to a document written by this writer.
+     * The closing root tag is removed, records are written in its place,
+     * and the tag is written again when the writer is closed.
      *
-     * @param writer the XMLStreamWriter
-     * @param name   the field name (element name)
-     * @param value  the field value
-     * @throws XMLStreamException if writing fails
+     * @param output          the complete document, opened for reading and writing
+     * @param existingRecords the number of records already in the document
+     * @return a writer accepting one DataRecord at a time
+     * @throws FileConversionException if the document does not end with the root end tag
      */
-    private void writeField(XMLStreamWriter writer, String name, Object value) throws XMLStreamException {
-        writer.writeCharacters(INDENT + INDENT);
-        writer.writeStartElement(name);
-
-        if (value != null) {
-            if (value instanceof Map) {
-                // Handle nested objects (Map)
-                writer.writeCharacters(NEWLINE);
-                writeMap(writer, (Map<String, Object>) value, INDENT + INDENT + INDENT);
-                writer.writeCharacters(INDENT + INDENT);
-            } else if (value instanceof List) {
-                // Handle arrays (List)
-                writer.writeCharacters(NEWLINE);
-                writeList(writer, (List<Object>) value, INDENT + INDENT + INDENT);
-                writer.writeCharacters(INDENT + INDENT);
-            } else {
-                // Handle primitive values
-                writer.writeCharacters(value.toString());
+    @Override
+    public RecordWriter<DataRecord> openAppend(FileChannel output, long existingRecords) throws FileConversionException {
+        if (output == null) {
+            throw new FileConversionException("Output channel cannot be null");
+        }
+
+        try {
+            long tail = AppendableFileWriter.findTail(output, ROOT_END_TAG);
+            if (tail < 0) {
+                throw new FileConversionException("Cannot append to XML output: it does not end with " + ROOT_END_TAG);
             }
+            output.truncate(tail);
+            output.position(tail);
+            return new XmlRecordWriter(new XmlEmitter(Channels.newOutputStream(output), compact));
+        } catch (IOException e) {
+            throw new FileConversionException("Failed to open XML output for appending", e);
         }
+    }
 
-        writer.writeEndElement();
-        writer.writeCharacters(NEWLINE);
+    /**
+     * Writes a single DataRecord as a "record" element.
+     *
+     * @param emitter the XML output
+     * @param record  the DataRecord to write
+     * @throws IOException if writing fails
+     */
+    private void writeRecord(XmlEmitter emitter, DataRecord record) throws IOException {
+        if (attributes) {
+            writeAttributed(emitter, RECORD_ELEMENT, record.getFields(), 1);
+            return;
+        }
+
+        emitter.indent(1);
+        emitter.startTag(RECORD_ELEMENT);
+        emitter.newline();
+
+        for (Map.Entry<String, Object> entry : record.getFields().entrySet()) {
+            writeElement(emitter, entry.getKey(), entry.getValue(), 2);
+        }
+
+        emitter.indent(1);
+        emitter.endTag(RECORD_ELEMENT);
+        emitter.newline();
     }
 
     /**
-     * Writes a Map (nested object) as child elements.
-     * Recursively handles nested Map and List values.
+     * Writes a value as an element at the given depth.
+     * Null values become an empty element, Map values child elements named by their keys,
+     * List values child elements named "item", and other values the element text.
      *
-     * @param writer the XMLStreamWriter
-     * @param map    the Map to write
-     * @param indent the current indentation level
-     * @throws XMLStreamException if writing fails
+     * @param emitter the XML output
+     * @param name    the element name
+     * @param value   the value
+     * @param depth   the nesting depth, 2 for the fields of a record
+     * @throws IOException if writing fails
      */
-    private void writeMap(XMLStreamWriter writer, Map<String, Object> map, String indent) throws XMLStreamException {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            writer.writeCharacters(indent);
-            writer.writeStartElement(entry.getKey());
+    @SuppressWarnings("unchecked")
+    private void writeElement(XmlEmitter emitter, String name, Object value, int depth) throws IOException {
+        if (attributes && value instanceof Map) {
+            writeAttributed(emitter, name, (Map<String, Object>) value, depth);
+            return;
+        }
+
+        emitter.indent(depth);
+        if (value == null) {
+            emitter.emptyTag(name);
+        } else if (value instanceof Map) {
+            emitter.startTag(name);
+            emitter.newline();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                writeElement(emitter, entry.getKey(), entry.getValue(), depth + 1);
+            }
+            emitter.indent(depth);
+            emitter.endTag(name);
+        } else if (value instanceof List) {
+            emitter.startTag(name);
+            emitter.newline();
+            for (Object item : (List<Object>) value) {
+                writeElement(emitter, ITEM_ELEMENT, item, depth + 1);
+            }
+            emitter.indent(depth);
+            emitter.endTag(name);
+        } else {
+            emitter.startTag(name);
+            emitter.text(value.toString());
+            emitter.endTag(name);
+        }
+        emitter.newline();
+    }
 
+    /**
+     * Writes an object in the attribute profile: its scalar values become attributes
+     * of the element and the other values child elements. An element without child
+     * elements is written as an empty-element tag.
+     *
+     * @param emitter the XML output
+     * @param name    the element name
+     * @param fields  the values of the object
+     * @param depth   the nesting depth
+     * @throws IOException if writing fails
+     */
+    private void writeAttributed(XmlEmitter emitter, String name, Map<String, Object> fields, int depth)
+            throws IOException {
+        emitter.indent(depth);
+        emitter.openStartTag(name);
+        boolean children = false;
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
             Object value = entry.getValue();
-            if (value != null) {
-                if (value instanceof Map) {
-                    // Recursively handle nested Map
-                    writer.writeCharacters(NEWLINE);
-                    writeMap(writer, (Map<String, Object>) value, indent + INDENT);
-                    writer.writeCharacters(indent);
-                } else if (value instanceof List) {
-                    // Recursively handle nested List
-                    writer.writeCharacters(NEWLINE);
-                    writeList(writer, (List<Object>) value, indent + INDENT);
-                    writer.writeCharacters(indent);
-                } else {
-                    // Handle primitive values
-                    writer.writeCharacters(value.toString());
-                }
+            if (isAttribute(value)) {
+                emitter.attribute(entry.getKey(), value.toString());
+            } else {
+                children = true;
             }
+        }
+        if (!children) {
+            emitter.closeEmptyTag();
+            emitter.newline();
+            return;
+        }
 
-            writer.writeEndElement();
-            writer.writeCharacters(NEWLINE);
+        emitter.closeStartTag();
+        emitter.newline();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            if (!isAttribute(entry.getValue())) {
+                writeElement(emitter, entry.getKey(), entry.getValue(), depth + 1);
+            }
         }
+        emitter.indent(depth);
+        emitter.endTag(name);
+        emitter.newline();
     }
 
     /**
-     * Writes a List (array) as child elements named "item".
-     * Recursively handles nested Map and List values.
-     *
-     * @param writer the XMLStreamWriter
-     * @param list   the List to write
-     * @param indent the current indentation level
-     * @throws XMLStreamException if writing fails
+     * Checks whether a value is written as an attribute in the attribute profile.
+     * Null stays an empty element, since a missing attribute would drop the field.
      */
-    private void writeList(XMLStreamWriter writer, List<Object> list, String indent) throws XMLStreamException {
-        for (Object item : list) {
-            writer.writeCharacters(indent);
-            writer.writeStartElement("item");
-
-            if (item != null) {
-                if (item instanceof Map) {
-                    // Recursively handle nested Map
-                    writer.writeCharacters(NEWLINE);
-                    writeMap(writer, (Map<String, Object>) item, indent + INDENT);
-                    writer.writeCharacters(indent);
-                } else if (item instanceof List) {
-                    // Recursively handle nested List
-                    writer.writeCharacters(NEWLINE);
-                    writeList(writer, (List<Object>) item, indent + INDENT);
-                    writer.writeCharacters(indent);
-                } else {
-                    // Handle primitive values
-                    writer.writeCharacters(item.toString());
-                }
+    private static boolean isAttribute(Object value) {
+        return value != null && !(value instanceof Map) && !(value instanceof List);
+    }
+
+    /**
+     * Streaming writer that emits each record as a "record" element of the open root element.
+     */
+    private class XmlRecordWriter implements RecordWriter<DataRecord> {
+
+        private final XmlEmitter emitter;
+        private final ChunkEventEmitter writeEvents = new ChunkEventEmitter(WriteChunkEvent::new, "XML");
+
+        XmlRecordWriter(XmlEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(DataRecord record) throws FileConversionException {
+            try {
+                writeRecord(emitter, record);
+                writeEvents.recordProcessed();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to generate XML record", e);
             }
+        }
 
-            writer.writeEndElement();
-            writer.writeCharacters(NEWLINE);
+        @Override
+        public boolean flush() throws FileConversionException {
+            try {
+                emitter.flush();
+                return true;
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to write XML output", e);
+            }
+        }
+
+        @Override
+        public void close() throws FileConversionException {
+            try {
+                // Close root element
+                emitter.endTag(ROOT_ELEMENT);
+                emitter.newline();
+                emitter.flush();
+                writeEvents.finish();
+            } catch (IOException e) {
+                throw new FileConversionException("Failed to complete XML document", e);
+            }
         }
     }
 }
@@ -0,0 +1,188 @@
+package global.goit.java_final_n_kovalchuk.aggregate;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordAggregator and Aggregate.
+ */
+class RecordAggregatorTest {
+
+    private static DataRecord record(Object region, Object amount) {
+        DataRecord record = new DataRecord();
+        record.addField("region", region);
+        record.addField("amount", amount);
+        return record;
+    }
+
+    private static List<DataRecord> readAll(RecordAggregator aggregator) throws FileConversionException {
+        List<DataRecord> records = new ArrayList<>();
+        try (RecordReader<DataRecord> reader = aggregator.openReader()) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testParseSpecification() throws InvalidInputException {
+        // Act
+        List<Aggregate> aggregates = Aggregate.parseList("SUM(amount), count(*) ,avg(price.net)");
+
+        // Assert
+        assertEquals(3, aggregates.size());
+        assertEquals(Aggregate.Function.SUM, aggregates.get(0).getFunction());
+        assertEquals("sum_amount", aggregates.get(0).getOutputName());
+        assertNull(aggregates.get(1).getField());
+        assertEquals("count", aggregates.get(1).getOutputName());
+        assertEquals("avg(price.net)", aggregates.get(2).toString());
+        assertThrows(InvalidInputException.class, () -> Aggregate.parseList("median(amount)"));
+        assertThrows(InvalidInputException.class, () -> Aggregate.parseList("sum(*)"));
+        assertThrows(InvalidInputException.class, () -> Aggregate.parseList("sum(amount),"));
+        assertThrows(InvalidInputException.class, () -> Aggregate.parseList("amount"));
+    }
+
+    @Test
+    void testAggregatesEveryGroupInOrderOfFirstAppearance() throws Exception {
+        // Arrange
+        List<Aggregate> aggregates = Aggregate.parseList("count(*),sum(amount),min(amount),max(amount),avg(amount)");
+        List<DataRecord> groups;
+
+        // Act
+        try (RecordAggregator aggregator = new RecordAggregator(List.of("region"), aggregates, 1)) {
+            aggregator.add(record("north", "10"));
+            aggregator.add(record("south", 2.5));
+            aggregator.add(record("north", 4));
+            aggregator.add(record("north", "n/a"));
+            aggregator.add(record("west", null));
+            groups = readAll(aggregator);
+        }
+
+        // Assert
+        assertEquals(3, groups.size());
+        DataRecord north = groups.get(0);
+        assertEquals("north", north.getField("region"));
+        assertEquals(3L, north.getField("count"));
+        assertEquals(14L, north.getField("sum_amount"));
+        assertEquals(4L, north.getField("min_amount"));
+        assertEquals(10L, north.getField("max_amount"));
+        assertEquals(7.0, north.getField("avg_amount"));
+        assertEquals(2.5, groups.get(1).getField("sum_amount"));
+        assertEquals(1L, groups.get(2).getField("count"));
+        assertNull(groups.get(2).getField("sum_amount"));
+        assertNull(groups.get(2).getField("avg_amount"));
+    }
+
+    @Test
+    void testPartialAggregatesOfParallelChunksAreMerged() throws Exception {
+        // Arrange
+        int records = RecordAggregator.CHUNK_RECORDS * 10 + 17;
+        List<DataRecord> groups;
+
+        // Act
+        try (RecordAggregator aggregator = new RecordAggregator(List.of("region"),
+                Aggregate.parseList("count(*),sum(amount),max(amount)"), 4)) {
+            for (int i = 0; i < records; i++) {
+                // Numeric keys from one input and text keys from another fall into the same group
+                Object region = i % 2 == 0 ? (Object) (i % 7) : String.valueOf(i % 7);
+                aggregator.add(record(region, i));
+            }
+            assertEquals(records, aggregator.size());
+            groups = readAll(aggregator);
+        }
+
+        // Assert
+        assertEquals(7, groups.size());
+        long totalCount = 0;
+        long totalSum = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            DataRecord group = groups.get(i);
+            assertEquals(String.valueOf(i), group.getField("region").toString());
+            totalCount += (Long) group.getField("count");
+            totalSum += (Long) group.getField("sum_amount");
+        }
+        assertEquals(records, totalCount);
+        assertEquals((long) records * (records - 1) / 2, totalSum);
+        assertEquals((long) records - 1, groups.get((records - 1) % 7).getField("max_amount"));
+    }
+
+    @Test
+    void testGlobalAggregateOfEmptyInputHasOneRecord() throws Exception {
+        // Arrange
+        List<DataRecord> groups;
+
+        // Act
+        try (RecordAggregator aggregator = new RecordAggregator(List.of(),
+                Aggregate.parseList("count(*),sum(amount)"), 2)) {
+            groups = readAll(aggregator);
+        }
+
+        // Assert
+        assertEquals(1, groups.size());
+        assertEquals(0L, groups.get(0).getField("count"));
+        assertNull(groups.get(0).getField("sum_amount"));
+    }
+
+    @Test
+    void testIntegersAreAggregatedExactlyBeyondDoublePrecision() throws Exception {
+        // Arrange
+        long id = (1L << 62) + 1;
+        List<Aggregate> aggregates = Aggregate.parseList("sum(amount),min(amount),max(amount),sum(region)");
+        List<DataRecord> results = new ArrayList<>();
+
+        // Act
+        for (int threads : new int[] {1, 4}) {
+            try (RecordAggregator aggregator = new RecordAggregator(List.of(), aggregates, threads)) {
+                for (int i = 0; i < RecordAggregator.CHUNK_RECORDS * 3; i++) {
+                    // 64-bit identifiers as numbers and as text, summing far beyond the long range
+                    Object amount = i % 2 == 0 ? (Object) (id + i) : String.valueOf(id + i);
+                    aggregator.add(record(i % 2 == 0 ? 0.25 : 1, amount));
+                }
+                results.add(readAll(aggregator).get(0));
+            }
+        }
+
+        // Assert
+        long records = RecordAggregator.CHUNK_RECORDS * 3;
+        BigInteger expectedSum = BigInteger.valueOf(id).multiply(BigInteger.valueOf(records))
+            .add(BigInteger.valueOf(records * (records - 1) / 2));
+        for (DataRecord result : results) {
+            assertEquals(expectedSum, result.getField("sum_amount"));
+            assertEquals(id, result.getField("min_amount"));
+            assertEquals(id + records - 1, result.getField("max_amount"));
+            assertEquals(records / 2 * 5 / 4, result.getField("sum_region"), "An integral mixed sum is written as a long");
+        }
+    }
+
+    @Test
+    void testIntegerAndFractionalExtremesCompareExactly() throws Exception {
+        // Arrange
+        long big = (1L << 53) + 1;
+        List<DataRecord> groups;
+
+        // Act
+        try (RecordAggregator aggregator = new RecordAggregator(List.of("region"),
+                Aggregate.parseList("min(amount),max(amount),sum(amount)"), 1)) {
+            aggregator.add(record("a", big));
+            aggregator.add(record("a", (double) (1L << 53)));
+            aggregator.add(record("b", Long.MAX_VALUE));
+            aggregator.add(record("b", "1"));
+            groups = readAll(aggregator);
+        }
+
+        // Assert
+        assertEquals((double) (1L << 53), groups.get(0).getField("min_amount"));
+        assertEquals(big, groups.get(0).getField("max_amount"), "The integer is larger than the equal-looking double");
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), groups.get(1).getField("sum_amount"));
+    }
+}
@@ -0,0 +1,75 @@
+package global.goit.java_final_n_kovalchuk.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConversionCache.
+ */
+class ConversionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStoreAndRestoreOutput() throws Exception {
+        // Arrange
+        ConversionCache cache = ConversionCache.open(tempDir.resolve("cache"), ConversionCache.DEFAULT_MAX_BYTES);
+        Path input = Files.writeString(tempDir.resolve("in.csv"), "id\n1\n", StandardCharsets.UTF_8);
+        Path output = Files.writeString(tempDir.resolve("out.json"), "{\"id\":\"1\"}", StandardCharsets.UTF_8);
+        Path restored = tempDir.resolve("restored.json");
+        String key = cache.computeKey(input, "CSV->JSON");
+
+        // Act
+        long missRecords = cache.restore(key, restored);
+        cache.store(key, output, 1);
+        long hitRecords = cache.restore(key, restored);
+
+        // Assert
+        assertEquals(-1, missRecords);
+        assertEquals(1, hitRecords);
+        assertEquals("{\"id\":\"1\"}", Files.readString(restored));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(cache.describeStatistics().startsWith("Cache hit rate: 50.0%"), cache.describeStatistics());
+    }
+
+    @Test
+    void testKeyDependsOnContentAndSettings() throws Exception {
+        // Arrange
+        ConversionCache cache = ConversionCache.open(tempDir.resolve("cache"), ConversionCache.DEFAULT_MAX_BYTES);
+        Path first = Files.writeString(tempDir.resolve("a.csv"), "id\n1\n", StandardCharsets.UTF_8);
+        Path same = Files.writeString(tempDir.resolve("b.csv"), "id\n1\n", StandardCharsets.UTF_8);
+        Path different = Files.writeString(tempDir.resolve("c.csv"), "id\n2\n", StandardCharsets.UTF_8);
+
+        // Act
+        String firstKey = cache.computeKey(first, "CSV->JSON");
+
+        // Assert
+        assertEquals(firstKey, cache.computeKey(same, "CSV->JSON"));
+        assertNotEquals(firstKey, cache.computeKey(different, "CSV->JSON"));
+        assertNotEquals(firstKey, cache.computeKey(first, "CSV->XML"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedOutputIsEvicted() throws Exception {
+        // Arrange
+        ConversionCache cache = ConversionCache.open(tempDir.resolve("cache"), 150);
+        Path output = Files.writeString(tempDir.resolve("out.json"), "x".repeat(100), StandardCharsets.UTF_8);
+
+        // Act
+        cache.store("old", output, 1);
+        Thread.sleep(5);
+        cache.store("new", output, 1);
+
+        // Assert
+        assertEquals(-1, cache.restore("old", tempDir.resolve("old.json")));
+        assertEquals(1, cache.restore("new", tempDir.resolve("new.json")));
+    }
+}
@@ -1,6 +1,10 @@
 package global.goit.java_final_n_kovalchuk.cli;
 
+import global.goit.java_final_n_kovalchuk.converter.ConversionOptions;
 import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -102,4 +106,14 @@ class CommandLineArgsTest {
         
         assertEquals(expected, args.toString());
     }
+
+
+    @Test
+    void testSeveralInputFiles() {
+        CommandLineArgs args = new CommandLineArgs(List.of("a.csv", "b.json"), "output.xml", new ConversionOptions());
+
+        assertEquals("a.csv", args.getInputFile());
+        assertEquals(List.of("a.csv", "b.json"), args.getInputFiles());
+        assertEquals(List.of("input.json"), new CommandLineArgs("input.json", "output.xml").getInputFiles());
+    }
 }
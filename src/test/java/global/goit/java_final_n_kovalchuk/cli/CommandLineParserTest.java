@@ -2,6 +2,14 @@ package global.goit.java_final_n_kovalchuk.cli;
 
 import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
 import org.junit.jupiter.api.Test;
+import global.goit.java_final_n_kovalchuk.validator.FormatDetector;
+import global.goit.java_final_n_kovalchuk.metrics.ProgressReporter;
+import global.goit.java_final_n_kovalchuk.follow.IncrementalConverter;
+import global.goit.java_final_n_kovalchuk.io.IoSettings;
+
+import java.util.List;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -175,4 +183,373 @@ class CommandLineParserTest {
         assertEquals("/home/user/data/input.json", result.getInputFile());
         assertEquals("/home/user/output/result.xml", result.getOutputFile());
     }
+
+    @Test
+    void testParseExplicitFormatsForStandardStreams() throws InvalidInputException {
+        String[] args = {"--input", "-", "--from", "csv", "--output", "-", "--to", "JSON"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals("-", result.getInputFile());
+        assertEquals("-", result.getOutputFile());
+        assertEquals(FormatDetector.FileFormat.CSV, result.getOptions().getInputFormat());
+        assertEquals(FormatDetector.FileFormat.JSON, result.getOptions().getOutputFormat());
+    }
+
+    @Test
+    void testParseStandardInputWithoutFromFlag() {
+        String[] args = {"--input", "-", "--output", "output.xml"};
+
+        InvalidInputException exception = assertThrows(
+            InvalidInputException.class,
+            () -> parser.parse(args)
+        );
+
+        assertTrue(exception.getMessage().contains("--from"));
+    }
+
+    @Test
+    void testParseUnsupportedExplicitFormat() {
+        String[] args = {"--input", "input.json", "--output", "-", "--to", "yaml"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+    @Test
+    void testParseMetricsFlags() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json",
+                "--metrics", "report.json", "--metrics-prom", "converter.prom"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals("report.json", result.getOptions().getMetricsFile());
+        assertEquals("converter.prom", result.getOptions().getOpenMetricsFile());
+        assertTrue(result.getOptions().isMetricsEnabled());
+    }
+
+    @Test
+    void testParseProfileFlag() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--profile"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertTrue(result.getOptions().isProfile());
+        assertEquals("in.csv", result.getInputFile());
+    }
+
+    @Test
+    void testParseProgressFlags() throws InvalidInputException {
+        String[] textArgs = {"--input", "in.csv", "--output", "out.json", "--progress"};
+        String[] jsonArgs = {"--input", "in.csv", "--output", "out.json", "--progress=json"};
+
+        assertEquals(ProgressReporter.Mode.TEXT, parser.parse(textArgs).getOptions().getProgressMode());
+        assertEquals(ProgressReporter.Mode.JSON, parser.parse(jsonArgs).getOptions().getProgressMode());
+    }
+
+    @Test
+    void testParseUnsupportedProgressMode() {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--progress=xml"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+    @Test
+    void testParseMemoryBudget() throws InvalidInputException {
+        String[] args = {"--input", "in.json", "--output", "out.csv", "--memory-budget", "256m"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(256L * 1024 * 1024, result.getOptions().getMemoryBudget());
+    }
+
+    @Test
+    void testParseInvalidMemoryBudget() {
+        String[] args = {"--input", "in.json", "--output", "out.csv", "--memory-budget", "lots"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+
+    @Test
+    void testParseCache() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--cache", ".cache", "--cache-max-size", "2g"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(".cache", result.getOptions().getCacheDirectory());
+        assertEquals(2L * 1024 * 1024 * 1024, result.getOptions().getCacheMaxSize());
+    }
+
+
+    @Test
+    void testParseFollow() throws InvalidInputException {
+        String[] args = {"--input", "log.csv", "--output", "log.json", "--follow=once", "--checkpoint", "log.ckpt"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(IncrementalConverter.Mode.ONCE, result.getOptions().getFollowMode());
+        assertEquals("log.ckpt", result.getOptions().getCheckpointFile());
+    }
+
+    @Test
+    void testParseFollowRejectsStandardStreams() {
+        String[] args = {"--input", "-", "--from", "csv", "--output", "log.json", "--follow"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+
+    @Test
+    void testParseColumns() throws InvalidInputException {
+        String[] args = {"--input", "in.json", "--output", "out.csv", "--columns", "id, customer.name ,amount"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(List.of("id", "customer.name", "amount"), result.getOptions().getColumns());
+    }
+
+    @Test
+    void testParseColumnsRejectsEmptyNames() {
+        String[] args = {"--input", "in.json", "--output", "out.csv", "--columns", "id,,customer..name"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+
+    @Test
+    void testParseWhere() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--where", "amount > 10 and status = 'paid'"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals("amount > 10 and status = 'paid'", result.getOptions().getWhere());
+    }
+
+    @Test
+    void testParseWhereRejectsInvalidExpression() {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--where", "amount >"};
+
+        assertThrows(InvalidInputException.class, () -> parser.parse(args));
+    }
+
+
+    @Test
+    void testParseSortByAndLimit() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--sort-by", "amount:desc,id", "--limit", "10"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals("amount:desc,id", result.getOptions().getSortBy());
+        assertEquals(10, result.getOptions().getLimit());
+    }
+
+    @Test
+    void testParseSortByRejectsInvalidValues() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--sort-by", "id:sideways"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--limit", "0"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--follow", "--sort-by", "id"}));
+    }
+
+    @Test
+    void testParseDistinctOn() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--distinct-on", "customer, region", "--distinct-approx"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(List.of("customer", "region"), result.getOptions().getDistinctOn());
+        assertTrue(result.getOptions().isDistinctApproximate());
+    }
+
+    @Test
+    void testParseDistinctOnRejectsInvalidValues() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--distinct-on", "id,,name"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--distinct-approx"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--follow", "--distinct-on", "id"}));
+    }
+
+    @Test
+    void testParseGroupByAndAgg() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--group-by", "region,customer.city",
+            "--agg", "sum(amount),count(*)"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(List.of("region", "customer.city"), result.getOptions().getGroupBy());
+        assertEquals("sum(amount),count(*)", result.getOptions().getAggregates());
+        assertTrue(result.getOptions().isAggregating());
+    }
+
+    @Test
+    void testParseAggRejectsInvalidValues() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--agg", "median(amount)"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--group-by", ""}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--follow", "--group-by", "id"}));
+    }
+
+    @Test
+    void testParseSkipSampleAndSeed() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--skip", "100", "--sample", "5%", "--seed", "-3"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(100, result.getOptions().getSkip());
+        assertEquals("5%", result.getOptions().getSample());
+        assertEquals(-3, result.getOptions().getSeed());
+    }
+
+    @Test
+    void testParseSampleRejectsInvalidValues() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--sample", "120%"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--skip", "-1"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--seed", "x"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--follow", "--skip", "1"}));
+    }
+
+    @Test
+    void testParseSplitRecordsAndBytes() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--split-records", "1000", "--split-bytes", "1g"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(1000, result.getOptions().getSplitRecords());
+        assertEquals(1024L * 1024 * 1024, result.getOptions().getSplitBytes());
+        assertTrue(result.getOptions().isSplitting());
+    }
+
+    @Test
+    void testParseSplitRejectsInvalidCombinations() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--split-records", "0"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--split-bytes", "big"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "-", "--to", "json", "--split-records", "5"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--follow", "--split-bytes", "1m"}));
+    }
+
+
+    @Test
+    void testParsePartitionByAndMaxOpenFiles() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out/part.csv", "--partition-by", "country,address.city",
+            "--max-open-files", "32"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(List.of("country", "address.city"), result.getOptions().getPartitionBy());
+        assertEquals(32, result.getOptions().getMaxOpenFiles());
+    }
+
+    @Test
+    void testParsePartitionByRejectsInvalidCombinations() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "-", "--to", "json", "--partition-by", "c"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--partition-by", "c",
+                "--split-records", "5"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--partition-by", "c",
+                "--columns", "a,b"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "--output", "b.json", "--max-open-files", "0"}));
+    }
+
+
+    @Test
+    void testParseSeveralInputs() throws InvalidInputException {
+        String[] args = {"--input", "a.csv", "b.json", "--output", "out.csv", "--input", "logs/*.jsonl", "--unordered"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(List.of("a.csv", "b.json", "logs/*.jsonl"), result.getInputFiles());
+        assertEquals("a.csv", result.getInputFile());
+        assertTrue(result.getOptions().isUnordered());
+    }
+
+    @Test
+    void testParseSeveralInputsRejectsStandardInputAndFollow() {
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "-", "--input", "a.csv", "--from", "csv", "--output", "b.json"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "a.csv", "b.csv", "--output", "c.json", "--follow"}));
+    }
+
+    @Test
+    void testParsePipeline() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--pipeline"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertTrue(result.getOptions().isPipelined());
+        assertFalse(parser.parse(new String[] {"--input", "in.csv", "--output", "out.json"}).getOptions().isPipelined());
+    }
+
+    @Test
+    void testParseXmlCompact() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.xml", "--xml-compact"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertTrue(result.getOptions().isXmlCompact());
+    }
+
+    @Test
+    void testParseXmlAttributes() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.xml", "--xml-attributes", "--xml-compact"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertTrue(result.getOptions().isXmlAttributes());
+        assertTrue(result.getOptions().isXmlCompact());
+    }
+
+    @Test
+    void testParseEncoding() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--encoding", "latin1"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(StandardCharsets.ISO_8859_1, result.getOptions().getEncoding());
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "in.csv", "--output", "out.json", "--encoding", "no-such"}));
+    }
+
+    @Test
+    void testParseIoBufferAndFsync() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--io-buffer", "4m", "--fsync", "full"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertEquals(4 * 1024 * 1024, result.getOptions().getIoBufferSize());
+        assertEquals(IoSettings.FsyncPolicy.FULL, result.getOptions().getFsyncPolicy());
+        assertEquals(IoSettings.FsyncPolicy.NONE, parser.parse(new String[] {"--input", "in.csv", "--output", "out.json"}).getOptions().getFsyncPolicy());
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "in.csv", "--output", "out.json", "--fsync", "always"}));
+        assertThrows(InvalidInputException.class,
+            () -> parser.parse(new String[] {"--input", "in.csv", "--output", "out.json", "--io-buffer", "2g"}));
+    }
+
+    @Test
+    void testParseDirectIo() throws InvalidInputException {
+        String[] args = {"--input", "in.csv", "--output", "out.json", "--direct-io"};
+
+        CommandLineArgs result = parser.parse(args);
+
+        assertTrue(result.getOptions().isDirectIo());
+        assertTrue(result.getOptions().getIoSettings().isDirectIo());
+        assertFalse(parser.parse(new String[] {"--input", "in.csv", "--output", "out.json"}).getOptions().isDirectIo());
+    }
 }
@@ -1,19 +1,29 @@
 package global.goit.java_final_n_kovalchuk.converter;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.follow.IncrementalConverter;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
 import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
 import global.goit.java_final_n_kovalchuk.parser.xml.JacksonXmlParser;
+import global.goit.java_final_n_kovalchuk.partition.PartitionedRecordWriter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.validator.FormatDetector;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -250,4 +260,410 @@ class SimpleFormatConverterTest {
         assertTrue(content.contains("John"), "CSV should contain data");
         assertTrue(content.contains("30"), "CSV should contain data");
     }
+
+    @Test
+    void testStreamConversionCsvToJson() throws FileConversionException {
+        // Arrange
+        String csv = "name,age\nJohn Doe,30\nJane Smith,25\n";
+        ByteArrayInputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.JSON);
+
+        // Act
+        long count = converter.convert(input, output, options);
+
+        // Assert
+        assertEquals(2, count, "Both CSV rows should be converted");
+        String json = output.toString(StandardCharsets.UTF_8);
+        assertTrue(json.trim().startsWith("["), "Several records should be written as a JSON array");
+        assertTrue(json.contains("Jane Smith"), "Output should contain converted data");
+    }
+
+    @Test
+    void testStreamConversionRequiresExplicitFormats() {
+        // Arrange
+        ByteArrayInputStream input = new ByteArrayInputStream(new byte[0]);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act & Assert
+        assertThrows(FileConversionException.class, () -> converter.convert(input, output, new ConversionOptions()));
+    }
+
+    @Test
+    void testExplicitFormatOverridesExtension() throws FileConversionException, IOException {
+        // Arrange
+        File inputFile = tempDir.resolve("export.txt").toFile();
+        Files.writeString(inputFile.toPath(), "name,age\nJohn Doe,30\n");
+        File outputFile = tempDir.resolve("output.data").toFile();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.XML);
+
+        // Act
+        converter.convert(inputFile.getPath(), outputFile.getPath(), options);
+
+        // Assert
+        String content = Files.readString(outputFile.toPath());
+        assertTrue(content.contains("<name>John Doe</name>"), "Output should be written as XML");
+    }
+
+    @Test
+    void testCachedOutputIsReusedAndNotCorruptedByRewrite() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("cached.csv"), "id,name\n1,John\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("cached.json");
+        ConversionOptions options = new ConversionOptions();
+        options.setCacheDirectory(tempDir.resolve("cache").toString());
+        SimpleFormatConverter converter = new SimpleFormatConverter();
+
+        // Act
+        converter.convert(input.toString(), output.toString(), options);
+        String first = Files.readString(output);
+        converter.convert(input.toString(), output.toString(), options);
+        String reused = Files.readString(output);
+        Files.writeString(input, "id,name\n2,Jane\n", StandardCharsets.UTF_8);
+        converter.convert(input.toString(), output.toString(), new ConversionOptions());
+        Files.writeString(input, "id,name\n1,John\n", StandardCharsets.UTF_8);
+        converter.convert(input.toString(), output.toString(), options);
+
+        // Assert
+        assertEquals(first, reused);
+        assertEquals(first, Files.readString(output), "Rewriting a restored output must not change the cached copy");
+    }
+
+
+    @Test
+    void testColumnsProjectJsonToCsvInGivenOrder() throws FileConversionException {
+        // Arrange
+        String json = "[{\"id\":1,\"customer\":{\"name\":\"John\"},\"note\":\"x\"},{\"id\":2,\"customer\":{\"name\":\"Jane\"}}]";
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.JSON);
+        options.setOutputFormat(FormatDetector.FileFormat.CSV);
+        options.setColumns(List.of("customer.name", "id"));
+
+        // Act
+        converter.convert(input, output, options);
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\\R");
+        assertEquals("\"customer.name\",\"id\"", lines[0]);
+        assertEquals("\"John\",\"1\"", lines[1]);
+        assertEquals("\"Jane\",\"2\"", lines[2]);
+    }
+
+
+    @Test
+    void testWhereFiltersCsvToJson() throws FileConversionException {
+        // Arrange
+        String csv = "name,age\nJohn Doe,30\nJane Smith,25\nBob,\n";
+        ByteArrayInputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.JSON);
+        options.setWhere("age < 28 or age is null");
+
+        // Act
+        long count = converter.convert(input, output, options);
+
+        // Assert
+        assertEquals(2, count);
+        String json = output.toString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("Jane Smith") && json.contains("Bob"));
+        assertFalse(json.contains("John Doe"));
+    }
+
+
+    @Test
+    void testSortByAndLimitOrderTheOutput() throws FileConversionException {
+        // Arrange
+        String csv = "name,age\nJohn,30\nJane,25\nBob,41\nAnn,\n";
+        ByteArrayInputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.JSONL);
+        options.setSortBy("age:desc");
+        options.setLimit(3);
+
+        // Act
+        long count = converter.convert(input, output, options);
+
+        // Assert
+        assertEquals(3, count);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines[0].contains("Bob") && lines[1].contains("John") && lines[2].contains("Jane"));
+    }
+
+    @Test
+    void testDistinctOnKeepsFirstRecordOfEveryKey() throws FileConversionException {
+        // Arrange
+        String csv = "name,city,age\nJohn,Kyiv,30\nJane,Lviv,25\nJohn,Kyiv,41\nJohn,Lviv,19\nJane,Lviv,50\n";
+        ByteArrayInputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.JSONL);
+        options.setDistinctOn(List.of("name", "city"));
+        options.setSortBy("age");
+
+        // Act
+        long count = converter.convert(input, output, options);
+
+        // Assert
+        assertEquals(3, count);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines[0].contains("19") && lines[1].contains("25") && lines[2].contains("30"));
+    }
+
+    @Test
+    void testGroupByAggregatesAndSortsTheGroups() throws FileConversionException {
+        // Arrange
+        String json = "[{\"city\":\"Kyiv\",\"order\":{\"amount\":10}},{\"city\":\"Lviv\",\"order\":{\"amount\":5}},"
+            + "{\"city\":\"Kyiv\",\"order\":{\"amount\":2.5}},{\"city\":\"Odesa\",\"order\":{\"amount\":40}}]";
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.JSON);
+        options.setOutputFormat(FormatDetector.FileFormat.CSV);
+        options.setGroupBy(List.of("city"));
+        options.setAggregates("count(*),sum(order.amount)");
+        options.setSortBy("sum_order.amount:desc");
+
+        // Act
+        long count = converter.convert(input, output, options);
+
+        // Assert
+        assertEquals(3, count);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r?\n");
+        assertEquals("\"city\",\"count\",\"sum_order.amount\"", lines[0]);
+        assertEquals("\"Odesa\",\"1\",\"40\"", lines[1]);
+        assertEquals("\"Kyiv\",\"2\",\"12.5\"", lines[2]);
+        assertEquals("\"Lviv\",\"1\",\"5\"", lines[3]);
+    }
+
+    @Test
+    void testSkipAndSampleSelectRecords() throws FileConversionException {
+        // Arrange
+        StringBuilder csv = new StringBuilder("id\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append('\n');
+        }
+        ConversionOptions options = new ConversionOptions();
+        options.setInputFormat(FormatDetector.FileFormat.CSV);
+        options.setOutputFormat(FormatDetector.FileFormat.JSONL);
+        options.setSkip(900);
+        options.setSample("10");
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        // Act
+        long count = converter.convert(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+            first, options);
+        options.setWhere("id >= 0");
+        converter.convert(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), second, options);
+
+        // Assert
+        assertEquals(10, count);
+        String[] lines = first.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, lines.length);
+        assertTrue(lines[0].compareTo("{\"id\":\"900\"}") >= 0, lines[0]);
+        assertEquals(first.toString(StandardCharsets.UTF_8), second.toString(StandardCharsets.UTF_8),
+            "The same seed selects the same records whether or not they can be skipped unparsed");
+    }
+
+    @Test
+    void testSplitRecordsWritesNumberedShards() throws FileConversionException, IOException {
+        // Arrange
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append(i).append(",name").append(i).append('\n');
+        }
+        Path input = tempDir.resolve("input.csv");
+        Files.writeString(input, csv.toString());
+        Path output = tempDir.resolve("shards").resolve("out.xml");
+        ConversionOptions options = new ConversionOptions();
+        options.setSplitRecords(10);
+        options.setWhere("id >= 5");
+
+        // Act
+        converter.convert(input.toString(), output.toString(), options);
+
+        // Assert
+        assertFalse(Files.exists(output));
+        JacksonXmlParser parser = new JacksonXmlParser();
+        List<DataRecord> first = parser.parse(tempDir.resolve("shards").resolve("out-00000.xml").toFile());
+        List<DataRecord> second = parser.parse(tempDir.resolve("shards").resolve("out-00001.xml").toFile());
+        assertEquals(10, first.size());
+        assertEquals(10, second.size());
+        assertEquals("5", first.get(0).getField("id").toString());
+        assertEquals("24", second.get(9).getField("id").toString());
+        assertFalse(Files.exists(tempDir.resolve("shards").resolve("out-00002.xml")));
+    }
+
+
+    @Test
+    void testPartitionByWritesHiveStyleDirectories() throws FileConversionException, IOException {
+        // Arrange
+        Path input = tempDir.resolve("input.csv");
+        Files.writeString(input, "id,country\n1,UA\n2,PL\n3,UA\n4,\n");
+        Path output = tempDir.resolve("partitions").resolve("part.json");
+        ConversionOptions options = new ConversionOptions();
+        options.setPartitionBy(List.of("country"));
+        options.setMaxOpenFiles(1);
+
+        // Act
+        converter.convert(input.toString(), output.toString(), options);
+
+        // Assert
+        assertFalse(Files.exists(output));
+        JsonParser parser = new JsonParser();
+        List<DataRecord> ua = parser.parse(tempDir.resolve("partitions").resolve("country=UA").resolve("part.json").toFile());
+        List<DataRecord> pl = parser.parse(tempDir.resolve("partitions").resolve("country=PL").resolve("part.json").toFile());
+        assertEquals(2, ua.size());
+        assertEquals("3", ua.get(1).getField("id").toString());
+        assertFalse(ua.get(0).hasField("country"));
+        assertEquals(1, pl.size());
+        assertTrue(Files.exists(tempDir.resolve("partitions")
+            .resolve("country=" + PartitionedRecordWriter.DEFAULT_PARTITION).resolve("part.json")));
+    }
+
+
+    @Test
+    void testMergesInputsOfDifferentFormatsWithUnifiedCsvHeader() throws FileConversionException, IOException {
+        // Arrange
+        Path first = tempDir.resolve("first.csv");
+        Path second = tempDir.resolve("second.csv");
+        Path third = tempDir.resolve("third.jsonl");
+        Files.writeString(first, "id,name\n1,Ann\n2,Bob\n");
+        Files.writeString(second, "id,city\n3,Kyiv\n");
+        Files.writeString(third, "{\"id\":4,\"name\":\"Dan\"}\n");
+        Path csvOutput = tempDir.resolve("merged.csv");
+        Path jsonOutput = tempDir.resolve("merged.json");
+
+        // Act
+        converter.convert(List.of(first.toString(), second.toString()), csvOutput.toString(), new ConversionOptions());
+        converter.convert(List.of(first.toString(), second.toString(), third.toString()), jsonOutput.toString(),
+            new ConversionOptions());
+
+        // Assert
+        List<String> lines = Files.readAllLines(csvOutput);
+        assertEquals("\"city\",\"id\",\"name\"", lines.get(0));
+        assertEquals("\"\",\"1\",\"Ann\"", lines.get(1));
+        assertEquals("\"Kyiv\",\"3\",\"\"", lines.get(3));
+        List<DataRecord> records = new JsonParser().parse(jsonOutput.toFile());
+        assertEquals(4, records.size());
+        assertEquals("Kyiv", records.get(2).getField("city"));
+        assertEquals("Dan", records.get(3).getField("name"));
+    }
+
+    @Test
+    void testPipelinedConversionWritesTheSameOutput() throws FileConversionException, IOException {
+        // Arrange
+        Path input = tempDir.resolve("input.csv");
+        StringBuilder content = new StringBuilder("id,name\n");
+        for (int i = 0; i < 5000; i++) {
+            content.append(i).append(",name").append(i % 7).append('\n');
+        }
+        Files.writeString(input, content);
+        Path plainOutput = tempDir.resolve("plain.jsonl");
+        Path pipelinedOutput = tempDir.resolve("pipelined.jsonl");
+        Path report = tempDir.resolve("metrics.json");
+        ConversionOptions options = new ConversionOptions();
+        options.setPipelined(true);
+        options.setMetricsFile(report.toString());
+
+        // Act
+        converter.convert(input.toString(), plainOutput.toString(), new ConversionOptions());
+        converter.convert(input.toString(), pipelinedOutput.toString(), options);
+
+        // Assert
+        assertEquals(Files.readString(plainOutput), Files.readString(pipelinedOutput));
+        JsonNode queues = new ObjectMapper().readTree(report.toFile()).get("queues");
+        assertTrue(queues.get("read").get("batches").asLong() >= 5);
+        assertTrue(queues.get("write").get("batches").asLong() >= 5);
+    }
+
+    @Test
+    void testFailedConversionKeepsPreviousOutput() throws IOException {
+        // Arrange
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(",name").append(i).append('\n');
+        }
+        csv.append("5000,\"unterminated\n");
+        Path input = Files.writeString(tempDir.resolve("broken.csv"), csv, StandardCharsets.UTF_8);
+        Path output = Files.writeString(tempDir.resolve("previous.json"), "[]", StandardCharsets.UTF_8);
+        ConversionOptions options = new ConversionOptions();
+        options.setIoBufferSize(4096);
+
+        // Act
+        assertThrows(FileConversionException.class,
+            () -> converter.convert(input.toString(), output.toString(), options));
+
+        // Assert
+        assertEquals("[]", Files.readString(output), "A failed run must not replace the previous output");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count(), "The temporary output should be deleted");
+        }
+    }
+
+    @Test
+    void testParseErrorNamesInputFile() throws IOException {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("broken.json"), "\"not an object\"", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("output.csv");
+
+        // Act
+        FileConversionException e = assertThrows(FileConversionException.class,
+            () -> converter.convert(input.toString(), output.toString(), new ConversionOptions()));
+
+        // Assert
+        assertTrue(e.getMessage().contains(input.toAbsolutePath().toString()), e.getMessage());
+    }
+
+    @Test
+    void testFollowRestartsOutputWhenProfileChanges() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("events.csv"), "id,name\n1,a\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("events.xml");
+        ConversionOptions options = new ConversionOptions();
+        options.setFollowMode(IncrementalConverter.Mode.ONCE);
+        converter.convert(input.toString(), output.toString(), options);
+        Files.writeString(input, "2,b\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // Act
+        options.setXmlAttributes(true);
+        converter.convert(input.toString(), output.toString(), options);
+
+        // Assert
+        String xml = Files.readString(output);
+        assertFalse(xml.contains("<id>"), "Records in the old shape must not be kept: " + xml);
+        assertEquals(2, xml.split("<record ", -1).length - 1, xml);
+    }
+
+    @Test
+    void testMergedAndSingleCsvOutputsAreUtf8() throws FileConversionException, IOException {
+        // Arrange
+        Path first = Files.writeString(tempDir.resolve("first.csv"), "id,city\n1,Київ\n", StandardCharsets.UTF_8);
+        Path second = Files.writeString(tempDir.resolve("second.csv"), "id,city\n2,Łódź\n", StandardCharsets.UTF_8);
+        Path json = Files.writeString(tempDir.resolve("cities.json"),
+            "[{\"id\":\"1\",\"city\":\"Київ\"},{\"id\":\"2\",\"city\":\"Łódź\"}]", StandardCharsets.UTF_8);
+        Path merged = tempDir.resolve("merged.csv");
+        Path single = tempDir.resolve("single.csv");
+
+        // Act
+        converter.convert(List.of(first.toString(), second.toString()), merged.toString(), new ConversionOptions());
+        converter.convert(json.toString(), single.toString(), new ConversionOptions());
+
+        // Assert
+        assertEquals("\"city\",\"id\"\n\"Київ\",\"1\"\n\"Łódź\",\"2\"\n",
+            Files.readString(merged, StandardCharsets.UTF_8));
+        String singleCsv = Files.readString(single, StandardCharsets.UTF_8);
+        assertTrue(singleCsv.contains("\"Київ\"") && singleCsv.contains("\"Łódź\""), singleCsv);
+    }
 }
@@ -0,0 +1,173 @@
+package global.goit.java_final_n_kovalchuk.distinct;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordDeduplicator, LongHashSet and BloomFilter.
+ */
+class RecordDeduplicatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DataRecord record(Object customer, Object region, int id) {
+        DataRecord record = new DataRecord();
+        record.addField("customer", customer);
+        record.addField("region", region);
+        record.addField("id", id);
+        return record;
+    }
+
+    private static List<Integer> readIds(RecordReader<DataRecord> reader) throws FileConversionException {
+        List<Integer> ids = new ArrayList<>();
+        try (reader) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                ids.add((Integer) record.getField("id"));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void testLongHashSetGrowsAndKeepsZero() {
+        // Arrange
+        LongHashSet set = new LongHashSet();
+        Random random = new Random(7);
+        Set<Long> expected = new HashSet<>();
+
+        // Act
+        set.add(0);
+        expected.add(0L);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(5_000) * 0x9e3779b97f4a7c15L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        Set<Long> iterated = new HashSet<>();
+        set.forEach(iterated::add);
+
+        // Assert
+        assertEquals(expected.size(), set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(12345));
+        assertEquals(expected, iterated);
+        assertTrue(set.tableBytes() >= set.size() * 2L * Long.BYTES);
+    }
+
+    @Test
+    void testBloomFilterHasNoFalseNegatives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(16 * 1024, 10_000);
+
+        // Act
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(filter.add(i * 0x9e3779b97f4a7c15L) || i > 1);
+        }
+
+        // Assert
+        for (long i = 1; i <= 10_000; i++) {
+            assertFalse(filter.add(i * 0x9e3779b97f4a7c15L));
+        }
+        assertTrue(filter.falsePositiveRate() > 0);
+        assertTrue(filter.falsePositiveRate() < 0.05);
+    }
+
+    @Test
+    void testKeepsFirstRecordOfEveryKey() throws FileConversionException {
+        // Arrange
+        RecordDeduplicator deduplicator = new RecordDeduplicator(List.of("customer", "region"),
+            1024 * 1024, false, new SpillStatistics());
+
+        // Act
+        boolean first = deduplicator.add(record("ann", "north", 1));
+        boolean otherRegion = deduplicator.add(record("ann", "south", 2));
+        boolean repeated = deduplicator.add(record("ann", "north", 3));
+        boolean missingRegion = deduplicator.add(record("ann", null, 4));
+        boolean missingAgain = deduplicator.add(record("ann", null, 5));
+        boolean shiftedText = deduplicator.add(record("annn", "orth", 6));
+
+        // Assert
+        assertTrue(first);
+        assertTrue(otherRegion);
+        assertFalse(repeated);
+        assertTrue(missingRegion);
+        assertFalse(missingAgain);
+        assertTrue(shiftedText);
+        assertEquals(2, deduplicator.getDuplicates());
+        assertFalse(deduplicator.hasDeferred());
+        assertEquals(0, deduplicator.getFalsePositiveRate());
+    }
+
+    @Test
+    void testSpillsBeyondBudgetAndKeepsInputOrder() throws Exception {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        Set<Integer> seenKeys = new HashSet<>();
+        List<Integer> immediate = new ArrayList<>();
+        List<Integer> deferred;
+
+        // Act
+        try (RecordDeduplicator deduplicator = new RecordDeduplicator(List.of("customer"), 4096, false,
+                statistics, tempDir)) {
+            for (int id = 0; id < 20_000; id++) {
+                int key = random.nextInt(3_000);
+                if (seenKeys.add(key)) {
+                    expected.add(id);
+                }
+                if (deduplicator.add(record("customer-" + key, "any", id))) {
+                    immediate.add(id);
+                }
+            }
+            assertTrue(deduplicator.hasDeferred());
+            deferred = readIds(deduplicator.openDeferredReader());
+
+            // Assert
+            assertEquals(20_000 - expected.size(), deduplicator.getDuplicates());
+        }
+        List<Integer> actual = new ArrayList<>(immediate);
+        actual.addAll(deferred);
+        assertEquals(expected, actual);
+        assertEquals(1, statistics.getFiles());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testApproximateModeRemovesDuplicatesWithoutSpilling() throws FileConversionException {
+        // Arrange
+        RecordDeduplicator deduplicator = new RecordDeduplicator(List.of("customer"), 64 * 1024, true,
+            new SpillStatistics(), tempDir);
+        int written = 0;
+
+        // Act
+        for (int id = 0; id < 10_000; id++) {
+            if (deduplicator.add(record("customer-" + (id % 1_000), "any", id))) {
+                written++;
+            }
+        }
+
+        // Assert
+        assertFalse(deduplicator.hasDeferred());
+        assertTrue(written <= 1_000 && written > 990, "written " + written);
+        assertEquals(10_000 - written, deduplicator.getDuplicates());
+        assertTrue(deduplicator.getFalsePositiveRate() < 0.01);
+        deduplicator.close();
+    }
+}
@@ -0,0 +1,84 @@
+package global.goit.java_final_n_kovalchuk.filter;
+
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordFilter.
+ */
+class RecordFilterTest {
+
+    private static final List<String> COLUMNS = List.of("id", "status", "amount", "name", "active");
+
+    private static boolean matches(String expression, Object... values) throws InvalidInputException {
+        RecordFilter filter = RecordFilter.compile(expression);
+        return filter.test(values, filter.bind(COLUMNS::indexOf));
+    }
+
+    @Test
+    void testComparisonsAreNumericForNumberLiterals() throws InvalidInputException {
+        assertTrue(matches("amount >= 10", "1", "new", "10.0", null, null));
+        assertTrue(matches("amount < 9.5", "1", "new", 9, null, null));
+        assertFalse(matches("amount > 10", "1", "new", "abc", null, null), "Non-numeric text never compares to a number");
+        assertTrue(matches("amount != 10", "1", "new", "10.5", null, null));
+    }
+
+    @Test
+    void testTextAndBooleanLiterals() throws InvalidInputException {
+        assertTrue(matches("status = 'paid'", "1", "paid", null, null, null));
+        assertTrue(matches("status <> \"paid\"", "1", "new", null, null, null));
+        assertTrue(matches("active = true", "1", null, null, null, "TRUE"));
+        assertFalse(matches("active = false", "1", null, null, null, true));
+    }
+
+    @Test
+    void testLogicalOperatorsAndPrecedence() throws InvalidInputException {
+        // and binds tighter than or
+        assertTrue(matches("status = 'x' or status = 'new' and amount > 5", "1", "new", "6", null, null));
+        assertFalse(matches("(status = 'x' or status = 'new') and amount > 5", "1", "new", "4", null, null));
+        assertTrue(matches("NOT (amount > 5)", "1", "new", "4", null, null));
+    }
+
+    @Test
+    void testNullsInAndPatterns() throws InvalidInputException {
+        assertTrue(matches("name is null", "1", "new", "4", null, null));
+        assertFalse(matches("name = 'x'", "1", "new", "4", null, null), "Null never matches a comparison");
+        assertTrue(matches("missing is null and status is not null", "1", "new", "4", null, null));
+        assertTrue(matches("status in ('paid', 'new')", "1", "new", "4", null, null));
+        assertTrue(matches("id not in (2, 3)", "1", "new", "4", null, null));
+        assertTrue(matches("name startswith 'Jo'", "1", "new", "4", "John", null));
+        assertTrue(matches("name matches '^J.*n$' and not name matches 'x'", "1", "new", "4", "John", null));
+    }
+
+    @Test
+    void testFieldsAreCollectedOnceAndCountsKept() throws InvalidInputException {
+        // Arrange
+        RecordFilter filter = RecordFilter.compile("amount > 1 and (amount < 5 or `customer.name` = 'A')");
+        int[] slots = filter.bind(List.of("customer.name", "amount")::indexOf);
+
+        // Act
+        filter.test(new Object[] {"A", "9"}, slots);
+        filter.test(new Object[] {"B", "9"}, slots);
+
+        // Assert
+        assertEquals(List.of("amount", "customer.name"), filter.getFields());
+        assertEquals(2, filter.getScanned());
+        assertEquals(1, filter.getEmitted());
+    }
+
+    @Test
+    void testInvalidExpressionsAreRejected() {
+        assertThrows(InvalidInputException.class, () -> RecordFilter.compile(" "));
+        assertThrows(InvalidInputException.class, () -> RecordFilter.compile("amount >"));
+        assertThrows(InvalidInputException.class, () -> RecordFilter.compile("amount > 1 and"));
+        assertThrows(InvalidInputException.class, () -> RecordFilter.compile("name = 'open"));
+        assertThrows(InvalidInputException.class, () -> RecordFilter.compile("name matches '('"));
+        InvalidInputException error = assertThrows(InvalidInputException.class,
+            () -> RecordFilter.compile("amount > 1)"));
+        assertTrue(error.getMessage().contains("position 11"), error.getMessage());
+    }
+}
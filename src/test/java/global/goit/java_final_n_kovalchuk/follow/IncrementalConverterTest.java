@@ -0,0 +1,118 @@
+package global.goit.java_final_n_kovalchuk.follow;
+
+import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonWriter;
+import global.goit.java_final_n_kovalchuk.writer.xml.XmlWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IncrementalConverter.
+ */
+class IncrementalConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    @Test
+    void testAppendedCsvRowsAreAddedToXmlOutput() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("log.csv"), "id,name\n1,a\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("log.xml");
+        IncrementalConverter converter = csvToXml(input, output);
+
+        // Act
+        long first = converter.convertAppended();
+        Files.writeString(input, "2,b\n3,c\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        long second = converter.convertAppended();
+        long third = converter.convertAppended();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(0, third);
+        String xml = Files.readString(output);
+        assertEquals(3, xml.split("<record>", -1).length - 1);
+        assertTrue(xml.endsWith("</records>\n"));
+        assertEquals(1, xml.split("</records>", -1).length - 1, "The closing tag must not be duplicated");
+    }
+
+    @Test
+    void testIncompleteLastLineIsLeftForNextRun() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("events.jsonl"), "{\"id\":1}\n{\"id\":", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("events.json");
+        IncrementalConverter converter = jsonLinesToJson(input, output);
+
+        // Act
+        long first = converter.convertAppended();
+        Files.writeString(input, "2}\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        long second = converter.convertAppended();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(1, second);
+        assertEquals("[ {\n  \"id\" : 1\n}, {\n  \"id\" : 2\n} ]", Files.readString(output));
+    }
+
+    @Test
+    void testTruncatedInputIsConvertedFromStart() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("rotated.jsonl"), "{\"id\":1}\n{\"id\":2}\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("rotated.json");
+        IncrementalConverter converter = jsonLinesToJson(input, output);
+        converter.convertAppended();
+
+        // Act
+        Files.writeString(input, "{\"id\":3}\n", StandardCharsets.UTF_8);
+        long converted = converter.convertAppended();
+
+        // Assert
+        assertEquals(1, converted);
+        assertEquals("{\n  \"id\" : 3\n}", Files.readString(output));
+        assertTrue(log.toString(StandardCharsets.UTF_8).contains("from the start"));
+    }
+
+    @Test
+    void testAppendingLeavesHardLinkedCopyUnchanged() throws Exception {
+        // Arrange
+        Path input = Files.writeString(tempDir.resolve("events.jsonl"), "{\"id\":1}\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("events.json");
+        IncrementalConverter converter = jsonLinesToJson(input, output);
+        converter.convertAppended();
+        String firstRun = Files.readString(output);
+        // A cache stores its objects as hard links of the outputs
+        Path cached = Files.createLink(tempDir.resolve("cached.json"), output);
+
+        // Act
+        Files.writeString(input, "{\"id\":2}\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        long appended = converter.convertAppended();
+
+        // Assert
+        assertEquals(1, appended);
+        assertEquals("[ {\n  \"id\" : 1\n}, {\n  \"id\" : 2\n} ]", Files.readString(output));
+        assertEquals(firstRun, Files.readString(cached), "The linked copy must keep the first run's output");
+    }
+
+    private IncrementalConverter csvToXml(Path input, Path output) {
+        return new IncrementalConverter(input, output, tempDir.resolve("csv.checkpoint"), "CSV -> XML", true,
+            new CsvParser(), new XmlWriter(), new PrintStream(log, true, StandardCharsets.UTF_8));
+    }
+
+    private IncrementalConverter jsonLinesToJson(Path input, Path output) {
+        return new IncrementalConverter(input, output, tempDir.resolve("jsonl.checkpoint"), "JSONL -> JSON", false,
+            new JsonLinesParser(), new JsonWriter(), new PrintStream(log, true, StandardCharsets.UTF_8));
+    }
+}
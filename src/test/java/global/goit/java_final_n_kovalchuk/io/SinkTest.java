@@ -0,0 +1,152 @@
+package global.goit.java_final_n_kovalchuk.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Sink and Source.
+ */
+class SinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testCommitReplacesTargetAtOnce() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("out.csv");
+        Files.writeString(target, "old");
+        IoSettings settings = new IoSettings(IoSettings.MIN_BUFFER_SIZE, IoSettings.FsyncPolicy.FULL);
+        byte[] content = "x".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        try (Sink sink = Sink.open(target, settings)) {
+            sink.write(content);
+            assertEquals("old", Files.readString(target), "Target must not change before the commit");
+            sink.commit();
+            assertEquals(content.length, sink.getBytesWritten());
+        }
+
+        // Assert
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, countFiles(), "Temporary file should be renamed");
+    }
+
+    @Test
+    void testCloseWithoutCommitKeepsPreviousOutput() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("out.json");
+        Files.writeString(target, "[]");
+
+        // Act
+        try (Sink sink = Sink.open(target, IoSettings.DEFAULT)) {
+            sink.write("[{\"partial\":".getBytes(StandardCharsets.UTF_8));
+            sink.flush();
+        }
+
+        // Assert
+        assertEquals("[]", Files.readString(target));
+        assertEquals(1, countFiles(), "Temporary file should be deleted");
+    }
+
+    @Test
+    void testCommitKeepsOtherHardLinks() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("out.xml");
+        Path link = tempDir.resolve("cached.xml");
+        Files.writeString(target, "<old/>");
+        Files.createLink(link, target);
+
+        // Act
+        try (Sink sink = Sink.open(target, IoSettings.DEFAULT)) {
+            sink.write("<new/>".getBytes(StandardCharsets.UTF_8));
+            sink.commit();
+        }
+
+        // Assert
+        assertEquals("<new/>", Files.readString(target));
+        assertEquals("<old/>", Files.readString(link));
+    }
+
+    @Test
+    void testSuspendedSinkContinuesThroughItsChannel() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("part.csv");
+
+        // Act
+        try (Sink sink = Sink.open(target, IoSettings.DEFAULT)) {
+            sink.write("a\n1\n".getBytes(StandardCharsets.UTF_8));
+            sink.suspend();
+            sink.channel().write(StandardCharsets.UTF_8.encode("2\n"));
+            sink.suspend();
+            sink.commit();
+        }
+
+        // Assert
+        assertEquals("a\n1\n2\n", Files.readString(target));
+    }
+
+    @Test
+    void testSourceReadsAndCountsBytes() throws Exception {
+        // Arrange
+        Path input = tempDir.resolve("in.csv");
+        byte[] content = "0123456789".repeat(2_000).getBytes(StandardCharsets.US_ASCII);
+        Files.write(input, content);
+
+        // Act
+        byte[] read;
+        long count;
+        try (Source source = Source.open(input, new IoSettings(IoSettings.MIN_BUFFER_SIZE, IoSettings.FsyncPolicy.NONE))) {
+            read = source.readAllBytes();
+            count = source.getBytesRead();
+        }
+
+        // Assert
+        assertArrayEquals(content, read);
+        assertEquals(content.length, count);
+    }
+
+    @Test
+    void testDirectIoWritesExactContent() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("direct.jsonl");
+        IoSettings settings = new IoSettings(IoSettings.MIN_BUFFER_SIZE, IoSettings.FsyncPolicy.FILE, true);
+        byte[] content = new byte[3 * Sink.MIN_DIRECT_BUFFER_SIZE / 2 + 123];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        // Act
+        try (Sink sink = Sink.open(target, settings)) {
+            // Odd chunks, so that flushes leave partial blocks behind
+            for (int off = 0; off < content.length; off += 100_000) {
+                sink.write(content, off, Math.min(100_000, content.length - off));
+                sink.flush();
+            }
+            sink.channel().write(StandardCharsets.UTF_8.encode("end"));
+            assertFalse(sink.isDirect(), "The unaligned end is written through the page cache");
+            sink.commit();
+        }
+
+        // Assert
+        byte[] written = Files.readAllBytes(target);
+        assertEquals(content.length + 3, written.length, "The padding of the last block must be cut off");
+        assertArrayEquals(content, Arrays.copyOf(written, content.length));
+        assertEquals(1, countFiles());
+    }
+}
@@ -0,0 +1,163 @@
+package global.goit.java_final_n_kovalchuk.merge;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MergingRecordReader and InputPaths.
+ */
+class MergingRecordReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes inputs of alternating formats with consecutive ids, 0 to inputs * records - 1.
+     */
+    private List<MergingRecordReader.Input> writeInputs(int inputs, int records) throws IOException {
+        List<MergingRecordReader.Input> result = new ArrayList<>();
+        int id = 0;
+        for (int i = 0; i < inputs; i++) {
+            StringBuilder content = new StringBuilder();
+            if (i % 2 == 0) {
+                content.append("id,name\n");
+                for (int r = 0; r < records; r++, id++) {
+                    content.append(id).append(",name").append(id).append('\n');
+                }
+                Path path = tempDir.resolve("input" + i + ".csv");
+                Files.writeString(path, content);
+                result.add(new MergingRecordReader.Input(path, new CsvParser()));
+            } else {
+                for (int r = 0; r < records; r++, id++) {
+                    content.append("{\"id\":").append(id).append(",\"city\":\"Kyiv\"}\n");
+                }
+                Path path = tempDir.resolve("input" + i + ".jsonl");
+                Files.writeString(path, content);
+                result.add(new MergingRecordReader.Input(path, new JsonLinesParser()));
+            }
+        }
+        return result;
+    }
+
+    private static List<Integer> readIds(MergingRecordReader reader) throws FileConversionException {
+        List<Integer> ids = new ArrayList<>();
+        try (reader) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                ids.add(Integer.parseInt(record.getField("id").toString()));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void testKeepsInputOrderAcrossFormats() throws IOException, FileConversionException {
+        // Arrange
+        List<MergingRecordReader.Input> inputs = writeInputs(7, 2500);
+
+        // Act
+        List<Integer> ids = readIds(new MergingRecordReader(inputs, false, 3, 1));
+
+        // Assert
+        assertEquals(7 * 2500, ids.size());
+        for (int id = 0; id < ids.size(); id++) {
+            assertEquals(id, ids.get(id));
+        }
+    }
+
+    @Test
+    void testArrivalOrderReturnsEveryRecordOnce() throws IOException, FileConversionException {
+        // Arrange
+        List<MergingRecordReader.Input> inputs = writeInputs(5, 3000);
+
+        // Act
+        MergingRecordReader reader = new MergingRecordReader(inputs, true, 4, 2);
+        List<Integer> ids = readIds(reader);
+
+        // Assert
+        ids.sort(Integer::compare);
+        assertEquals(5 * 3000, ids.size());
+        for (int id = 0; id < ids.size(); id++) {
+            assertEquals(id, ids.get(id));
+        }
+        long totalBytes = 0;
+        for (int i = 0; i < 5; i++) {
+            totalBytes += Files.size(tempDir.resolve("input" + i + (i % 2 == 0 ? ".csv" : ".jsonl")));
+        }
+        assertEquals(totalBytes, reader.getBytesRead());
+    }
+
+    @Test
+    void testReportsFailingInputAfterPrecedingRecords() throws IOException, FileConversionException {
+        // Arrange
+        List<MergingRecordReader.Input> inputs = new ArrayList<>(writeInputs(1, 10));
+        Path broken = tempDir.resolve("broken.json");
+        Files.writeString(broken, "[{\"id\": 10}, {\"id\": ");
+        inputs.add(new MergingRecordReader.Input(broken, new JsonParser()));
+
+        // Act
+        List<Integer> ids = new ArrayList<>();
+        FileConversionException exception;
+        try (MergingRecordReader reader = new MergingRecordReader(inputs, false, 2, 1)) {
+            exception = assertThrows(FileConversionException.class, () -> {
+                for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                    ids.add(Integer.parseInt(record.getField("id").toString()));
+                }
+            });
+        }
+
+        // Assert
+        assertTrue(ids.size() >= 10);
+        assertTrue(exception.getMessage().contains("broken.json"), exception.getMessage());
+    }
+
+    @Test
+    void testCloseStopsInputsThatWereNotRead() throws IOException, FileConversionException {
+        // Arrange
+        List<MergingRecordReader.Input> inputs = writeInputs(6, 20_000);
+        MergingRecordReader reader = new MergingRecordReader(inputs, false, 3, 1);
+
+        // Act
+        DataRecord first = reader.read();
+        reader.close();
+
+        // Assert
+        assertEquals("0", first.getField("id").toString());
+        assertTrue(reader.getBytesRead() < Files.size(tempDir.resolve("input0.csv")) * 6);
+    }
+
+    @Test
+    void testExpandsGlobPatternsInSortedOrder() throws IOException, FileConversionException {
+        // Arrange
+        Files.createDirectories(tempDir.resolve("exports").resolve("old"));
+        Files.writeString(tempDir.resolve("exports").resolve("b.csv"), "id\n");
+        Files.writeString(tempDir.resolve("exports").resolve("a.csv"), "id\n");
+        Files.writeString(tempDir.resolve("exports").resolve("c.json"), "[]");
+        Files.writeString(tempDir.resolve("exports").resolve("old").resolve("d.csv"), "id\n");
+        String exports = tempDir.resolve("exports").toString();
+
+        // Act
+        List<String> flat = InputPaths.expand(List.of(exports + "/*.csv", "plain.json"));
+        List<String> nested = InputPaths.expand(List.of(exports + "/**.csv"));
+
+        // Assert
+        assertEquals(List.of(tempDir.resolve("exports").resolve("a.csv").toString(),
+            tempDir.resolve("exports").resolve("b.csv").toString(), "plain.json"), flat);
+        assertEquals(3, nested.size());
+        assertTrue(InputPaths.isPattern("data/part-?.csv"));
+        assertFalse(InputPaths.isPattern("data/part-1.csv"));
+        assertThrows(FileConversionException.class, () -> InputPaths.expand(List.of(exports + "/*.xml")));
+    }
+}
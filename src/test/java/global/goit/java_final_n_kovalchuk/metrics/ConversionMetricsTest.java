@@ -0,0 +1,116 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConversionMetrics.
+ */
+class ConversionMetricsTest {
+
+    @Test
+    void testStageIntervalsAreCounted() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(true);
+        metrics.startRun();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            metrics.begin(ConversionMetrics.Stage.PARSING);
+            metrics.end(ConversionMetrics.Stage.PARSING);
+        }
+        metrics.finishRun(100, 2048, 4096);
+
+        // Assert
+        assertEquals(100, metrics.getStageIntervals(ConversionMetrics.Stage.PARSING));
+        assertEquals(0, metrics.getStageIntervals(ConversionMetrics.Stage.WRITING));
+        assertEquals(100, metrics.getRecords());
+        assertEquals(2048, metrics.getBytesIn());
+        assertEquals(4096, metrics.getBytesOut());
+        assertTrue(metrics.getWallNanos() > 0, "Run wall time should be measured");
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(false);
+
+        // Act
+        metrics.startRun();
+        metrics.begin(ConversionMetrics.Stage.WRITING);
+        metrics.end(ConversionMetrics.Stage.WRITING);
+        metrics.finishRun(10, 1, 1);
+
+        // Assert
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.getStageIntervals(ConversionMetrics.Stage.WRITING));
+        assertEquals(0, metrics.getRecords());
+    }
+
+    @Test
+    void testAllocationIsMeasuredForSampledStage() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(true);
+        metrics.startRun();
+
+        // Act
+        metrics.begin(ConversionMetrics.Stage.TRANSFORMATION);
+        byte[][] garbage = new byte[64][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[1024];
+        }
+        metrics.end(ConversionMetrics.Stage.TRANSFORMATION);
+        metrics.finishRun(garbage.length, 0, 0);
+
+        // Assert
+        long allocated = metrics.getStageAllocatedBytes(ConversionMetrics.Stage.TRANSFORMATION);
+        assertTrue(allocated == -1 || allocated >= 64 * 1024, "The first interval of a stage is always sampled");
+    }
+
+    @Test
+    void testPerSecondUsesRunWallTime() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(false);
+
+        // Act & Assert
+        assertEquals(0.0, metrics.perSecond(1000), "Rates are zero when no time was measured");
+    }
+
+
+    @Test
+    void testScannedRecordsIncludeFilteredRecords() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(true);
+        metrics.startRun();
+        metrics.finishRun(40, 0, 0);
+
+        // Act & Assert
+        assertEquals(40, metrics.getScannedRecords(), "Without a filter every scanned record is converted");
+        metrics.recordFiltering(100);
+        assertEquals(100, metrics.getScannedRecords());
+    }
+
+    @Test
+    void testStagesWithWorkerThreadsReportNoThreadMeasurements() {
+        // Arrange
+        ConversionMetrics metrics = new ConversionMetrics(true);
+        metrics.startRun();
+
+        // Act
+        metrics.recordWorkerThreads(ConversionMetrics.Stage.PARSING);
+        metrics.begin(ConversionMetrics.Stage.PARSING);
+        metrics.end(ConversionMetrics.Stage.PARSING);
+        metrics.begin(ConversionMetrics.Stage.WRITING);
+        metrics.end(ConversionMetrics.Stage.WRITING);
+        metrics.finishRun(1, 1, 1);
+
+        // Assert
+        assertEquals(1, metrics.getStageIntervals(ConversionMetrics.Stage.PARSING));
+        assertEquals(-1, metrics.getStageCpuNanos(ConversionMetrics.Stage.PARSING));
+        assertEquals(-1, metrics.getStageAllocatedBytes(ConversionMetrics.Stage.PARSING));
+        if (metrics.getCpuNanos() >= 0) {
+            assertTrue(metrics.getStageCpuNanos(ConversionMetrics.Stage.WRITING) >= 0);
+        }
+    }
+}
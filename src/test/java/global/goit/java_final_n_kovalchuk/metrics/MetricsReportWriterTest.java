@@ -0,0 +1,90 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsReportWriter.
+ */
+class MetricsReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConversionMetrics createMetrics() {
+        ConversionMetrics metrics = new ConversionMetrics(true);
+        metrics.setEndpoints("input.csv", "output.json");
+        metrics.startRun();
+        metrics.begin(ConversionMetrics.Stage.PARSING);
+        metrics.end(ConversionMetrics.Stage.PARSING);
+        metrics.finishRun(5, 100, 200);
+        return metrics;
+    }
+
+    @Test
+    void testWriteJsonReport() throws Exception {
+        // Arrange
+        File reportFile = tempDir.resolve("reports/metrics.json").toFile();
+
+        // Act
+        new MetricsReportWriter().writeJson(createMetrics(), reportFile);
+
+        // Assert
+        JsonNode report = new ObjectMapper().readTree(reportFile);
+        assertEquals("input.csv", report.get("input").asText());
+        assertEquals(5, report.get("records").asLong());
+        assertEquals(100, report.get("bytesIn").asLong());
+        assertEquals(1, report.get("stages").get("parsing").get("intervals").asLong());
+        assertTrue(report.has("gcPauseMillis"));
+    }
+
+    @Test
+    void testWriteOpenMetrics() throws Exception {
+        // Arrange
+        File metricsFile = tempDir.resolve("converter.prom").toFile();
+
+        // Act
+        new MetricsReportWriter().writeOpenMetrics(createMetrics(), metricsFile);
+
+        // Assert
+        String content = Files.readString(metricsFile.toPath());
+        assertTrue(content.contains("# TYPE file_converter_records gauge"));
+        assertTrue(content.contains("file_converter_records 5\n"));
+        assertTrue(content.contains("file_converter_stage_wall_seconds{stage=\"parsing\"}"));
+        assertTrue(content.endsWith("# EOF\n"), "OpenMetrics exposition must end with # EOF");
+        assertFalse(new File(metricsFile.getPath() + ".tmp").exists(), "Temporary file should be renamed");
+    }
+
+    @Test
+    void testReportsPipelineQueuesOnlyForPipelinedRuns() throws Exception {
+        // Arrange
+        ConversionMetrics pipelined = createMetrics();
+        pipelined.recordQueue(new QueueStatistics("read", 16, 40, 3.5, 16, 2, 7));
+        File reportFile = tempDir.resolve("metrics.json").toFile();
+        File metricsFile = tempDir.resolve("converter.prom").toFile();
+        File plainFile = tempDir.resolve("plain.prom").toFile();
+
+        // Act
+        new MetricsReportWriter().writeJson(pipelined, reportFile);
+        new MetricsReportWriter().writeOpenMetrics(pipelined, metricsFile);
+        new MetricsReportWriter().writeOpenMetrics(createMetrics(), plainFile);
+
+        // Assert
+        JsonNode queue = new ObjectMapper().readTree(reportFile).get("queues").get("read");
+        assertEquals(40, queue.get("batches").asLong());
+        assertEquals(3.5, queue.get("averageDepth").asDouble());
+        assertEquals(2, queue.get("producerWaits").asLong());
+        String content = Files.readString(metricsFile.toPath());
+        assertTrue(content.contains("file_converter_queue_max_depth{queue=\"read\"} 16\n"));
+        assertTrue(content.contains("file_converter_queue_consumer_waits{queue=\"read\"} 7\n"));
+        assertFalse(Files.readString(plainFile.toPath()).contains("queue"));
+    }
+}
@@ -0,0 +1,59 @@
+package global.goit.java_final_n_kovalchuk.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProgressReporter.
+ */
+class ProgressReporterTest {
+
+    @Test
+    void testJsonFinalLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        ProgressReporter reporter = new ProgressReporter(ProgressReporter.Mode.JSON, () -> 512, 1024, out, 60_000);
+
+        // Act
+        reporter.start();
+        reporter.setRecords(42);
+        reporter.close();
+
+        // Assert
+        String[] lines = buffer.toString(StandardCharsets.UTF_8).trim().split("\n");
+        JsonNode last = new ObjectMapper().readTree(lines[lines.length - 1]);
+        assertEquals(512, last.get("bytesRead").asLong());
+        assertEquals(1024, last.get("totalBytes").asLong());
+        assertEquals(50.0, last.get("percent").asDouble(), 0.001);
+        assertEquals(42, last.get("records").asLong());
+        assertTrue(last.get("done").asBoolean());
+    }
+
+    @Test
+    void testTextLineWithUnknownTotal() {
+        // Arrange
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        ProgressReporter reporter = new ProgressReporter(ProgressReporter.Mode.TEXT, () -> 3 * 1024 * 1024, -1, out, 60_000);
+
+        // Act
+        reporter.start();
+        reporter.setRecords(7);
+        reporter.report(false);
+        reporter.close();
+
+        // Assert
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        assertTrue(output.startsWith("Progress: 3.0 MB, 7 records"), output);
+        assertFalse(output.contains("ETA"), "ETA needs a known total size");
+        assertTrue(output.contains("done"));
+    }
+}
@@ -416,4 +416,17 @@ class DataRecordTest {
         assertFalse(record.hasField("age"));
         assertEquals(1, record.size());
     }
+
+
+    @Test
+    void testPresizedConstructorHoldsMoreFieldsThanExpected() {
+        DataRecord record = new DataRecord(2);
+
+        record.addField("a", 1);
+        record.addField("b", 2);
+        record.addField("c", 3);
+
+        assertEquals(3, record.size());
+        assertEquals(3, record.getField("c"));
+    }
 }
@@ -0,0 +1,170 @@
+package global.goit.java_final_n_kovalchuk.model;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.parser.RecordBatchReader;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.writer.RecordBatchWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonLinesWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordBatch, ColumnVector and the batch adapters of readers and writers.
+ */
+class RecordBatchTest {
+
+    @Test
+    void testPrimitiveColumnsAreTyped() {
+        // Arrange
+        RecordBatch batch = new RecordBatch();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            DataRecord record = new DataRecord();
+            record.addField("id", i);
+            record.addField("big", (long) i * 1_000_000_000L);
+            record.addField("price", i * 0.5);
+            record.addField("active", i % 2 == 0);
+            record.addField("city", i % 3 == 0 ? "Kyiv" : "Lviv");
+            batch.add(record);
+        }
+
+        // Assert
+        assertEquals(100, batch.size());
+        assertEquals(ColumnVector.Type.INT, batch.getColumn("id").getType());
+        assertEquals(ColumnVector.Type.LONG, batch.getColumn("big").getType());
+        assertEquals(ColumnVector.Type.DOUBLE, batch.getColumn("price").getType());
+        assertEquals(ColumnVector.Type.BOOLEAN, batch.getColumn("active").getType());
+        assertEquals(ColumnVector.Type.STRING, batch.getColumn("city").getType());
+        assertEquals(42, batch.getColumn("id").getInt(42));
+        assertEquals(21.0, batch.getColumn("price").getDouble(42));
+        assertTrue(batch.getColumn("active").getBoolean(42));
+        assertEquals(2, ((ColumnVector.StringVector) batch.getColumn("city")).getDictionarySize());
+    }
+
+    @Test
+    void testNullAndMissingFieldsRoundTrip() {
+        // Arrange
+        DataRecord first = new DataRecord();
+        first.addField("name", "John");
+        first.addField("age", null);
+        DataRecord second = new DataRecord();
+        second.addField("email", "jane@example.com");
+        RecordBatch batch = new RecordBatch();
+
+        // Act
+        batch.add(first);
+        batch.add(second);
+
+        // Assert
+        assertEquals(first, batch.get(0));
+        assertEquals(second, batch.get(1));
+        assertTrue(batch.getColumn("age").isNull(0));
+        assertTrue(batch.getColumn("age").isPresent(0));
+        assertFalse(batch.getColumn("name").isPresent(1));
+        assertFalse(batch.getColumn("email").isPresent(0));
+    }
+
+    @Test
+    void testMixedTypesFallBackToObjectColumn() {
+        // Arrange
+        DataRecord number = new DataRecord();
+        number.addField("value", 1);
+        DataRecord nested = new DataRecord();
+        nested.addField("value", Map.of("a", List.of(1, 2)));
+        RecordBatch batch = new RecordBatch();
+
+        // Act
+        batch.add(number);
+        batch.add(nested);
+
+        // Assert
+        assertEquals(ColumnVector.Type.OBJECT, batch.getColumn("value").getType());
+        assertEquals(number, batch.get(0));
+        assertEquals(nested, batch.get(1));
+    }
+
+    @Test
+    void testNullColumnIsRetypedByFirstValue() {
+        // Arrange
+        DataRecord empty = new DataRecord();
+        empty.addField("count", null);
+        DataRecord filled = new DataRecord();
+        filled.addField("count", 7);
+        RecordBatch batch = new RecordBatch();
+
+        // Act
+        batch.add(empty);
+        batch.add(filled);
+
+        // Assert
+        assertEquals(ColumnVector.Type.INT, batch.getColumn("count").getType());
+        assertTrue(batch.getColumn("count").isNull(0));
+        assertEquals(7, batch.getColumn("count").getInt(1));
+    }
+
+    @Test
+    void testRecordsRoundTripThroughBatchAdapters() throws Exception {
+        // Arrange
+        StringBuilder jsonl = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            jsonl.append("{\"id\":").append(i).append(",\"price\":").append(i + 0.25)
+                .append(",\"city\":\"").append(i % 2 == 0 ? "Kyiv" : "Lviv").append("\"}\n");
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<Integer> batchSizes = new ArrayList<>();
+
+        // Act
+        try (RecordBatchReader reader = new RecordBatchReader(openJsonLines(jsonl.toString()), 2);
+             RecordBatchWriter writer = new RecordBatchWriter(new JsonLinesWriter().open(output))) {
+            for (RecordBatch batch = reader.readBatch(); batch != null; batch = reader.readBatch()) {
+                assertEquals(ColumnVector.Type.INT, batch.getColumn("id").getType());
+                assertEquals(ColumnVector.Type.DOUBLE, batch.getColumn("price").getType());
+                batchSizes.add(batch.size());
+                writer.writeBatch(batch);
+            }
+        }
+
+        // Assert
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        List<DataRecord> expected = readAll(openJsonLines(jsonl.toString()));
+        List<DataRecord> written = readAll(openJsonLines(output.toString(StandardCharsets.UTF_8)));
+        assertEquals(expected.size(), written.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getFields(), written.get(i).getFields());
+        }
+    }
+
+    @Test
+    void testBatchReaderRejectsNonPositiveBatchSize() throws Exception {
+        // Arrange
+        RecordReader<DataRecord> records = openJsonLines("");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RecordBatchReader(records, 0));
+        records.close();
+    }
+
+    private static RecordReader<DataRecord> openJsonLines(String content) throws FileConversionException {
+        return new JsonLinesParser().open(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<DataRecord> readAll(RecordReader<DataRecord> reader) throws FileConversionException {
+        List<DataRecord> records = new ArrayList<>();
+        try (reader) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,66 @@
+package global.goit.java_final_n_kovalchuk.parser;
+
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Projection.
+ */
+class ProjectionTest {
+
+    @Test
+    void testColumnsKeepOrderAndDropDuplicates() {
+        // Arrange & Act
+        Projection projection = new Projection(List.of("b", "a", "b", "c.d"));
+
+        // Assert
+        assertEquals(List.of("b", "a", "c.d"), projection.getColumns());
+        assertEquals(3, projection.size());
+        assertEquals(1, projection.indexOf("a"));
+        assertEquals(-1, projection.indexOf("c"));
+    }
+
+    @Test
+    void testTreeFollowsNestedPaths() {
+        // Arrange
+        Projection projection = new Projection(List.of("customer.address.city", "customer"));
+
+        // Act
+        Projection.Node customer = projection.getRoot().child("customer");
+
+        // Assert
+        assertTrue(customer.isSelected());
+        assertEquals(1, customer.getColumn());
+        assertFalse(customer.child("address").isSelected());
+        assertEquals(0, customer.child("address").child("city").getColumn());
+        assertNull(projection.getRoot().child("id"));
+    }
+
+    @Test
+    void testProjectMaterializedFields() {
+        // Arrange
+        Projection projection = new Projection(List.of("name", "address.city", "missing", "id.value"));
+        Map<String, Object> fields = Map.of(
+            "id", 7,
+            "name", "John",
+            "address", Map.of("city", "Kyiv", "zip", "01001")
+        );
+
+        // Act
+        DataRecord record = projection.project(fields);
+
+        // Assert
+        assertEquals(new ArrayList<>(List.of("name", "address.city", "missing", "id.value")),
+            new ArrayList<>(record.getFields().keySet()));
+        assertEquals("John", record.getField("name"));
+        assertEquals("Kyiv", record.getField("address.city"));
+        assertNull(record.getField("missing"));
+        assertNull(record.getField("id.value"));
+    }
+}
@@ -4,11 +4,19 @@ import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.io.BufferedInputStream;
+import java.nio.charset.Charset;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -261,4 +269,213 @@ class CsvParserTest {
         assertEquals("40", thirdRecord.getField("age"));
         assertEquals("bob@example.com", thirdRecord.getField("email"));
     }
+
+
+    @Test
+    void testParseCsvTrimsHeadersAndSharesFieldNames() throws Exception {
+        // Arrange
+        File testFile = tempDir.resolve("spaced.csv").toFile();
+        CsvParser parser = new CsvParser();
+        Files.writeString(testFile.toPath(), "id , name\n1,John\n2,Jane\n");
+
+        // Act
+        List<DataRecord> records = parser.parse(testFile);
+
+        // Assert
+        assertEquals("John", records.get(0).getField("name"));
+        assertEquals("2", records.get(1).getField("id"));
+        String firstKey = records.get(0).getFields().keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+        String secondKey = records.get(1).getFields().keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+        assertSame(firstKey, secondKey, "Every record should reuse the header string instead of trimming it again");
+    }
+
+    @Test
+    void testParseCsvWithProjection() throws Exception {
+        // Arrange
+        File testFile = tempDir.resolve("projected.csv").toFile();
+        Files.writeString(testFile.toPath(), "id,name,amount\n1,John,10\n2,Jane,20\n");
+        CsvParser parser = new CsvParser(new Projection(List.of("amount", "id", "missing")));
+
+        // Act
+        List<DataRecord> records = parser.parse(testFile);
+
+        // Assert
+        assertEquals(2, records.size());
+        DataRecord record = records.get(1);
+        assertEquals(List.of("amount", "id", "missing"), new ArrayList<>(record.getFields().keySet()));
+        assertEquals("20", record.getField("amount"));
+        assertEquals("2", record.getField("id"));
+        assertNull(record.getField("missing"));
+        assertFalse(record.hasField("name"));
+    }
+
+
+    @Test
+    void testParseCsvWithFilter() throws Exception {
+        // Arrange
+        File testFile = tempDir.resolve("filtered.csv").toFile();
+        Files.writeString(testFile.toPath(), "id,name,amount\n1,John,10\n2,,20\n3,Jane,5\n");
+        CsvParser parser = new CsvParser(new Projection(List.of("id")), RecordFilter.compile("amount > 6 and name is not null"));
+
+        // Act
+        List<DataRecord> records = parser.parse(testFile);
+
+        // Assert
+        assertEquals(1, records.size());
+        assertEquals("1", records.get(0).getField("id"));
+        assertFalse(records.get(0).hasField("amount"));
+    }
+
+    @Test
+    void testSkipPassesOverRowsWithQuotedLineBreaks() throws Exception {
+        // Arrange
+        String csv = "id,note\n1,\"two\nlines\"\n2,plain\n3,last\n";
+        CsvParser parser = new CsvParser(null, RecordFilter.compile("id = 1"));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader =
+                 parser.open(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(2, reader.skip(2));
+            assertNull(reader.read(), "Rows after the skipped ones are still filtered");
+        }
+        try (RecordReader<DataRecord> reader =
+                 new CsvParser().open(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(1, reader.skip(1));
+            assertEquals("2", reader.read().getField("id"));
+            assertEquals(1, reader.skip(3));
+        }
+    }
+
+    @Test
+    void testOpenDetectsEncodingFromByteOrderMarkOrContent() throws Exception {
+        // Arrange
+        String csv = "id,name\n1,Ім'я\n2,Café\n";
+        byte[] utf8Bom = ("\uFEFF" + csv).getBytes(StandardCharsets.UTF_8);
+        byte[] utf16Bom = csv.getBytes(StandardCharsets.UTF_16);
+        byte[] utf16le = csv.getBytes(StandardCharsets.UTF_16LE);
+        byte[] latin1 = "id,name\n1,Café\n2,Zürich\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        // Act
+        List<DataRecord> fromUtf8Bom = readAll(new CsvParser(), utf8Bom);
+        List<DataRecord> fromUtf16Bom = readAll(new CsvParser(), utf16Bom);
+        List<DataRecord> fromUtf16le = readAll(new CsvParser(), utf16le);
+        List<DataRecord> fromLatin1 = readAll(new CsvParser(), latin1);
+
+        // Assert
+        for (List<DataRecord> records : List.of(fromUtf8Bom, fromUtf16Bom, fromUtf16le)) {
+            assertEquals(2, records.size());
+            assertEquals("1", records.get(0).getField("id"), "The byte order mark is not part of the first header");
+            assertEquals("Ім'я", records.get(0).getField("name"));
+            assertEquals("Café", records.get(1).getField("name"));
+        }
+        assertEquals("Café", fromLatin1.get(0).getField("name"));
+        assertEquals("Zürich", fromLatin1.get(1).getField("name"));
+    }
+
+    @Test
+    void testExplicitEncodingOverridesDetection() throws Exception {
+        // Arrange
+        byte[] utf8 = "id,name\n1,Café\n".getBytes(StandardCharsets.UTF_8);
+        byte[] windows1251 = "id,name\n1,Київ\n".getBytes(Charset.forName("windows-1251"));
+
+        // Act
+        List<DataRecord> asLatin1 = readAll(new CsvParser(null, null, StandardCharsets.ISO_8859_1), utf8);
+        List<DataRecord> asWindows1251 = readAll(new CsvParser(null, null, Charset.forName("windows-1251")), windows1251);
+        List<String> header = CsvParser.readHeader(
+            new ByteArrayInputStream(("\uFEFF id , name\n").getBytes(StandardCharsets.UTF_8)), "header.csv", null);
+
+        // Assert
+        assertEquals("CafÃ©", asLatin1.get(0).getField("name"));
+        assertEquals("Київ", asWindows1251.get(0).getField("name"));
+        assertEquals(List.of("id", "name"), header);
+    }
+
+    @Test
+    void testCharsetDetectorGuessesFromSample() throws Exception {
+        // Arrange
+        byte[] ascii = "id,name\n1,plain\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] utf16be = "id,name\n".getBytes(StandardCharsets.UTF_16BE);
+        byte[] cutUtf8 = "id,Ім".getBytes(StandardCharsets.UTF_8);
+        byte[] marked = ("\uFEFFid").getBytes(StandardCharsets.UTF_8);
+        BufferedInputStream input = new BufferedInputStream(new ByteArrayInputStream(marked));
+
+        // Act
+        Charset explicit = CharsetDetector.detect(input, StandardCharsets.UTF_8);
+
+        // Assert
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(ascii, ascii.length, true));
+        assertEquals(StandardCharsets.UTF_16BE, CharsetDetector.detect(utf16be, utf16be.length, true));
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(cutUtf8, cutUtf8.length - 1, false),
+            "A sample cut inside a character is still UTF-8");
+        assertEquals(StandardCharsets.ISO_8859_1, CharsetDetector.detect(cutUtf8, cutUtf8.length - 1, true));
+        assertEquals(StandardCharsets.UTF_8, explicit);
+        assertEquals('i', input.read(), "A byte order mark of the explicit encoding is skipped");
+    }
+
+    @Test
+    void testTokenizerReadsQuotedCellsLineBreaksAndBackslashes() throws Exception {
+        // Arrange
+        String longCell = "x".repeat(CsvTokenizer.BUFFER_SIZE + 10);
+        String csv = "id,note\r\n"
+            + "1,\"a \"\"quoted\"\", comma\"\r\n"
+            + "2,\"two\r\nlines\"\r"
+            + "3,c:\\dir\\file\n"
+            + "4," + longCell + "\n"
+            + "5,\"" + longCell + "\"\"\"\n"
+            + "6,";
+
+        // Act
+        List<DataRecord> records = readAll(new CsvParser(), csv.getBytes(StandardCharsets.UTF_8));
+
+        // Assert
+        assertEquals(6, records.size());
+        assertEquals("a \"quoted\", comma", records.get(0).getField("note"));
+        assertEquals("two\nlines", records.get(1).getField("note"));
+        assertEquals("c:\\dir\\file", records.get(2).getField("note"), "Backslashes are ordinary characters");
+        assertEquals(longCell, records.get(3).getField("note"));
+        assertEquals(longCell + "\"", records.get(4).getField("note"));
+        assertEquals("6", records.get(5).getField("id"));
+        assertNull(records.get(5).getField("note"));
+    }
+
+    @Test
+    void testTokenizerRejectsUnterminatedQuotedCell() {
+        // Arrange
+        byte[] csv = "id,note\n1,\"never closed\n2,next\n".getBytes(StandardCharsets.UTF_8);
+
+        // Act & Assert
+        FileConversionException exception =
+            assertThrows(FileConversionException.class, () -> readAll(new CsvParser(), csv));
+        assertTrue(exception.getMessage().startsWith("Invalid CSV format in file: input stream"));
+    }
+
+    @Test
+    void testTokenizerReadsBackslashEscapedQuotes() throws Exception {
+        // Arrange
+        String csv = "id,note\n"
+            + "1,\"x\\\"y\"\n"
+            + "2,\"c:\\\"\n"
+            + "3,\"a\\\"\"b\"\n"
+            + "4,x\\\"y\n";
+
+        // Act
+        List<DataRecord> records = readAll(new CsvParser(), csv.getBytes(StandardCharsets.UTF_8));
+
+        // Assert
+        assertEquals(4, records.size());
+        assertEquals("x\"y", records.get(0).getField("note"), "OpenCSV's backslash escape is still read");
+        assertEquals("c:\\", records.get(1).getField("note"), "A backslash before the closing quote is kept");
+        assertEquals("a\\\"b", records.get(2).getField("note"), "A doubled quote after a backslash is one quote");
+        assertEquals("x\"y", records.get(3).getField("note"));
+    }
+
+    private static List<DataRecord> readAll(CsvParser parser, byte[] content) throws FileConversionException {
+        List<DataRecord> records = new ArrayList<>();
+        try (RecordReader<DataRecord> reader = parser.open(new ByteArrayInputStream(content))) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
 }
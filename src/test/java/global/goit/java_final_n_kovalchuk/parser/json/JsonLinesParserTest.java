@@ -0,0 +1,182 @@
+package global.goit.java_final_n_kovalchuk.parser.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonLinesParser.
+ */
+class JsonLinesParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParseLinesSkippingBlankLines() throws Exception {
+        // Arrange
+        File file = tempDir.resolve("events.jsonl").toFile();
+        Files.writeString(file.toPath(),
+            "{\"id\": 1, \"name\": \"John\"}\r\n\n  {\"id\": 2, \"tags\": [\"a\", \"b\"]}  \n{\"id\": 3}", StandardCharsets.UTF_8);
+        JsonLinesParser parser = new JsonLinesParser();
+
+        // Act
+        List<DataRecord> records = parser.parse(file);
+
+        // Assert
+        assertEquals(3, records.size());
+        assertEquals("John", records.get(0).getField("name"));
+        assertEquals(List.of("a", "b"), records.get(1).getField("tags"));
+        assertEquals(3, records.get(2).getField("id"));
+    }
+
+    @Test
+    void testParallelParsingKeepsInputOrder() throws Exception {
+        // Arrange
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            content.append("{\"id\":").append(i).append(",\"name\":\"name-").append(i).append("\"}\n");
+        }
+        JsonLinesParser parser = new JsonLinesParser(new ObjectMapper(), 4);
+
+        // Act
+        List<DataRecord> records = new ArrayList<>();
+        try (RecordReader<DataRecord> reader =
+                 parser.open(new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)))) {
+            DataRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+
+        // Assert
+        assertEquals(200_000, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i, records.get(i).getField("id"));
+        }
+    }
+
+    @Test
+    void testInvalidLineReportsLineNumber() throws Exception {
+        // Arrange
+        byte[] content = "{\"id\": 1}\n{\"id\": 2}\n[1, 2]\n".getBytes(StandardCharsets.UTF_8);
+        JsonLinesParser parser = new JsonLinesParser();
+
+        // Act
+        FileConversionException exception;
+        try (RecordReader<DataRecord> reader = parser.open(new ByteArrayInputStream(content))) {
+            exception = assertThrows(FileConversionException.class, () -> {
+                while (reader.read() != null) {
+                    // Drain until the invalid line
+                }
+            });
+        }
+
+        // Assert
+        assertTrue(exception.getMessage().contains("line 3"), exception.getMessage());
+    }
+
+
+    @Test
+    void testParseLinesWithProjection() throws Exception {
+        // Arrange
+        File file = tempDir.resolve("projected.jsonl").toFile();
+        Files.writeString(file.toPath(),
+            "{\"id\": 1, \"user\": {\"name\": \"John\", \"age\": 30}}\n{\"id\": 2, \"extra\": [1, 2]}\n", StandardCharsets.UTF_8);
+        JsonLinesParser parser = new JsonLinesParser(new ObjectMapper(), 1, new Projection(List.of("user.name", "id")));
+
+        // Act
+        List<DataRecord> records = parser.parse(file);
+
+        // Assert
+        assertEquals(2, records.size());
+        assertEquals(List.of("user.name", "id"), new ArrayList<>(records.get(0).getFields().keySet()));
+        assertEquals("John", records.get(0).getField("user.name"));
+        assertEquals(1, records.get(0).getField("id"));
+        assertNull(records.get(1).getField("user.name"));
+        assertFalse(records.get(1).hasField("extra"));
+    }
+
+
+    @Test
+    void testParseLinesWithFilter() throws Exception {
+        // Arrange
+        File file = tempDir.resolve("filtered.jsonl").toFile();
+        Files.writeString(file.toPath(), "{\"id\": 1, \"level\": \"ERROR\"}\n{\"id\": 2, \"level\": \"INFO\"}\n{\"id\": 3, \"level\": \"WARN\"}\n",
+            StandardCharsets.UTF_8);
+        JsonLinesParser parser = new JsonLinesParser(new ObjectMapper(), 2, null, RecordFilter.compile("level in ('ERROR', 'WARN')"));
+
+        // Act
+        List<DataRecord> records = parser.parse(file);
+
+        // Assert
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).getField("id"));
+        assertEquals(3, records.get(1).getField("id"));
+    }
+
+    @Test
+    void testSkipPassesOverLinesAcrossBlocks() throws Exception {
+        // Arrange
+        StringBuilder content = new StringBuilder("\n");
+        for (int i = 0; i < 200_000; i++) {
+            content.append("{\"id\":").append(i).append("}\n");
+            if (i % 1000 == 0) {
+                content.append("  \n");
+            }
+        }
+        JsonLinesParser parser = new JsonLinesParser(new ObjectMapper(), 2, null, RecordFilter.compile("id < 10 or id = 150500"));
+
+        // Act
+        long skipped;
+        DataRecord next;
+        DataRecord last;
+        try (RecordReader<DataRecord> reader =
+                 parser.open(new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)))) {
+            skipped = reader.skip(150_000);
+            next = reader.read();
+            last = reader.read();
+        }
+
+        // Assert
+        assertEquals(150_000, skipped);
+        assertEquals(150_500, next.getField("id"), "Skipped lines are not tested against the filter, later lines are");
+        assertNull(last);
+    }
+
+    @Test
+    void testSkipStopsAtEndOfInput() throws Exception {
+        // Arrange
+        byte[] content = "{\"id\": 1}\n\n{\"id\": 2}\n{\"id\": 3}".getBytes(StandardCharsets.UTF_8);
+        byte[] invalid = "{\"id\": 1}\n\n{\"id\": 2}\n[3]".getBytes(StandardCharsets.UTF_8);
+        JsonLinesParser parser = new JsonLinesParser();
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(new ByteArrayInputStream(content))) {
+            assertEquals(1, reader.skip(1));
+            assertEquals(2, reader.read().getField("id"));
+            assertEquals(1, reader.skip(5));
+            assertNull(reader.read());
+        }
+        try (RecordReader<DataRecord> reader = parser.open(new ByteArrayInputStream(invalid))) {
+            assertEquals(1, reader.skip(1));
+            FileConversionException exception = assertThrows(FileConversionException.class, reader::read);
+            assertTrue(exception.getMessage().contains("line 4"), "Skipped lines are still numbered");
+        }
+    }
+}
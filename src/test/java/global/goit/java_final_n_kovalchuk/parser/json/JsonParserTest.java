@@ -4,11 +4,18 @@ import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -224,4 +231,92 @@ class JsonParserTest {
         assertNull(record.getField("age"));
         assertEquals("john@example.com", record.getField("email"));
     }
+
+    @Test
+    void testOpenStreamsArrayElements() throws Exception {
+        // Arrange
+        JsonParser parser = new JsonParser();
+        String json = "[{\"name\":\"A\",\"age\":1},{\"name\":\"B\",\"age\":2}]";
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            assertEquals("A", reader.read().getField("name"));
+            assertEquals(2, reader.read().getField("age"));
+            assertNull(reader.read(), "Reader should return null at the end of the array");
+        }
+    }
+
+
+    @Test
+    void testOpenWithProjectionSkipsUnselectedFields() throws Exception {
+        // Arrange
+        JsonParser parser = new JsonParser(new ObjectMapper(), new Projection(List.of("customer.city", "id", "tags")));
+        String json = "[{\"id\":1,\"payload\":{\"big\":[1,2,3]},\"customer\":{\"name\":\"A\",\"city\":\"Kyiv\"},\"tags\":[\"x\"]},"
+            + "{\"id\":2,\"customer\":\"none\"}]";
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            DataRecord first = reader.read();
+            assertEquals(List.of("customer.city", "id", "tags"), new ArrayList<>(first.getFields().keySet()));
+            assertEquals("Kyiv", first.getField("customer.city"));
+            assertEquals(1, first.getField("id"));
+            assertEquals(List.of("x"), first.getField("tags"));
+
+            DataRecord second = reader.read();
+            assertNull(second.getField("customer.city"), "A scalar on the path leaves the column empty");
+            assertEquals(2, second.getField("id"));
+            assertNull(second.getField("tags"));
+            assertNull(reader.read());
+        }
+    }
+
+
+    @Test
+    void testOpenWithFilterDropsNonMatchingElements() throws Exception {
+        // Arrange
+        String json = "[{\"id\":1,\"customer\":{\"city\":\"Kyiv\"}},{\"id\":2,\"customer\":{\"city\":\"Lviv\"}},{\"id\":3}]";
+        RecordFilter filter = RecordFilter.compile("customer.city = 'Lviv' or customer.city is null");
+        JsonParser fullParser = new JsonParser(new ObjectMapper(), null, filter);
+        JsonParser projectedParser = new JsonParser(new ObjectMapper(), new Projection(List.of("id")), filter);
+
+        // Act
+        List<Object> fullIds = new ArrayList<>();
+        try (RecordReader<DataRecord> reader = fullParser.open(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                fullIds.add(record.getField("id"));
+            }
+        }
+        List<DataRecord> projected = new ArrayList<>();
+        try (RecordReader<DataRecord> reader = projectedParser.open(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                projected.add(record);
+            }
+        }
+
+        // Assert
+        assertEquals(List.of(2, 3), fullIds);
+        assertEquals(2, projected.size());
+        assertEquals(List.of("id"), new ArrayList<>(projected.get(0).getFields().keySet()),
+            "Filter fields should not leak into projected records");
+        assertEquals(6, filter.getScanned());
+        assertEquals(4, filter.getEmitted());
+    }
+
+    @Test
+    void testSkipPassesOverArrayElementsWithoutFilter() throws Exception {
+        // Arrange
+        JsonParser parser = new JsonParser(new ObjectMapper(), null, RecordFilter.compile("id >= 2"));
+        String json = "[{\"id\":1,\"nested\":{\"a\":[1,2]}},{\"id\":2},{\"id\":3},{\"id\":4}]";
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            assertEquals(2, reader.skip(2));
+            assertEquals(3, reader.read().getField("id"));
+            assertEquals(1, reader.skip(10));
+            assertNull(reader.read());
+        }
+    }
 }
@@ -6,6 +6,9 @@ import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.parser.Projection;
+import global.goit.java_final_n_kovalchuk.filter.RecordFilter;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -13,6 +16,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -290,4 +296,130 @@ class JacksonXmlParserTest {
         }
         return file;
     }
-}
\ No newline at end of file
+
+    @Test
+    void testOpenStreamsRecordElements() throws Exception {
+        // Arrange
+        JacksonXmlParser parser = new JacksonXmlParser();
+        String xml = "<records><record><name>A</name><tags><item>x</item><item>y</item></tags></record>"
+                + "<record/><record><name>B</name></record></records>";
+        ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            DataRecord first = reader.read();
+            assertEquals("A", first.getField("name"));
+            assertEquals(List.of("x", "y"), first.getField("tags"));
+            assertEquals("B", reader.read().getField("name"), "Empty record elements should be skipped");
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void testOpenReadsRootAsRecord() throws Exception {
+        // Arrange
+        JacksonXmlParser parser = new JacksonXmlParser();
+        String xml = "<root><name>John</name><age>30</age></root>";
+        ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            DataRecord record = reader.read();
+            assertEquals("John", record.getField("name"));
+            assertEquals(30, record.getField("age"));
+            assertNull(reader.read());
+        }
+    }
+
+
+    @Test
+    void testOpenWithProjectionSkipsUnselectedElements() throws Exception {
+        // Arrange
+        JacksonXmlParser parser = new JacksonXmlParser(new Projection(List.of("customer.city", "name", "tags")));
+        String xml = "<records><record><name>A</name><payload><big>1</big></payload>"
+                + "<customer><name>C</name><city>Kyiv</city></customer><tags><item>x</item><item>y</item></tags></record>"
+                + "<record><name>B</name></record></records>";
+        ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            DataRecord first = reader.read();
+            assertEquals(List.of("customer.city", "name", "tags"), new ArrayList<>(first.getFields().keySet()));
+            assertEquals("Kyiv", first.getField("customer.city"));
+            assertEquals("A", first.getField("name"));
+            assertEquals(List.of("x", "y"), first.getField("tags"));
+
+            DataRecord second = reader.read();
+            assertEquals("B", second.getField("name"));
+            assertNull(second.getField("customer.city"));
+            assertNull(reader.read());
+        }
+    }
+
+
+    @Test
+    void testOpenWithFilterDropsNonMatchingRecords() throws Exception {
+        // Arrange
+        String xml = "<records><record><name>A</name><age>30</age></record>"
+                + "<record><name>B</name><age>17</age></record><record><name>C</name><age>45</age></record></records>";
+        RecordFilter filter = RecordFilter.compile("age >= 18 and not name matches '^C'");
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = new JacksonXmlParser(null, filter)
+                .open(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals("A", reader.read().getField("name"));
+            assertNull(reader.read());
+        }
+        try (RecordReader<DataRecord> reader = new JacksonXmlParser(new Projection(List.of("name")), filter)
+                .open(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            DataRecord record = reader.read();
+            assertEquals("A", record.getField("name"));
+            assertFalse(record.hasField("age"));
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void testSkipPassesOverRecordElements() throws Exception {
+        // Arrange
+        JacksonXmlParser parser = new JacksonXmlParser();
+        String xml = "<records><record><name>A</name><tags><item>x</item></tags></record><record/>"
+                + "<other>ignored</other><record><name>B</name></record><record><name>C</name></record></records>";
+        ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = parser.open(input)) {
+            assertEquals(2, reader.skip(2));
+            assertEquals("C", reader.read().getField("name"));
+            assertEquals(0, reader.skip(1));
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void testOpenReadsAttributesLikeChildElements() throws Exception {
+        // Arrange
+        String xml = "<records><record id=\"1\" name=\"A &amp; B&#xa;C\"><address city=\"Kyiv\"/>"
+                + "<phone>1</phone><phone>2</phone><tags><item>x</item><item>y</item></tags></record>"
+                + "<record id=\"2\" name=\"D\"/></records>";
+        RecordFilter filter = RecordFilter.compile("address.city = 'Kyiv'");
+
+        // Act & Assert
+        try (RecordReader<DataRecord> reader = new JacksonXmlParser()
+                .open(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            DataRecord first = reader.read();
+            assertEquals(1, first.getField("id"));
+            assertEquals("A & B\nC", first.getField("name"));
+            assertEquals(Map.of("city", "Kyiv"), first.getField("address"));
+            assertEquals(List.of(1, 2), first.getField("phone"));
+            assertEquals(List.of("x", "y"), first.getField("tags"));
+            assertEquals("D", reader.read().getField("name"));
+            assertNull(reader.read());
+        }
+        try (RecordReader<DataRecord> reader = new JacksonXmlParser(null, filter)
+                .open(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(1, reader.read().getField("id"));
+            assertNull(reader.read());
+        }
+    }
+}
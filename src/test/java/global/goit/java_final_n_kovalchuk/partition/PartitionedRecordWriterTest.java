@@ -0,0 +1,163 @@
+package global.goit.java_final_n_kovalchuk.partition;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
+import global.goit.java_final_n_kovalchuk.parser.xml.JacksonXmlParser;
+import global.goit.java_final_n_kovalchuk.writer.AppendableFileWriter;
+import global.goit.java_final_n_kovalchuk.writer.csv.CsvWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonLinesWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonWriter;
+import global.goit.java_final_n_kovalchuk.writer.xml.XmlWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionedRecordWriter.
+ */
+class PartitionedRecordWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Map<String, AppendableFileWriter<DataRecord>> WRITERS = Map.of(
+        "json", new JsonWriter(),
+        "jsonl", new JsonLinesWriter(),
+        "xml", new XmlWriter(),
+        "csv", new CsvWriter()
+    );
+
+    private static FileParser<DataRecord> parserFor(String extension) {
+        switch (extension) {
+            case "json":
+                return new JsonParser();
+            case "jsonl":
+                return new JsonLinesParser();
+            case "xml":
+                return new JacksonXmlParser();
+            default:
+                return new CsvParser();
+        }
+    }
+
+    private static DataRecord record(int id, Object country) {
+        DataRecord record = new DataRecord();
+        record.addField("id", id);
+        record.addField("name", "customer " + id);
+        if (country != null) {
+            record.addField("country", country);
+        }
+        return record;
+    }
+
+    private static List<Integer> readIds(String extension, Path file) throws FileConversionException {
+        List<Integer> ids = new ArrayList<>();
+        for (DataRecord record : parserFor(extension).parse(file.toFile())) {
+            ids.add(Integer.parseInt(record.getField("id").toString()));
+        }
+        return ids;
+    }
+
+    @Test
+    void testDirectoryNameEscapesUnsafeCharacters() {
+        // Act
+        String plain = PartitionedRecordWriter.directoryName("country", "UA");
+        String unsafe = PartitionedRecordWriter.directoryName("city", "a/b=c:d");
+        String missing = PartitionedRecordWriter.directoryName("city", null);
+        String empty = PartitionedRecordWriter.directoryName("city", "");
+
+        // Assert
+        assertEquals("country=UA", plain);
+        assertEquals("city=a%2Fb%3Dc%3Ad", unsafe);
+        assertEquals("city=" + PartitionedRecordWriter.DEFAULT_PARTITION, missing);
+        assertEquals(missing, empty);
+    }
+
+    @Test
+    void testRoutesRecordsToHiveStyleDirectories() throws FileConversionException {
+        // Arrange
+        Path output = tempDir.resolve("out").resolve("part.json");
+        PartitionedRecordWriter writer = new PartitionedRecordWriter(new JsonWriter(), output,
+            List.of("country"), 16, 1024 * 1024);
+
+        // Act
+        writer.write(record(1, "UA"));
+        writer.write(record(2, "PL"));
+        writer.write(record(3, "UA"));
+        writer.write(record(4, null));
+        writer.close();
+
+        // Assert
+        Path ua = tempDir.resolve("out").resolve("country=UA").resolve("part.json");
+        Path pl = tempDir.resolve("out").resolve("country=PL").resolve("part.json");
+        Path missing = tempDir.resolve("out")
+            .resolve("country=" + PartitionedRecordWriter.DEFAULT_PARTITION).resolve("part.json");
+        assertEquals(List.of(ua, pl, missing), writer.getPartitionPaths());
+        assertEquals(List.of(1, 3), readIds("json", ua));
+        assertEquals(List.of(2), readIds("json", pl));
+        assertEquals(List.of(4), readIds("json", missing));
+        assertFalse(new JsonParser().parse(ua.toFile()).get(0).hasField("country"),
+            "The directory name holds the partition value");
+        assertEquals(0, writer.getReopened());
+    }
+
+    @Test
+    void testReopensEvictedFilesForAppending() throws FileConversionException {
+        for (String extension : WRITERS.keySet()) {
+            // Arrange
+            Path output = tempDir.resolve(extension).resolve("part." + extension);
+            PartitionedRecordWriter writer = new PartitionedRecordWriter(WRITERS.get(extension), output,
+                List.of("country"), 2, 4096);
+
+            // Act
+            for (int id = 0; id < 3000; id++) {
+                writer.write(record(id, "c" + id % 5));
+            }
+            writer.close();
+
+            // Assert
+            assertTrue(writer.getReopened() > 0, extension);
+            List<Path> paths = writer.getPartitionPaths();
+            assertEquals(5, paths.size(), extension);
+            for (int partition = 0; partition < 5; partition++) {
+                List<Integer> ids = readIds(extension, paths.get(partition));
+                assertEquals(600, ids.size(), extension + " partition " + partition);
+                for (int i = 0; i < ids.size(); i++) {
+                    assertEquals(partition + 5 * i, ids.get(i), extension);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testWritesManyPartitionsWithFewOpenFiles() throws FileConversionException {
+        // Arrange
+        Path output = tempDir.resolve("many").resolve("part.jsonl");
+        PartitionedRecordWriter writer = new PartitionedRecordWriter(new JsonLinesWriter(), output,
+            List.of("country", "name"), 8, 64 * 1024);
+
+        // Act
+        for (int id = 0; id < 12_000; id++) {
+            writer.write(record(id, "c" + id % 3));
+        }
+        writer.close();
+
+        // Assert
+        assertEquals(12_000, writer.getPartitionPaths().size());
+        Path file = tempDir.resolve("many").resolve("country=c1").resolve("name=customer 4").resolve("part.jsonl");
+        assertEquals(List.of(4), readIds("jsonl", file));
+        assertEquals(writer.getBytes(), writer.getPartitionPaths().stream().mapToLong(path -> path.toFile().length()).sum());
+        assertTrue(Files.exists(file));
+    }
+}
@@ -0,0 +1,174 @@
+package global.goit.java_final_n_kovalchuk.pipeline;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.metrics.QueueStatistics;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SpscRingBuffer, PipelinedRecordReader and PipelinedRecordWriter.
+ */
+class SpscRingBufferTest {
+
+    /**
+     * Returns records with ids 0 to count - 1, then fails if failAt is reached first.
+     */
+    private static RecordReader<DataRecord> source(int count, int failAt) {
+        return new RecordReader<>() {
+            private int next;
+
+            @Override
+            public DataRecord read() throws FileConversionException {
+                if (next == failAt) {
+                    throw new FileConversionException("Broken record " + next);
+                }
+                if (next == count) {
+                    return null;
+                }
+                DataRecord record = new DataRecord();
+                record.addField("id", next++);
+                return record;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    void testPassesElementsInOrderBetweenThreads() throws InterruptedException {
+        // Arrange
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        List<Integer> taken = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            for (Integer element = buffer.take(); element != null; element = buffer.take()) {
+                taken.add(element);
+            }
+        });
+
+        // Act
+        consumer.start();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(buffer.put(i));
+        }
+        buffer.close();
+        consumer.join();
+
+        // Assert
+        assertEquals(100_000, taken.size());
+        for (int i = 0; i < taken.size(); i++) {
+            assertEquals(i, taken.get(i));
+        }
+        QueueStatistics statistics = buffer.getStatistics("test");
+        assertEquals(4, statistics.getCapacity());
+        assertEquals(100_000, statistics.getPuts());
+        assertTrue(statistics.getMaxDepth() <= 4);
+    }
+
+    @Test
+    void testCloseReleasesWaitingProducer() throws InterruptedException {
+        // Arrange
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);
+        AtomicBoolean lastPut = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 4; i++) {
+                buffer.put(i);
+            }
+            lastPut.set(buffer.put(4));
+        });
+
+        // Act
+        producer.start();
+        Thread.sleep(50);
+        buffer.close();
+        producer.join();
+
+        // Assert
+        assertEquals(4, buffer.capacity());
+        assertFalse(lastPut.get());
+        assertEquals(0, buffer.take());
+        assertTrue(buffer.getStatistics("test").getFullWaits() >= 1);
+    }
+
+    @Test
+    void testPipelinedReaderReturnsEveryRecordAndThenTheFailure() throws FileConversionException {
+        // Arrange
+        PipelinedRecordReader complete = new PipelinedRecordReader(source(2500, -1), 100, 2);
+        PipelinedRecordReader broken = new PipelinedRecordReader(source(2500, 250), 100, 2);
+
+        // Act
+        List<Object> ids = new ArrayList<>();
+        try (complete) {
+            for (DataRecord record = complete.read(); record != null; record = complete.read()) {
+                ids.add(record.getField("id"));
+            }
+        }
+        int readBeforeFailure = 0;
+        FileConversionException exception;
+        try (broken) {
+            exception = assertThrows(FileConversionException.class, () -> {
+                while (broken.read() != null) {
+                    // read up to the failure
+                }
+            });
+            readBeforeFailure = (int) broken.getStatistics().getPuts();
+        }
+
+        // Assert
+        assertEquals(2500, ids.size());
+        assertEquals(2499, ids.get(2499));
+        assertNull(complete.read());
+        assertEquals("Broken record 250", exception.getMessage());
+        assertTrue(readBeforeFailure >= 2);
+    }
+
+    @Test
+    void testPipelinedWriterWritesInOrderAndReportsFailures() throws FileConversionException {
+        // Arrange
+        List<Object> written = new ArrayList<>();
+        AtomicBoolean closed = new AtomicBoolean();
+        RecordWriter<DataRecord> target = new RecordWriter<>() {
+            @Override
+            public void write(DataRecord record) throws FileConversionException {
+                if (record.getField("id").equals(-1)) {
+                    throw new FileConversionException("Cannot write record -1");
+                }
+                written.add(record.getField("id"));
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        PipelinedRecordWriter writer = new PipelinedRecordWriter(target, 64, 2);
+        PipelinedRecordWriter failing = new PipelinedRecordWriter(target, 64, 2);
+
+        // Act
+        RecordReader<DataRecord> records = source(1000, -1);
+        for (DataRecord record = records.read(); record != null; record = records.read()) {
+            writer.write(record);
+        }
+        writer.close();
+        DataRecord invalid = new DataRecord();
+        invalid.addField("id", -1);
+        failing.write(invalid);
+        FileConversionException exception = assertThrows(FileConversionException.class, failing::close);
+        failing.abort();
+
+        // Assert
+        assertEquals(1000, written.size());
+        assertEquals(999, written.get(999));
+        assertTrue(closed.get());
+        assertEquals("Cannot write record -1", exception.getMessage());
+    }
+}
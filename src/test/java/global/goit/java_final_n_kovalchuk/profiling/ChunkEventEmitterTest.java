@@ -0,0 +1,75 @@
+package global.goit.java_final_n_kovalchuk.profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChunkEventEmitter.
+ */
+class ChunkEventEmitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEmitsOneEventPerChunk() throws Exception {
+        // Arrange
+        Path dump = tempDir.resolve("chunks.jfr");
+        int recordCount = ChunkEventEmitter.CHUNK_SIZE * 2 + 10;
+
+        // Act
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseChunkEvent.NAME);
+            recording.start();
+
+            ChunkEventEmitter emitter = new ChunkEventEmitter(ParseChunkEvent::new, "CSV");
+            for (int i = 0; i < recordCount; i++) {
+                emitter.recordProcessed();
+            }
+            emitter.finish();
+            emitter.finish();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // Assert
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+            .filter(event -> event.getEventType().getName().equals(ParseChunkEvent.NAME))
+            .collect(Collectors.toList());
+        assertEquals(3, events.size());
+        assertEquals(List.of(ChunkEventEmitter.CHUNK_SIZE, ChunkEventEmitter.CHUNK_SIZE, 10),
+            events.stream().map(event -> event.getInt("records")).collect(Collectors.toList()));
+        assertEquals("CSV", events.get(0).getString("format"));
+    }
+
+    @Test
+    void testFinishWithoutRecordsEmitsNothing() throws Exception {
+        // Arrange
+        Path dump = tempDir.resolve("empty.jfr");
+
+        // Act
+        try (Recording recording = new Recording()) {
+            recording.enable(WriteChunkEvent.NAME);
+            recording.start();
+
+            new ChunkEventEmitter(WriteChunkEvent::new, "JSON").finish();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // Assert
+        assertTrue(RecordingFile.readAllEvents(dump).stream()
+            .noneMatch(event -> event.getEventType().getName().equals(WriteChunkEvent.NAME)));
+    }
+}
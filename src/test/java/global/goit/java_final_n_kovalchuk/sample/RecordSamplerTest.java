@@ -0,0 +1,112 @@
+package global.goit.java_final_n_kovalchuk.sample;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordSampler.
+ */
+class RecordSamplerTest {
+
+    private static DataRecord record(int id) {
+        DataRecord record = new DataRecord();
+        record.addField("id", id);
+        return record;
+    }
+
+    /**
+     * Offers records 0 to count - 1, optionally skipping rejected records as a reader would,
+     * and returns the ids of the sample in output order.
+     */
+    private static List<Integer> sample(RecordSampler sampler, int count, boolean skipRejected)
+            throws FileConversionException {
+        List<Integer> ids = new ArrayList<>();
+        int id = 0;
+        while (id < count) {
+            if (skipRejected && sampler.pendingSkip() > 0) {
+                long skip = Math.min(sampler.pendingSkip(), count - id);
+                sampler.skipped(skip);
+                id += (int) skip;
+                continue;
+            }
+            if (sampler.add(record(id))) {
+                ids.add(id);
+            }
+            id++;
+        }
+        try (RecordReader<DataRecord> reader = sampler.openReader()) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                ids.add((Integer) record.getField("id"));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void testParseSpecification() throws InvalidInputException {
+        // Act & Assert
+        assertTrue(RecordSampler.parse("100", 1).isReservoir());
+        assertFalse(RecordSampler.parse(" 2.5% ", 1).isReservoir());
+        assertThrows(InvalidInputException.class, () -> RecordSampler.parse("0", 1));
+        assertThrows(InvalidInputException.class, () -> RecordSampler.parse("150%", 1));
+        assertThrows(InvalidInputException.class, () -> RecordSampler.parse("0%", 1));
+        assertThrows(InvalidInputException.class, () -> RecordSampler.parse("some", 1));
+    }
+
+    @Test
+    void testReservoirKeepsExactCountInInputOrder() throws FileConversionException, InvalidInputException {
+        // Act
+        List<Integer> ids = sample(RecordSampler.parse("500", 42), 100_000, false);
+
+        // Assert
+        assertEquals(500, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+        long secondHalf = ids.stream().filter(id -> id >= 50_000).count();
+        assertTrue(secondHalf > 200 && secondHalf < 300, "second half " + secondHalf);
+    }
+
+    @Test
+    void testReservoirOfSmallInputKeepsEveryRecord() throws FileConversionException, InvalidInputException {
+        // Act
+        List<Integer> ids = sample(RecordSampler.parse("10", 42), 4, false);
+
+        // Assert
+        assertEquals(List.of(0, 1, 2, 3), ids);
+    }
+
+    @Test
+    void testPercentageKeepsAboutThatShare() throws FileConversionException, InvalidInputException {
+        // Arrange
+        RecordSampler sampler = RecordSampler.parse("5%", 7);
+
+        // Act
+        List<Integer> ids = sample(sampler, 200_000, false);
+
+        // Assert
+        assertTrue(ids.size() > 9_400 && ids.size() < 10_600, "sampled " + ids.size());
+        assertEquals(ids.size(), sampler.getSampled());
+        assertEquals(200_000, sampler.getSeen());
+        assertEquals(200_000, sample(RecordSampler.parse("100%", 7), 200_000, false).size());
+    }
+
+    @Test
+    void testSkippingRejectedRecordsSelectsTheSameSample() throws FileConversionException, InvalidInputException {
+        // Act & Assert
+        assertEquals(sample(RecordSampler.parse("300", 5), 50_000, false),
+            sample(RecordSampler.parse("300", 5), 50_000, true));
+        assertEquals(sample(RecordSampler.parse("1%", 5), 50_000, false),
+            sample(RecordSampler.parse("1%", 5), 50_000, true));
+        assertNotEquals(sample(RecordSampler.parse("1%", 5), 50_000, false),
+            sample(RecordSampler.parse("1%", 6), 50_000, false));
+    }
+}
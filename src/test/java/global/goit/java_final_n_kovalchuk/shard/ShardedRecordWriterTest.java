@@ -0,0 +1,165 @@
+package global.goit.java_final_n_kovalchuk.shard;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.FileParser;
+import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
+import global.goit.java_final_n_kovalchuk.parser.xml.JacksonXmlParser;
+import global.goit.java_final_n_kovalchuk.writer.FileWriter;
+import global.goit.java_final_n_kovalchuk.writer.csv.CsvWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonLinesWriter;
+import global.goit.java_final_n_kovalchuk.writer.json.JsonWriter;
+import global.goit.java_final_n_kovalchuk.writer.xml.XmlWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardedRecordWriter.
+ */
+class ShardedRecordWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Map<String, FileWriter<DataRecord>> WRITERS = Map.of(
+        "json", new JsonWriter(),
+        "jsonl", new JsonLinesWriter(),
+        "xml", new XmlWriter(),
+        "csv", new CsvWriter()
+    );
+
+    private static FileParser<DataRecord> parserFor(String extension) {
+        switch (extension) {
+            case "json":
+                return new JsonParser();
+            case "jsonl":
+                return new JsonLinesParser();
+            case "xml":
+                return new JacksonXmlParser();
+            default:
+                return new CsvParser();
+        }
+    }
+
+    private static DataRecord record(int id) {
+        DataRecord record = new DataRecord();
+        record.addField("id", id);
+        record.addField("name", "customer \"" + id + "\" " + "x".repeat(id % 40));
+        record.addField("city", id % 3 == 0 ? "Київ" : "Lviv");
+        return record;
+    }
+
+    private static List<Path> writeShards(String extension, int records, long maxRecords, long maxBytes,
+                                          Path output) throws FileConversionException {
+        ShardedRecordWriter writer = new ShardedRecordWriter(WRITERS.get(extension), output, maxRecords, maxBytes, 3);
+        for (int id = 0; id < records; id++) {
+            writer.write(record(id));
+        }
+        writer.close();
+        return writer.getShardPaths();
+    }
+
+    private static List<Integer> readIds(String extension, Path shard) throws FileConversionException {
+        List<Integer> ids = new ArrayList<>();
+        for (DataRecord record : parserFor(extension).parse(shard.toFile())) {
+            ids.add(Integer.parseInt(record.getField("id").toString()));
+        }
+        return ids;
+    }
+
+    @Test
+    void testShardPathInsertsNumberBeforeExtension() {
+        // Arrange
+        Path output = Path.of("data", "out.json");
+
+        // Act
+        Path first = ShardedRecordWriter.shardPath(output, 0);
+        Path later = ShardedRecordWriter.shardPath(Path.of("out"), 12);
+
+        // Assert
+        assertEquals(Path.of("data", "out-00000.json"), first);
+        assertEquals(Path.of("out-00012"), later);
+    }
+
+    @Test
+    void testSplitsByRecordCountIntoCompleteDocuments() throws FileConversionException {
+        for (String extension : WRITERS.keySet()) {
+            // Arrange
+            Path output = tempDir.resolve(extension).resolve("out." + extension);
+            output.getParent().toFile().mkdirs();
+
+            // Act
+            List<Path> shards = writeShards(extension, 2500, 1000, 0, output);
+
+            // Assert
+            assertEquals(3, shards.size(), extension);
+            assertFalse(Files.exists(output), "Only the shards are written");
+            List<Integer> ids = new ArrayList<>();
+            int[] expectedSizes = {1000, 1000, 500};
+            for (int i = 0; i < shards.size(); i++) {
+                assertEquals(ShardedRecordWriter.shardPath(output, i), shards.get(i));
+                List<Integer> shardIds = readIds(extension, shards.get(i));
+                assertEquals(expectedSizes[i], shardIds.size(), extension + " shard " + i);
+                ids.addAll(shardIds);
+            }
+            for (int id = 0; id < 2500; id++) {
+                assertEquals(id, ids.get(id), extension);
+            }
+        }
+    }
+
+    @Test
+    void testSplitsByBytesWithinLimit() throws FileConversionException, IOException {
+        for (String extension : WRITERS.keySet()) {
+            for (long maxRecords : new long[] {0, 500}) {
+                // Arrange
+                long maxBytes = 50_000;
+                Path output = tempDir.resolve(extension + maxRecords).resolve("out." + extension);
+                output.getParent().toFile().mkdirs();
+
+                // Act
+                List<Path> shards = writeShards(extension, 5000, maxRecords, maxBytes, output);
+
+                // Assert
+                String name = extension + " with " + maxRecords + " records per shard";
+                assertTrue(shards.size() > 3, name);
+                List<Integer> ids = new ArrayList<>();
+                for (Path shard : shards) {
+                    assertTrue(Files.size(shard) <= maxBytes, name + ": " + shard + " has " + Files.size(shard));
+                    List<Integer> shardIds = readIds(extension, shard);
+                    assertTrue(maxRecords == 0 || shardIds.size() <= maxRecords, name);
+                    ids.addAll(shardIds);
+                }
+                assertEquals(5000, ids.size(), name);
+                for (int id = 0; id < 5000; id++) {
+                    assertEquals(id, ids.get(id), name);
+                }
+                assertTrue(maxRecords > 0 || Files.size(shards.get(0)) > maxBytes / 2, name + ": shards are filled");
+            }
+        }
+    }
+
+    @Test
+    void testWritesOneEmptyShardWithoutRecords() throws FileConversionException {
+        // Arrange
+        Path output = tempDir.resolve("empty.json");
+
+        // Act
+        List<Path> shards = writeShards("json", 0, 10, 0, output);
+
+        // Assert
+        assertEquals(List.of(tempDir.resolve("empty-00000.json")), shards);
+        assertTrue(readIds("json", shards.get(0)).isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+package global.goit.java_final_n_kovalchuk.sort;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.exception.InvalidInputException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import global.goit.java_final_n_kovalchuk.spill.SpillStatistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecordSorter and SortKey.
+ */
+class RecordSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DataRecord record(int id, Object amount, String name) {
+        DataRecord record = new DataRecord();
+        record.addField("id", id);
+        record.addField("amount", amount);
+        record.addField("name", name);
+        return record;
+    }
+
+    private static List<DataRecord> readAll(RecordSorter sorter) throws FileConversionException {
+        List<DataRecord> records = new ArrayList<>();
+        try (RecordReader<DataRecord> reader = sorter.openReader()) {
+            for (DataRecord record = reader.read(); record != null; record = reader.read()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void testParseSpecification() throws InvalidInputException {
+        // Act
+        List<SortKey> keys = SortKey.parseList("amount:DESC, name ,id:asc");
+
+        // Assert
+        assertEquals(3, keys.size());
+        assertEquals("amount", keys.get(0).getField());
+        assertTrue(keys.get(0).isDescending());
+        assertFalse(keys.get(1).isDescending());
+        assertEquals("id:asc", keys.get(2).toString());
+        assertThrows(InvalidInputException.class, () -> SortKey.parseList("amount:down"));
+        assertThrows(InvalidInputException.class, () -> SortKey.parseList("amount,,id"));
+    }
+
+    @Test
+    void testNumbersCompareByValueAndNullsComeLast() throws Exception {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+        List<DataRecord> input = List.of(
+            record(1, "10", "a"), record(2, null, "b"), record(3, 9.5, "c"), record(4, "abc", "d"), record(5, 100, "e"));
+
+        // Act
+        List<Object> ascending = new ArrayList<>();
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount"), Long.MAX_VALUE, 0, statistics)) {
+            for (DataRecord record : input) {
+                sorter.add(record);
+            }
+            readAll(sorter).forEach(record -> ascending.add(record.getField("id")));
+        }
+        List<Object> descending = new ArrayList<>();
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount:desc"), Long.MAX_VALUE, 0, statistics)) {
+            for (DataRecord record : input) {
+                sorter.add(record);
+            }
+            readAll(sorter).forEach(record -> descending.add(record.getField("id")));
+        }
+
+        // Assert
+        assertEquals(List.of(3, 1, 5, 4, 2), ascending, "Numbers before text, text before null");
+        assertEquals(List.of(4, 5, 1, 3, 2), descending, "Null stays last when descending");
+    }
+
+    @Test
+    void testExternalSortMergesSpilledRunsStably() throws Exception {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+        Random random = new Random(42);
+        List<DataRecord> input = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            input.add(record(i, random.nextInt(50), "name-" + i));
+        }
+
+        // Act
+        List<DataRecord> sorted;
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount:desc"), 32 * 1024, 0, statistics, tempDir)) {
+            for (DataRecord record : input) {
+                sorter.add(record);
+            }
+            sorted = readAll(sorter);
+        }
+
+        // Assert
+        assertTrue(statistics.getFiles() > 1, "A small budget should spill several runs");
+        assertEquals(5000, sorted.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            int previousAmount = (Integer) sorted.get(i - 1).getField("amount");
+            int amount = (Integer) sorted.get(i).getField("amount");
+            assertTrue(previousAmount >= amount, "Records should be in descending order");
+            if (previousAmount == amount) {
+                assertTrue((Integer) sorted.get(i - 1).getField("id") < (Integer) sorted.get(i).getField("id"),
+                    "Equal keys should keep their input order");
+            }
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count(), "Run files should be deleted on close");
+        }
+    }
+
+    @Test
+    void testLimitKeepsTopRecordsInBoundedHeap() throws Exception {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+
+        // Act
+        List<DataRecord> top;
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount:desc,name"), 1, 3, statistics)) {
+            for (int i = 0; i < 1000; i++) {
+                sorter.add(record(i, i % 100, "name-" + (i % 7)));
+            }
+            top = readAll(sorter);
+        }
+
+        // Assert
+        assertEquals(0, statistics.getFiles(), "The top-K heap should never spill");
+        assertEquals(3, top.size());
+        assertEquals(List.of(99, 99, 99), List.of(top.get(0).getField("amount"), top.get(1).getField("amount"),
+            top.get(2).getField("amount")));
+        assertEquals(List.of("name-0", "name-1", "name-1"), List.of(top.get(0).getField("name"),
+            top.get(1).getField("name"), top.get(2).getField("name")));
+        assertEquals(99, top.get(1).getField("id"), "Ties should be broken by input order");
+        assertEquals(799, top.get(2).getField("id"));
+    }
+
+    @Test
+    void testLargeIntegersCompareExactlyInMemoryAndAfterSpilling() throws Exception {
+        // Arrange
+        long base = 1L << 60;
+        // Neighbours that are equal as doubles, in reverse order, as numbers, text and mixed types
+        List<DataRecord> input = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            long value = base + 3000 - i;
+            Object amount = i % 3 == 0 ? (Object) value : i % 3 == 1 ? Long.toString(value) : BigInteger.valueOf(value);
+            input.add(record(i, amount, "n" + i));
+        }
+        input.add(record(3000, "99999999999999999999", "beyond long"));
+        input.add(record(3001, base + 0.5, "fraction"));
+
+        // Act
+        List<DataRecord> inMemory;
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount"), Long.MAX_VALUE, 0,
+                new SpillStatistics())) {
+            input.forEach(record -> assertDoesNotThrow(() -> sorter.add(record)));
+            inMemory = readAll(sorter);
+        }
+        SpillStatistics statistics = new SpillStatistics();
+        List<DataRecord> spilled;
+        try (RecordSorter sorter = new RecordSorter(SortKey.parseList("amount"), 32 * 1024, 0, statistics, tempDir)) {
+            input.forEach(record -> assertDoesNotThrow(() -> sorter.add(record)));
+            spilled = readAll(sorter);
+        }
+
+        // Assert
+        assertTrue(statistics.getFiles() > 1, "A small budget should spill several runs");
+        for (List<DataRecord> sorted : List.of(inMemory, spilled)) {
+            assertEquals(3001, sorted.get(0).getField("id"), "2^60 + 0.5 is below 2^60 + 1");
+            for (int i = 1; i < 3001; i++) {
+                assertEquals(3000 - i, sorted.get(i).getField("id"));
+            }
+            assertEquals(3000, sorted.get(3001).getField("id"));
+        }
+        assertTrue(spilled.get(1).getField("amount") instanceof BigInteger, "Spilling keeps the number type");
+    }
+}
@@ -0,0 +1,104 @@
+package global.goit.java_final_n_kovalchuk.spill;
+
+import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SpillingRecordBuffer and the spill file encoding.
+ */
+class SpillingRecordBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordsReplayInOrderAfterSpilling() throws Exception {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+        List<DataRecord> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            DataRecord record = new DataRecord();
+            record.addField("id", i);
+            record.addField("name", "name-" + i);
+            record.addField(i % 2 == 0 ? "even" : "odd", i % 3 == 0 ? null : (long) i * 3);
+            expected.add(record);
+        }
+
+        // Act
+        List<DataRecord> actual = new ArrayList<>();
+        try (SpillingRecordBuffer buffer = new SpillingRecordBuffer(16 * 1024, statistics, tempDir)) {
+            for (DataRecord record : expected) {
+                buffer.add(record);
+            }
+            assertEquals(Set.of("id", "name", "even", "odd"), buffer.getFieldNames());
+            try (RecordReader<DataRecord> reader = buffer.openReader()) {
+                DataRecord record;
+                while ((record = reader.read()) != null) {
+                    actual.add(record);
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(expected, actual);
+        assertTrue(statistics.getFiles() > 0, "A 16 KB budget should force spills");
+        assertTrue(statistics.getBytes() > 0);
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count(), "Spill files should be deleted on close");
+        }
+    }
+
+    @Test
+    void testNestedValuesSurviveSpillFile() throws FileConversionException {
+        // Arrange
+        DataRecord record = new DataRecord();
+        record.addField("address", Map.of("city", "Kyiv", "zip", 1001));
+        record.addField("tags", List.of("a", true, -5, 2.5));
+        record.addField("missing", null);
+
+        // Act
+        DataRecord restored;
+        try (SpillFile file = SpillFile.create(tempDir)) {
+            file.write(record);
+            try (RecordReader<DataRecord> reader = file.openReader()) {
+                restored = reader.read();
+                assertNull(reader.read());
+            }
+        }
+
+        // Assert
+        assertEquals(record, restored);
+    }
+
+    @Test
+    void testUnlimitedBudgetNeverSpills() throws FileConversionException {
+        // Arrange
+        SpillStatistics statistics = new SpillStatistics();
+
+        // Act
+        try (SpillingRecordBuffer buffer = new SpillingRecordBuffer(SpillingRecordBuffer.UNLIMITED, statistics, tempDir)) {
+            for (int i = 0; i < 2000; i++) {
+                DataRecord record = new DataRecord();
+                record.addField("value", "text-" + i);
+                buffer.add(record);
+            }
+
+            // Assert
+            assertEquals(2000, buffer.size());
+            assertEquals(2000, buffer.getBatch().size());
+        }
+        assertEquals(0, statistics.getFiles());
+    }
+}
@@ -233,4 +233,28 @@ class FormatDetectorTest {
         // Assert - should trim whitespace
         assertEquals(FormatDetector.FileFormat.JSON, format);
     }
+
+    @Test
+    void testParseFormatName() throws InvalidInputException {
+        assertEquals(FormatDetector.FileFormat.JSON, FormatDetector.parseFormat("json"));
+        assertEquals(FormatDetector.FileFormat.XML, FormatDetector.parseFormat("XML"));
+        assertEquals(FormatDetector.FileFormat.CSV, FormatDetector.parseFormat(".csv"));
+    }
+
+    @Test
+    void testParseUnsupportedFormatName() {
+        InvalidInputException exception = assertThrows(
+                InvalidInputException.class,
+                () -> FormatDetector.parseFormat("yaml")
+        );
+
+        assertTrue(exception.getMessage().contains("Unsupported format"));
+    }
+
+    @Test
+    void testDetectJsonLinesFormats() throws InvalidInputException {
+        assertEquals(FormatDetector.FileFormat.JSONL, FormatDetector.detectFormat("events.jsonl"));
+        assertEquals(FormatDetector.FileFormat.JSONL, FormatDetector.detectFormat("events.NDJSON"));
+        assertEquals(FormatDetector.FileFormat.JSONL, FormatDetector.parseFormat("ndjson"));
+    }
 }
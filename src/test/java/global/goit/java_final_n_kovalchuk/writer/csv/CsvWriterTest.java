@@ -4,12 +4,17 @@ import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
 import global.goit.java_final_n_kovalchuk.parser.csv.CsvParser;
 import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -612,4 +617,77 @@ class CsvWriterTest {
         assertTrue(content.contains("John Doe"));
         assertTrue(content.contains("30"));
     }
+
+
+    @Test
+    void testOpenAppendWritesRowsInHeaderOrder() throws Exception {
+        // Arrange
+        File outputFile = tempDir.resolve("append.csv").toFile();
+        CsvWriter writer = new CsvWriter();
+        DataRecord first = new DataRecord();
+        first.addField("name", "John Doe");
+        first.addField("age", "30");
+        writer.write(List.of(first), outputFile);
+        DataRecord second = new DataRecord();
+        second.addField("age", "25");
+        second.addField("name", "Jane, \"Doe\"");
+        DataRecord third = new DataRecord();
+        third.addField("name", "Ann");
+
+        // Act
+        try (FileChannel channel = FileChannel.open(outputFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordWriter<DataRecord> recordWriter = writer.openAppend(channel, 1)) {
+            recordWriter.write(second);
+            recordWriter.write(third);
+        }
+
+        // Assert
+        List<DataRecord> parsedRecords = new CsvParser().parse(outputFile);
+        assertEquals(3, parsedRecords.size());
+        assertEquals("John Doe", parsedRecords.get(0).getField("name"));
+        assertEquals("Jane, \"Doe\"", parsedRecords.get(1).getField("name"));
+        assertEquals("25", parsedRecords.get(1).getField("age"));
+        assertEquals("Ann", parsedRecords.get(2).getField("name"));
+        assertNull(parsedRecords.get(2).getField("age"));
+    }
+
+    @Test
+    void testOpenAppendRejectsFieldOutsideHeader() throws Exception {
+        // Arrange
+        File outputFile = tempDir.resolve("append_unknown.csv").toFile();
+        CsvWriter writer = new CsvWriter();
+        DataRecord first = new DataRecord();
+        first.addField("name", "John Doe");
+        writer.write(List.of(first), outputFile);
+        DataRecord second = new DataRecord();
+        second.addField("city", "Kyiv");
+
+        // Act & Assert
+        try (FileChannel channel = FileChannel.open(outputFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordWriter<DataRecord> recordWriter = writer.openAppend(channel, 1)) {
+            FileConversionException exception = assertThrows(FileConversionException.class,
+                () -> recordWriter.write(second));
+            assertTrue(exception.getMessage().contains("'city'"));
+        }
+    }
+
+
+    @Test
+    void testOpenWithKnownColumnsWritesRowsRightAway() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter();
+        DataRecord record = new DataRecord();
+        record.addField("name", "John Doe");
+
+        // Act
+        RecordWriter<DataRecord> recordWriter = writer.open(output, List.of("age", "name"));
+        recordWriter.write(record);
+        recordWriter.flush();
+        String written = output.toString(StandardCharsets.UTF_8);
+        recordWriter.close();
+
+        // Assert
+        assertEquals("\"age\",\"name\"\n\"\",\"John Doe\"\n", written);
+    }
 }
@@ -0,0 +1,64 @@
+package global.goit.java_final_n_kovalchuk.writer.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.json.JsonLinesParser;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JsonLinesWriter.
+ */
+class JsonLinesWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWritesOneCompactObjectPerLine() throws Exception {
+        // Arrange
+        ObjectMapper indenting = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JsonLinesWriter writer = new JsonLinesWriter(indenting);
+        DataRecord first = new DataRecord();
+        first.addField("id", 1);
+        DataRecord second = new DataRecord();
+        second.addField("address", Map.of("city", "Kyiv"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (RecordWriter<DataRecord> recordWriter = writer.open(output)) {
+            recordWriter.write(first);
+            recordWriter.write(second);
+        }
+
+        // Assert
+        assertEquals("{\"id\":1}\n{\"address\":{\"city\":\"Kyiv\"}}\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRoundTripThroughFile() throws Exception {
+        // Arrange
+        File file = tempDir.resolve("records.ndjson").toFile();
+        DataRecord record = new DataRecord();
+        record.addField("name", "Jane");
+        record.addField("active", true);
+
+        // Act
+        new JsonLinesWriter().write(List.of(record, record), file);
+        List<DataRecord> records = new JsonLinesParser().parse(file);
+
+        // Assert
+        assertEquals(List.of(record, record), records);
+    }
+}
@@ -6,6 +6,7 @@ import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
 import global.goit.java_final_n_kovalchuk.writer.json.JsonWriter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -13,6 +14,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -293,4 +298,94 @@ class JsonWriterTest {
         assertEquals("John Doe", parsedRecords.get(0).getField("name"));
         assertEquals(30, parsedRecords.get(0).getField("age"));
     }
+
+    @Test
+    void testOpenWritesSingleRecordAsObject() throws Exception {
+        // Arrange
+        JsonWriter writer = new JsonWriter();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataRecord record = new DataRecord();
+        record.addField("name", "John");
+
+        // Act
+        try (RecordWriter<DataRecord> recordWriter = writer.open(output)) {
+            recordWriter.write(record);
+        }
+
+        // Assert
+        String json = output.toString(StandardCharsets.UTF_8).trim();
+        assertTrue(json.startsWith("{"), "A single record should be written as an object");
+    }
+
+    @Test
+    void testOpenWritesSeveralRecordsAsArray() throws Exception {
+        // Arrange
+        JsonWriter writer = new JsonWriter();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (RecordWriter<DataRecord> recordWriter = writer.open(output)) {
+            for (int i = 0; i < 3; i++) {
+                DataRecord record = new DataRecord();
+                record.addField("id", i);
+                recordWriter.write(record);
+            }
+        }
+
+        // Assert
+        String json = output.toString(StandardCharsets.UTF_8).trim();
+        assertTrue(json.startsWith("[") && json.endsWith("]"), "Several records should be written as an array");
+        assertTrue(json.contains("\"id\" : 2"));
+    }
+
+
+    @Test
+    void testOpenAppendTurnsSingleObjectIntoArray() throws Exception {
+        // Arrange
+        File outputFile = tempDir.resolve("append.json").toFile();
+        JsonWriter writer = new JsonWriter();
+        DataRecord first = new DataRecord();
+        first.addField("id", 1);
+        DataRecord second = new DataRecord();
+        second.addField("id", 2);
+        writer.write(List.of(first), outputFile);
+
+        // Act
+        try (FileChannel channel = FileChannel.open(outputFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordWriter<DataRecord> recordWriter = writer.openAppend(channel, 1)) {
+            recordWriter.write(second);
+        }
+
+        // Assert
+        List<DataRecord> parsedRecords = new JsonParser().parse(outputFile);
+        assertEquals(2, parsedRecords.size());
+        assertEquals(1, parsedRecords.get(0).getField("id"));
+        assertEquals(2, parsedRecords.get(1).getField("id"));
+    }
+
+    @Test
+    void testOpenAppendKeepsArrayFormatting() throws Exception {
+        // Arrange
+        File appendedFile = tempDir.resolve("appended.json").toFile();
+        File completeFile = tempDir.resolve("complete.json").toFile();
+        JsonWriter writer = new JsonWriter();
+        List<DataRecord> records = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            DataRecord record = new DataRecord();
+            record.addField("id", i);
+            records.add(record);
+        }
+        writer.write(records.subList(0, 2), appendedFile);
+        writer.write(records, completeFile);
+
+        // Act
+        try (FileChannel channel = FileChannel.open(appendedFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordWriter<DataRecord> recordWriter = writer.openAppend(channel, 2)) {
+            recordWriter.write(records.get(2));
+            recordWriter.write(records.get(3));
+        }
+
+        // Assert
+        assertEquals(Files.readString(completeFile.toPath()), Files.readString(appendedFile.toPath()));
+    }
 }
@@ -2,14 +2,21 @@ package global.goit.java_final_n_kovalchuk.writer.xml;
 
 import global.goit.java_final_n_kovalchuk.exception.FileConversionException;
 import global.goit.java_final_n_kovalchuk.model.DataRecord;
+import global.goit.java_final_n_kovalchuk.parser.RecordReader;
 import global.goit.java_final_n_kovalchuk.parser.json.JsonParser;
 import global.goit.java_final_n_kovalchuk.parser.xml.JacksonXmlParser;
+import global.goit.java_final_n_kovalchuk.writer.RecordWriter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -589,4 +596,157 @@ class XmlWriterTest {
         assertTrue(content.contains("<description>"));
         assertTrue(content.contains("</records>"));
     }
+
+
+    @Test
+    void testOpenAppendRewritesOnlyClosingTag() throws Exception {
+        // Arrange
+        File appendedFile = tempDir.resolve("appended.xml").toFile();
+        File completeFile = tempDir.resolve("complete.xml").toFile();
+        XmlWriter writer = new XmlWriter();
+        List<DataRecord> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DataRecord record = new DataRecord();
+            record.addField("id", i);
+            records.add(record);
+        }
+        writer.write(records.subList(0, 1), appendedFile);
+        writer.write(records, completeFile);
+
+        // Act
+        try (FileChannel channel = FileChannel.open(appendedFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             RecordWriter<DataRecord> recordWriter = writer.openAppend(channel, 1)) {
+            recordWriter.write(records.get(1));
+            recordWriter.write(records.get(2));
+        }
+
+        // Assert
+        assertEquals(Files.readString(completeFile.toPath()), Files.readString(appendedFile.toPath()));
+    }
+
+    @Test
+    void testOpenAppendRejectsForeignDocument() throws Exception {
+        // Arrange
+        Path foreign = Files.writeString(tempDir.resolve("foreign.xml"), "<other/>\n");
+        XmlWriter writer = new XmlWriter();
+
+        // Act & Assert
+        try (FileChannel channel = FileChannel.open(foreign, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertThrows(FileConversionException.class, () -> writer.openAppend(channel, 0));
+        }
+    }
+
+    @Test
+    void testEscapesTextTheWayStaxDid() throws Exception {
+        // Arrange
+        DataRecord record = DataRecord.ordered(4);
+        record.addField("text", "a<b>&c\"d'e\r\nf\tg ]]> café 中 😀");
+        record.addField("empty", "");
+        record.addField("missing", null);
+        record.addField("list", List.of());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (RecordWriter<DataRecord> recordWriter = new XmlWriter().open(output)) {
+            recordWriter.write(record);
+        }
+
+        // Assert
+        assertEquals("<?xml version='1.0' encoding='UTF-8'?>\n<records>\n  <record>\n"
+            + "    <text>a&lt;b>&amp;c\"d'e&#xd;\nf\tg ]]&gt; café 中 😀</text>\n"
+            + "    <empty></empty>\n    <missing/>\n    <list>\n    </list>\n  </record>\n</records>\n",
+            output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCompactOutputHasNoWhitespaceAndReadsBack() throws Exception {
+        // Arrange
+        DataRecord record = DataRecord.ordered(4);
+        record.addField("id", 1);
+        record.addField("address", Map.of("city", "Kyiv"));
+        record.addField("tags", List.of("a", "b"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (RecordWriter<DataRecord> recordWriter = new XmlWriter(true, false).open(output)) {
+            recordWriter.write(record);
+        }
+
+        // Assert
+        assertEquals("<?xml version='1.0' encoding='UTF-8'?><records><record><id>1</id>"
+            + "<address><city>Kyiv</city></address><tags><item>a</item><item>b</item></tags></record></records>",
+            output.toString(StandardCharsets.UTF_8));
+        try (RecordReader<DataRecord> reader = new JacksonXmlParser().open(new ByteArrayInputStream(output.toByteArray()))) {
+            DataRecord parsed = reader.read();
+            assertEquals("Kyiv", ((Map<?, ?>) parsed.getField("address")).get("city"));
+            assertEquals(List.of("a", "b"), parsed.getField("tags"));
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void testLongTextAcrossBufferBoundariesReadsBack() throws Exception {
+        // Arrange
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 3 * XmlEmitter.BUFFER_SIZE) {
+            text.append("plain text & 😀 é");
+        }
+        DataRecord record = new DataRecord();
+        record.addField("text", text.toString());
+        File outputFile = tempDir.resolve("long.xml").toFile();
+
+        // Act
+        new XmlWriter().write(List.of(record), outputFile);
+
+        // Assert
+        assertEquals(text.toString(), new JacksonXmlParser().parse(outputFile).get(0).getField("text"));
+    }
+
+    @Test
+    void testRejectsCharactersXmlDoesNotAllow() {
+        // Arrange
+        DataRecord control = new DataRecord();
+        control.addField("text", "bell \u0007");
+        DataRecord surrogate = new DataRecord();
+        surrogate.addField("text", "half \ud83d pair");
+        XmlWriter writer = new XmlWriter();
+
+        // Act & Assert
+        assertThrows(FileConversionException.class,
+            () -> writer.write(List.of(control), tempDir.resolve("control.xml").toFile()));
+        assertThrows(FileConversionException.class,
+            () -> writer.write(List.of(surrogate), tempDir.resolve("surrogate.xml").toFile()));
+    }
+
+    @Test
+    void testAttributeProfileWritesScalarsAsAttributesAndReadsBack() throws Exception {
+        // Arrange
+        DataRecord record = DataRecord.ordered(5);
+        record.addField("id", 1);
+        record.addField("name", "Ann \"A\" <x>\n\ty");
+        record.addField("missing", null);
+        record.addField("address", Map.of("city", "Kyiv"));
+        record.addField("tags", List.of("a", "b"));
+        DataRecord flat = DataRecord.ordered(1);
+        flat.addField("id", 2);
+        File outputFile = tempDir.resolve("attributes.xml").toFile();
+
+        // Act
+        new XmlWriter(false, true).write(List.of(record, flat), outputFile);
+
+        // Assert
+        assertEquals("<?xml version='1.0' encoding='UTF-8'?>\n<records>\n"
+            + "  <record id=\"1\" name=\"Ann &quot;A&quot; &lt;x>&#xa;&#x9;y\">\n"
+            + "    <missing/>\n    <address city=\"Kyiv\"/>\n"
+            + "    <tags>\n      <item>a</item>\n      <item>b</item>\n    </tags>\n  </record>\n"
+            + "  <record id=\"2\"/>\n</records>\n", Files.readString(outputFile.toPath()));
+        List<DataRecord> parsed = new JacksonXmlParser().parse(outputFile);
+        assertEquals(2, parsed.size());
+        assertEquals("Ann \"A\" <x>\n\ty", parsed.get(0).getField("name"));
+        assertTrue(parsed.get(0).hasField("missing"));
+        assertNull(parsed.get(0).getField("missing"));
+        assertEquals(Map.of("city", "Kyiv"), parsed.get(0).getField("address"));
+        assertEquals(List.of("a", "b"), parsed.get(0).getField("tags"));
+        assertEquals(2, parsed.get(1).getField("id"));
+    }
 }